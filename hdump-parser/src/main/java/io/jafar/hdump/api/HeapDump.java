@@ -13,6 +13,10 @@ import java.util.stream.Stream;
  * statistics.
  *
  * <p>Instances are created via {@link HeapDumpParser#parse(Path)}.
+ *
+ * <p>Queries are thread-safe: a heap dump and its objects may be shared by several threads, and
+ * streams of objects may be processed with {@link Stream#parallel()}. Analysis computations such as
+ * {@link #computeDominators()} run one at a time, and {@link #close()} must not overlap queries.
  */
 public interface HeapDump extends Closeable {
 
@@ -57,7 +61,10 @@ public interface HeapDump extends Closeable {
 
   // === Object access ===
 
-  /** Returns all objects in the heap dump. May be expensive for large dumps. */
+  /**
+   * Returns all objects in the heap dump. May be expensive for large dumps; the stream splits
+   * evenly for {@link Stream#parallel()}.
+   */
   Stream<HeapObject> getObjects();
 
   /** Returns an object by its ID. */
@@ -98,7 +105,7 @@ public interface HeapDump extends Closeable {
   /** Returns the total number of classes. */
   int getClassCount();
 
-  /** Returns the total number of objects. */
+  /** Returns the total number of objects, saturated at {@code Integer.MAX_VALUE}. */
   int getObjectCount();
 
   /** Returns the total number of GC roots. */
@@ -113,8 +120,8 @@ public interface HeapDump extends Closeable {
    * Computes dominator tree and retained sizes for all objects. This is an expensive operation but
    * enables retained size queries via {@link HeapObject#getRetainedSize()}.
    *
-   * <p>This method is idempotent - calling it multiple times has no additional effect. The
-   * computation is not thread-safe; callers must ensure no concurrent access during computation.
+   * <p>This method is idempotent - calling it multiple times has no additional effect. Concurrent
+   * callers wait for a single computation.
    *
    * @see #hasDominators()
    */
@@ -28,9 +28,17 @@ import java.util.Objects;
  * <p><strong>Limitations:</strong>
  *
  * <ul>
- *   <li>Maximum file size: 2GB (uses memory-mapped I/O with 32-bit addressing)
- *   <li>Thread safety: The returned {@link HeapDump} and its objects are not thread-safe. Access
- *       from multiple threads requires external synchronization.
+ *   <li>File size: not limited; heap dumps and index files are memory-mapped in 256 MB to 1 GB
+ *       regions addressed with 64-bit offsets
+ *   <li>Object count: not limited for parsing and object queries in indexed mode. Retained sizes
+ *       and dominators use 32-bit object IDs in their reference indexes and support at most
+ *       2^31-1 objects (including class objects). At an average of 48 bytes per object, a 64 GB
+ *       heap holds about 1.4 billion objects, while a 128 GB heap typically holds more than 2^31;
+ *       its references are read from the dump, and computing its retained sizes or dominators
+ *       fails with an {@link UnsupportedOperationException}. {@link HeapDump#getObjectCount()}
+ *       saturates at {@code Integer.MAX_VALUE}
+ *   <li>Thread safety: The returned {@link HeapDump} and its objects may be queried from multiple
+ *       threads, including through parallel streams; analysis computations are serialized
  * </ul>
  */
 public final class HeapDumpParser {
@@ -128,7 +136,8 @@ public final class HeapDumpParser {
         options.indexStrings(),
         options.trackInboundRefs(),
         resolved,
-        options.objectCacheSize());
+        options.objectCacheSize(),
+        options.parallelism());
   }
 
   /** Threshold for switching from in-memory to indexed parsing (2 GB). */
@@ -163,13 +172,38 @@ public final class HeapDumpParser {
     INDEXED
   }
 
-  /** Parser configuration options. */
+  /**
+   * Parser configuration options.
+   *
+   * @param parallelism number of threads scanning heap dump segments when building indexes; 0 uses
+   *     one thread per available processor
+   */
   public record ParserOptions(
       boolean computeDominators,
       boolean indexStrings,
       boolean trackInboundRefs,
       ParsingMode parsingMode,
-      int objectCacheSize) {
+      int objectCacheSize,
+      int parallelism) {
+
+    /** Creates options scanning with one thread per available processor. */
+    public ParserOptions(
+        boolean computeDominators,
+        boolean indexStrings,
+        boolean trackInboundRefs,
+        ParsingMode parsingMode,
+        int objectCacheSize) {
+      this(computeDominators, indexStrings, trackInboundRefs, parsingMode, objectCacheSize, 0);
+    }
+
+    public ParserOptions {
+      if (parallelism < 0) {
+        throw new IllegalArgumentException("parallelism must not be negative: " + parallelism);
+      }
+      if (parallelism == 0) {
+        parallelism = Runtime.getRuntime().availableProcessors();
+      }
+    }
 
     /**
      * Default object cache size for indexed mode (100,000 objects = ~3-4MB). Provides good balance
@@ -216,6 +250,7 @@ public final class HeapDumpParser {
       private boolean trackInboundRefs = false;
       private ParsingMode parsingMode = ParsingMode.AUTO;
       private int objectCacheSize = DEFAULT_OBJECT_CACHE_SIZE;
+      private int parallelism = 0;
 
       public Builder computeDominators(boolean value) {
         this.computeDominators = value;
@@ -252,9 +287,30 @@ public final class HeapDumpParser {
         return this;
       }
 
+      /**
+       * Sets the number of threads scanning heap dump segments when building indexes (indexed mode
+       * only). Segments are independent, so index building scales with cores on dumps written in
+       * many HEAP_DUMP_SEGMENT records.
+       *
+       * @param threads number of threads, or 0 for one per available processor
+       * @return this builder
+       */
+      public Builder parallelism(int threads) {
+        if (threads < 0) {
+          throw new IllegalArgumentException("parallelism must not be negative: " + threads);
+        }
+        this.parallelism = threads;
+        return this;
+      }
+
       public ParserOptions build() {
         return new ParserOptions(
-            computeDominators, indexStrings, trackInboundRefs, parsingMode, objectCacheSize);
+            computeDominators,
+            indexStrings,
+            trackInboundRefs,
+            parsingMode,
+            objectCacheSize,
+            parallelism);
       }
     }
   }
@@ -18,6 +18,9 @@ public interface HeapObject {
   /**
    * Returns the shallow size of this object in bytes. This is the memory directly consumed by this
    * object, not including referenced objects.
+   *
+   * <p>Arrays larger than 2 GB report {@link Integer#MAX_VALUE}; their exact size is still
+   * accounted for in retained sizes.
    */
   int getShallowSize();
 
@@ -2,6 +2,7 @@ package io.jafar.hdump.impl;
 
 import io.jafar.hdump.api.HeapObject;
 import io.jafar.hdump.index.InboundCountReader;
+import io.jafar.hdump.index.ObjectIdMap;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
@@ -79,7 +80,7 @@ public final class ApproximateRetainedSizeComputer {
     LOG.debug(
         "Computing approximate retained sizes in streaming mode for {} objects", totalObjects);
     InboundCountAccessor inboundCounts =
-        new IndexedInboundCountAccessor(inboundCountReader, dump.getAddressToId32());
+        new IndexedInboundCountAccessor(inboundCountReader, dump.getObjectIds());
 
     if (progressCallback != null) {
       progressCallback.onProgress(0.3, "Computing approximate retained sizes (streaming)...");
@@ -92,9 +93,9 @@ public final class ApproximateRetainedSizeComputer {
       long approxRetained = computeMinRetainedSize(obj, inboundCounts);
 
       // Write to persistent index instead of setting on object
-      // Uses original id32 from addressToId32 (includes classes with retained size = 0)
+      // Uses original id32 from the object ID map (includes classes with retained size = 0)
       try {
-        int objectId32 = dump.getAddressToId32().get(obj.getId());
+        int objectId32 = (int) dump.getObjectIds().indexOf(obj.getId());
         writer.writeEntry(objectId32, approxRetained);
       } catch (java.io.IOException e) {
         throw new RuntimeException("Failed to write retained size to index", e);
@@ -159,7 +160,7 @@ public final class ApproximateRetainedSizeComputer {
     if (inboundCountReader != null) {
       // Indexed mode: use persistent inbound index
       LOG.debug("Using persistent inbound index for {} objects", totalObjects);
-      inboundCounts = new IndexedInboundCountAccessor(inboundCountReader, dump.getAddressToId32());
+      inboundCounts = new IndexedInboundCountAccessor(inboundCountReader, dump.getObjectIds());
 
       // Skip progress for index building since it's already done
       if (progressCallback != null) {
@@ -369,17 +370,17 @@ public final class ApproximateRetainedSizeComputer {
    */
   static class IndexedInboundCountAccessor implements InboundCountAccessor {
     private final InboundCountReader reader;
-    private final Long2IntOpenHashMap addressToId32;
+    private final ObjectIdMap objectIds;
 
-    IndexedInboundCountAccessor(InboundCountReader reader, Long2IntOpenHashMap addressToId32) {
+    IndexedInboundCountAccessor(InboundCountReader reader, ObjectIdMap objectIds) {
       this.reader = reader;
-      this.addressToId32 = addressToId32;
+      this.objectIds = objectIds;
     }
 
     @Override
     public int get(long objectId) {
       // Map 64-bit object ID to 32-bit sequential ID
-      int id32 = addressToId32.get(objectId);
+      int id32 = (int) objectIds.indexOf(objectId);
       if (id32 == -1) {
         return 0; // Object not found
       }
@@ -1,64 +1,59 @@
 package io.jafar.hdump.impl;
 
-import io.jafar.hdump.api.GcRoot;
+import io.jafar.hdump.index.ObjectIdMap;
+import io.jafar.hdump.index.RefsIndexReader;
+import io.jafar.hdump.index.RetainedSizeWriter;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
-import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
-import it.unimi.dsi.fastutil.longs.LongArrayList;
-import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.IntStream;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongToIntFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Computes full dominator tree using Cooper-Harvey-Kennedy algorithm.
+ * Computes the full dominator tree with exact retained sizes.
  *
- * <p>This implementation follows the algorithm from "A Simple, Fast Dominance Algorithm" by Cooper,
- * Harvey, and Kennedy (2006). Despite O(N²) worst-case complexity, it runs ~2.5× faster than
- * Lengauer-Tarjan in practice on real-world graphs.
+ * <p>Objects are mapped to dense 32-bit node IDs and handed to {@link DominatorEngine}, which runs
+ * the semi-NCA algorithm on primitive arrays. In indexed mode the node IDs are the object IDs of
+ * the index files, the graph is read directly from refs.idx and the retained sizes are written to
+ * retained.idx, so no object needs to be loaded.
  *
- * <p><strong>Performance:</strong> 15-30s for 10M objects with 420MB peak memory.
+ * <p><strong>Performance:</strong> near-linear time; about 32 bytes per reachable object plus 4
+ * bytes per reference during the computation, and 20 bytes per object for the resulting tree.
  *
  * <p><strong>Algorithm overview:</strong>
  *
  * <ol>
- *   <li>Build reverse post-order traversal from GC roots
- *   <li>Initialize immediate dominators (idom)
- *   <li>Iterate until fixed point:
- *       <ul>
- *         <li>For each node, compute new idom as intersection of predecessors' idoms
- *         <li>Continue until no changes
- *       </ul>
+ *   <li>Number objects reachable from GC roots in depth-first order
+ *   <li>Compute semidominators in reverse order with path compression
+ *   <li>Derive immediate dominators as nearest common ancestors
+ *   <li>Accumulate retained sizes bottom-up over the dominator tree
  * </ol>
  */
 public final class DominatorTreeComputer {
 
   private static final Logger LOG = LoggerFactory.getLogger(DominatorTreeComputer.class);
-  private static final long UNDEFINED = -1;
-
-  /** Synthetic node ID that acts as the unique entry dominating all GC roots. */
-  private static final long VIRTUAL_ROOT = Long.MIN_VALUE;
 
   private DominatorTreeComputer() {}
 
   /**
-   * Computes full dominator tree for all objects in the heap dump.
+   * Computes full dominator tree for the given objects.
    *
-   * <p>Sets the immediate dominator and retained size for each object. This is more expensive than
-   * approximate retained size computation but provides exact results.
+   * <p>Sets the immediate dominator and retained size for each object reachable from the GC roots.
+   * This is more expensive than approximate retained size computation but provides exact results.
    *
    * @param dump the heap dump
    * @param objectsById map of object IDs to objects
    * @param gcRoots list of GC roots
    * @param progressCallback optional callback for progress updates (0.0 to 1.0)
-   * @return map from dominator ID to list of dominated object IDs (for efficient lookup)
+   * @return dominator tree over the objects (for efficient dominated-objects lookup)
    */
-  public static Map<Long, List<Long>> computeFull(
+  public static DominatorTree computeFull(
       HeapDumpImpl dump,
       Long2ObjectMap<HeapObjectImpl> objectsById,
       List<GcRootImpl> gcRoots,
@@ -68,433 +63,186 @@ public final class DominatorTreeComputer {
     int totalObjects = objectsById.size();
 
     LOG.info("Computing full dominator tree for {} objects...", totalObjects);
-    if (progressCallback != null) {
-      progressCallback.onProgress(0.0, "Building reverse post-order traversal...");
-    }
-
-    // Step 1: Build reverse post-order (RPO) from GC roots
-    List<Long> rpo = buildReversePostOrder(objectsById, gcRoots);
-    LOG.debug("Built RPO with {} reachable objects", rpo.size());
 
-    // Prepend virtual root at position 0 so all GC roots share a common dominator.
-    // Without this, intersect(root1, root2) has no common ancestor and the iteration
-    // oscillates instead of converging for nodes reachable from multiple GC roots.
-    rpo.add(0, VIRTUAL_ROOT);
-
-    // Build RPO index map once (reused millions of times in intersect())
-    Long2IntOpenHashMap rpoIndex = new Long2IntOpenHashMap(rpo.size());
-    rpoIndex.defaultReturnValue(-1);
-    for (int i = 0; i < rpo.size(); i++) {
-      rpoIndex.put(rpo.get(i).longValue(), i);
+    // Dense node IDs in address order
+    long[] addresses = objectsById.keySet().toLongArray();
+    Arrays.sort(addresses);
+    HeapObjectImpl[] objects = new HeapObjectImpl[addresses.length];
+    Long2IntOpenHashMap nodeIds = new Long2IntOpenHashMap(addresses.length);
+    nodeIds.defaultReturnValue(-1);
+    for (int i = 0; i < addresses.length; i++) {
+      objects[i] = objectsById.get(addresses[i]);
+      nodeIds.put(addresses[i], i);
     }
 
-    if (progressCallback != null) {
-      progressCallback.onProgress(0.2, "Building predecessor map...");
-    }
-
-    // Step 2: Build predecessor map (reverse edges)
-    Map<Long, List<Long>> predecessors = buildPredecessorMap(objectsById, rpo, progressCallback);
-
-    // Step 3: Compute immediate dominators using iterative dataflow
-    Long2LongOpenHashMap idom = new Long2LongOpenHashMap(rpo.size());
-    idom.defaultReturnValue(UNDEFINED);
-
-    // Virtual root dominates itself; all GC roots are dominated by the virtual root.
-    idom.put(VIRTUAL_ROOT, VIRTUAL_ROOT);
-    LongOpenHashSet rootIds = new LongOpenHashSet();
-    for (GcRoot root : gcRoots) {
-      rootIds.add(root.getObjectId());
-      idom.put(root.getObjectId(), VIRTUAL_ROOT);
-    }
-
-    // Iterate until fixed point with convergence-based progress tracking.
-    // Stagnation guard: if changeCount stops decreasing for STAGNATION_PATIENCE consecutive
-    // iterations it means we are stuck in a flip-flop cycle (common when the reference graph
-    // has cycles that prevent the RPO from being a perfect topological order).
-    // For heap analysis, the handful of affected nodes is negligible.
-    final int STAGNATION_PATIENCE = 20;
-    boolean changed = true;
-    int iteration = 0;
-    int lastChangeCount = Integer.MAX_VALUE;
-    int stagnantIterations = 0;
-    long totalIterationTime = 0;
-
-    while (changed) {
-      changed = false;
-      iteration++;
-      int changeCount = 0;
-      long iterationStart = System.currentTimeMillis();
-
-      // Process nodes in reverse post-order (skip roots)
-      int processed = 0;
-      int lastReportedPercent = 0;
-      for (int i = 0; i < rpo.size(); i++) {
-        long nodeId = rpo.get(i);
-        if (rootIds.contains(nodeId)) continue;
-
-        List<Long> preds = predecessors.get(nodeId);
-        if (preds == null || preds.isEmpty()) continue;
-
-        // Find new dominator: intersection of all predecessor dominators
-        long newIdom = UNDEFINED;
-        for (long predId : preds) {
-          if (idom.get(predId) == UNDEFINED) continue;
-
-          if (newIdom == UNDEFINED) {
-            newIdom = predId;
-          } else {
-            newIdom = intersect(rpoIndex, idom, newIdom, predId);
-          }
+    // Strong references as compressed sparse rows, dropping references leaving the object set
+    int[] edgeStarts = new int[addresses.length + 1];
+    for (int i = 0; i < objects.length; i++) {
+      int refCount = 0;
+      for (long refId : objects[i].getStrongOutboundReferenceIds()) {
+        if (nodeIds.get(refId) >= 0) {
+          refCount++;
         }
-
-        if (newIdom != UNDEFINED && idom.get(nodeId) != newIdom) {
-          idom.put(nodeId, newIdom);
-          changed = true;
-          changeCount++;
-        }
-
-        processed++;
-
-        // Show progress within iteration every 10% for first few iterations
-        if (iteration <= 5
-            && progressCallback != null
-            && processed % Math.max(rpo.size() / 10, 1) == 0) {
-          int percentWithinIteration = (int) ((processed / (double) rpo.size()) * 100);
-          if (percentWithinIteration > lastReportedPercent) {
-            progressCallback.onProgress(
-                0.4 + (0.01 * percentWithinIteration),
-                String.format(
-                    "Computing dominators (iteration %d, %d%% through %,d objects)...",
-                    iteration, percentWithinIteration, rpo.size()));
-            lastReportedPercent = percentWithinIteration;
-          }
-        }
-      }
-
-      long iterationElapsed = System.currentTimeMillis() - iterationStart;
-      totalIterationTime += iterationElapsed;
-
-      // Log slow iterations to console
-      if (iterationElapsed > 5000) {
-        String msg =
-            String.format(
-                "⚠ Slow iteration %d: %dms, %d changes, avg %.2fms/change",
-                iteration,
-                iterationElapsed,
-                changeCount,
-                changeCount > 0 ? iterationElapsed / (double) changeCount : 0);
-        LOG.warn(msg);
-        System.err.println(msg);
       }
-
-      // Update progress more frequently - every iteration for first 10, then every 5, then every 10
-      boolean shouldReport =
-          iteration <= 10 || (iteration <= 50 && iteration % 5 == 0) || iteration % 10 == 0;
-
-      if (shouldReport && progressCallback != null) {
-        double iterationProgress;
-        if (changeCount < lastChangeCount && changeCount > 0) {
-          int convergenceRate = lastChangeCount - changeCount;
-          int estimatedRemaining = Math.max(changeCount / Math.max(convergenceRate, 1), 1);
-          iterationProgress = Math.min(0.95, iteration / (double) (iteration + estimatedRemaining));
-        } else {
-          // Conservative estimate if not converging steadily
-          iterationProgress = Math.min(0.5, iteration / 100.0);
-        }
-
-        // Progress from 0.4 to 0.7 (40% to 70%) during iteration
-        double progress = 0.4 + (0.3 * iterationProgress);
-        progressCallback.onProgress(
-            progress,
-            String.format(
-                "Computing dominators (iteration %d, %d changes, %dms)...",
-                iteration, changeCount, iterationElapsed));
-      }
-
-      // Stagnation guard: stop if changeCount has not decreased for STAGNATION_PATIENCE
-      // consecutive iterations. This handles flip-flop cycles caused by cyclic reference graphs
-      // where a handful of nodes oscillate indefinitely. The result is approximate but
-      // negligibly so relative to heap size.
-      if (changeCount > 0 && changeCount >= lastChangeCount) {
-        stagnantIterations++;
-        if (stagnantIterations >= STAGNATION_PATIENCE) {
-          String msg =
-              String.format(
-                  "⚠ Dominator computation stagnated at %d change(s) after %d iterations "
-                      + "— stopping early (result is approximate, %d node(s) may have incorrect idom)",
-                  changeCount, iteration, changeCount);
-          LOG.warn(msg);
-          System.err.println(msg);
-          changed = false;
+      edgeStarts[i + 1] = Math.addExact(edgeStarts[i], refCount);
+    }
+    int[] edges = new int[edgeStarts[addresses.length]];
+    for (int i = 0; i < objects.length; i++) {
+      int edge = edgeStarts[i];
+      for (long refId : objects[i].getStrongOutboundReferenceIds()) {
+        int node = nodeIds.get(refId);
+        if (node >= 0) {
+          edges[edge++] = node;
         }
-      } else {
-        stagnantIterations = 0;
       }
-      lastChangeCount = changeCount;
     }
 
-    LOG.debug(
-        "Converged after {} iterations in {}ms (avg {}ms/iteration)",
-        iteration,
-        totalIterationTime,
-        totalIterationTime / iteration);
-
-    if (progressCallback != null) {
-      progressCallback.onProgress(0.7, "Computing retained sizes...");
+    DominatorEngine.Result result;
+    try {
+      result =
+          DominatorEngine.compute(
+              DominatorEngine.of(edgeStarts, edges),
+              rootNodes(gcRoots, nodeIds::get),
+              node -> objects[node].getShallowSize(),
+              null,
+              progressCallback);
+    } catch (IOException e) {
+      // Not reached: nothing is spilled without a directory
+      throw new UncheckedIOException(e);
     }
 
-    // Step 4: Set immediate dominators on objects and build dominator children map.
-    // Skip the virtual root — it has no corresponding heap object.
-    Map<Long, LongArrayList> dominatorChildren = new HashMap<>();
-    for (long nodeId : rpo) {
-      if (nodeId == VIRTUAL_ROOT) continue;
-      long idomId = idom.get(nodeId);
-      if (idomId == UNDEFINED || idomId == VIRTUAL_ROOT || idomId == nodeId) continue;
-      HeapObjectImpl obj = objectsById.get(nodeId);
-      HeapObjectImpl dominator = objectsById.get(idomId);
-      if (obj != null && dominator != null) {
-        obj.setDominator(dominator);
+    // Set immediate dominators and retained sizes on reachable objects
+    for (int node = 0; node < objects.length; node++) {
+      int idom = result.immediateDominator(node);
+      if (idom == DominatorEngine.UNREACHABLE) continue;
+      objects[node].setRetainedSize(result.retainedSize(node));
+      if (idom >= 0) {
+        objects[node].setDominator(objects[idom]);
       }
-      // Build children map for efficient retained size computation
-      dominatorChildren.computeIfAbsent(idomId, k -> new LongArrayList()).add(nodeId);
-    }
-
-    if (progressCallback != null) {
-      progressCallback.onProgress(0.8, "Computing exact retained sizes...");
     }
 
-    // Step 5: Compute retained sizes bottom-up using children map
-    computeRetainedSizes(objectsById, rpo, dominatorChildren);
-
-    long elapsed = System.currentTimeMillis() - startTime;
-    LOG.info("Dominator tree computation completed in {}ms", elapsed);
+    LOG.info(
+        "Dominator tree computation completed in {}ms ({} reachable objects)",
+        System.currentTimeMillis() - startTime,
+        result.reachableCount());
 
-    if (progressCallback != null) {
-      progressCallback.onProgress(1.0, "Dominator tree computation complete");
-    }
-
-    // Convert LongArrayList to List<Long> for return
-    Map<Long, List<Long>> result = new HashMap<>();
-    for (Map.Entry<Long, LongArrayList> entry : dominatorChildren.entrySet()) {
-      List<Long> children = new ArrayList<>(entry.getValue().size());
-      for (int i = 0; i < entry.getValue().size(); i++) {
-        children.add(entry.getValue().getLong(i));
-      }
-      result.put(entry.getKey(), children);
-    }
-    return result;
+    return new DominatorTree(result, node -> addresses[node], nodeIds::get);
   }
 
   /**
-   * Find intersection of two nodes in dominator tree. Walks up the tree from both nodes until they
-   * meet.
+   * Computes full dominator tree from the index files and writes exact retained sizes of all
+   * objects to retained.idx.
    *
-   * @param rpoIndex precomputed RPO index map for O(1) position lookups
-   * @param idom immediate dominator map
-   * @param b1 first node
-   * @param b2 second node
-   * @return the intersection node (common dominator)
-   */
-  private static long intersect(
-      Long2IntOpenHashMap rpoIndex, Long2LongOpenHashMap idom, long b1, long b2) {
-    while (b1 != b2) {
-      int pos1 = rpoIndex.get(b1);
-      int pos2 = rpoIndex.get(b2);
-      if (pos1 < 0 || pos2 < 0) return UNDEFINED;
-
-      while (pos1 > pos2) {
-        b1 = idom.get(b1);
-        if (b1 == UNDEFINED) return UNDEFINED;
-        pos1 = rpoIndex.get(b1);
-        if (pos1 < 0) return UNDEFINED;
-      }
-
-      while (pos2 > pos1) {
-        b2 = idom.get(b2);
-        if (b2 == UNDEFINED) return UNDEFINED;
-        pos2 = rpoIndex.get(b2);
-        if (pos2 < 0) return UNDEFINED;
-      }
-    }
-    return b1;
-  }
-
-  private static final long[] EMPTY_REFS = new long[0];
-
-  /**
-   * Build reverse post-order traversal from GC roots using iterative DFS. Iterative avoids
-   * StackOverflowError on deep object graphs (e.g. linked lists, DOM trees with chains > ~500
-   * deep).
+   * <p>Objects not reachable from any GC root get their shallow size as retained size.
    *
-   * <p>Each DFS frame is stored as a pair of parallel longs: {@code nodeStack[i]} is the object ID
-   * and {@code childIdxStack[i]} is the index of the next child to visit.
+   * @param refs outbound references index
+   * @param objectIds mapping between 64-bit addresses and 32-bit object IDs
+   * @param gcRoots list of GC roots
+   * @param shallowSize shallow size of each 32-bit object ID
+   * @param indexDir directory containing index files, also used for temporary files
+   * @param progressCallback optional callback for progress updates (0.0 to 1.0)
+   * @return dominator tree over all objects
+   * @throws IOException if reading or writing index files fails
    */
-  private static List<Long> buildReversePostOrder(
-      Long2ObjectMap<HeapObjectImpl> objectsById, List<GcRootImpl> gcRoots) {
-
-    LongOpenHashSet visited = new LongOpenHashSet();
-    LongArrayList postOrder = new LongArrayList();
-    LongArrayList nodeStack = new LongArrayList();
-    LongArrayList childIdxStack = new LongArrayList();
+  static DominatorTree computeIndexed(
+      RefsIndexReader refs,
+      ObjectIdMap objectIds,
+      List<GcRootImpl> gcRoots,
+      IntToLongFunction shallowSize,
+      Path indexDir,
+      ProgressCallback progressCallback)
+      throws IOException {
 
-    for (GcRoot root : gcRoots) {
-      long rootId = root.getObjectId();
-      if (objectsById.containsKey(rootId) && visited.add(rootId)) {
-        nodeStack.add(rootId);
-        childIdxStack.add(0L);
-      }
-    }
+    long startTime = System.currentTimeMillis();
+    int totalObjects = refs.getEntryCount();
 
-    while (!nodeStack.isEmpty()) {
-      int top = nodeStack.size() - 1;
-      long nodeId = nodeStack.getLong(top);
-      HeapObjectImpl obj = objectsById.get(nodeId);
-      long[] refIds = (obj != null) ? obj.getStrongOutboundReferenceIds() : EMPTY_REFS;
-      int childIdx = (int) childIdxStack.getLong(top);
+    LOG.info("Computing full dominator tree for {} objects from refs.idx...", totalObjects);
 
-      // Scan forward to find the next unvisited reachable child
-      boolean foundChild = false;
-      while (childIdx < refIds.length) {
-        long refId = refIds[childIdx++];
-        if (visited.add(refId) && objectsById.containsKey(refId)) {
-          childIdxStack.set(top, childIdx); // save resume point
-          nodeStack.add(refId);
-          childIdxStack.add(0L);
-          foundChild = true;
-          break;
-        }
-      }
+    ProgressCallback engineCallback =
+        progressCallback != null ? (p, message) -> progressCallback.onProgress(p * 0.9, message)
+            : null;
+    DominatorEngine.Result result =
+        DominatorEngine.compute(
+            DominatorEngine.of(refs),
+            rootNodes(gcRoots, address -> (int) objectIds.indexOf(address)),
+            shallowSize,
+            indexDir,
+            engineCallback);
 
-      if (!foundChild) {
-        // All children visited — pop frame and record node in post-order
-        nodeStack.removeLong(top);
-        childIdxStack.removeLong(top);
-        postOrder.add(nodeId);
-      }
+    if (progressCallback != null) {
+      progressCallback.onProgress(0.9, "Writing retained sizes...");
     }
 
-    // Reverse to get RPO
-    List<Long> rpo = new ArrayList<>(postOrder.size());
-    for (int i = postOrder.size() - 1; i >= 0; i--) {
-      rpo.add(postOrder.getLong(i));
+    try (RetainedSizeWriter writer = new RetainedSizeWriter(indexDir, totalObjects)) {
+      for (int id32 = 0; id32 < totalObjects; id32++) {
+        writer.writeEntry(id32, result.retainedSize(id32));
+      }
     }
-    return rpo;
-  }
 
-  /**
-   * Build predecessor map (reverse edges) in parallel. Each thread processes a disjoint slice of
-   * the RPO list and builds a local map; slices are merged sequentially at the end. Thread-local
-   * HprofReader views make outbound-ref extraction lock-free.
-   */
-  private static Map<Long, List<Long>> buildPredecessorMap(
-      Long2ObjectMap<HeapObjectImpl> objectsById,
-      List<Long> rpo,
-      ProgressCallback progressCallback) {
-
-    int n = rpo.size();
-    LongOpenHashSet reachable = new LongOpenHashSet(rpo);
-
-    int nThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
-    int chunkSize = Math.max(1, (n + nThreads - 1) / nThreads);
-    int actualChunks = (n + chunkSize - 1) / chunkSize;
-
-    LOG.debug("Building predecessor map for {} objects using {} parallel chunks", n, actualChunks);
+    LOG.info(
+        "Dominator tree computation completed in {}ms ({} reachable objects)",
+        System.currentTimeMillis() - startTime,
+        result.reachableCount());
 
     if (progressCallback != null) {
-      progressCallback.onProgress(0.2, "Building predecessor map (parallel)...");
+      progressCallback.onProgress(1.0, "Dominator tree computation complete");
     }
 
-    AtomicInteger chunksCompleted = new AtomicInteger(0);
-
-    @SuppressWarnings("unchecked")
-    HashMap<Long, List<Long>>[] localMaps = new HashMap[actualChunks];
-
-    IntStream.range(0, actualChunks)
-        .parallel()
-        .forEach(
-            chunk -> {
-              int start = chunk * chunkSize;
-              int end = Math.min(start + chunkSize, n);
-              HashMap<Long, List<Long>> local = new HashMap<>();
-
-              for (int i = start; i < end; i++) {
-                long nodeId = rpo.get(i);
-                HeapObjectImpl obj = objectsById.get(nodeId);
-                if (obj == null) continue;
-                for (long refId : obj.getStrongOutboundReferenceIds()) {
-                  if (reachable.contains(refId)) {
-                    local.computeIfAbsent(refId, k -> new ArrayList<>(4)).add(nodeId);
-                  }
-                }
-              }
-
-              localMaps[chunk] = local;
-
-              int done = chunksCompleted.incrementAndGet();
-              if (progressCallback != null && done % Math.max(1, actualChunks / 10) == 0) {
-                progressCallback.onProgress(
-                    0.2 + 0.15 * done / actualChunks,
-                    String.format("Building predecessor map (%d%%)", done * 100 / actualChunks));
-              }
-            });
-
-    if (progressCallback != null) {
-      progressCallback.onProgress(0.37, "Merging predecessor map...");
-    }
+    return new DominatorTree(
+        result, objectIds::addressAt, address -> (int) objectIds.indexOf(address));
+  }
 
-    // Sequential merge of per-chunk maps
-    Map<Long, List<Long>> predecessors = new HashMap<>(n / 2);
-    for (HashMap<Long, List<Long>> local : localMaps) {
-      if (local == null) continue;
-      for (Map.Entry<Long, List<Long>> entry : local.entrySet()) {
-        predecessors
-            .computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
-            .addAll(entry.getValue());
+  private static int[] rootNodes(List<GcRootImpl> gcRoots, LongToIntFunction nodeIds) {
+    int[] roots = new int[gcRoots.size()];
+    int count = 0;
+    for (GcRootImpl root : gcRoots) {
+      int node = nodeIds.applyAsInt(root.getObjectId());
+      if (node >= 0) {
+        roots[count++] = node;
       }
     }
-
-    if (progressCallback != null) {
-      progressCallback.onProgress(0.4, "Computing immediate dominators...");
-    }
-
-    LOG.debug("Built predecessor map with {} entries", predecessors.size());
-    return predecessors;
+    return Arrays.copyOf(roots, count);
   }
 
-  /**
-   * Compute retained sizes bottom-up from leaves using dominator children map. Optimized from O(N²)
-   * to O(N) by using precomputed children map instead of scanning all objects.
-   *
-   * @param objectsById map of object IDs to objects
-   * @param rpo reverse post-order traversal
-   * @param dominatorChildren map from dominator ID to list of dominated children IDs
-   */
-  private static void computeRetainedSizes(
-      Long2ObjectMap<HeapObjectImpl> objectsById,
-      List<Long> rpo,
-      Map<Long, LongArrayList> dominatorChildren) {
-
-    // Process in reverse RPO (bottom-up, leaves first)
-    for (int i = rpo.size() - 1; i >= 0; i--) {
-      long nodeId = rpo.get(i);
-      HeapObjectImpl obj = objectsById.get(nodeId);
-      if (obj == null) continue;
-
-      // Retained size = shallow size + sum of dominated children's retained sizes
-      long retained = obj.getShallowSize();
+  /** Immediate dominator relationships of a computed dominator tree, keyed by object address. */
+  public static final class DominatorTree {
+    private static final long[] EMPTY = new long[0];
+
+    private final DominatorEngine.Result result;
+    private final IntToLongFunction nodeToAddress;
+    private final LongToIntFunction addressToNode;
+
+    DominatorTree(
+        DominatorEngine.Result result,
+        IntToLongFunction nodeToAddress,
+        LongToIntFunction addressToNode) {
+      this.result = result;
+      this.nodeToAddress = nodeToAddress;
+      this.addressToNode = addressToNode;
+    }
 
-      // Direct lookup of dominated children (O(1) access, O(children) iteration)
-      LongArrayList children = dominatorChildren.get(nodeId);
-      if (children != null) {
-        for (int j = 0; j < children.size(); j++) {
-          HeapObjectImpl child = objectsById.get(children.getLong(j));
-          if (child != null) {
-            retained += child.getRetainedSize();
-          }
-        }
+    /**
+     * Returns the objects immediately dominated by an object.
+     *
+     * @param objectId 64-bit object address
+     * @return addresses of the dominated objects (never null, may be empty)
+     */
+    public long[] getDominatedIds(long objectId) {
+      int node = addressToNode.applyAsInt(objectId);
+      if (node < 0 || node >= result.nodeCount()) {
+        return EMPTY;
+      }
+      int[] children = result.dominatedNodes(node);
+      long[] ids = new long[children.length];
+      for (int i = 0; i < children.length; i++) {
+        ids[i] = nodeToAddress.applyAsLong(children[i]);
       }
+      return ids;
+    }
 
-      obj.setRetainedSize(retained);
+    /** Returns the number of objects reachable from the GC roots. */
+    public int getReachableCount() {
+      return result.reachableCount();
     }
   }
 
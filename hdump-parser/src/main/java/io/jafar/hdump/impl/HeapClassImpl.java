@@ -149,16 +149,19 @@ final class HeapClassImpl implements HeapClass {
 
   /** Returns true if this class is {@code java.lang.ref.Reference} or a subclass of it. */
   boolean isReferenceSubclass() {
-    if (referenceSubclass == -1) {
-      referenceSubclass = 0;
+    int result = referenceSubclass;
+    if (result == -1) {
+      // Computed into a local so concurrent callers never observe a partial result
+      result = 0;
       for (HeapClass c = this; c != null; c = c.getSuperClass()) {
         if (REFERENCE_CLASS_NAME.equals(c.getName())) {
-          referenceSubclass = 1;
+          result = 1;
           break;
         }
       }
+      referenceSubclass = result;
     }
-    return referenceSubclass == 1;
+    return result == 1;
   }
 
   @Override
@@ -5,14 +5,18 @@ import io.jafar.hdump.api.HeapClass;
 import io.jafar.hdump.api.HeapDump;
 import io.jafar.hdump.api.HeapDumpParser;
 import io.jafar.hdump.api.HeapDumpParser.ParserOptions;
+import io.jafar.hdump.api.HeapField;
 import io.jafar.hdump.api.HeapObject;
 import io.jafar.hdump.api.PathStep;
 import io.jafar.hdump.index.InboundCountReader;
 import io.jafar.hdump.index.InboundIndexBuilder;
 import io.jafar.hdump.index.IndexFormat;
 import io.jafar.hdump.index.IndexWriter;
+import io.jafar.hdump.index.ObjectIdMap;
 import io.jafar.hdump.index.ObjectIndexReader;
+import io.jafar.hdump.index.RefsIndexReader;
 import io.jafar.hdump.internal.BasicType;
+import io.jafar.hdump.internal.HeapRecordScanner;
 import io.jafar.hdump.internal.HeapTag;
 import io.jafar.hdump.internal.HprofReader;
 import io.jafar.hdump.internal.HprofReader.RecordHeader;
@@ -30,17 +34,17 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,16 +57,21 @@ public final class HeapDumpImpl implements HeapDump {
   private final HprofReader reader;
   private final ParserOptions options;
 
+  // Tables below are filled while parsing and read-only afterwards, except where noted, so that
+  // queries can run concurrently without locking
+
   // String table: ID -> String
   private final Long2ObjectMap<String> strings = new Long2ObjectOpenHashMap<>();
 
   // Class table: ID -> HeapClassImpl
   private final Long2ObjectMap<HeapClassImpl> classesById = new Long2ObjectOpenHashMap<>();
-  private final Map<String, HeapClassImpl> classesByName = new HashMap<>();
+  // Concurrent: synthetic primitive array classes are added on first lookup
+  private final Map<String, HeapClassImpl> classesByName = new ConcurrentHashMap<>();
 
-  // Object cache: ID -> HeapObjectImpl (lazily populated)
-  // In-memory mode: unbounded fastutil map (fast, but can OOM on large heaps)
-  // Indexed mode: bounded LRU cache (prevents OOM, ~40 bytes per cached object)
+  // Object cache: ID -> HeapObjectImpl
+  // In-memory mode: unbounded fastutil map (fast, but can OOM on large heaps), filled while
+  // parsing and read-only afterwards
+  // Indexed mode: bounded, lock-striped LRU cache (prevents OOM, ~40 bytes per cached object)
   private final Long2ObjectMap<HeapObjectImpl> objectsByIdUnbounded =
       new Long2ObjectOpenHashMap<>();
   private LruCache<Long, HeapObjectImpl> objectsByIdLru; // null in in-memory mode
@@ -70,19 +79,19 @@ public final class HeapDumpImpl implements HeapDump {
   // Index-based parsing fields - INDEXED MODE ONLY
   private ObjectIndexReader objectIndexReader; // null in in-memory mode
   private InboundCountReader inboundCountReader; // null until first retained-size query
-  private io.jafar.hdump.index.RetainedSizeReader
+  private RefsIndexReader refsIndexReader; // null if index not available
+  private List<RecordHeader> heapDumpRecords; // located in Pass 1, released after Pass 2
+  private volatile io.jafar.hdump.index.RetainedSizeReader
       retainedSizeReader; // null until retained sizes computed
   private io.jafar.hdump.index.ClassInstancesOffsetReader
       classInstancesOffsetReader; // null if index not available
   private io.jafar.hdump.index.ClassInstancesDataReader
       classInstancesDataReader; // null if index not available
-  private Long2IntOpenHashMap addressToId32; // 64-bit address -> 32-bit ID mapping
+  private ObjectIdMap objectIds; // 64-bit address <-> object ID (INDEXED mode)
   private it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap
       classId32ToAddress; // 32-bit class ID -> 64-bit address (INDEXED mode)
   private it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap
       classAddressToId32; // 64-bit address -> 32-bit class ID (INDEXED mode, reverse lookup)
-  private it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap
-      id32ToAddress; // 32-bit object ID -> 64-bit address (INDEXED mode, for GC roots)
   private LongOpenHashSet classAddresses; // Addresses that are class objects (INDEXED mode)
   private Path indexDir; // directory containing index files
   private volatile boolean inboundIndexBuilt = false;
@@ -91,14 +100,14 @@ public final class HeapDumpImpl implements HeapDump {
   private final List<GcRootImpl> gcRoots = new ArrayList<>();
 
   // Statistics
-  private int objectCount = 0;
+  private long objectCount = 0;
   private long totalHeapSize = 0;
   private volatile boolean dominatorsComputed = false;
   private volatile boolean fullDominatorTreeComputed = false;
 
-  // Dominator children map: dominator ID -> list of dominated object IDs
+  // Dominator tree: dominator ID -> dominated object IDs
   // Built during full dominator tree computation for O(1) lookup
-  private Map<Long, List<Long>> dominatorChildrenMap;
+  private volatile DominatorTreeComputer.DominatorTree dominatorTree;
 
   /** Temporary storage for GC root data during Pass 2 (indexed mode). */
   private static class GcRootData {
@@ -117,23 +126,23 @@ public final class HeapDumpImpl implements HeapDump {
 
   /** Temporary storage for object index entries during Pass 2. */
   private static class ObjectEntry {
-    final int objectId32;
+    final long objectId;
     final long fileOffset;
     final int dataSize;
-    final int classId;
+    int classId; // local to the heap dump record until merged
     final int arrayLength;
     final byte flags;
     final byte elementType;
 
     ObjectEntry(
-        int objectId32,
+        long objectId,
         long fileOffset,
         int dataSize,
         int classId,
         int arrayLength,
         byte flags,
         byte elementType) {
-      this.objectId32 = objectId32;
+      this.objectId = objectId;
       this.fileOffset = fileOffset;
       this.dataSize = dataSize;
       this.classId = classId;
@@ -143,6 +152,24 @@ public final class HeapDumpImpl implements HeapDump {
     }
   }
 
+  /** Addresses and CLASS_DUMP positions found in one heap dump record during Pass 1. */
+  private static final class AddressScan {
+    final LongArrayList objectAddresses = new LongArrayList();
+    final LongArrayList classAddresses = new LongArrayList();
+    final LongArrayList classDumpPositions = new LongArrayList();
+  }
+
+  /** Index entries found in one heap dump record during Pass 2, with record-local class IDs. */
+  private static final class SegmentIndex {
+    final List<ObjectEntry> objectEntries = new ArrayList<>();
+    final Long2IntOpenHashMap classIds = new Long2IntOpenHashMap();
+    final List<GcRootData> gcRoots = new ArrayList<>();
+
+    SegmentIndex() {
+      classIds.defaultReturnValue(-1);
+    }
+  }
+
   private HeapDumpImpl(Path path, HprofReader reader, ParserOptions options) {
     this.path = path;
     this.reader = reader;
@@ -320,7 +347,7 @@ public final class HeapDumpImpl implements HeapDump {
 
       LOG.debug(
           "Loaded indexes: {} address mappings, {} classes",
-          id32ToAddress.size(),
+          objectIds.size(),
           classesById.size());
     } else {
       // Slow path: Full two-pass parsing
@@ -334,27 +361,19 @@ public final class HeapDumpImpl implements HeapDump {
         progressCallback.onProgress(0.0, "Pass 1/2: Collecting addresses");
       }
 
-      LongArrayList objectAddresses = new LongArrayList();
-      collectObjectAddresses(objectAddresses, progressCallback);
+      List<LongArrayList> objectAddresses = new ArrayList<>();
+      LongArrayList classDumpPositions = collectObjectAddresses(objectAddresses, progressCallback);
 
-      // Sort and create address-to-ID mapping
-      objectAddresses.sort(null);
-      addressToId32 = new Long2IntOpenHashMap(objectAddresses.size());
-      addressToId32.defaultReturnValue(-1);
-      id32ToAddress = new Int2LongOpenHashMap(objectAddresses.size());
-      id32ToAddress.defaultReturnValue(-1L);
-      for (int i = 0; i < objectAddresses.size(); i++) {
-        long address = objectAddresses.getLong(i);
-        addressToId32.put(address, i);
-        id32ToAddress.put(i, address);
-      }
+      // Assign object IDs in address order
+      objectIds = ObjectIdMap.of(objectAddresses);
+      objectAddresses.clear();
 
       // objectCount excludes class objects (classes are accessed via getClasses(), not
       // getObjects())
-      objectCount = objectAddresses.size() - classAddresses.size();
+      objectCount = objectIds.size() - classAddresses.size();
       LOG.debug(
           "Pass 1 complete: collected {} object addresses ({} classes, {} objects)",
-          objectAddresses.size(),
+          objectIds.size(),
           classAddresses.size(),
           objectCount);
 
@@ -362,7 +381,7 @@ public final class HeapDumpImpl implements HeapDump {
       if (progressCallback != null) {
         progressCallback.onProgress(0.28, "Pass 1/2: Parsing class metadata");
       }
-      parseAllClasses(progressCallback);
+      parseClassDumps(classDumpPositions);
 
       if (progressCallback != null) {
         progressCallback.onProgress(0.3, "Pass 1/2: Complete");
@@ -409,6 +428,19 @@ public final class HeapDumpImpl implements HeapDump {
       LOG.debug("Class-instances index not available (will be built on first parse)");
     }
 
+    // Load outbound references index if available (indexes built by older versions lack it)
+    if (Files.exists(indexDir.resolve(IndexFormat.REFS_INDEX_NAME))) {
+      try {
+        refsIndexReader = new RefsIndexReader(indexDir);
+        LOG.debug("Loaded references index with {} edges", refsIndexReader.getEdgeCount());
+      } catch (IOException e) {
+        LOG.warn(
+            "Failed to load refs.idx, references will be read from the heap dump: {}",
+            e.getMessage());
+        refsIndexReader = null;
+      }
+    }
+
     LOG.debug(
         "Parsed {} classes, {} objects, {} GC roots (indexed mode)",
         classesById.size(),
@@ -547,93 +579,116 @@ public final class HeapDumpImpl implements HeapDump {
    * @throws IOException if file cannot be read
    */
   private void loadObjectAddressMappings() throws IOException {
-    Path objectmapFile = indexDir.resolve(IndexFormat.OBJECTMAP_INDEX_NAME);
+    objectIds = ObjectIdMap.read(indexDir);
 
-    try (var channel =
-        java.nio.channels.FileChannel.open(objectmapFile, java.nio.file.StandardOpenOption.READ)) {
-      var buffer = channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    // Count classes vs objects (classes tracked separately)
+    classAddresses = new LongOpenHashSet();
+    // Class addresses will be loaded from classmap.idx
+    objectCount = objectIds.size(); // Will be adjusted after loading classmap
 
-      // Read header
-      int magic = buffer.getInt();
-      if (magic != IndexFormat.OBJECTMAP_INDEX_MAGIC) {
-        throw new IOException("Invalid objectmap.idx magic number: " + Integer.toHexString(magic));
-      }
-
-      int version = buffer.getInt();
-      if (version != IndexFormat.FORMAT_VERSION) {
-        throw new IOException("Unsupported objectmap.idx version: " + version);
-      }
-
-      long entryCount = buffer.getLong();
-      buffer.getInt(); // skip flags
-
-      if (entryCount > Integer.MAX_VALUE) {
-        throw new IOException(
-            "Object map too large: " + entryCount + " entries (max " + Integer.MAX_VALUE + ")");
-      }
-      int entryCountInt = (int) entryCount;
+    LOG.debug("Loaded {} address mappings from objectmap.idx", objectIds.size());
+  }
 
-      // Initialize address mapping with correct size
-      addressToId32 = new Long2IntOpenHashMap(entryCountInt);
-      addressToId32.defaultReturnValue(-1);
-      id32ToAddress = new Int2LongOpenHashMap(entryCountInt);
-      id32ToAddress.defaultReturnValue(-1L);
+  /**
+   * Fails reference graph computations (inbound counts, retained sizes, dominators) on heap dumps
+   * with more objects than the 32-bit object IDs of their indexes can address. Package-private for
+   * testing.
+   */
+  static void checkObjectCount(long count) {
+    if (count > IndexFormat.MAX_OBJECT_COUNT) {
+      throw new UnsupportedOperationException(
+          String.format(
+              "Heap dump contains %,d objects; retained sizes and dominators support at most %,d",
+              count, IndexFormat.MAX_OBJECT_COUNT));
+    }
+  }
 
-      // Load mappings
-      for (int i = 0; i < entryCount; i++) {
-        int objectId32 = buffer.getInt();
-        long objectAddress64 = buffer.getLong();
+  /** Applies {@link #checkObjectCount(long)} to the objects of an indexed heap dump. */
+  private void checkGraphObjectCount() {
+    if (objectIds != null) {
+      checkObjectCount(objectIds.size());
+    }
+  }
 
-        addressToId32.put(objectAddress64, objectId32);
-        id32ToAddress.put(objectId32, objectAddress64);
-      }
+  /** Returns the object ID of an address, or -1 if it is not in the dump (INDEXED mode). */
+  private long ordinal(long address) {
+    return objectIds.indexOf(address);
+  }
 
-      // Count classes vs objects (classes tracked separately)
-      classAddresses = new LongOpenHashSet();
-      // Class addresses will be loaded from classmap.idx
-      objectCount = (int) entryCount; // Will be adjusted after loading classmap
+  /**
+   * Returns the 32-bit object ID of an address in the reference graph indexes, or -1 if it is not
+   * in the dump (INDEXED mode). These indexes only exist for heap dumps within {@link
+   * IndexFormat#MAX_OBJECT_COUNT} objects, so the narrowing is safe.
+   */
+  private int id32(long address) {
+    return (int) objectIds.indexOf(address);
+  }
 
-      LOG.debug("Loaded {} address mappings from objectmap.idx", entryCount);
-    }
+  /** Returns the address of an object ID, or -1 if it is out of range (INDEXED mode). */
+  private long address(long ordinal) {
+    return ordinal >= 0 && ordinal < objectIds.size() ? objectIds.addressAt(ordinal) : -1L;
   }
 
-  /** Pass 1: Collect all object addresses in single scan. */
-  private void collectObjectAddresses(
-      LongArrayList objectAddresses, HeapDumpParser.ProgressCallback progressCallback)
+  /**
+   * Pass 1: Collect all object addresses, scanning heap dump records in parallel. UTF8 and
+   * LOAD_CLASS records are parsed on the way.
+   *
+   * @param objectAddresses receives the object and class addresses, one list per heap dump record
+   * @return positions of the CLASS_DUMP sub-records, in file order
+   */
+  private LongArrayList collectObjectAddresses(
+      List<LongArrayList> objectAddresses, HeapDumpParser.ProgressCallback progressCallback)
       throws IOException {
-    reader.reset();
+    heapDumpRecords = HeapRecordScanner.locateHeapRecords(reader, this::parseStringsAndClassNames);
 
-    long fileSize = Files.size(path);
-    long lastProgressReport = 0;
-    long progressInterval = fileSize / 100; // Report every 1% of file
+    // Pass 1 is 0-28% of total
+    List<AddressScan> scans =
+        HeapRecordScanner.scan(
+            reader,
+            heapDumpRecords,
+            options.parallelism(),
+            (view, header) -> collectAddressesFromHeapDump(view, header, true),
+            progressListener(progressCallback, 0.0, 0.28, "Pass 1/2: Collecting addresses"));
 
-    while (reader.hasMoreRecords()) {
-      RecordHeader header = reader.readRecordHeader();
-      if (header == null) break;
+    // Addresses stay split by record; there may be more than fit into a single list
+    LongArrayList classDumpPositions = new LongArrayList();
+    for (AddressScan scan : scans) {
+      objectAddresses.add(scan.objectAddresses);
+      classAddresses.addAll(scan.classAddresses);
+      classDumpPositions.addAll(scan.classDumpPositions);
+    }
+    return classDumpPositions;
+  }
 
-      switch (header.tag()) {
-        case HprofTag.UTF8 -> parseUtf8(header);
-        case HprofTag.LOAD_CLASS -> parseLoadClass(header);
-        case HprofTag.HEAP_DUMP, HprofTag.HEAP_DUMP_SEGMENT ->
-            collectAddressesFromHeapDump(header, objectAddresses);
-        default -> reader.skipRecordBody(header);
-      }
+  private void parseStringsAndClassNames(RecordHeader header) {
+    switch (header.tag()) {
+      case HprofTag.UTF8 -> parseUtf8(header);
+      case HprofTag.LOAD_CLASS -> parseLoadClass(header);
+      default -> {}
+    }
+  }
 
-      // Report progress periodically (Pass 1 is 0-28% of total)
-      if (progressCallback != null && fileSize > 0) {
-        long currentPos = reader.position();
-        if (currentPos - lastProgressReport > progressInterval) {
-          double fileProgress = (double) currentPos / fileSize;
-          double totalProgress = fileProgress * 0.28; // Pass 1 is 28% of total
-          progressCallback.onProgress(totalProgress, "Pass 1/2: Collecting addresses");
-          lastProgressReport = currentPos;
-        }
-      }
+  /** Adapts a parser progress callback to the byte progress of a heap record scan. */
+  private static HeapRecordScanner.ProgressListener progressListener(
+      HeapDumpParser.ProgressCallback progressCallback, double start, double span, String message) {
+    if (progressCallback == null) {
+      return null;
     }
+    return (bytesDone, bytesTotal) ->
+        progressCallback.onProgress(
+            start + span * bytesDone / Math.max(bytesTotal, 1), message);
   }
 
-  private void collectAddressesFromHeapDump(RecordHeader header, LongArrayList objectAddresses)
-      throws IOException {
+  /**
+   * Scans one heap dump record for object addresses and CLASS_DUMP positions. Thread-safe; only
+   * reads through the given reader.
+   *
+   * @param collectObjects whether to collect object and class addresses, or only CLASS_DUMP
+   *     positions
+   */
+  private static AddressScan collectAddressesFromHeapDump(
+      HprofReader reader, RecordHeader header, boolean collectObjects) throws IOException {
+    AddressScan scan = new AddressScan();
     long endPos = header.bodyPosition() + header.length();
 
     while (reader.position() < endPos) {
@@ -642,7 +697,9 @@ public final class HeapDumpImpl implements HeapDump {
       switch (subTag) {
         case HeapTag.INSTANCE_DUMP -> {
           long objId = reader.readId();
-          objectAddresses.add(objId);
+          if (collectObjects) {
+            scan.objectAddresses.add(objId);
+          }
           reader.readI4(); // stack trace
           reader.readId(); // class ID
           int dataSize = reader.readI4();
@@ -650,7 +707,9 @@ public final class HeapDumpImpl implements HeapDump {
         }
         case HeapTag.OBJ_ARRAY_DUMP -> {
           long objId = reader.readId();
-          objectAddresses.add(objId);
+          if (collectObjects) {
+            scan.objectAddresses.add(objId);
+          }
           reader.readI4(); // stack trace
           int length = reader.readI4();
           reader.readId(); // array class ID
@@ -658,7 +717,9 @@ public final class HeapDumpImpl implements HeapDump {
         }
         case HeapTag.PRIM_ARRAY_DUMP -> {
           long objId = reader.readId();
-          objectAddresses.add(objId);
+          if (collectObjects) {
+            scan.objectAddresses.add(objId);
+          }
           reader.readI4(); // stack trace
           int length = reader.readI4();
           int elemType = reader.readU1();
@@ -667,9 +728,12 @@ public final class HeapDumpImpl implements HeapDump {
         }
         case HeapTag.CLASS_DUMP -> {
           // Just collect class address - defer parsing to separate phase
+          scan.classDumpPositions.add(reader.position());
           long classId = reader.readId();
-          objectAddresses.add(classId);
-          classAddresses.add(classId); // Mark as class for filtering
+          if (collectObjects) {
+            scan.objectAddresses.add(classId);
+            scan.classAddresses.add(classId); // Mark as class for filtering
+          }
 
           // Skip the rest of CLASS_DUMP for now (will parse in separate phase)
           reader.readI4(); // stack trace
@@ -701,7 +765,7 @@ public final class HeapDumpImpl implements HeapDump {
             reader.readU1();
           }
         }
-        default -> skipGcRoot(subTag);
+        default -> skipGcRoot(reader, subTag);
       }
 
       // Verify we haven't read past segment end
@@ -716,74 +780,40 @@ public final class HeapDumpImpl implements HeapDump {
                 + Integer.toHexString(subTag));
       }
     }
+    return scan;
   }
 
   /**
-   * Parse UTF8, LOAD_CLASS, and CLASS_DUMP records to populate class metadata. This is done after
-   * Pass 1 address collection but before Pass 2 index building, or during fast path when loading
-   * from existing indexes.
+   * Parse UTF8, LOAD_CLASS, and CLASS_DUMP records to populate class metadata. This is done during
+   * fast path when loading from existing indexes; the heap dump records are scanned in parallel to
+   * locate the CLASS_DUMP sub-records.
    */
   private void parseAllClasses(HeapDumpParser.ProgressCallback progressCallback)
       throws IOException {
-    reader.reset();
-
-    while (reader.hasMoreRecords()) {
-      RecordHeader header = reader.readRecordHeader();
-      if (header == null) break;
-
-      switch (header.tag()) {
-        case HprofTag.UTF8 -> parseUtf8(header);
-        case HprofTag.LOAD_CLASS -> parseLoadClass(header);
-        case HprofTag.HEAP_DUMP, HprofTag.HEAP_DUMP_SEGMENT -> parseClassesFromHeapDump(header);
-        default -> reader.skipRecordBody(header);
-      }
-    }
+    List<RecordHeader> heapRecords =
+        HeapRecordScanner.locateHeapRecords(reader, this::parseStringsAndClassNames);
+    List<AddressScan> scans =
+        HeapRecordScanner.scan(
+            reader,
+            heapRecords,
+            options.parallelism(),
+            (view, header) -> collectAddressesFromHeapDump(view, header, false),
+            progressListener(progressCallback, 0.25, 0.25, "Loading class metadata"));
+
+    LongArrayList classDumpPositions = new LongArrayList();
+    for (AddressScan scan : scans) {
+      classDumpPositions.addAll(scan.classDumpPositions);
+    }
+    parseClassDumps(classDumpPositions);
 
     LOG.debug("Parsed {} classes with {} string constants", classesById.size(), strings.size());
   }
 
-  /** Parse only CLASS_DUMP records from a heap dump segment. */
-  private void parseClassesFromHeapDump(RecordHeader header) throws IOException {
-    long endPos = header.bodyPosition() + header.length();
-
-    while (reader.position() < endPos) {
-      int subTag = reader.readU1();
-
-      if (subTag == HeapTag.CLASS_DUMP) {
-        parseClassDump();
-      } else {
-        // Skip all other record types (we only want CLASS_DUMP)
-        skipNonClassRecord(subTag);
-      }
-    }
-  }
-
-  /** Skip a non-CLASS_DUMP heap record during class parsing phase. */
-  private void skipNonClassRecord(int subTag) throws IOException {
-    switch (subTag) {
-      case HeapTag.INSTANCE_DUMP -> {
-        reader.readId(); // object ID
-        reader.readI4(); // stack trace
-        reader.readId(); // class ID
-        int dataSize = reader.readI4();
-        reader.skip(dataSize);
-      }
-      case HeapTag.OBJ_ARRAY_DUMP -> {
-        reader.readId(); // object ID
-        reader.readI4(); // stack trace
-        int length = reader.readI4();
-        reader.readId(); // array class ID
-        reader.skip((long) length * reader.getIdSize());
-      }
-      case HeapTag.PRIM_ARRAY_DUMP -> {
-        reader.readId(); // object ID
-        reader.readI4(); // stack trace
-        int length = reader.readI4();
-        int elemType = reader.readU1();
-        int elemSize = BasicType.sizeOf(elemType, reader.getIdSize());
-        reader.skip((long) length * elemSize);
-      }
-      default -> skipGcRoot(subTag);
+  /** Parses the CLASS_DUMP sub-records at the given positions, in file order. */
+  private void parseClassDumps(LongArrayList classDumpPositions) {
+    for (int i = 0; i < classDumpPositions.size(); i++) {
+      reader.position(classDumpPositions.getLong(i));
+      parseClassDump();
     }
   }
 
@@ -794,62 +824,114 @@ public final class HeapDumpImpl implements HeapDump {
       Long2IntOpenHashMap classIdMap = new Long2IntOpenHashMap();
       classIdMap.defaultReturnValue(-1);
 
-      // Collect object entries and GC roots during Pass 2
-      List<ObjectEntry> objectEntries = new ArrayList<>();
+      // Collect GC roots during Pass 2
       List<GcRootData> gcRootDataList = new ArrayList<>();
 
-      // Accumulate class-to-instances mapping for class-instances index
-      Map<Integer, List<Integer>> classToInstances = new HashMap<>();
-
-      reader.reset();
+      // Instance counts by class ID for the class-instances index
+      LongArrayList instanceCounts = new LongArrayList();
 
-      while (reader.hasMoreRecords()) {
-        RecordHeader header = reader.readRecordHeader();
-        if (header == null) break;
+      // Outbound references are spilled during the scan and laid out by object ID afterwards.
+      // refs.idx has 32-bit object IDs; references of larger heap dumps are read from the dump
+      boolean indexRefs = objectIds.size() <= IndexFormat.MAX_OBJECT_COUNT;
+      if (indexRefs) {
+        writer.beginRefsIndex((int) objectIds.size());
+      } else {
+        LOG.info(
+            "Heap dump contains {} objects, more than refs.idx can address; not building it",
+            objectIds.size());
+      }
+
+      // Heap dump records are indexed in parallel, each thread spilling references to its own file
+      ThreadLocal<SegmentIndexer> indexers =
+          ThreadLocal.withInitial(
+              () -> new SegmentIndexer(indexRefs ? writer.openRefsSpill() : null));
+      List<SegmentIndex> segments =
+          HeapRecordScanner.scan(
+              reader,
+              heapDumpRecords,
+              options.parallelism(),
+              (view, header) -> indexers.get().index(view, header),
+              progressListener(progressCallback, 0.3, 0.22, "Pass 2/2: Building indexes"));
+      heapDumpRecords = null;
+
+      // Merge in file order, assigning class IDs by first occurrence as a sequential scan would
+      for (SegmentIndex segment : segments) {
+        long[] classAddressesByLocalId = new long[segment.classIds.size()];
+        for (var entry : segment.classIds.long2IntEntrySet()) {
+          classAddressesByLocalId[entry.getIntValue()] = entry.getLongKey();
+        }
+        int[] classIds = new int[classAddressesByLocalId.length];
+        for (int localId = 0; localId < classIds.length; localId++) {
+          classIds[localId] = getOrCreateClassId(classAddressesByLocalId[localId], classIdMap);
+        }
+        for (ObjectEntry entry : segment.objectEntries) {
+          if (entry.classId >= 0) {
+            entry.classId = classIds[entry.classId];
+            if (isClassInstance(entry)) {
+              while (instanceCounts.size() <= entry.classId) {
+                instanceCounts.add(0L);
+              }
+              instanceCounts.set(entry.classId, instanceCounts.getLong(entry.classId) + 1);
+            }
+          }
+        }
+        gcRootDataList.addAll(segment.gcRoots);
+      }
 
-        switch (header.tag()) {
-          case HprofTag.HEAP_DUMP, HprofTag.HEAP_DUMP_SEGMENT ->
-              buildIndexFromHeapDump(
-                  header, objectEntries, classIdMap, gcRootDataList, classToInstances);
-          default -> reader.skipRecordBody(header);
+      if (indexRefs) {
+        if (progressCallback != null) {
+          progressCallback.onProgress(0.52, "Pass 2/2: Writing reference index");
         }
+
+        writer.finishRefsIndex();
       }
 
-      // Report Pass 2 sub-phase progress
       if (progressCallback != null) {
-        progressCallback.onProgress(0.55, "Pass 2/2: Sorting entries");
+        progressCallback.onProgress(0.55, "Pass 2/2: Writing object index");
       }
 
-      // Sort object entries by ID (required for ObjectIndexReader's offset calculation)
-      objectEntries.sort(java.util.Comparator.comparingInt(e -> e.objectId32));
+      // Each class's instances start after those of the classes before it
+      int classCount = instanceCounts.size();
+      long[] instanceStarts = new long[classCount];
+      long totalInstances = 0;
+      for (int classId = 0; classId < classCount; classId++) {
+        instanceStarts[classId] = totalInstances;
+        totalInstances += instanceCounts.getLong(classId);
+      }
+      long[] instanceCursors = instanceStarts.clone();
 
-      if (progressCallback != null) {
-        progressCallback.onProgress(0.60, "Pass 2/2: Writing object index");
-      }
-
-      // Write sorted entries to objects.idx
-      // Note: objectEntries includes both regular objects AND class objects (for GC root support)
-      writer.beginObjectsIndex(objectEntries.size());
-      int progressInterval = Math.max(1, objectEntries.size() / 100); // Report every 1%
-      for (int i = 0; i < objectEntries.size(); i++) {
-        ObjectEntry entry = objectEntries.get(i);
-        writer.writeObjectEntry(
-            entry.objectId32,
-            entry.fileOffset,
-            entry.dataSize,
-            entry.classId,
-            entry.arrayLength,
-            entry.flags,
-            entry.elementType);
-
-        // Report progress periodically (60-85% of total)
-        if (progressCallback != null && i % progressInterval == 0) {
-          double entryProgress = (double) i / objectEntries.size();
-          progressCallback.onProgress(
-              0.60 + entryProgress * 0.25, "Pass 2/2: Writing object index");
+      // Object entries are written at the position of their object ID, so they need no sorting;
+      // instance IDs are grouped by class the same way, in heap dump order within each class.
+      // Note: objects.idx includes both regular objects AND class objects (for GC root support)
+      writer.beginObjectsIndex(objectIds.size());
+      writer.beginClassInstancesDataIndex(totalInstances);
+      long entriesWritten = 0;
+      long progressInterval = Math.max(1, objectIds.size() / 100); // Report every 1%
+      for (int i = 0; i < segments.size(); i++) {
+        SegmentIndex segment = segments.set(i, null);
+        for (ObjectEntry entry : segment.objectEntries) {
+          writer.writeObjectEntry(
+              entry.objectId,
+              entry.fileOffset,
+              entry.dataSize,
+              entry.classId,
+              entry.arrayLength,
+              entry.flags,
+              entry.elementType);
+          if (entry.classId >= 0 && isClassInstance(entry)) {
+            writer.writeInstanceId(instanceCursors[entry.classId]++, entry.objectId);
+          }
+
+          // Report progress periodically (55-85% of total)
+          if (progressCallback != null && ++entriesWritten % progressInterval == 0) {
+            double entryProgress = (double) entriesWritten / objectIds.size();
+            progressCallback.onProgress(
+                0.55 + entryProgress * 0.30, "Pass 2/2: Writing object index");
+          }
         }
       }
       writer.finishObjectsIndex();
+      writer.finishClassInstancesDataIndex();
 
       if (progressCallback != null) {
         progressCallback.onProgress(0.85, "Pass 2/2: Writing class map");
@@ -869,11 +951,9 @@ public final class HeapDumpImpl implements HeapDump {
       }
 
       // Write object address mapping index (enables skipping Pass 1 on reopening)
-      writer.beginObjectMapIndex(id32ToAddress.size());
-      for (var entry : id32ToAddress.int2LongEntrySet()) {
-        int objectId32 = entry.getIntKey();
-        long objectAddress64 = entry.getLongValue();
-        writer.writeObjectMapEntry(objectId32, objectAddress64);
+      writer.beginObjectMapIndex(objectIds.size());
+      for (long objectId = 0; objectId < objectIds.size(); objectId++) {
+        writer.writeObjectMapEntry(objectId, objectIds.addressAt(objectId));
       }
       writer.finishObjectMapIndex();
 
@@ -884,18 +964,17 @@ public final class HeapDumpImpl implements HeapDump {
       // Write GC roots index - only count valid entries
       int validGcRootCount = 0;
       for (GcRootData gcRoot : gcRootDataList) {
-        int objectId32 = addressToId32.get(gcRoot.objectAddress);
-        if (objectId32 != -1) {
+        if (ordinal(gcRoot.objectAddress) != -1) {
           validGcRootCount++;
         }
       }
 
       writer.beginGcRootsIndex(validGcRootCount);
       for (GcRootData gcRoot : gcRootDataList) {
-        int objectId32 = addressToId32.get(gcRoot.objectAddress);
-        if (objectId32 != -1) {
+        long objectId = ordinal(gcRoot.objectAddress);
+        if (objectId != -1) {
           writer.writeGcRootEntry(
-              (byte) gcRoot.type.ordinal(), objectId32, gcRoot.threadSerial, gcRoot.frameNumber);
+              (byte) gcRoot.type.ordinal(), objectId, gcRoot.threadSerial, gcRoot.frameNumber);
         }
       }
       writer.finishGcRootsIndex();
@@ -906,50 +985,14 @@ public final class HeapDumpImpl implements HeapDump {
           gcRootDataList.size());
 
       if (progressCallback != null) {
-        progressCallback.onProgress(0.93, "Pass 2/2: Writing class instances index (data)");
-      }
-
-      // Write class instances indexes
-      // Step 1: Write data file first (sequential instance IDs)
-      long totalInstances = objectEntries.size();
-      writer.beginClassInstancesDataIndex(totalInstances);
-
-      // Track where each class's instances start in the data file
-      Map<Integer, Long> classOffsets = new HashMap<>();
-      long currentOffset = 0;
-
-      // Determine max class ID to iterate sequentially
-      int maxClassId =
-          classToInstances.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
-
-      for (int classId = 0; classId <= maxClassId; classId++) {
-        List<Integer> instances = classToInstances.get(classId);
-        if (instances == null) {
-          instances = List.of(); // Empty list for classes with no instances
-        }
-
-        classOffsets.put(classId, currentOffset);
-
-        // Write instance IDs sequentially
-        for (int instanceId : instances) {
-          writer.writeInstanceId(instanceId);
-        }
-
-        currentOffset += instances.size();
-      }
-      writer.finishClassInstancesDataIndex();
-
-      if (progressCallback != null) {
-        progressCallback.onProgress(0.96, "Pass 2/2: Writing class instances index (offset)");
+        progressCallback.onProgress(0.93, "Pass 2/2: Writing class instances index (offset)");
       }
 
-      // Step 2: Write offset file (class ID → data location)
-      int classCount = maxClassId + 1;
+      // Class ID -> location of its instance IDs in the data file written above
       writer.beginClassInstancesOffsetIndex(classCount);
       for (int classId = 0; classId < classCount; classId++) {
-        long offset = classOffsets.getOrDefault(classId, 0L);
-        int count = classToInstances.getOrDefault(classId, List.of()).size();
-        writer.writeClassInstancesOffsetEntry(classId, offset, count);
+        writer.writeClassInstancesOffsetEntry(
+            classId, instanceStarts[classId], instanceCounts.getLong(classId));
       }
       writer.finishClassInstancesOffsetIndex();
 
@@ -964,6 +1007,14 @@ public final class HeapDumpImpl implements HeapDump {
     }
   }
 
+  /**
+   * Returns whether an object index entry with a class is listed in the class-instances index;
+   * class objects are not instances of themselves.
+   */
+  private boolean isClassInstance(ObjectEntry entry) {
+    return !classAddresses.contains(objectIds.addressAt(entry.objectId));
+  }
+
   /**
    * Loads class ID mapping from classmap.idx to enable reverse lookup. Creates mapping from 32-bit
    * class IDs to 64-bit class addresses.
@@ -1013,8 +1064,8 @@ public final class HeapDumpImpl implements HeapDump {
       }
 
       // Adjust objectCount: total addresses minus class addresses
-      if (id32ToAddress != null) {
-        objectCount = id32ToAddress.size() - classAddresses.size();
+      if (objectIds != null) {
+        objectCount = objectIds.size() - classAddresses.size();
       }
 
       LOG.debug("Loaded {} class ID mappings", entryCount);
@@ -1053,12 +1104,12 @@ public final class HeapDumpImpl implements HeapDump {
       GcRoot.Type[] gcRootTypes = GcRoot.Type.values();
       for (int i = 0; i < entryCount; i++) {
         byte typeOrdinal = buffer.get();
-        int objectId32 = buffer.getInt();
+        long objectId = buffer.getLong();
         int threadSerial = buffer.getInt();
         int frameNumber = buffer.getInt();
 
-        // Convert 32-bit ID back to 64-bit address using reverse mapping
-        long objectAddress = id32ToAddress.get(objectId32);
+        // Convert object ID back to 64-bit address using reverse mapping
+        long objectAddress = address(objectId);
 
         if (objectAddress != -1) {
           int ord = typeOrdinal & 0xFF;
@@ -1075,129 +1126,200 @@ public final class HeapDumpImpl implements HeapDump {
     }
   }
 
-  private void buildIndexFromHeapDump(
-      RecordHeader header,
-      List<ObjectEntry> objectEntries,
-      Long2IntOpenHashMap classIdMap,
-      List<GcRootData> gcRootDataList,
-      Map<Integer, List<Integer>> classToInstances)
-      throws IOException {
-    long endPos = header.bodyPosition() + header.length();
+  /**
+   * Pass 2 worker building index entries of heap dump records and spilling their outbound
+   * references. Used by one thread at a time; shared heap dump state is only read.
+   */
+  private final class SegmentIndexer {
+    // null if refs.idx is not built; it is only built for objects with 32-bit object IDs
+    private final IndexWriter.RefsSpill refs;
+    private int[] refIdBuffer = new int[64]; // scratch for outbound reference IDs
 
-    while (reader.position() < endPos) {
-      int subTag = reader.readU1();
+    SegmentIndexer(IndexWriter.RefsSpill refs) {
+      this.refs = refs;
+    }
 
-      switch (subTag) {
-        case HeapTag.INSTANCE_DUMP -> {
-          long objAddress = reader.readId();
-          reader.readI4(); // stack trace
-          long classAddress = reader.readId();
-          int dataSize = reader.readI4();
-          long fileOffset = reader.position();
-          reader.skip(dataSize);
+    SegmentIndex index(HprofReader reader, RecordHeader header) throws IOException {
+      SegmentIndex segment = new SegmentIndex();
+      long endPos = header.bodyPosition() + header.length();
 
-          int objectId32 = addressToId32.get(objAddress);
-          int classId = getOrCreateClassId(classAddress, classIdMap);
+      while (reader.position() < endPos) {
+        int subTag = reader.readU1();
 
-          objectEntries.add(
-              new ObjectEntry(objectId32, fileOffset, dataSize, classId, -1, (byte) 0, (byte) 0));
+        switch (subTag) {
+          case HeapTag.INSTANCE_DUMP -> {
+            long objAddress = reader.readId();
+            reader.readI4(); // stack trace
+            long classAddress = reader.readId();
+            int dataSize = reader.readI4();
+            long fileOffset = reader.position();
 
-          // Track class-to-instances mapping
-          classToInstances.computeIfAbsent(classId, k -> new ArrayList<>()).add(objectId32);
-        }
-        case HeapTag.OBJ_ARRAY_DUMP -> {
-          long objAddress = reader.readId();
-          reader.readI4(); // stack trace
-          int length = reader.readI4();
-          long arrayClassAddress = reader.readId();
-          long fileOffset = reader.position();
-          long dataSizeLong = (long) length * reader.getIdSize();
-          int dataSize = dataSizeLong > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) dataSizeLong;
-          reader.skip(dataSizeLong);
-
-          int objectId32 = addressToId32.get(objAddress);
-          int classId = getOrCreateClassId(arrayClassAddress, classIdMap);
-
-          objectEntries.add(
-              new ObjectEntry(
-                  objectId32,
-                  fileOffset,
-                  dataSize,
-                  classId,
-                  length,
-                  IndexFormat.FLAG_IS_OBJECT_ARRAY,
-                  (byte) 0));
-
-          // Track class-to-instances mapping
-          classToInstances.computeIfAbsent(classId, k -> new ArrayList<>()).add(objectId32);
-        }
-        case HeapTag.PRIM_ARRAY_DUMP -> {
-          long objAddress = reader.readId();
-          reader.readI4(); // stack trace
-          int length = reader.readI4();
-          int elemType = reader.readU1();
-          int elemSize = BasicType.sizeOf(elemType, reader.getIdSize());
-          long fileOffset = reader.position();
-          long dataSizeLong = (long) length * elemSize;
-          int dataSize = dataSizeLong > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) dataSizeLong;
-          reader.skip(dataSizeLong);
-
-          int objectId32 = addressToId32.get(objAddress);
-
-          objectEntries.add(
-              new ObjectEntry(
-                  objectId32,
-                  fileOffset,
-                  dataSize,
-                  -1,
-                  length,
-                  IndexFormat.FLAG_IS_PRIMITIVE_ARRAY,
-                  (byte) elemType));
-        }
-        case HeapTag.CLASS_DUMP -> {
-          // Collect minimal entry for class object (for GC root support)
-          long classAddress = reader.readId();
-          int objectId32 = addressToId32.get(classAddress);
-          int classId = getOrCreateClassId(classAddress, classIdMap);
+            long objectId = ordinal(objAddress);
+            int classId = getOrCreateClassId(classAddress, segment.classIds);
 
-          // Skip the rest of CLASS_DUMP (we already parsed it in in-memory pass)
-          reader.readI4(); // stack trace
-          reader.readId(); // super class
-          reader.readId(); // class loader
-          reader.readId(); // signers
-          reader.readId(); // protection domain
-          reader.readId(); // reserved
-          reader.readId(); // reserved
-          reader.readI4(); // instance size
-          // Skip constant pool
-          int cpSize = reader.readU2();
-          for (int i = 0; i < cpSize; i++) {
-            reader.readU2();
-            int type = reader.readU1();
-            reader.readValue(type);
+            writeInstanceRefs(reader, objectId, classesById.get(classAddress));
+            reader.position(fileOffset + dataSize);
+
+            segment.objectEntries.add(
+                new ObjectEntry(objectId, fileOffset, dataSize, classId, -1, (byte) 0, (byte) 0));
           }
-          // Skip static fields
-          int staticCount = reader.readU2();
-          for (int i = 0; i < staticCount; i++) {
-            reader.readId();
-            int type = reader.readU1();
-            reader.readValue(type);
+          case HeapTag.OBJ_ARRAY_DUMP -> {
+            long objAddress = reader.readId();
+            reader.readI4(); // stack trace
+            int length = reader.readI4();
+            long arrayClassAddress = reader.readId();
+            long fileOffset = reader.position();
+            long dataSizeLong = (long) length * reader.getIdSize();
+            int dataSize =
+                dataSizeLong > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) dataSizeLong;
+
+            long objectId = ordinal(objAddress);
+            int classId = getOrCreateClassId(arrayClassAddress, segment.classIds);
+
+            writeArrayRefs(reader, objectId, length);
+
+            segment.objectEntries.add(
+                new ObjectEntry(
+                    objectId,
+                    fileOffset,
+                    dataSize,
+                    classId,
+                    length,
+                    IndexFormat.FLAG_IS_OBJECT_ARRAY,
+                    (byte) 0));
           }
-          // Skip instance fields
-          int fieldCount = reader.readU2();
-          for (int i = 0; i < fieldCount; i++) {
-            reader.readId();
-            reader.readU1();
+          case HeapTag.PRIM_ARRAY_DUMP -> {
+            long objAddress = reader.readId();
+            reader.readI4(); // stack trace
+            int length = reader.readI4();
+            int elemType = reader.readU1();
+            int elemSize = BasicType.sizeOf(elemType, reader.getIdSize());
+            long fileOffset = reader.position();
+            long dataSizeLong = (long) length * elemSize;
+            int dataSize =
+                dataSizeLong > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) dataSizeLong;
+            reader.skip(dataSizeLong);
+
+            long objectId = ordinal(objAddress);
+
+            segment.objectEntries.add(
+                new ObjectEntry(
+                    objectId,
+                    fileOffset,
+                    dataSize,
+                    -1,
+                    length,
+                    IndexFormat.FLAG_IS_PRIMITIVE_ARRAY,
+                    (byte) elemType));
           }
+          case HeapTag.CLASS_DUMP -> {
+            // Collect minimal entry for class object (for GC root support)
+            long classAddress = reader.readId();
+            long objectId = ordinal(classAddress);
+            int classId = getOrCreateClassId(classAddress, segment.classIds);
+
+            // Skip the rest of CLASS_DUMP (we already parsed it in in-memory pass)
+            reader.readI4(); // stack trace
+            reader.readId(); // super class
+            reader.readId(); // class loader
+            reader.readId(); // signers
+            reader.readId(); // protection domain
+            reader.readId(); // reserved
+            reader.readId(); // reserved
+            reader.readI4(); // instance size
+            // Skip constant pool
+            int cpSize = reader.readU2();
+            for (int i = 0; i < cpSize; i++) {
+              reader.readU2();
+              int type = reader.readU1();
+              reader.readValue(type);
+            }
+            // Skip static fields
+            int staticCount = reader.readU2();
+            for (int i = 0; i < staticCount; i++) {
+              reader.readId();
+              int type = reader.readU1();
+              reader.readValue(type);
+            }
+            // Skip instance fields
+            int fieldCount = reader.readU2();
+            for (int i = 0; i < fieldCount; i++) {
+              reader.readId();
+              reader.readU1();
+            }
 
-          // Add minimal entry (fileOffset=0, dataSize=0 for classes)
-          objectEntries.add(new ObjectEntry(objectId32, 0, 0, classId, -1, (byte) 0, (byte) 0));
+            // Add minimal entry (fileOffset=0, dataSize=0 for classes)
+            segment.objectEntries.add(
+                new ObjectEntry(objectId, 0, 0, classId, -1, (byte) 0, (byte) 0));
+          }
+          default -> collectGcRoot(reader, subTag, segment.gcRoots);
+        }
+      }
+      return segment;
+    }
+
+    /**
+     * Reads the strong references of an instance positioned at its field data and writes them to
+     * refs.idx. Leaves the reader at an undefined position within the instance data.
+     */
+    private void writeInstanceRefs(HprofReader reader, long objectId, HeapClassImpl heapClass)
+        throws IOException {
+      if (refs == null || heapClass == null || objectId < 0) {
+        return;
+      }
+      List<HeapField> fields = heapClass.getAllInstanceFields();
+      if (refIdBuffer.length < fields.size()) {
+        refIdBuffer = new int[fields.size()];
+      }
+      boolean referenceSubclass = heapClass.isReferenceSubclass();
+      int refCount = 0;
+      for (HeapField field : fields) {
+        int type = field.getType();
+        if (type != BasicType.OBJECT) {
+          reader.skip(BasicType.sizeOf(type, reader.getIdSize()));
+          continue;
+        }
+        long refAddress = reader.readId();
+        if (refAddress == 0) {
+          continue;
+        }
+        // Reference.referent and Reference.discovered are not strong reachability edges
+        if (referenceSubclass
+            && ("referent".equals(field.getName()) || "discovered".equals(field.getName()))) {
+          continue;
+        }
+        int refId32 = id32(refAddress);
+        if (refId32 >= 0) {
+          refIdBuffer[refCount++] = refId32;
+        }
+      }
+      refs.writeEntry((int) objectId, refIdBuffer, refCount);
+    }
 
-          // Track class-to-instances mapping (class object is an instance of itself conceptually)
-          classToInstances.computeIfAbsent(classId, k -> new ArrayList<>()).add(objectId32);
+    /**
+     * Reads the elements of an object array positioned at its data and writes them to refs.idx.
+     * Leaves the reader after the array data.
+     */
+    private void writeArrayRefs(HprofReader reader, long objectId, int length)
+        throws IOException {
+      if (refs == null || objectId < 0) {
+        reader.skip((long) length * reader.getIdSize());
+        return;
+      }
+      if (refIdBuffer.length < length) {
+        refIdBuffer = new int[length];
+      }
+      int refCount = 0;
+      for (int i = 0; i < length; i++) {
+        long refAddress = reader.readId();
+        if (refAddress != 0) {
+          int refId32 = id32(refAddress);
+          if (refId32 >= 0) {
+            refIdBuffer[refCount++] = refId32;
+          }
         }
-        default -> collectGcRoot(subTag, gcRootDataList);
       }
+      refs.writeEntry((int) objectId, refIdBuffer, refCount);
     }
   }
 
@@ -1211,7 +1333,7 @@ public final class HeapDumpImpl implements HeapDump {
   }
 
   /** Skip GC root during Pass 1 (only collecting object addresses). */
-  private void skipGcRoot(int subTag) throws IOException {
+  private static void skipGcRoot(HprofReader reader, int subTag) throws IOException {
     switch (subTag) {
       case HeapTag.ROOT_UNKNOWN, HeapTag.ROOT_STICKY_CLASS, HeapTag.ROOT_MONITOR_USED ->
           reader.readId();
@@ -1254,7 +1376,8 @@ public final class HeapDumpImpl implements HeapDump {
   }
 
   /** Collect GC root during Pass 2 (building indexes). */
-  private void collectGcRoot(int subTag, List<GcRootData> gcRootDataList) throws IOException {
+  private static void collectGcRoot(
+      HprofReader reader, int subTag, List<GcRootData> gcRootDataList) throws IOException {
     switch (subTag) {
       // Standard GC roots (HPROF 1.0.2)
       case HeapTag.ROOT_UNKNOWN -> {
@@ -1542,8 +1665,9 @@ public final class HeapDumpImpl implements HeapDump {
     cacheObject(objId, obj);
     objectCount++;
 
-    int shallowSize = reader.getIdSize() * 2 + 12 + dataSize;
-    totalHeapSize += shallowSize;
+    long shallowSizeLong = reader.getIdSize() * 2 + 12 + dataSizeLong;
+    int shallowSize = (int) Math.min(shallowSizeLong, Integer.MAX_VALUE);
+    totalHeapSize += shallowSizeLong;
     obj.setShallowSize(shallowSize);
 
     // Eagerly extract array references (cheap - contiguous block)
@@ -1566,9 +1690,29 @@ public final class HeapDumpImpl implements HeapDump {
     int dataSize = dataSizeLong > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) dataSizeLong;
     reader.skip(dataSizeLong);
 
-    // Create synthetic class name for primitive arrays
+    HeapClassImpl cls = primitiveArrayClass(elemType);
+
+    HeapObjectImpl obj = new HeapObjectImpl(objId, cls, dataPos, dataSize, this);
+    obj.setArrayLength(length);
+    obj.setPrimitiveArrayType(elemType);
+    cacheObject(objId, obj);
+    objectCount++;
+
+    long shallowSizeLong = reader.getIdSize() + 12 + dataSizeLong;
+    int shallowSize = (int) Math.min(shallowSizeLong, Integer.MAX_VALUE);
+    totalHeapSize += shallowSizeLong;
+    obj.setShallowSize(shallowSize);
+
+    cls.incrementInstanceCount();
+  }
+
+  /**
+   * Returns the synthetic class of primitive arrays with the given element type, creating it on
+   * first use. Called concurrently by object lookups in indexed mode.
+   */
+  private HeapClassImpl primitiveArrayClass(int elementType) {
     String arrayClassName =
-        switch (elemType) {
+        switch (elementType) {
           case BasicType.BOOLEAN -> "[Z";
           case BasicType.CHAR -> "[C";
           case BasicType.FLOAT -> "[F";
@@ -1579,38 +1723,22 @@ public final class HeapDumpImpl implements HeapDump {
           case BasicType.LONG -> "[J";
           default -> "[?";
         };
-
-    HeapClassImpl cls = classesByName.get(arrayClassName);
-    if (cls == null) {
-      // Create synthetic class for primitive array
-      cls = new HeapClassImpl(0, arrayClassName, this);
-      cls.setPrimitiveArrayType(elemType);
-      classesByName.put(arrayClassName, cls);
-    }
-
-    HeapObjectImpl obj = new HeapObjectImpl(objId, cls, dataPos, dataSize, this);
-    obj.setArrayLength(length);
-    obj.setPrimitiveArrayType(elemType);
-    cacheObject(objId, obj);
-    objectCount++;
-
-    int shallowSize = reader.getIdSize() + 12 + dataSize;
-    totalHeapSize += shallowSize;
-    obj.setShallowSize(shallowSize);
-
-    cls.incrementInstanceCount();
+    return classesByName.computeIfAbsent(
+        arrayClassName,
+        name -> {
+          HeapClassImpl cls = new HeapClassImpl(0, name, this);
+          cls.setPrimitiveArrayType(elementType);
+          return cls;
+        });
   }
 
   // === Package-private accessors for implementation classes ===
 
-  HprofReader getReader() {
-    return reader;
-  }
-
   /**
    * Returns a thread-local view of the HPROF reader. Each thread gets its own independent position
    * state backed by a slice of the same memory-mapped buffer, so reads from multiple threads never
-   * interfere — no locking required.
+   * interfere — no locking required. All reads after parsing go through this view; the shared
+   * {@code reader} is positioned only by the parsing thread.
    */
   HprofReader getThreadLocalReader() {
     return threadLocalReader.get();
@@ -1633,8 +1761,8 @@ public final class HeapDumpImpl implements HeapDump {
     }
 
     // Indexed mode: lazy load from index
-    int id32 = addressToId32.get(id);
-    if (id32 == -1) {
+    long ordinal = ordinal(id);
+    if (ordinal == -1) {
       return null; // Object not found
     }
 
@@ -1646,33 +1774,13 @@ public final class HeapDumpImpl implements HeapDump {
 
     // Load from index
     try {
-      ObjectIndexReader.ObjectMetadata meta = objectIndexReader.readObject(id32);
+      ObjectIndexReader.ObjectMetadata meta = objectIndexReader.readObject(ordinal);
 
       HeapClassImpl cls;
 
       // Special handling for primitive arrays (classId == -1)
       if (meta.classId == -1 && meta.isPrimitiveArray()) {
-        // Create synthetic class name for primitive array
-        String arrayClassName =
-            switch (meta.elementType) {
-              case BasicType.BOOLEAN -> "[Z";
-              case BasicType.CHAR -> "[C";
-              case BasicType.FLOAT -> "[F";
-              case BasicType.DOUBLE -> "[D";
-              case BasicType.BYTE -> "[B";
-              case BasicType.SHORT -> "[S";
-              case BasicType.INT -> "[I";
-              case BasicType.LONG -> "[J";
-              default -> "[?";
-            };
-
-        cls = classesByName.get(arrayClassName);
-        if (cls == null) {
-          // Create synthetic class for primitive array
-          cls = new HeapClassImpl(0, arrayClassName, this);
-          cls.setPrimitiveArrayType(meta.elementType);
-          classesByName.put(arrayClassName, cls);
-        }
+        cls = primitiveArrayClass(meta.elementType);
       } else {
         // Regular object or object array - lookup class by address
         long classAddress64 = classId32ToAddress.get(meta.classId);
@@ -1685,17 +1793,7 @@ public final class HeapDumpImpl implements HeapDump {
       // Create object with lazy loading support
       HeapObjectImpl obj = new HeapObjectImpl(id, cls, meta.fileOffset, meta.dataSize, this);
 
-      // Compute shallowSize including object header overhead, matching in-memory mode formulas
-      int idSize = reader.getIdSize();
-      int shallowSize;
-      if (meta.isObjectArray()) {
-        shallowSize = idSize * 2 + 12 + meta.dataSize;
-      } else if (meta.isPrimitiveArray()) {
-        shallowSize = idSize + 12 + meta.dataSize;
-      } else {
-        shallowSize = idSize * 2 + 8 + meta.dataSize;
-      }
-      obj.setShallowSize(shallowSize);
+      obj.setShallowSize(shallowSizeInt(meta));
 
       if (meta.isArray()) {
         obj.setArrayLength(meta.arrayLength);
@@ -1708,22 +1806,23 @@ public final class HeapDumpImpl implements HeapDump {
       }
 
       // Load retained size from persistent index if available
-      if (retainedSizeReader != null) {
+      io.jafar.hdump.index.RetainedSizeReader retained = retainedSizeReader;
+      if (retained != null) {
         try {
-          long retainedSize = retainedSizeReader.getRetainedSize(id32);
+          // retained.idx only exists for objects with 32-bit object IDs
+          long retainedSize = retained.getRetainedSize((int) ordinal);
           obj.setRetainedSize(retainedSize);
         } catch (IllegalArgumentException e) {
           // Object ID out of range in retained index - this can happen if index is stale
-          LOG.warn("Retained size not found for object id32={}", id32);
+          LOG.warn("Retained size not found for object ordinal={}", ordinal);
         }
       }
 
-      // Cache for future lookups (bounded LRU cache in indexed mode)
-      cacheObject(id, obj);
-
-      return obj;
+      // Cache for future lookups (bounded LRU cache in indexed mode). A thread loading the same
+      // object concurrently may have cached it first; return that instance.
+      return cacheObject(id, obj);
     } catch (Exception e) {
-      LOG.error("Failed to load object from index: id={}, id32={}", id, id32, e);
+      LOG.error("Failed to load object from index: id={}, ordinal={}", id, ordinal, e);
       return null;
     }
   }
@@ -1775,8 +1874,9 @@ public final class HeapDumpImpl implements HeapDump {
     // In indexed mode, iterate through all object addresses and lazy-load
     // Filter out class objects (classes are accessed via getClasses(), not getObjects())
     if (objectIndexReader != null) {
-      // Use primitive LongStream via fastutil spliterator to avoid boxing 114M Long objects
-      return StreamSupport.longStream(addressToId32.keySet().spliterator(), false)
+      // Use primitive LongStream over the address table to avoid boxing 114M Long objects
+      return LongStream.range(0, objectIds.size())
+          .map(objectIds::addressAt)
           .filter(addr -> !classAddresses.contains(addr)) // Exclude class objects
           .mapToObj(this::getObjectByIdInternal)
           .filter(Objects::nonNull)
@@ -1805,9 +1905,11 @@ public final class HeapDumpImpl implements HeapDump {
    * Fast path for getting objects of a specific class using the class-instances index.
    *
    * <p>This method directly enumerates instances from the class-instances index instead of scanning
-   * all objects. This provides 10-60x speedup for type-filtered queries on large heaps.
+   * all objects. This provides 10-60x speedup for type-filtered queries on large heaps. Like {@link
+   * #getObjectsOfClass(HeapClass)}, it does not return class objects.
    *
-   * <p>Falls back to full scan if index is not available.
+   * <p>Falls back to full scan if index is not available. The stream splits evenly for {@link
+   * Stream#parallel()}.
    *
    * @param classId32 32-bit class ID
    * @return stream of heap objects belonging to this class
@@ -1839,11 +1941,11 @@ public final class HeapDumpImpl implements HeapDump {
     return classInstancesDataReader
         .readInstanceIds(location.dataFileOffset(), location.instanceCount())
         .mapToObj(
-            objectId32 -> {
-              // Map 32-bit ID back to 64-bit address
-              long address = id32ToAddress.get(objectId32);
-              if (address == -1) {
-                return null; // Should not happen, indicates index corruption
+            ordinal -> {
+              // Map object ID back to 64-bit address
+              long address = address(ordinal);
+              if (address == -1 || classAddresses.contains(address)) {
+                return null; // Index corruption, or a class object listed by older indexes
               }
               return getObjectByIdInternal(address);
             })
@@ -1857,7 +1959,8 @@ public final class HeapDumpImpl implements HeapDump {
    * <p>This method directly enumerates instances from the class-instances index instead of scanning
    * all objects. This provides 10-60x speedup for type-filtered queries on large heaps.
    *
-   * <p>Falls back to full scan if index is not available.
+   * <p>Falls back to full scan if index is not available. The stream splits evenly for {@link
+   * Stream#parallel()}.
    *
    * @param cls the heap class to get instances for
    * @return stream of heap objects belonging to this class
@@ -1906,7 +2009,7 @@ public final class HeapDumpImpl implements HeapDump {
 
   @Override
   public int getObjectCount() {
-    return objectCount;
+    return (int) Math.min(objectCount, Integer.MAX_VALUE);
   }
 
   /**
@@ -1919,14 +2022,48 @@ public final class HeapDumpImpl implements HeapDump {
     return inboundCountReader;
   }
 
+  /**
+   * Returns the outbound references index for indexed parsing mode. Package-private for use by
+   * graph traversals.
+   *
+   * @return references index reader, or null if in in-memory mode or the index is not available
+   */
+  RefsIndexReader getRefsIndexReader() {
+    return refsIndexReader;
+  }
+
+  /**
+   * Returns the strong outbound references of an object from refs.idx. Package-private for use by
+   * HeapObjectImpl.
+   *
+   * @param objectId 64-bit object address
+   * @return addresses of the referenced objects, or null if the index is not available
+   */
+  long[] getIndexedStrongReferenceIds(long objectId) {
+    RefsIndexReader refs = refsIndexReader;
+    if (refs == null) {
+      return null;
+    }
+    int objectId32 = id32(objectId);
+    if (objectId32 < 0) {
+      return null;
+    }
+    long start = refs.getEdgeStart(objectId32);
+    long[] refIds = new long[(int) (refs.getEdgeEnd(objectId32) - start)];
+    for (int i = 0; i < refIds.length; i++) {
+      refIds[i] = objectIds.addressAt(refs.getEdge(start + i));
+    }
+    return refIds;
+  }
+
   /**
    * Returns the address-to-ID mapping for indexed parsing mode. Package-private for use by
    * ApproximateRetainedSizeComputer.
    *
    * @return address-to-ID mapping, or null if in in-memory mode
    */
-  Long2IntOpenHashMap getAddressToId32() {
-    return addressToId32;
+  ObjectIdMap getObjectIds() {
+    return objectIds;
   }
 
   @Override
@@ -1978,17 +2115,18 @@ public final class HeapDumpImpl implements HeapDump {
    * Package-private for use by HeapObjectImpl.
    */
   long getRetainedSizeFromIndex(long objectId) {
-    if (retainedSizeReader == null || addressToId32 == null) {
+    io.jafar.hdump.index.RetainedSizeReader retained = retainedSizeReader;
+    if (retained == null || objectIds == null) {
       return -1;
     }
 
-    int id32 = addressToId32.get(objectId);
+    int id32 = id32(objectId);
     if (id32 == -1) {
       return -1;
     }
 
     try {
-      return retainedSizeReader.getRetainedSize(id32);
+      return retained.getRetainedSize(id32);
     } catch (IllegalArgumentException e) {
       return -1;
     }
@@ -1998,6 +2136,8 @@ public final class HeapDumpImpl implements HeapDump {
    * Computes approximate retained sizes with optional progress callback.
    *
    * @param progressCallback optional callback for progress updates
+   * @throws UnsupportedOperationException if the heap dump has more than {@link
+   *     IndexFormat#MAX_OBJECT_COUNT} objects
    */
   public void computeDominators(ApproximateRetainedSizeComputer.ProgressCallback progressCallback) {
     if (dominatorsComputed) return;
@@ -2023,7 +2163,7 @@ public final class HeapDumpImpl implements HeapDump {
         try {
           // Create persistent storage writer for ALL id32 values (including classes)
           // Classes will have retained size = 0, but this avoids complex id32 remapping
-          int totalEntries = addressToId32.size(); // includes classes
+          int totalEntries = (int) objectIds.size(); // includes classes
           io.jafar.hdump.index.RetainedSizeWriter writer =
               new io.jafar.hdump.index.RetainedSizeWriter(indexDir, totalEntries);
 
@@ -2085,9 +2225,8 @@ public final class HeapDumpImpl implements HeapDump {
     // Load all objects by iterating through address mapping
     // This triggers lazy loading via getObjectByIdInternal()
     int loaded = 0;
-    for (var entry : addressToId32.long2IntEntrySet()) {
-      long objectId = entry.getLongKey();
-      getObjectByIdInternal(objectId); // Lazy load and cache
+    for (long objectId32 = 0; objectId32 < objectIds.size(); objectId32++) {
+      getObjectByIdInternal(objectIds.addressAt(objectId32)); // Lazy load and cache
 
       loaded++;
       if (loaded % 100000 == 0) {
@@ -2142,7 +2281,7 @@ public final class HeapDumpImpl implements HeapDump {
           // CRITICAL: Iterate id32 in sequential order (0, 1, 2, ...) for RetainedSizeWriter
           // Includes ALL id32 values even classes - classes will get retained size = 0
           private int currentId32 = 0;
-          private final int maxId32 = id32ToAddress.size();
+          private final int maxId32 = (int) objectIds.size();
 
           @Override
           public boolean hasNext() {
@@ -2154,7 +2293,7 @@ public final class HeapDumpImpl implements HeapDump {
             if (!hasNext()) {
               throw new java.util.NoSuchElementException();
             }
-            long address = id32ToAddress.get(currentId32);
+            long address = objectIds.addressAt(currentId32);
             currentId32++;
 
             // For class addresses, return a minimal object (will get retained size = 0)
@@ -2172,6 +2311,32 @@ public final class HeapDumpImpl implements HeapDump {
         };
   }
 
+  /**
+   * Computes the shallow size of an indexed object including object header overhead, matching
+   * in-memory mode formulas. Exact for arrays whose data size is saturated in objects.idx.
+   */
+  private long shallowSize(ObjectIndexReader.ObjectMetadata meta) {
+    int idSz = reader.getIdSize();
+    long dataSize = meta.dataSize;
+    if (dataSize == Integer.MAX_VALUE && meta.isArray()) {
+      int elementSize =
+          meta.isObjectArray() ? idSz : BasicType.sizeOf(meta.elementType, idSz);
+      dataSize = (long) meta.arrayLength * elementSize;
+    }
+    if (meta.isObjectArray()) {
+      return idSz * 2 + 12 + dataSize;
+    } else if (meta.isPrimitiveArray()) {
+      return idSz + 12 + dataSize;
+    } else {
+      return idSz * 2 + 8 + dataSize;
+    }
+  }
+
+  /** Shallow size as reported by {@link HeapObject#getShallowSize()}, saturated to an int. */
+  private int shallowSizeInt(ObjectIndexReader.ObjectMetadata meta) {
+    return (int) Math.min(shallowSize(meta), Integer.MAX_VALUE);
+  }
+
   /**
    * Loads an object from index WITHOUT caching in objectsById.
    *
@@ -2186,39 +2351,19 @@ public final class HeapDumpImpl implements HeapDump {
    * @return heap object (not cached)
    */
   private HeapObjectImpl loadObjectWithoutCaching(long objectId) {
-    int id32 = addressToId32.get(objectId);
-    if (id32 == -1) {
-      throw new IllegalStateException("Object not found in addressToId32: " + objectId);
+    long ordinal = ordinal(objectId);
+    if (ordinal == -1) {
+      throw new IllegalStateException("Object not found in objectmap: " + objectId);
     }
 
     try {
-      ObjectIndexReader.ObjectMetadata meta = objectIndexReader.readObject(id32);
+      ObjectIndexReader.ObjectMetadata meta = objectIndexReader.readObject(ordinal);
 
       HeapClassImpl cls;
 
       // Special handling for primitive arrays (classId == -1)
       if (meta.classId == -1 && meta.isPrimitiveArray()) {
-        // Create synthetic class name for primitive array
-        String arrayClassName =
-            switch (meta.elementType) {
-              case BasicType.BOOLEAN -> "[Z";
-              case BasicType.CHAR -> "[C";
-              case BasicType.FLOAT -> "[F";
-              case BasicType.DOUBLE -> "[D";
-              case BasicType.BYTE -> "[B";
-              case BasicType.SHORT -> "[S";
-              case BasicType.INT -> "[I";
-              case BasicType.LONG -> "[J";
-              default -> "[?";
-            };
-
-        cls = classesByName.get(arrayClassName);
-        if (cls == null) {
-          // Create synthetic class for primitive array (these are cached since they're few)
-          cls = new HeapClassImpl(0, arrayClassName, this);
-          cls.setPrimitiveArrayType(meta.elementType);
-          classesByName.put(arrayClassName, cls);
-        }
+        cls = primitiveArrayClass(meta.elementType);
       } else {
         // Regular object or object array - lookup class by address
         long classAddress64 = classId32ToAddress.get(meta.classId);
@@ -2231,17 +2376,7 @@ public final class HeapDumpImpl implements HeapDump {
       // Create object with lazy loading support
       HeapObjectImpl obj = new HeapObjectImpl(objectId, cls, meta.fileOffset, meta.dataSize, this);
 
-      // Compute shallowSize including object header overhead, matching in-memory mode formulas
-      int idSz = reader.getIdSize();
-      int shallowSz;
-      if (meta.isObjectArray()) {
-        shallowSz = idSz * 2 + 12 + meta.dataSize;
-      } else if (meta.isPrimitiveArray()) {
-        shallowSz = idSz + 12 + meta.dataSize;
-      } else {
-        shallowSz = idSz * 2 + 8 + meta.dataSize;
-      }
-      obj.setShallowSize(shallowSz);
+      obj.setShallowSize(shallowSizeInt(meta));
 
       if (meta.isArray()) {
         obj.setArrayLength(meta.arrayLength);
@@ -2254,13 +2389,15 @@ public final class HeapDumpImpl implements HeapDump {
       }
 
       // Load retained size from persistent index if available
-      if (retainedSizeReader != null) {
+      io.jafar.hdump.index.RetainedSizeReader retained = retainedSizeReader;
+      if (retained != null) {
         try {
-          long retainedSize = retainedSizeReader.getRetainedSize(id32);
+          // retained.idx only exists for objects with 32-bit object IDs
+          long retainedSize = retained.getRetainedSize((int) ordinal);
           obj.setRetainedSize(retainedSize);
         } catch (IllegalArgumentException e) {
           // Object ID out of range in retained index - this can happen if index is stale
-          LOG.warn("Retained size not found for object id32={}", id32);
+          LOG.warn("Retained size not found for object ordinal={}", ordinal);
         }
       }
 
@@ -2270,7 +2407,10 @@ public final class HeapDumpImpl implements HeapDump {
       return obj;
     } catch (Exception e) {
       LOG.error(
-          "Failed to load object from index without caching: id={}, id32={}", objectId, id32, e);
+          "Failed to load object from index without caching: id={}, ordinal={}",
+          objectId,
+          ordinal,
+          e);
       throw new RuntimeException("Failed to load object", e);
     }
   }
@@ -2286,12 +2426,15 @@ public final class HeapDumpImpl implements HeapDump {
    *
    * <p>Package-private for testing.
    *
+   * @throws UnsupportedOperationException if the heap dump has more than {@link
+   *     IndexFormat#MAX_OBJECT_COUNT} objects
    * @throws RuntimeException if index building fails
    */
   void ensureInboundIndexBuilt(ApproximateRetainedSizeComputer.ProgressCallback progressCallback) {
     if (inboundIndexBuilt || options.parsingMode() != HeapDumpParser.ParsingMode.INDEXED) {
       return;
     }
+    checkGraphObjectCount();
 
     synchronized (this) {
       if (inboundIndexBuilt) {
@@ -2323,7 +2466,12 @@ public final class HeapDumpImpl implements HeapDump {
                           "Index building {}: {}%", message, String.format("%.1f", progress * 100));
 
           InboundIndexBuilder.buildInboundIndex(
-              path, indexDir, addressToId32, classesById, indexBuilderCallback);
+              path,
+              indexDir,
+              objectIds,
+              classesById,
+              options.parallelism(),
+              indexBuilderCallback);
 
           long elapsedMs = System.currentTimeMillis() - startTime;
           LOG.info("Inbound index built in {} seconds", elapsedMs / 1000.0);
@@ -2361,13 +2509,23 @@ public final class HeapDumpImpl implements HeapDump {
    * </ul>
    *
    * @param progressCallback optional callback for progress updates
+   * @throws UnsupportedOperationException if the heap dump has more than {@link
+   *     IndexFormat#MAX_OBJECT_COUNT} objects
    */
   public void computeFullDominatorTree(DominatorTreeComputer.ProgressCallback progressCallback) {
     if (fullDominatorTreeComputed) return;
+    checkGraphObjectCount();
+
+    if (refsIndexReader != null) {
+      computeIndexedDominatorTree(progressCallback);
+      return;
+    }
+    computeInMemoryDominatorTree(progressCallback);
+  }
 
-    // Note: For very large heaps in indexed mode, this will stream through all objects
-    // Objects are cached in LRU with bounded memory usage, but performance may be slower
-    // than in-memory mode.For heaps > 50M objects, consider using computeDominators() instead.
+  private synchronized void computeInMemoryDominatorTree(
+      DominatorTreeComputer.ProgressCallback progressCallback) {
+    if (fullDominatorTreeComputed) return;
 
     LOG.info("Computing full dominator tree for {} objects...", objectCount);
 
@@ -2375,14 +2533,51 @@ public final class HeapDumpImpl implements HeapDump {
     // Indexed mode: stream objects into map without intermediate collection (avoid OOM)
     Long2ObjectMap<HeapObjectImpl> allObjects;
     if (objectIndexReader != null) {
-      allObjects = new Long2ObjectOpenHashMap<>(objectCount);
+      allObjects = new Long2ObjectOpenHashMap<>((int) objectCount);
       getObjects().forEach(obj -> allObjects.put(obj.getId(), (HeapObjectImpl) obj));
     } else {
       allObjects = objectsByIdUnbounded;
     }
 
-    dominatorChildrenMap =
-        DominatorTreeComputer.computeFull(this, allObjects, gcRoots, progressCallback);
+    dominatorTree = DominatorTreeComputer.computeFull(this, allObjects, gcRoots, progressCallback);
+    dominatorsComputed = true;
+    fullDominatorTreeComputed = true;
+  }
+
+  /**
+   * Computes the full dominator tree from refs.idx and persists exact retained sizes to
+   * retained.idx, replacing any approximate retained sizes. No object is loaded.
+   */
+  private synchronized void computeIndexedDominatorTree(
+      DominatorTreeComputer.ProgressCallback progressCallback) {
+    if (fullDominatorTreeComputed) return;
+
+    try {
+      if (retainedSizeReader != null) {
+        retainedSizeReader.close();
+        retainedSizeReader = null;
+      }
+
+      dominatorTree =
+          DominatorTreeComputer.computeIndexed(
+              refsIndexReader,
+              objectIds,
+              gcRoots,
+              id32 ->
+                  classAddresses.contains(objectIds.addressAt(id32))
+                      ? 0
+                      : shallowSize(objectIndexReader.readObject(id32)),
+              indexDir,
+              progressCallback);
+
+      retainedSizeReader = new io.jafar.hdump.index.RetainedSizeReader(indexDir);
+      LOG.info("Exact retained sizes persisted to {}", indexDir.resolve("retained.idx"));
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to compute dominator tree from refs.idx", e);
+    }
+
+    // Cached objects carry stale retained sizes
+    objectsByIdLru.clear();
     dominatorsComputed = true;
     fullDominatorTreeComputed = true;
   }
@@ -2409,11 +2604,14 @@ public final class HeapDumpImpl implements HeapDump {
    * @param topN number of top retainers to compute exactly
    * @param classPatterns optional class name patterns to include (e.g., "*.ThreadLocal*")
    * @param progressCallback optional progress callback
+   * @throws UnsupportedOperationException if the heap dump has more than {@link
+   *     IndexFormat#MAX_OBJECT_COUNT} objects
    */
-  public void computeHybridDominators(
+  public synchronized void computeHybridDominators(
       int topN,
       Set<String> classPatterns,
       DominatorTreeComputer.ProgressCallback progressCallback) {
+    checkGraphObjectCount();
 
     // Note: In indexed mode, hybrid computation uses streaming with LRU cache.
     // Objects are loaded on-demand and automatically evicted, keeping memory bounded.
@@ -2460,7 +2658,7 @@ public final class HeapDumpImpl implements HeapDump {
    * @param classPatterns class name patterns to match (e.g., "java.util.HashMap", "*.cache.*")
    * @param progressCallback optional progress callback
    */
-  public void computeExactForClasses(
+  public synchronized void computeExactForClasses(
       Set<String> classPatterns, DominatorTreeComputer.ProgressCallback progressCallback) {
 
     // Note: In indexed mode, streams through objects with LRU cache for memory efficiency
@@ -2526,18 +2724,18 @@ public final class HeapDumpImpl implements HeapDump {
    * @return list of dominated objects (empty if full tree not computed)
    */
   public List<HeapObject> getDominatedObjects(HeapObject dominator) {
-    if (!fullDominatorTreeComputed || dominatorChildrenMap == null) {
+    if (!fullDominatorTreeComputed || dominatorTree == null) {
       return Collections.emptyList();
     }
 
-    // O(1) lookup using cached children map instead of O(N) scan
-    List<Long> childrenIds = dominatorChildrenMap.get(dominator.getId());
-    if (childrenIds == null) {
+    // O(1) lookup using the dominator tree instead of O(N) scan
+    long[] childrenIds = dominatorTree.getDominatedIds(dominator.getId());
+    if (childrenIds.length == 0) {
       return Collections.emptyList();
     }
 
-    List<HeapObject> dominated = new ArrayList<>(childrenIds.size());
-    for (Long childId : childrenIds) {
+    List<HeapObject> dominated = new ArrayList<>(childrenIds.length);
+    for (long childId : childrenIds) {
       // Use getObjectByIdInternal so indexed-mode objects are loaded from disk if not in LRU cache.
       // getCachedObject() only returns objects already in memory, leaving the list empty for any
       // child that was evicted, which causes dominatedCount=0 even when retainedSize > 0.
@@ -2556,14 +2754,17 @@ public final class HeapDumpImpl implements HeapDump {
 
   /**
    * Caches an object in the appropriate storage (unbounded map or LRU cache). In-memory mode: uses
-   * unbounded fastutil map. Indexed mode: uses bounded LRU cache.
+   * unbounded fastutil map, only while parsing. Indexed mode: uses bounded LRU cache, keeping an
+   * object already cached by another thread.
+   *
+   * @return the cached instance for the object ID
    */
-  private void cacheObject(long objectId, HeapObjectImpl obj) {
+  private HeapObjectImpl cacheObject(long objectId, HeapObjectImpl obj) {
     if (objectsByIdLru != null) {
-      objectsByIdLru.put(objectId, obj);
-    } else {
-      objectsByIdUnbounded.put(objectId, obj);
+      return objectsByIdLru.putIfAbsent(objectId, obj);
     }
+    objectsByIdUnbounded.put(objectId, obj);
+    return obj;
   }
 
   /** Retrieves a cached object from appropriate storage. Returns null if not cached. */
@@ -2614,6 +2815,9 @@ public final class HeapDumpImpl implements HeapDump {
     if (inboundCountReader != null) {
       inboundCountReader.close();
     }
+    if (refsIndexReader != null) {
+      refsIndexReader.close();
+    }
     if (retainedSizeReader != null) {
       retainedSizeReader.close();
     }
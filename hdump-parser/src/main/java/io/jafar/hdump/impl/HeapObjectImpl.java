@@ -21,9 +21,11 @@ final class HeapObjectImpl implements HeapObject {
   private final HeapDumpImpl dump;
 
   private int shallowSize;
-  private long retainedSize = -1;
-  private HeapObjectImpl dominator; // Immediate dominator in dominator tree
-  private boolean hasExactRetainedSize = false; // True if exact dominator computed
+
+  // Set by analysis computations while other threads may query (volatile for visibility)
+  private volatile long retainedSize = -1;
+  private volatile HeapObjectImpl dominator; // Immediate dominator in dominator tree
+  private volatile boolean hasExactRetainedSize = false; // True if exact dominator computed
   private int arrayLength = -1;
   private int primitiveArrayType = -1; // -1 = not primitive array
   private boolean isObjectArray = false;
@@ -31,11 +33,12 @@ final class HeapObjectImpl implements HeapObject {
   // Cached field values (lazily populated, volatile for double-checked locking)
   private volatile Map<String, Object> fieldValues;
 
-  // Cached outbound reference IDs (null = not cached, empty array = no refs)
-  private long[] cachedOutboundRefIds;
+  // Cached outbound reference IDs (null = not cached, empty array = no refs). Computing them twice
+  // on a race is harmless; volatile publishes the filled array safely.
+  private volatile long[] cachedOutboundRefIds;
 
   // Cached strong outbound reference IDs (excludes Reference.referent); null = not computed
-  private long[] cachedStrongOutboundRefIds;
+  private volatile long[] cachedStrongOutboundRefIds;
 
   // Constant for objects with no references
   private static final long[] EMPTY_LONG_ARRAY = new long[0];
@@ -103,12 +106,17 @@ final class HeapObjectImpl implements HeapObject {
   @Override
   public long getRetainedSize() {
     // Auto-compute retained sizes on first access if not available
-    if (retainedSize == -1 && dump != null) {
+    long size = retainedSize;
+    if (size == -1 && dump != null) {
       dump.ensureRetainedSizesComputed();
-      // After computation, read from index in indexed mode
-      retainedSize = dump.getRetainedSizeFromIndex(id);
+      size = retainedSize;
+      if (size == -1) {
+        // After computation, read from index in indexed mode
+        size = dump.getRetainedSizeFromIndex(id);
+        retainedSize = size;
+      }
     }
-    return retainedSize;
+    return size;
   }
 
   @Override
@@ -356,9 +364,17 @@ final class HeapObjectImpl implements HeapObject {
   /**
    * Returns outbound reference IDs excluding {@code java.lang.ref.Reference.referent}. For
    * non-Reference objects this returns the same array as {@link #getOutboundReferenceIds()}.
+   *
+   * <p>In indexed mode the IDs are read from refs.idx when available, which leaves out references
+   * to objects missing from the dump.
    */
   public long[] getStrongOutboundReferenceIds() {
     if (cachedStrongOutboundRefIds != null) return cachedStrongOutboundRefIds;
+    long[] indexed = dump.getIndexedStrongReferenceIds(id);
+    if (indexed != null) {
+      cachedStrongOutboundRefIds = indexed.length == 0 ? EMPTY_LONG_ARRAY : indexed;
+      return cachedStrongOutboundRefIds;
+    }
     if (heapClass == null || !heapClass.isReferenceSubclass()) {
       cachedStrongOutboundRefIds = getOutboundReferenceIds();
       return cachedStrongOutboundRefIds;
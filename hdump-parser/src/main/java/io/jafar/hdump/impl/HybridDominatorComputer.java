@@ -224,8 +224,7 @@ public final class HybridDominatorComputer {
         "Filtered subgraph: {} objects, {} GC roots", subgraphObjects.size(), subgraphRoots.size());
 
     // Compute exact dominators for subgraph
-    Map<Long, List<Long>> dominatorChildren =
-        DominatorTreeComputer.computeFull(dump, subgraphObjects, subgraphRoots, progressCallback);
+    DominatorTreeComputer.computeFull(dump, subgraphObjects, subgraphRoots, progressCallback);
 
     // Mark these objects as having exact retained sizes
     for (HeapObjectImpl obj : subgraphObjects.values()) {
@@ -3,14 +3,17 @@ package io.jafar.hdump.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
- * Bounded LRU (Least Recently Used) cache with automatic eviction.
+ * Bounded, lock-striped LRU (Least Recently Used) cache with automatic eviction.
  *
  * <p>This cache maintains a maximum size and automatically evicts the least recently accessed
- * entries when capacity is exceeded. Thread-safe for single-threaded access patterns typical in
- * heap dump analysis.
+ * entries when capacity is exceeded. Keys are spread over independent stripes, each an
+ * access-ordered map guarded by its own lock, so threads looking up different objects rarely
+ * contend. Recency is tracked per stripe: the evicted entry is the least recently used one of its
+ * stripe, which approximates global LRU order for well-spread keys.
  *
  * <p><b>Memory benefits for large heaps:</b>
  *
@@ -25,48 +28,91 @@ import java.util.Map;
  */
 final class LruCache<K, V> {
 
+  /** Smallest stripe worth splitting a cache into; small caches keep a single stripe. */
+  private static final int MIN_STRIPE_SIZE = 256;
+
   private final int maxSize;
-  private final Map<K, V> cache;
+  private final Stripe<K, V>[] stripes;
+  private final int stripeMask;
 
   /**
-   * Creates an LRU cache with the specified maximum size.
+   * Creates an LRU cache with the specified maximum size, striped for the available processors.
    *
    * @param maxSize maximum number of entries to keep in cache
    */
   LruCache(int maxSize) {
+    this(maxSize, defaultStripeCount(maxSize));
+  }
+
+  /**
+   * Creates an LRU cache with the specified maximum size and number of stripes.
+   *
+   * @param maxSize maximum number of entries to keep in cache
+   * @param stripeCount number of independently locked stripes, a power of two not above maxSize
+   */
+  @SuppressWarnings("unchecked")
+  LruCache(int maxSize, int stripeCount) {
     if (maxSize <= 0) {
       throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
     }
+    if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1 || stripeCount > maxSize) {
+      throw new IllegalArgumentException("Invalid stripe count: " + stripeCount);
+    }
     this.maxSize = maxSize;
-    // LinkedHashMap with access-order (true) for LRU behavior
-    this.cache =
-        new LinkedHashMap<K, V>(maxSize + 1, 0.75f, true) {
-          @Override
-          protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-            return size() > LruCache.this.maxSize;
-          }
-        };
+    this.stripes = new Stripe[stripeCount];
+    this.stripeMask = stripeCount - 1;
+    // Spread the capacity so that the stripes add up to exactly maxSize
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe<>(maxSize / stripeCount + (i < maxSize % stripeCount ? 1 : 0));
+    }
+  }
+
+  private static int defaultStripeCount(int maxSize) {
+    int target = 4 * Runtime.getRuntime().availableProcessors();
+    int limit = Math.max(maxSize / MIN_STRIPE_SIZE, 1);
+    return Integer.highestOneBit(Math.min(target, limit));
+  }
+
+  private Stripe<K, V> stripe(Object key) {
+    // Object addresses are aligned, so mix the hash before taking the low bits
+    int h = key.hashCode() * 0x9E3779B9;
+    return stripes[(h ^ (h >>> 16)) & stripeMask];
   }
 
   /**
    * Returns the value associated with the key, or null if not present. Accessing a key marks it as
-   * recently used. Synchronized because access-ordered LinkedHashMap mutates its structure on get.
+   * recently used.
    */
-  synchronized V get(K key) {
-    return cache.get(key);
+  V get(K key) {
+    return stripe(key).get(key);
   }
 
   /**
-   * Associates the value with the key. If cache is at capacity, evicts the least recently used
-   * entry. The newly added entry becomes most recently used.
+   * Associates the value with the key. If the key's stripe is at capacity, evicts its least
+   * recently used entry. The newly added entry becomes most recently used.
    */
-  synchronized void put(K key, V value) {
-    cache.put(key, value);
+  void put(K key, V value) {
+    stripe(key).put(key, value);
+  }
+
+  /**
+   * Associates the value with the key unless the key is already cached. Threads loading the same
+   * key concurrently thereby agree on a single value.
+   *
+   * @return the cached value, which is {@code value} if the key was absent
+   */
+  V putIfAbsent(K key, V value) {
+    V existing = stripe(key).putIfAbsent(key, value);
+    return existing != null ? existing : value;
   }
 
   /** Returns the current number of entries in the cache. */
-  synchronized int size() {
-    return cache.size();
+  int size() {
+    int size = 0;
+    for (Stripe<K, V> stripe : stripes) {
+      size += stripe.size();
+    }
+    return size;
   }
 
   /** Returns the maximum capacity of the cache. */
@@ -74,21 +120,79 @@ final class LruCache<K, V> {
     return maxSize;
   }
 
+  /** Returns the number of independently locked stripes. */
+  int stripeCount() {
+    return stripes.length;
+  }
+
   /** Removes all entries from the cache. */
-  synchronized void clear() {
-    cache.clear();
+  void clear() {
+    for (Stripe<K, V> stripe : stripes) {
+      stripe.clear();
+    }
   }
 
   /** Returns true if the cache contains the key. Note: This marks the key as recently accessed. */
-  synchronized boolean containsKey(K key) {
-    return cache.containsKey(key);
+  boolean containsKey(K key) {
+    return stripe(key).containsKey(key);
   }
 
   /**
    * Returns a snapshot of all values currently in the cache. Used for algorithms that need to
-   * iterate all cached objects.
+   * iterate all cached objects. Each stripe is copied atomically, the cache as a whole is not.
    */
-  synchronized Collection<V> values() {
-    return new ArrayList<>(cache.values());
+  Collection<V> values() {
+    List<V> values = new ArrayList<>();
+    for (Stripe<K, V> stripe : stripes) {
+      stripe.copyValuesTo(values);
+    }
+    return values;
+  }
+
+  /**
+   * One stripe of the cache. Synchronized because access-ordered LinkedHashMap mutates its
+   * structure on get.
+   */
+  private static final class Stripe<K, V> {
+    private final Map<K, V> map;
+
+    Stripe(int capacity) {
+      // LinkedHashMap with access-order (true) for LRU behavior
+      this.map =
+          new LinkedHashMap<K, V>(capacity + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+              return size() > capacity;
+            }
+          };
+    }
+
+    synchronized V get(K key) {
+      return map.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+      map.put(key, value);
+    }
+
+    synchronized V putIfAbsent(K key, V value) {
+      return map.putIfAbsent(key, value);
+    }
+
+    synchronized int size() {
+      return map.size();
+    }
+
+    synchronized void clear() {
+      map.clear();
+    }
+
+    synchronized boolean containsKey(K key) {
+      return map.containsKey(key);
+    }
+
+    synchronized void copyValuesTo(List<V> values) {
+      values.addAll(map.values());
+    }
   }
 }
@@ -4,13 +4,13 @@ import io.jafar.utils.CustomByteBuffer;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.nio.file.Path;
-import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 /**
  * Memory-mapped reader for classinstances-data.idx containing sequential instance IDs.
  *
  * <p>This reader provides access to lists of object IDs grouped by class. Each class's instances
- * are stored contiguously as 32-bit int values. Access locations are obtained from
+ * are stored contiguously as 64-bit long values. Access locations are obtained from
  * ClassInstancesOffsetReader.
  *
  * <p><strong>Performance Characteristics:</strong>
@@ -18,7 +18,7 @@ import java.util.stream.IntStream;
  * <ul>
  *   <li>Sequential access: Optimal for streaming class instances
  *   <li>Memory footprint: Only accessed pages loaded (~5-50 MB for typical queries)
- *   <li>File size: ~456 MB for 114M objects (4 bytes per object)
+ *   <li>File size: ~912 MB for 114M objects (8 bytes per object)
  * </ul>
  *
  * <p><strong>Usage:</strong>
@@ -29,7 +29,7 @@ import java.util.stream.IntStream;
  *
  * InstancesLocation loc = offsetReader.getInstancesLocation(classId32);
  * if (loc != null) {
- *   IntStream instanceIds = dataReader.readInstanceIds(loc.dataFileOffset(), loc.instanceCount());
+ *   LongStream instanceIds = dataReader.readInstanceIds(loc.dataFileOffset(), loc.instanceCount());
  *   instanceIds.forEach(id -> System.out.println("Instance: " + id));
  * }
  * }</pre>
@@ -80,29 +80,30 @@ public final class ClassInstancesDataReader implements AutoCloseable {
   /**
    * Reads a sequential list of instance IDs starting at the given offset.
    *
-   * <p>The offset is specified in number of int32 values (not bytes) from the start of the data
+   * <p>The offset is specified in number of instance IDs (not bytes) from the start of the data
    * section. For example, offset 0 reads the first instance ID, offset 1000 reads the 1001st
    * instance ID.
    *
-   * @param offset position in the data file (in number of int32 values, not bytes)
+   * @param offset position in the data file (in number of instance IDs, not bytes)
    * @param count number of instance IDs to read
-   * @return stream of object IDs (32-bit sequential IDs)
+   * @return stream of object IDs (sequential IDs)
    */
-  public IntStream readInstanceIds(long offset, int count) {
+  public LongStream readInstanceIds(long offset, long count) {
     if (count < 0) {
       throw new IllegalArgumentException("Count must be non-negative: " + count);
     }
 
     if (count == 0) {
-      return IntStream.empty();
+      return LongStream.empty();
     }
 
-    // Convert offset from int32 count to byte offset
-    // absoluteOffset = HEADER_SIZE + (offset × 4 bytes per int32)
-    long absoluteOffset = IndexFormat.HEADER_SIZE + (offset * 4L);
+    // Convert offset from ID count to byte offset
+    // absoluteOffset = HEADER_SIZE + (offset × 8 bytes per ID)
+    long absoluteOffset =
+        IndexFormat.HEADER_SIZE + offset * IndexFormat.CLASSINSTANCES_DATA_OBJECT_ID_SIZE;
 
     // Validate bounds
-    long endOffset = absoluteOffset + ((long) count * 4);
+    long endOffset = absoluteOffset + count * IndexFormat.CLASSINSTANCES_DATA_OBJECT_ID_SIZE;
     if (endOffset > buffer.limit()) {
       throw new IllegalArgumentException(
           String.format(
@@ -110,8 +111,9 @@ public final class ClassInstancesDataReader implements AutoCloseable {
               offset, count, endOffset, buffer.limit()));
     }
 
-    // Create stream that reads int32 values sequentially
-    return IntStream.range(0, count).map(i -> buffer.getInt(absoluteOffset + (i * 4L)));
+    // Create stream that reads the IDs sequentially
+    int idSize = IndexFormat.CLASSINSTANCES_DATA_OBJECT_ID_SIZE;
+    return LongStream.range(0, count).map(i -> buffer.getLong(absoluteOffset + i * idSize));
   }
 
   /**
@@ -42,11 +42,11 @@ public final class ClassInstancesOffsetReader implements AutoCloseable {
   /**
    * Location information for a class's instances in classinstances-data.idx.
    *
-   * @param dataFileOffset offset in data file where instance IDs start (in number of int32 values,
+   * @param dataFileOffset offset in data file where instance IDs start (in number of instance IDs,
    *     not bytes)
    * @param instanceCount number of instances for this class
    */
-  public record InstancesLocation(long dataFileOffset, int instanceCount) {}
+  public record InstancesLocation(long dataFileOffset, long instanceCount) {}
 
   /**
    * Opens the classinstances-offset.idx file for reading.
@@ -109,8 +109,8 @@ public final class ClassInstancesOffsetReader implements AutoCloseable {
     int storedClassId = buffer.getInt(entryOffset + IndexFormat.CLASSINSTANCES_OFFSET_CLASS_ID32);
     long dataFileOffset =
         buffer.getLong(entryOffset + IndexFormat.CLASSINSTANCES_OFFSET_DATA_FILE_OFFSET);
-    int instanceCount =
-        buffer.getInt(entryOffset + IndexFormat.CLASSINSTANCES_OFFSET_INSTANCE_COUNT);
+    long instanceCount =
+        buffer.getLong(entryOffset + IndexFormat.CLASSINSTANCES_OFFSET_INSTANCE_COUNT);
 
     // Sanity check
     if (storedClassId != classId32) {
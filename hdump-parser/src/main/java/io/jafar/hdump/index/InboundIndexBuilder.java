@@ -3,11 +3,9 @@ package io.jafar.hdump.index;
 import io.jafar.hdump.api.HeapClass;
 import io.jafar.hdump.api.HeapField;
 import io.jafar.hdump.internal.BasicType;
+import io.jafar.hdump.internal.HeapRecordScanner;
 import io.jafar.hdump.internal.HeapTag;
 import io.jafar.hdump.internal.HprofReader;
-import io.jafar.hdump.internal.HprofTag;
-import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
-import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
@@ -15,6 +13,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * Builds inbound reference count index on-demand.
@@ -25,17 +24,17 @@ import java.util.List;
  * <p><strong>Algorithm:</strong>
  *
  * <ol>
- *   <li>Scan objects.idx to get all object IDs
- *   <li>For each object, extract outbound references from heap dump
- *   <li>Increment inbound count for each referenced object
+ *   <li>Scan heap dump segments in parallel, extracting outbound references of each object
+ *   <li>Increment inbound count for each referenced object in a shared atomic counter array
  *   <li>Write inbound counts to inbound.idx (sequential by objectId32)
  * </ol>
  *
  * <p><strong>Performance:</strong>
  *
  * <ul>
- *   <li>Build time: ~60 seconds for 114M objects
- *   <li>Memory peak: ~2.4 GB (Int2IntOpenHashMap)
+ *   <li>Build time: ~60 seconds for 114M objects on a single thread, scaling with cores on dumps
+ *       written in many HEAP_DUMP_SEGMENT records
+ *   <li>Memory peak: 4 bytes per object (one counter array shared by all threads)
  *   <li>Disk usage: 914 MB for 114M objects (8 bytes per object)
  * </ul>
  *
@@ -44,57 +43,73 @@ import java.util.List;
  */
 public final class InboundIndexBuilder {
 
+  /**
+   * Builds inbound reference count index, scanning with one thread per available processor.
+   *
+   * @param heapDumpPath path to HPROF file
+   * @param indexDir directory containing index files
+   * @param objectIds mapping from 64-bit addresses to 32-bit IDs
+   * @param classesById mapping from 64-bit class IDs to class field information
+   * @param progressCallback optional progress callback
+   * @throws IOException if building fails
+   */
+  public static void buildInboundIndex(
+      Path heapDumpPath,
+      Path indexDir,
+      ObjectIdMap objectIds,
+      Long2ObjectMap<? extends HeapClass> classesById,
+      ProgressCallback progressCallback)
+      throws IOException {
+    buildInboundIndex(
+        heapDumpPath,
+        indexDir,
+        objectIds,
+        classesById,
+        HeapRecordScanner.defaultParallelism(),
+        progressCallback);
+  }
+
   /**
    * Builds inbound reference count index.
    *
    * @param heapDumpPath path to HPROF file
    * @param indexDir directory containing index files
-   * @param addressToId32 mapping from 64-bit addresses to 32-bit IDs
+   * @param objectIds mapping from 64-bit addresses to 32-bit IDs
    * @param classesById mapping from 64-bit class IDs to class field information
+   * @param parallelism maximum number of threads scanning heap dump segments
    * @param progressCallback optional progress callback
    * @throws IOException if building fails
    */
   public static void buildInboundIndex(
       Path heapDumpPath,
       Path indexDir,
-      Long2IntOpenHashMap addressToId32,
+      ObjectIdMap objectIds,
       Long2ObjectMap<? extends HeapClass> classesById,
+      int parallelism,
       ProgressCallback progressCallback)
       throws IOException {
 
-    int objectCount = addressToId32.size();
+    int objectCount = Math.toIntExact(objectIds.size());
 
-    // Build inbound counts by scanning heap dump
-    Int2IntOpenHashMap inboundCounts = new Int2IntOpenHashMap(objectCount);
-    inboundCounts.defaultReturnValue(0);
+    // Build inbound counts by scanning heap dump segments; the maps are only read by the workers
+    AtomicIntegerArray inboundCounts = new AtomicIntegerArray(objectCount);
 
     try (HprofReader reader = new HprofReader(heapDumpPath)) {
-      reader.reset();
-
-      long fileSize = reader.getFileSize();
-      long lastProgressReport = 0;
-      final long progressInterval = fileSize / 100; // Report every 1%
-
-      while (reader.hasMoreRecords()) {
-        var header = reader.readRecordHeader();
-        if (header == null) break;
-
-        if (header.tag() == HprofTag.HEAP_DUMP || header.tag() == HprofTag.HEAP_DUMP_SEGMENT) {
-          scanReferencesFromHeapDump(reader, header, addressToId32, classesById, inboundCounts);
-        } else {
-          reader.skipRecordBody(header);
-        }
-
-        // Report progress
-        if (progressCallback != null && fileSize > 0) {
-          long currentPos = reader.position();
-          if (currentPos - lastProgressReport > progressInterval) {
-            double progress = (double) currentPos / fileSize;
-            progressCallback.onProgress(progress, "Scanning references");
-            lastProgressReport = currentPos;
-          }
-        }
-      }
+      List<HprofReader.RecordHeader> heapRecords =
+          HeapRecordScanner.locateHeapRecords(reader, null);
+      HeapRecordScanner.scan(
+          reader,
+          heapRecords,
+          parallelism,
+          (view, header) -> {
+            scanReferencesFromHeapDump(view, header, objectIds, classesById, inboundCounts);
+            return null;
+          },
+          progressCallback != null
+              ? (bytesDone, bytesTotal) ->
+                  progressCallback.onProgress(
+                      (double) bytesDone / Math.max(bytesTotal, 1), "Scanning references")
+              : null);
     }
 
     // Write inbound index to disk
@@ -108,9 +123,9 @@ public final class InboundIndexBuilder {
   private static void scanReferencesFromHeapDump(
       HprofReader reader,
       HprofReader.RecordHeader header,
-      Long2IntOpenHashMap addressToId32,
+      ObjectIdMap objectIds,
       Long2ObjectMap<? extends HeapClass> classesById,
-      Int2IntOpenHashMap inboundCounts)
+      AtomicIntegerArray inboundCounts)
       throws IOException {
 
     long endPos = header.bodyPosition() + header.length();
@@ -138,9 +153,9 @@ public final class InboundIndexBuilder {
                 // This is an object reference field
                 long refAddress = reader.readId();
                 if (refAddress != 0) {
-                  int refId32 = addressToId32.get(refAddress);
+                  int refId32 = (int) objectIds.indexOf(refAddress);
                   if (refId32 != -1) {
-                    inboundCounts.addTo(refId32, 1);
+                    inboundCounts.incrementAndGet(refId32);
                   }
                 }
               } else {
@@ -163,9 +178,9 @@ public final class InboundIndexBuilder {
           for (int i = 0; i < length; i++) {
             long refAddress = reader.readId();
             if (refAddress != 0) {
-              int refId32 = addressToId32.get(refAddress);
+              int refId32 = (int) objectIds.indexOf(refAddress);
               if (refId32 != -1) {
-                inboundCounts.addTo(refId32, 1);
+                inboundCounts.incrementAndGet(refId32);
               }
             }
           }
@@ -267,7 +282,7 @@ public final class InboundIndexBuilder {
   }
 
   private static void writeInboundIndex(
-      Path indexDir, int objectCount, Int2IntOpenHashMap inboundCounts) throws IOException {
+      Path indexDir, int objectCount, AtomicIntegerArray inboundCounts) throws IOException {
 
     Path indexFile = indexDir.resolve(IndexFormat.INBOUND_INDEX_NAME);
     Path tempFile = indexDir.resolve(IndexFormat.INBOUND_INDEX_NAME + ".tmp");
@@ -286,7 +301,7 @@ public final class InboundIndexBuilder {
       // Write entries (sequential by objectId32)
       for (int id32 = 0; id32 < objectCount; id32++) {
         out.writeInt(id32); // objectId32
-        out.writeInt(inboundCounts.get(id32)); // inboundCount (0 if not present)
+        out.writeInt(inboundCounts.get(id32)); // inboundCount
       }
     }
 
@@ -7,8 +7,8 @@ package io.jafar.hdump.index;
  *
  * <ul>
  *   <li><strong>objects.idx</strong>: Object metadata (location, size, class, array length)
- *   <li><strong>objectmap.idx</strong>: Object address mapping (32-bit ID to 64-bit address)
- *   <li><strong>refs.idx</strong>: Outbound references (variable-length per object)
+ *   <li><strong>objectmap.idx</strong>: Object address mapping (object ID to 64-bit address)
+ *   <li><strong>refs.idx</strong>: Strong outbound references (compressed sparse rows)
  *   <li><strong>inbound.idx</strong>: Inbound reference counts (for retained size computation)
  *   <li><strong>retained.idx</strong>: Retained sizes (pre-computed approximate retained sizes)
  *   <li><strong>classes.idx</strong>: Class metadata (name, fields)
@@ -19,10 +19,15 @@ package io.jafar.hdump.index;
  * <p><strong>Design Philosophy:</strong>
  *
  * <ul>
- *   <li>Sequential writes during index building (optimal for SSD/HDD)
+ *   <li>Sequential writes during index building (optimal for SSD/HDD), except for objects.idx,
+ *       refs.idx and classinstances-data.idx, which are filled through memory mappings
  *   <li>Fixed-size records for objects.idx and inbound.idx (direct offset calculation)
- *   <li>Variable-length records for refs.idx (compact storage)
- *   <li>32-bit object IDs (maps 64-bit addresses to sequential IDs, 50% space savings)
+ *   <li>Compressed sparse rows for refs.idx (dense edge array, O(1) adjacency lookup)
+ *   <li>Sequential object IDs in address order: 64-bit in the indexes every heap dump gets, 32-bit
+ *       in the reference graph indexes (refs.idx, inbound.idx, retained.idx), which are limited to
+ *       {@link #MAX_OBJECT_COUNT} objects
+ *   <li>64-bit file offsets and section positions, so neither heap dumps nor index files are
+ *       limited in size
  *   <li>Memory-mapped access for reading (OS page cache optimization)
  * </ul>
  *
@@ -30,6 +35,8 @@ package io.jafar.hdump.index;
  *
  * <ul>
  *   <li>Version 1: Initial implementation with basic metadata and references
+ *   <li>Version 2: 64-bit object IDs in objects.idx, objectmap.idx, gcroots.idx and the
+ *       class-instances indexes
  * </ul>
  */
 public final class IndexFormat {
@@ -39,7 +46,15 @@ public final class IndexFormat {
   // === Version Information ===
 
   /** Current index format version. Increment when making breaking changes. */
-  public static final int FORMAT_VERSION = 1;
+  public static final int FORMAT_VERSION = 2;
+
+  /**
+   * Maximum number of objects (including class objects) for which the reference graph indexes
+   * (refs.idx, inbound.idx, retained.idx) are built, bounded by their 32-bit object IDs and the
+   * dominator computation. Heap dumps with more objects are indexed without refs.idx, and
+   * retained sizes and dominators are not available for them.
+   */
+  public static final long MAX_OBJECT_COUNT = Integer.MAX_VALUE;
 
   // === Magic Numbers (File Identification) ===
 
@@ -86,20 +101,22 @@ public final class IndexFormat {
   // === objects.idx Format ===
 
   /**
-   * Object entry format (26 bytes fixed):
+   * Object entry format (30 bytes fixed):
    *
    * <pre>
-   * [objectId32:4][fileOffset:8][dataSize:4][classId:4][arrayLength:4][flags:1][elementType:1]
-   * Total: 20-byte header + (26 bytes × object count)
-   * Example: 114M objects = 20 + (114,000,000 × 26) = 2.96 GB
+   * [objectId:8][fileOffset:8][dataSize:4][classId:4][arrayLength:4][flags:1][elementType:1]
+   * Total: 20-byte header + (30 bytes × object count)
+   * Example: 114M objects = 20 + (114,000,000 × 30) = 3.42 GB
    * </pre>
    *
    * <p>Fields:
    *
    * <ul>
-   *   <li><strong>objectId32</strong>: 32-bit sequential object ID (0 to N-1)
+   *   <li><strong>objectId</strong>: 64-bit sequential object ID (0 to N-1)
    *   <li><strong>fileOffset</strong>: Position in heap dump file where object data starts
-   *   <li><strong>dataSize</strong>: Size of object data in bytes
+   *   <li><strong>dataSize</strong>: Size of object data in bytes, saturated at {@code
+   *       Integer.MAX_VALUE}; the data size of larger arrays follows from arrayLength and
+   *       elementType
    *   <li><strong>classId</strong>: 32-bit class ID (index into classes.idx)
    *   <li><strong>arrayLength</strong>: Array length (-1 if not an array)
    *   <li><strong>flags</strong>: Bitfield (bit 0: isObjectArray, bit 1: isPrimitiveArray)
@@ -107,15 +124,15 @@ public final class IndexFormat {
    *       etc.), 0 otherwise
    * </ul>
    */
-  public static final int OBJECT_ENTRY_SIZE = 26;
+  public static final int OBJECT_ENTRY_SIZE = 30;
 
-  public static final int OBJECT_OFFSET_ID32 = 0;
-  public static final int OBJECT_OFFSET_FILE_OFFSET = 4;
-  public static final int OBJECT_OFFSET_DATA_SIZE = 12;
-  public static final int OBJECT_OFFSET_CLASS_ID = 16;
-  public static final int OBJECT_OFFSET_ARRAY_LENGTH = 20;
-  public static final int OBJECT_OFFSET_FLAGS = 24;
-  public static final int OBJECT_OFFSET_ELEMENT_TYPE = 25;
+  public static final int OBJECT_OFFSET_ID = 0;
+  public static final int OBJECT_OFFSET_FILE_OFFSET = 8;
+  public static final int OBJECT_OFFSET_DATA_SIZE = 16;
+  public static final int OBJECT_OFFSET_CLASS_ID = 20;
+  public static final int OBJECT_OFFSET_ARRAY_LENGTH = 24;
+  public static final int OBJECT_OFFSET_FLAGS = 28;
+  public static final int OBJECT_OFFSET_ELEMENT_TYPE = 29;
 
   // Object flags
   public static final byte FLAG_IS_OBJECT_ARRAY = 0x01;
@@ -124,22 +141,29 @@ public final class IndexFormat {
   // === refs.idx Format ===
 
   /**
-   * Reference entry format (variable length):
+   * References file format (compressed sparse rows):
    *
    * <pre>
-   * [objectId32:4][refCount:4][refId32_1:4][refId32_2:4]...[refId32_N:4]
+   * [header:20][padding:4][edgeStart_0:8]...[edgeStart_N:8][refId32_0:4]...[refId32_E-1:4]
+   * Total: 24 + (8 × (N + 1)) + (4 × E) bytes
+   * Example: 114M objects, 300M references = 24 + 912 MB + 1.2 GB = 2.1 GB
    * </pre>
    *
-   * <p>Variable-length encoding saves space for objects with few references. Binary search on
-   * objectId32 enables fast lookup.
+   * <p>The header entry count is the number of objects N. The outbound references of objectId32
+   * {@code i} are the edges {@code edgeStart_i} (inclusive) to {@code edgeStart_i+1} (exclusive);
+   * {@code edgeStart_N} is the total edge count E. Edges hold the 32-bit IDs of the referenced
+   * objects in field or element order.
    *
-   * <p>Entry size: 8 + (4 × refCount) bytes
+   * <p>Only strong references are stored: {@code referent} and {@code discovered} of {@code
+   * java.lang.ref.Reference} subclasses, null references and references to objects missing from
+   * the dump are left out. Class objects have no edges.
+   *
+   * <p>The padding keeps the edge starts 8-byte aligned, so no value spans two mapped regions.
    */
-  public static final int REF_ENTRY_HEADER_SIZE = 8;
+  public static final int REFS_OFFSETS_START = 24;
 
-  public static final int REF_OFFSET_OBJECT_ID32 = 0;
-  public static final int REF_OFFSET_REF_COUNT = 4;
-  public static final int REF_OFFSET_REFS_START = 8;
+  public static final int REFS_OFFSET_ENTRY_SIZE = 8;
+  public static final int REFS_EDGE_SIZE = 4;
 
   // === inbound.idx Format ===
 
@@ -262,39 +286,40 @@ public final class IndexFormat {
   // === objectmap.idx Format ===
 
   /**
-   * Object address mapping entry format (12 bytes fixed):
+   * Object address mapping entry format (16 bytes fixed):
    *
    * <pre>
-   * [objectId32:4][objectAddress64:8]
+   * [objectId:8][objectAddress64:8]
    * </pre>
    *
-   * <p>Sequential by objectId32 for direct offset calculation. Maps 32-bit sequential object IDs
-   * back to original 64-bit addresses from the heap dump. This index enables skipping Pass 1
-   * (address collection) when reopening a heap dump with existing indexes.
+   * <p>Sequential by objectId for direct offset calculation. Maps sequential object IDs back to
+   * original 64-bit addresses from the heap dump. Object IDs are assigned in ascending
+   * address order, so the addresses are sorted as well. This index enables skipping Pass 1 (address
+   * collection) when reopening a heap dump with existing indexes.
    *
-   * <p>Example: 114M objects = 20 + (114,000,000 × 12) = 1.37 GB
+   * <p>Example: 114M objects = 20 + (114,000,000 × 16) = 1.82 GB
    */
-  public static final int OBJECTMAP_ENTRY_SIZE = 12;
+  public static final int OBJECTMAP_ENTRY_SIZE = 16;
 
-  public static final int OBJECTMAP_OFFSET_OBJECT_ID32 = 0;
-  public static final int OBJECTMAP_OFFSET_OBJECT_ADDRESS64 = 4;
+  public static final int OBJECTMAP_OFFSET_OBJECT_ID = 0;
+  public static final int OBJECTMAP_OFFSET_OBJECT_ADDRESS64 = 8;
 
   // === classinstances-offset.idx Format ===
 
   /**
-   * Class instances offset entry format (16 bytes fixed):
+   * Class instances offset entry format (20 bytes fixed):
    *
    * <pre>
-   * [classId32:4][dataFileOffset:8][instanceCount:4]
+   * [classId32:4][dataFileOffset:8][instanceCount:8]
    * </pre>
    *
    * <p>Sequential by classId32 for direct offset calculation. Maps 32-bit class IDs to their
    * instance list location in classinstances-data.idx. Enables O(1) lookup from class to its
    * instances without scanning all objects.
    *
-   * <p>Example: 10K classes = 20 + (10,000 × 16) = 160 KB
+   * <p>Example: 10K classes = 20 + (10,000 × 20) = 200 KB
    */
-  public static final int CLASSINSTANCES_OFFSET_ENTRY_SIZE = 16;
+  public static final int CLASSINSTANCES_OFFSET_ENTRY_SIZE = 20;
 
   public static final int CLASSINSTANCES_OFFSET_CLASS_ID32 = 0;
   public static final int CLASSINSTANCES_OFFSET_DATA_FILE_OFFSET = 4;
@@ -305,13 +330,13 @@ public final class IndexFormat {
   /**
    * Class instances data format (variable-length):
    *
-   * <p>Sequential list of 32-bit object IDs (4 bytes each). Each class's instances are stored
-   * contiguously, accessed via offsets from classinstances-offset.idx. No per-entry structure -
-   * just raw int32 values representing object IDs.
+   * <p>Sequential list of 64-bit object IDs (8 bytes each). Each class's instances are stored
+   * contiguously in heap dump order, accessed via offsets from classinstances-offset.idx. No
+   * per-entry structure - just raw int64 values representing object IDs.
    *
-   * <p>Example: 114M objects = 20 + (114,000,000 × 4) = 456 MB
+   * <p>Example: 114M objects = 20 + (114,000,000 × 8) = 912 MB
    */
-  public static final int CLASSINSTANCES_DATA_OBJECT_ID_SIZE = 4;
+  public static final int CLASSINSTANCES_DATA_OBJECT_ID_SIZE = 8;
 
   // === gcroots.idx Format ===
 
@@ -319,30 +344,30 @@ public final class IndexFormat {
   public static final int GCROOTS_INDEX_MAGIC = 0x4A474352;
 
   /**
-   * GC root entry format (13 bytes fixed):
+   * GC root entry format (17 bytes fixed):
    *
    * <pre>
-   * [type:1][objectId32:4][threadSerial:4][frameNumber:4]
+   * [type:1][objectId:8][threadSerial:4][frameNumber:4]
    * </pre>
    *
    * <p>Fields:
    *
    * <ul>
    *   <li><strong>type</strong>: GcRoot.Type ordinal (0-based enum index)
-   *   <li><strong>objectId32</strong>: 32-bit object ID (mapped via addressToId32)
+   *   <li><strong>objectId</strong>: 64-bit object ID (mapped via objectmap.idx)
    *   <li><strong>threadSerial</strong>: Thread serial number (-1 if not applicable)
    *   <li><strong>frameNumber</strong>: Stack frame number (-1 if not applicable)
    * </ul>
    *
-   * <p>Sequential storage for efficient scan. Small index (~13 bytes per root, typically &lt;10K
+   * <p>Sequential storage for efficient scan. Small index (~17 bytes per root, typically &lt;10K
    * roots per heap).
    */
-  public static final int GCROOT_ENTRY_SIZE = 13;
+  public static final int GCROOT_ENTRY_SIZE = 17;
 
   public static final int GCROOT_OFFSET_TYPE = 0;
-  public static final int GCROOT_OFFSET_OBJECT_ID32 = 1;
-  public static final int GCROOT_OFFSET_THREAD_SERIAL = 5;
-  public static final int GCROOT_OFFSET_FRAME_NUMBER = 9;
+  public static final int GCROOT_OFFSET_OBJECT_ID = 1;
+  public static final int GCROOT_OFFSET_THREAD_SERIAL = 9;
+  public static final int GCROOT_OFFSET_FRAME_NUMBER = 13;
 
   // === Magic Numbers (continued) ===
 
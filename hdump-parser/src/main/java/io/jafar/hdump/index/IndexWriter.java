@@ -1,12 +1,22 @@
 package io.jafar.hdump.index;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Writes heap dump indexes during parsing with buffered sequential writes.
@@ -15,7 +25,8 @@ import java.nio.file.StandardCopyOption;
  *
  * <ul>
  *   <li>Atomic writes via temp files + rename
- *   <li>Sequential writes optimized for SSD/HDD performance
+ *   <li>Sequential writes optimized for SSD/HDD performance, except for objects.idx, refs.idx and
+ *       classinstances-data.idx, whose entries may be written in any order
  *   <li>Buffered I/O to reduce system calls
  *   <li>Version headers for future compatibility
  * </ul>
@@ -26,8 +37,8 @@ import java.nio.file.StandardCopyOption;
  * IndexWriter writer = new IndexWriter(indexDir);
  * try {
  *     writer.beginObjectsIndex(totalObjects);
- *     for (int i = 0; i < totalObjects; i++) {
- *         writer.writeObjectEntry(id32, fileOffset, dataSize, classId, arrayLength, flags);
+ *     for (long id = 0; id < totalObjects; id++) {
+ *         writer.writeObjectEntry(id, fileOffset, dataSize, classId, arrayLength, flags);
  *     }
  *     writer.finishObjectsIndex();
  * } finally {
@@ -37,10 +48,21 @@ import java.nio.file.StandardCopyOption;
  */
 public final class IndexWriter implements AutoCloseable {
 
+  /**
+   * Size of the regions index files written out of order are mapped in; a multiple of 8 so no
+   * value of refs.idx spans two.
+   */
+  private static final long MAP_REGION_SIZE = 1L << 30; // 1 GB
+
   private final Path indexDir;
   private DataOutputStream currentStream;
   private Path currentTempFile;
   private int entriesWritten;
+  private MappedIndex objectsIndex;
+  private MappedIndex instancesIndex;
+  private int[] refCounts;
+  private final List<RefsSpill> refsSpills = new ArrayList<>();
+  private RefsSpill defaultRefsSpill;
 
   /**
    * Creates a new index writer for the specified directory.
@@ -56,66 +78,58 @@ public final class IndexWriter implements AutoCloseable {
   /**
    * Begins writing the objects.idx file.
    *
-   * @param expectedEntries expected number of entries (for validation)
+   * <p>The file is sized for all entries up front and filled through a memory mapping, so entries
+   * may be written in any order, typically heap dump order.
+   *
+   * @param entryCount number of entries, one per object ID (0 to entryCount-1)
    * @throws IOException if file cannot be created
    */
-  public void beginObjectsIndex(int expectedEntries) throws IOException {
-    Path targetFile = indexDir.resolve(IndexFormat.OBJECTS_INDEX_NAME);
-    currentTempFile = indexDir.resolve(IndexFormat.OBJECTS_INDEX_NAME + ".tmp");
-
-    // Open buffered stream for sequential writes
-    currentStream =
-        new DataOutputStream(
-            new BufferedOutputStream(
-                new FileOutputStream(currentTempFile.toFile()), 1024 * 1024)); // 1 MB buffer
-
-    // Write header
-    currentStream.writeInt(IndexFormat.OBJECTS_INDEX_MAGIC); // magic
-    currentStream.writeInt(IndexFormat.FORMAT_VERSION); // version
-    currentStream.writeLong(expectedEntries); // entry count
-    currentStream.writeInt(0); // flags (reserved)
-
-    entriesWritten = 0;
+  public void beginObjectsIndex(long entryCount) throws IOException {
+    objectsIndex =
+        new MappedIndex(
+            IndexFormat.OBJECTS_INDEX_NAME,
+            IndexFormat.OBJECTS_INDEX_MAGIC,
+            entryCount,
+            IndexFormat.OBJECT_ENTRY_SIZE);
   }
 
   /**
-   * Writes a single object entry to objects.idx.
+   * Writes a single object entry to objects.idx, at the position of its object ID.
    *
    * <p>Entry format:
-   * [objectId32:4][fileOffset:8][dataSize:4][classId:4][arrayLength:4][flags:1][elementType:1]
+   * [objectId:8][fileOffset:8][dataSize:4][classId:4][arrayLength:4][flags:1][elementType:1]
    *
-   * @param objectId32 32-bit sequential object ID
+   * @param objectId sequential object ID
    * @param fileOffset position in heap dump file where object data starts
    * @param dataSize size of object data in bytes
    * @param classId 32-bit class ID
    * @param arrayLength array length (-1 if not an array)
    * @param flags bitfield (FLAG_IS_OBJECT_ARRAY, FLAG_IS_PRIMITIVE_ARRAY)
    * @param elementType BasicType constant for primitive arrays (BYTE=8, INT=10, etc.), 0 otherwise
-   * @throws IOException if write fails
+   * @throws IllegalArgumentException if objectId is out of range
    */
   public void writeObjectEntry(
-      int objectId32,
+      long objectId,
       long fileOffset,
       int dataSize,
       int classId,
       int arrayLength,
       byte flags,
-      byte elementType)
-      throws IOException {
+      byte elementType) {
 
-    if (currentStream == null) {
+    if (objectsIndex == null) {
       throw new IllegalStateException("beginObjectsIndex() not called");
     }
 
-    currentStream.writeInt(objectId32);
-    currentStream.writeLong(fileOffset);
-    currentStream.writeInt(dataSize);
-    currentStream.writeInt(classId);
-    currentStream.writeInt(arrayLength);
-    currentStream.writeByte(flags);
-    currentStream.writeByte(elementType);
-
-    entriesWritten++;
+    MappedByteBuffer region = objectsIndex.region(objectId);
+    int offset = objectsIndex.offset(objectId);
+    region.putLong(offset + IndexFormat.OBJECT_OFFSET_ID, objectId);
+    region.putLong(offset + IndexFormat.OBJECT_OFFSET_FILE_OFFSET, fileOffset);
+    region.putInt(offset + IndexFormat.OBJECT_OFFSET_DATA_SIZE, dataSize);
+    region.putInt(offset + IndexFormat.OBJECT_OFFSET_CLASS_ID, classId);
+    region.putInt(offset + IndexFormat.OBJECT_OFFSET_ARRAY_LENGTH, arrayLength);
+    region.put(offset + IndexFormat.OBJECT_OFFSET_FLAGS, flags);
+    region.put(offset + IndexFormat.OBJECT_OFFSET_ELEMENT_TYPE, elementType);
   }
 
   /**
@@ -124,23 +138,12 @@ public final class IndexWriter implements AutoCloseable {
    * @throws IOException if flush or rename fails
    */
   public void finishObjectsIndex() throws IOException {
-    if (currentStream == null) {
+    if (objectsIndex == null) {
       throw new IllegalStateException("beginObjectsIndex() not called");
     }
 
-    // Flush and close
-    currentStream.flush();
-    currentStream.close();
-    currentStream = null;
-
-    // Atomic rename
-    Path targetFile = indexDir.resolve(IndexFormat.OBJECTS_INDEX_NAME);
-    Files.move(
-        currentTempFile,
-        targetFile,
-        StandardCopyOption.ATOMIC_MOVE,
-        StandardCopyOption.REPLACE_EXISTING);
-    currentTempFile = null;
+    objectsIndex.finish();
+    objectsIndex = null;
   }
 
   /**
@@ -209,6 +212,298 @@ public final class IndexWriter implements AutoCloseable {
     currentTempFile = null;
   }
 
+  // === References Index Writing ===
+
+  /**
+   * Begins writing the refs.idx file.
+   *
+   * <p>Entries may be written in any object order, typically heap dump order. They are spilled to
+   * a temporary file and laid out as compressed sparse rows by {@link #finishRefsIndex()}.
+   *
+   * @param objectCount number of 32-bit object IDs (0 to objectCount-1)
+   * @throws IOException if file cannot be created
+   */
+  public void beginRefsIndex(int objectCount) throws IOException {
+    refCounts = new int[objectCount];
+    defaultRefsSpill = openRefsSpill();
+  }
+
+  /**
+   * Opens an additional spill for references written by another thread.
+   *
+   * <p>Each spill must be used by a single thread at a time, and each object must be written
+   * through exactly one spill. Spills are merged by {@link #finishRefsIndex()}.
+   *
+   * @return new spill
+   */
+  public synchronized RefsSpill openRefsSpill() {
+    if (refCounts == null) {
+      throw new IllegalStateException("beginRefsIndex() not called");
+    }
+    String suffix = refsSpills.isEmpty() ? ".edges.tmp" : ".edges." + refsSpills.size() + ".tmp";
+    RefsSpill spill = new RefsSpill(indexDir.resolve(IndexFormat.REFS_INDEX_NAME + suffix));
+    refsSpills.add(spill);
+    return spill;
+  }
+
+  /**
+   * Writes the strong outbound references of one object.
+   *
+   * @param objectId32 32-bit object ID
+   * @param refIds32 32-bit IDs of the referenced objects
+   * @param refCount number of valid entries in refIds32
+   * @throws IOException if write fails
+   */
+  public void writeRefsEntry(int objectId32, int[] refIds32, int refCount) throws IOException {
+    if (defaultRefsSpill == null) {
+      throw new IllegalStateException("beginRefsIndex() not called");
+    }
+    defaultRefsSpill.writeEntry(objectId32, refIds32, refCount);
+  }
+
+  /**
+   * Temporary file receiving the references of objects in scan order, until they are laid out
+   * by object ID. The file is created on the first non-empty entry.
+   */
+  public final class RefsSpill implements Closeable {
+    private final Path file;
+    private DataOutputStream out;
+    private int entries;
+
+    private RefsSpill(Path file) {
+      this.file = file;
+    }
+
+    /**
+     * Writes the strong outbound references of one object.
+     *
+     * @param objectId32 32-bit object ID
+     * @param refIds32 32-bit IDs of the referenced objects
+     * @param refCount number of valid entries in refIds32
+     * @throws IOException if write fails
+     */
+    public void writeEntry(int objectId32, int[] refIds32, int refCount) throws IOException {
+      if (refCount == 0) {
+        return;
+      }
+      if (out == null) {
+        out =
+            new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file.toFile()), 1024 * 1024));
+      }
+
+      out.writeInt(objectId32);
+      out.writeInt(refCount);
+      for (int i = 0; i < refCount; i++) {
+        out.writeInt(refIds32[i]);
+      }
+      // Distinct objects per spill, so concurrent spills update distinct elements
+      refCounts[objectId32] += refCount;
+
+      entries++;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (out != null) {
+        try {
+          out.close();
+        } finally {
+          out = null;
+        }
+      }
+    }
+
+    private void delete() throws IOException {
+      close();
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Finishes writing refs.idx and atomically renames to final location.
+   *
+   * <p>Writes the edge start of every object from the per-object reference counts, then copies the
+   * spilled references into place through a memory mapping of the file.
+   *
+   * @throws IOException if writing or rename fails
+   */
+  public void finishRefsIndex() throws IOException {
+    if (refCounts == null) {
+      throw new IllegalStateException("beginRefsIndex() not called");
+    }
+
+    for (RefsSpill spill : refsSpills) {
+      spill.close();
+    }
+
+    Path tempFile = indexDir.resolve(IndexFormat.REFS_INDEX_NAME + ".tmp");
+    int objectCount = refCounts.length;
+    long edgesStart =
+        IndexFormat.REFS_OFFSETS_START + (objectCount + 1L) * IndexFormat.REFS_OFFSET_ENTRY_SIZE;
+    try {
+      // Header and edge starts (prefix sums of the reference counts)
+      long edgeCount = 0;
+      try (DataOutputStream out =
+          new DataOutputStream(
+              new BufferedOutputStream(new FileOutputStream(tempFile.toFile()), 1024 * 1024))) {
+        out.writeInt(IndexFormat.REFS_INDEX_MAGIC);
+        out.writeInt(IndexFormat.FORMAT_VERSION);
+        out.writeLong(objectCount);
+        out.writeInt(0); // flags
+        out.writeInt(0); // padding
+        for (int i = 0; i < objectCount; i++) {
+          out.writeLong(edgeCount);
+          edgeCount += refCounts[i];
+          refCounts[i] = 0; // reused below as the per-object fill cursor
+        }
+        out.writeLong(edgeCount);
+      }
+
+      // Scatter the spilled references into their rows
+      long fileSize = edgesStart + edgeCount * IndexFormat.REFS_EDGE_SIZE;
+      try (RandomAccessFile file = new RandomAccessFile(tempFile.toFile(), "rw")) {
+        file.setLength(fileSize);
+        MappedByteBuffer[] regions = mapRegions(file.getChannel(), fileSize, 0);
+        for (RefsSpill spill : refsSpills) {
+          if (spill.entries == 0) {
+            continue;
+          }
+          try (DataInputStream in =
+              new DataInputStream(
+                  new BufferedInputStream(new FileInputStream(spill.file.toFile()), 1024 * 1024))) {
+            for (int entry = 0; entry < spill.entries; entry++) {
+              int objectId32 = in.readInt();
+              int refCount = in.readInt();
+              long edge =
+                  getLong(
+                          regions,
+                          IndexFormat.REFS_OFFSETS_START
+                              + (long) objectId32 * IndexFormat.REFS_OFFSET_ENTRY_SIZE)
+                      + refCounts[objectId32];
+              refCounts[objectId32] += refCount;
+              for (int i = 0; i < refCount; i++) {
+                putInt(
+                    regions, edgesStart + (edge + i) * IndexFormat.REFS_EDGE_SIZE, in.readInt());
+              }
+            }
+          }
+        }
+        for (MappedByteBuffer region : regions) {
+          region.force();
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tempFile);
+      throw e;
+    } finally {
+      refCounts = null;
+      deleteRefsSpills();
+    }
+
+    Path targetFile = indexDir.resolve(IndexFormat.REFS_INDEX_NAME);
+    Files.move(
+        tempFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Maps a file in regions of {@link #MAP_REGION_SIZE} bytes, each extended by {@code overlap}
+   * bytes into the next one, so no value of up to {@code overlap} bytes spans two regions.
+   */
+  private static MappedByteBuffer[] mapRegions(FileChannel channel, long size, int overlap)
+      throws IOException {
+    int count = (int) ((size + MAP_REGION_SIZE - 1) / MAP_REGION_SIZE);
+    MappedByteBuffer[] regions = new MappedByteBuffer[count];
+    for (int i = 0; i < count; i++) {
+      long position = i * MAP_REGION_SIZE;
+      regions[i] =
+          channel.map(
+              FileChannel.MapMode.READ_WRITE,
+              position,
+              Math.min(MAP_REGION_SIZE + overlap, size - position));
+      regions[i].order(ByteOrder.BIG_ENDIAN);
+    }
+    return regions;
+  }
+
+  private static long getLong(MappedByteBuffer[] regions, long position) {
+    return regions[(int) (position / MAP_REGION_SIZE)].getLong((int) (position % MAP_REGION_SIZE));
+  }
+
+  private static void putInt(MappedByteBuffer[] regions, long position, int value) {
+    regions[(int) (position / MAP_REGION_SIZE)].putInt((int) (position % MAP_REGION_SIZE), value);
+  }
+
+  /**
+   * Index file of fixed-size entries written at the position of their index through a memory
+   * mapping. The file is created at its final size, so unwritten entries read as zeros.
+   */
+  private final class MappedIndex {
+    private final String name;
+    private final Path tempFile;
+    private final long entryCount;
+    private final int entrySize;
+    private final MappedByteBuffer[] regions;
+
+    MappedIndex(String name, int magic, long entryCount, int entrySize) throws IOException {
+      this.name = name;
+      this.tempFile = indexDir.resolve(name + ".tmp");
+      this.entryCount = entryCount;
+      this.entrySize = entrySize;
+
+      long size = IndexFormat.HEADER_SIZE + entryCount * entrySize;
+      try (RandomAccessFile file = new RandomAccessFile(tempFile.toFile(), "rw")) {
+        file.setLength(size);
+        // Regions overlap by an entry, so every entry lies within the region it starts in
+        regions = mapRegions(file.getChannel(), size, entrySize);
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(tempFile);
+        throw e;
+      }
+
+      MappedByteBuffer header = regions[0];
+      header.putInt(IndexFormat.HEADER_OFFSET_MAGIC, magic);
+      header.putInt(IndexFormat.HEADER_OFFSET_VERSION, IndexFormat.FORMAT_VERSION);
+      header.putLong(IndexFormat.HEADER_OFFSET_ENTRY_COUNT, entryCount);
+      header.putInt(IndexFormat.HEADER_OFFSET_FLAGS, 0);
+    }
+
+    /** Returns the region holding an entry, which starts at {@link #offset(long)}. */
+    MappedByteBuffer region(long index) {
+      return regions[(int) (position(index) / MAP_REGION_SIZE)];
+    }
+
+    /** Returns the offset of an entry within its {@link #region(long)}. */
+    int offset(long index) {
+      return (int) (position(index) % MAP_REGION_SIZE);
+    }
+
+    private long position(long index) {
+      if (index < 0 || index >= entryCount) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Entry out of range in %s: %d (valid range: 0 to %d)",
+                name, index, entryCount - 1));
+      }
+      return IndexFormat.HEADER_SIZE + index * entrySize;
+    }
+
+    void finish() throws IOException {
+      for (MappedByteBuffer region : regions) {
+        region.force();
+      }
+      Files.move(
+          tempFile,
+          indexDir.resolve(name),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    void delete() throws IOException {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
   /**
    * Begins writing the classmap.idx file.
    *
@@ -283,7 +578,7 @@ public final class IndexWriter implements AutoCloseable {
    * @param expectedEntries number of entries that will be written
    * @throws IOException if file creation fails
    */
-  public void beginObjectMapIndex(int expectedEntries) throws IOException {
+  public void beginObjectMapIndex(long expectedEntries) throws IOException {
     currentTempFile = indexDir.resolve(IndexFormat.OBJECTMAP_INDEX_NAME + ".tmp");
     currentStream =
         new DataOutputStream(
@@ -301,18 +596,18 @@ public final class IndexWriter implements AutoCloseable {
   /**
    * Writes a single object address mapping entry.
    *
-   * <p>Entry format: [objectId32:4][objectAddress64:8]
+   * <p>Entry format: [objectId:8][objectAddress64:8]
    *
-   * @param objectId32 32-bit sequential object ID
+   * @param objectId sequential object ID
    * @param objectAddress64 original 64-bit object address from heap dump
    * @throws IOException if write fails
    */
-  public void writeObjectMapEntry(int objectId32, long objectAddress64) throws IOException {
+  public void writeObjectMapEntry(long objectId, long objectAddress64) throws IOException {
     if (currentStream == null) {
       throw new IllegalStateException("beginObjectMapIndex() not called");
     }
 
-    currentStream.writeInt(objectId32);
+    currentStream.writeLong(objectId);
     currentStream.writeLong(objectAddress64);
 
     entriesWritten++;
@@ -367,22 +662,22 @@ public final class IndexWriter implements AutoCloseable {
   /**
    * Writes a single GC root entry.
    *
-   * <p>Entry format: [type:1][objectId32:4][threadSerial:4][frameNumber:4]
+   * <p>Entry format: [type:1][objectId:8][threadSerial:4][frameNumber:4]
    *
    * @param type GcRoot.Type ordinal (0-based enum index)
-   * @param objectId32 32-bit object ID
+   * @param objectId sequential object ID
    * @param threadSerial thread serial number (-1 if not applicable)
    * @param frameNumber stack frame number (-1 if not applicable)
    * @throws IOException if write fails
    */
-  public void writeGcRootEntry(byte type, int objectId32, int threadSerial, int frameNumber)
+  public void writeGcRootEntry(byte type, long objectId, int threadSerial, int frameNumber)
       throws IOException {
     if (currentStream == null) {
       throw new IllegalStateException("beginGcRootsIndex() not called");
     }
 
     currentStream.writeByte(type);
-    currentStream.writeInt(objectId32);
+    currentStream.writeLong(objectId);
     currentStream.writeInt(threadSerial);
     currentStream.writeInt(frameNumber);
 
@@ -438,22 +733,22 @@ public final class IndexWriter implements AutoCloseable {
   /**
    * Writes a single class instances offset entry.
    *
-   * <p>Entry format: [classId32:4][dataFileOffset:8][instanceCount:4]
+   * <p>Entry format: [classId32:4][dataFileOffset:8][instanceCount:8]
    *
    * @param classId32 32-bit class ID
-   * @param dataFileOffset offset in classinstances-data.idx where instances start
+   * @param dataFileOffset index in classinstances-data.idx of the first instance ID
    * @param instanceCount number of instances for this class
    * @throws IOException if write fails
    */
-  public void writeClassInstancesOffsetEntry(int classId32, long dataFileOffset, int instanceCount)
-      throws IOException {
+  public void writeClassInstancesOffsetEntry(
+      int classId32, long dataFileOffset, long instanceCount) throws IOException {
     if (currentStream == null) {
       throw new IllegalStateException("beginClassInstancesOffsetIndex() not called");
     }
 
     currentStream.writeInt(classId32);
     currentStream.writeLong(dataFileOffset);
-    currentStream.writeInt(instanceCount);
+    currentStream.writeLong(instanceCount);
 
     entriesWritten++;
   }
@@ -484,40 +779,36 @@ public final class IndexWriter implements AutoCloseable {
   // === Class Instances Data Index Writing ===
 
   /**
-   * Begins writing classinstances-data.idx (sequential list of instance IDs).
+   * Begins writing classinstances-data.idx (instance IDs grouped by class).
+   *
+   * <p>Like objects.idx, the file is filled through a memory mapping, so instance IDs may be
+   * written in any order, each at the index given by the instance counts of the classes before it.
    *
    * @param expectedInstances total number of instance IDs that will be written
    * @throws IOException if file creation fails
    */
   public void beginClassInstancesDataIndex(long expectedInstances) throws IOException {
-    currentTempFile = indexDir.resolve(IndexFormat.CLASSINSTANCES_DATA_INDEX_NAME + ".tmp");
-    currentStream =
-        new DataOutputStream(
-            new BufferedOutputStream(new FileOutputStream(currentTempFile.toFile()), 1024 * 1024));
-
-    // Write header
-    currentStream.writeInt(IndexFormat.CLASSINSTANCES_DATA_MAGIC);
-    currentStream.writeInt(IndexFormat.FORMAT_VERSION);
-    currentStream.writeLong(expectedInstances);
-    currentStream.writeInt(0); // flags
-
-    entriesWritten = 0;
+    instancesIndex =
+        new MappedIndex(
+            IndexFormat.CLASSINSTANCES_DATA_INDEX_NAME,
+            IndexFormat.CLASSINSTANCES_DATA_MAGIC,
+            expectedInstances,
+            IndexFormat.CLASSINSTANCES_DATA_OBJECT_ID_SIZE);
   }
 
   /**
    * Writes a single instance ID to the data index.
    *
-   * @param objectId32 32-bit object ID
-   * @throws IOException if write fails
+   * @param index position of the instance ID in the data index (0 to expectedInstances-1)
+   * @param objectId sequential object ID
+   * @throws IllegalArgumentException if index is out of range
    */
-  public void writeInstanceId(int objectId32) throws IOException {
-    if (currentStream == null) {
+  public void writeInstanceId(long index, long objectId) {
+    if (instancesIndex == null) {
       throw new IllegalStateException("beginClassInstancesDataIndex() not called");
     }
 
-    currentStream.writeInt(objectId32);
-
-    entriesWritten++;
+    instancesIndex.region(index).putLong(instancesIndex.offset(index), objectId);
   }
 
   /**
@@ -526,21 +817,12 @@ public final class IndexWriter implements AutoCloseable {
    * @throws IOException if flush or rename fails
    */
   public void finishClassInstancesDataIndex() throws IOException {
-    if (currentStream == null) {
+    if (instancesIndex == null) {
       throw new IllegalStateException("beginClassInstancesDataIndex() not called");
     }
 
-    currentStream.flush();
-    currentStream.close();
-    currentStream = null;
-
-    Path targetFile = indexDir.resolve(IndexFormat.CLASSINSTANCES_DATA_INDEX_NAME);
-    Files.move(
-        currentTempFile,
-        targetFile,
-        StandardCopyOption.ATOMIC_MOVE,
-        StandardCopyOption.REPLACE_EXISTING);
-    currentTempFile = null;
+    instancesIndex.finish();
+    instancesIndex = null;
   }
 
   /**
@@ -554,17 +836,54 @@ public final class IndexWriter implements AutoCloseable {
 
   @Override
   public void close() throws IOException {
-    if (currentStream != null) {
+    try {
+      if (currentStream != null) {
+        try {
+          currentStream.close();
+        } finally {
+          currentStream = null;
+          // Clean up temp file if exists
+          if (currentTempFile != null && Files.exists(currentTempFile)) {
+            Files.delete(currentTempFile);
+            currentTempFile = null;
+          }
+        }
+      }
+    } finally {
       try {
-        currentStream.close();
+        deleteMappedIndexes();
       } finally {
-        currentStream = null;
-        // Clean up temp file if exists
-        if (currentTempFile != null && Files.exists(currentTempFile)) {
-          Files.delete(currentTempFile);
-          currentTempFile = null;
+        refCounts = null;
+        deleteRefsSpills();
+      }
+    }
+  }
+
+  private void deleteMappedIndexes() throws IOException {
+    try {
+      if (objectsIndex != null) {
+        objectsIndex.delete();
+      }
+    } finally {
+      objectsIndex = null;
+      try {
+        if (instancesIndex != null) {
+          instancesIndex.delete();
         }
+      } finally {
+        instancesIndex = null;
+      }
+    }
+  }
+
+  private synchronized void deleteRefsSpills() throws IOException {
+    try {
+      for (RefsSpill spill : refsSpills) {
+        spill.delete();
       }
+    } finally {
+      refsSpills.clear();
+      defaultRefsSpill = null;
     }
   }
 }
@@ -0,0 +1,272 @@
+package io.jafar.hdump.index;
+
+import io.jafar.utils.CustomByteBuffer;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Maps 64-bit object addresses to dense object IDs and back.
+ *
+ * <p>Object IDs are the ranks of the addresses in ascending order, so the mapping is a sorted
+ * address table: ID to address is an array access and address to ID a search. A directory of
+ * bucket starts over the address range narrows each search to a handful of neighbouring entries.
+ *
+ * <p>The table is stored in chunks, so it is not limited to 2^31 entries and needs no contiguous
+ * allocation. A pair of open hash maps, by contrast, cannot grow beyond 2^30 slots (about 805M
+ * objects at the default load factor) and needs about five times the memory.
+ *
+ * <p><strong>Performance Characteristics:</strong>
+ *
+ * <ul>
+ *   <li>ID to address: O(1)
+ *   <li>Address to ID: O(1) bucket lookup plus a binary search over about 8 entries
+ *   <li>Memory footprint: about 9 bytes per object (8 for the table, 1 for the directory)
+ *   <li>Example: 2 billion objects = 18 GB
+ * </ul>
+ *
+ * <p><strong>Usage:</strong>
+ *
+ * <pre>{@code
+ * ObjectIdMap objectIds = ObjectIdMap.read(indexDir);
+ * long id = objectIds.indexOf(address); // -1 if not in the dump
+ * long address = objectIds.addressAt(id);
+ * }</pre>
+ *
+ * <p>Instances are immutable and safe for concurrent use.
+ */
+public final class ObjectIdMap {
+
+  /** Default chunk size: 2^27 addresses (1 GB) per chunk. */
+  private static final int DEFAULT_CHUNK_SHIFT = 27;
+
+  /** Average number of addresses per directory bucket. */
+  private static final int ADDRESSES_PER_BUCKET = 8;
+
+  private static final int MAX_BUCKETS = 1 << 30;
+
+  private final long[][] chunks;
+  private final int chunkShift;
+  private final long chunkMask;
+  private final long size;
+  private final long minAddress;
+  private final long maxAddress;
+  private final int bucketShift;
+  private final long[] bucketStarts; // first ID of each bucket, followed by size
+
+  /** Supplies the addresses a map is built from; called twice with the same addresses. */
+  @FunctionalInterface
+  private interface AddressSource {
+    void forEach(LongConsumer action);
+  }
+
+  private ObjectIdMap(long size, AddressSource source, int chunkShift) {
+    this.size = size;
+    this.chunkShift = chunkShift;
+    this.chunkMask = (1L << chunkShift) - 1;
+    this.chunks = allocateChunks(size, chunkShift);
+
+    long[] range = {Long.MAX_VALUE, Long.MIN_VALUE};
+    source.forEach(
+        address -> {
+          range[0] = Math.min(range[0], address);
+          range[1] = Math.max(range[1], address);
+        });
+    this.minAddress = range[0];
+    this.maxAddress = range[1];
+
+    // Buckets of 2^bucketShift bytes, about ADDRESSES_PER_BUCKET addresses each on average
+    int targetBuckets = (int) Math.min(Math.max(size / ADDRESSES_PER_BUCKET, 1), MAX_BUCKETS);
+    long span = size == 0 ? 0 : maxAddress - minAddress; // unsigned
+    long bucketWidth = Long.divideUnsigned(span, targetBuckets);
+    this.bucketShift = Math.min(64 - Long.numberOfLeadingZeros(bucketWidth), 63);
+    int bucketCount = (int) (span >>> bucketShift) + 1;
+
+    // Counting sort by bucket, then sort each bucket in place
+    bucketStarts = new long[bucketCount + 1];
+    source.forEach(address -> bucketStarts[bucket(address) + 1]++);
+    for (int b = 0; b < bucketCount; b++) {
+      bucketStarts[b + 1] += bucketStarts[b];
+    }
+    if (bucketStarts[bucketCount] != size) {
+      throw new IllegalArgumentException(
+          "Expected " + size + " addresses, got " + bucketStarts[bucketCount]);
+    }
+
+    long[] cursors = Arrays.copyOf(bucketStarts, bucketCount);
+    source.forEach(address -> set(cursors[bucket(address)]++, address));
+    for (int b = 0; b < bucketCount; b++) {
+      sort(bucketStarts[b], bucketStarts[b + 1]);
+    }
+  }
+
+  /**
+   * Builds the mapping from unsorted object addresses.
+   *
+   * @param addresses addresses of all objects, in any order and split into any number of lists
+   * @return mapping assigning IDs in ascending address order
+   */
+  public static ObjectIdMap of(List<LongArrayList> addresses) {
+    return of(addresses, DEFAULT_CHUNK_SHIFT);
+  }
+
+  /** Package-private for testing chunk boundaries. */
+  static ObjectIdMap of(List<LongArrayList> addresses, int chunkShift) {
+    long size = 0;
+    for (LongArrayList list : addresses) {
+      size += list.size();
+    }
+    return new ObjectIdMap(
+        size,
+        action -> {
+          for (LongArrayList list : addresses) {
+            for (int i = 0; i < list.size(); i++) {
+              action.accept(list.getLong(i));
+            }
+          }
+        },
+        chunkShift);
+  }
+
+  /**
+   * Reads the mapping from objectmap.idx.
+   *
+   * @param indexDir directory containing index files
+   * @return mapping with the IDs stored in the index
+   * @throws IOException if the file cannot be read or is corrupted
+   */
+  public static ObjectIdMap read(Path indexDir) throws IOException {
+    Path indexFile = indexDir.resolve(IndexFormat.OBJECTMAP_INDEX_NAME);
+    CustomByteBuffer buffer = CustomByteBuffer.map(indexFile, 1 << 30);
+    try {
+      buffer.order(ByteOrder.BIG_ENDIAN);
+
+      int magic = buffer.getInt();
+      if (magic != IndexFormat.OBJECTMAP_INDEX_MAGIC) {
+        throw new IOException("Invalid objectmap.idx magic number: " + Integer.toHexString(magic));
+      }
+      int version = buffer.getInt();
+      if (version != IndexFormat.FORMAT_VERSION) {
+        throw new IOException("Unsupported objectmap.idx version: " + version);
+      }
+      long entryCount = buffer.getLong();
+      long expectedSize =
+          IndexFormat.HEADER_SIZE + entryCount * IndexFormat.OBJECTMAP_ENTRY_SIZE;
+      if (entryCount < 0 || buffer.limit() < expectedSize) {
+        throw new IOException(
+            String.format(
+                "Truncated objectmap.idx: %d bytes (expected %d)", buffer.limit(), expectedSize));
+      }
+
+      // IDs are address ranks, so sorting the addresses restores them regardless of entry order
+      return new ObjectIdMap(
+          entryCount,
+          action -> {
+            long offset = IndexFormat.HEADER_SIZE + IndexFormat.OBJECTMAP_OFFSET_OBJECT_ADDRESS64;
+            for (long i = 0; i < entryCount; i++) {
+              action.accept(buffer.getLong(offset));
+              offset += IndexFormat.OBJECTMAP_ENTRY_SIZE;
+            }
+          },
+          DEFAULT_CHUNK_SHIFT);
+    } finally {
+      buffer.close();
+    }
+  }
+
+  /**
+   * Returns the number of objects in the mapping.
+   *
+   * @return object count
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Looks up the ID of an object.
+   *
+   * @param address 64-bit object address
+   * @return object ID, or -1 if the address is not in the mapping
+   */
+  public long indexOf(long address) {
+    if (size == 0 || address < minAddress || address > maxAddress) {
+      return -1;
+    }
+    int bucket = bucket(address);
+    long low = bucketStarts[bucket];
+    long high = bucketStarts[bucket + 1] - 1;
+    while (low <= high) {
+      long mid = (low + high) >>> 1;
+      long value = get(mid);
+      if (value < address) {
+        low = mid + 1;
+      } else if (value > address) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Looks up the address of an object.
+   *
+   * @param id object ID (0 to size-1)
+   * @return 64-bit object address
+   * @throws IndexOutOfBoundsException if the ID is out of range
+   */
+  public long addressAt(long id) {
+    if (id < 0 || id >= size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Object ID out of range: %d (valid range: 0 to %d)", id, size - 1));
+    }
+    return get(id);
+  }
+
+  private int bucket(long address) {
+    return (int) ((address - minAddress) >>> bucketShift);
+  }
+
+  private long get(long id) {
+    return chunks[(int) (id >>> chunkShift)][(int) (id & chunkMask)];
+  }
+
+  private void set(long id, long address) {
+    chunks[(int) (id >>> chunkShift)][(int) (id & chunkMask)] = address;
+  }
+
+  private void sort(long from, long to) {
+    if (to - from < 2) {
+      return;
+    }
+    int chunk = (int) (from >>> chunkShift);
+    if (chunk == (int) ((to - 1) >>> chunkShift)) {
+      Arrays.sort(chunks[chunk], (int) (from & chunkMask), (int) (((to - 1) & chunkMask) + 1));
+      return;
+    }
+    // Bucket spans a chunk boundary
+    long[] values = new long[Math.toIntExact(to - from)];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = get(from + i);
+    }
+    Arrays.sort(values);
+    for (int i = 0; i < values.length; i++) {
+      set(from + i, values[i]);
+    }
+  }
+
+  private static long[][] allocateChunks(long size, int chunkShift) {
+    long chunkSize = 1L << chunkShift;
+    long[][] chunks = new long[Math.toIntExact((size + chunkSize - 1) >>> chunkShift)][];
+    for (int i = 0; i < chunks.length; i++) {
+      chunks[i] = new long[(int) Math.min(chunkSize, size - (long) i * chunkSize)];
+    }
+    return chunks;
+  }
+}
@@ -24,7 +24,7 @@ import java.nio.file.Path;
  *
  * <pre>{@code
  * ObjectIndexReader reader = new ObjectIndexReader(indexDir);
- * ObjectMetadata meta = reader.readObject(objectId32);
+ * ObjectMetadata meta = reader.readObject(objectId);
  * System.out.println("Object at offset: " + meta.fileOffset);
  * reader.close();
  * }</pre>
@@ -35,12 +35,12 @@ public final class ObjectIndexReader implements AutoCloseable {
   private static final int SPLICE_SIZE = 1024 * 1024 * 1024;
 
   private final CustomByteBuffer buffer;
-  private final int entryCount;
+  private final long entryCount;
   private final int formatVersion;
 
   /** Object metadata from objects.idx. */
   public static final class ObjectMetadata {
-    public final int objectId32;
+    public final long objectId;
     public final long fileOffset;
     public final int dataSize;
     public final int classId;
@@ -50,14 +50,14 @@ public final class ObjectIndexReader implements AutoCloseable {
         elementType; // BasicType constant for primitive arrays (BYTE=8, INT=10, etc.), 0 otherwise
 
     public ObjectMetadata(
-        int objectId32,
+        long objectId,
         long fileOffset,
         int dataSize,
         int classId,
         int arrayLength,
         byte flags,
         byte elementType) {
-      this.objectId32 = objectId32;
+      this.objectId = objectId;
       this.fileOffset = fileOffset;
       this.dataSize = dataSize;
       this.classId = classId;
@@ -109,51 +109,53 @@ public final class ObjectIndexReader implements AutoCloseable {
               formatVersion, IndexFormat.FORMAT_VERSION));
     }
 
-    long entryCountLong = buffer.getLong();
-    if (entryCountLong > Integer.MAX_VALUE) {
-      throw new IOException("Entry count exceeds Integer.MAX_VALUE: " + entryCountLong);
+    entryCount = buffer.getLong();
+    long expectedSize = IndexFormat.HEADER_SIZE + entryCount * IndexFormat.OBJECT_ENTRY_SIZE;
+    if (entryCount < 0 || buffer.limit() < expectedSize) {
+      throw new IOException(
+          String.format(
+              "Truncated objects.idx: %d bytes (expected %d)", buffer.limit(), expectedSize));
     }
-    entryCount = (int) entryCountLong;
 
     int flags = buffer.getInt(); // Reserved for future use
   }
 
   /**
-   * Reads object metadata by 32-bit object ID.
+   * Reads object metadata by object ID.
    *
-   * <p>Uses direct offset calculation for O(1) access: offset = HEADER_SIZE + (id32 × ENTRY_SIZE)
+   * <p>Uses direct offset calculation for O(1) access: offset = HEADER_SIZE + (id × ENTRY_SIZE)
    *
-   * @param objectId32 32-bit sequential object ID (0 to entryCount-1)
+   * @param objectId sequential object ID (0 to entryCount-1)
    * @return object metadata
-   * @throws IllegalArgumentException if objectId32 is out of range
+   * @throws IllegalArgumentException if objectId is out of range
    */
-  public ObjectMetadata readObject(int objectId32) {
-    if (objectId32 < 0 || objectId32 >= entryCount) {
+  public ObjectMetadata readObject(long objectId) {
+    if (objectId < 0 || objectId >= entryCount) {
       throw new IllegalArgumentException(
           String.format(
-              "Object ID out of range: %d (valid range: 0 to %d)", objectId32, entryCount - 1));
+              "Object ID out of range: %d (valid range: 0 to %d)", objectId, entryCount - 1));
     }
 
-    // Calculate entry offset: header + (id32 × entry size)
-    long offset = IndexFormat.HEADER_SIZE + ((long) objectId32 * IndexFormat.OBJECT_ENTRY_SIZE);
+    // Calculate entry offset: header + (id × entry size)
+    long offset = IndexFormat.HEADER_SIZE + objectId * IndexFormat.OBJECT_ENTRY_SIZE;
 
     // Read entry fields using absolute-position reads (NO slice creation - zero allocations!)
-    int id32 = buffer.getInt(offset);
-    long fileOffset = buffer.getLong(offset + 4);
-    int dataSize = buffer.getInt(offset + 12);
-    int classId = buffer.getInt(offset + 16);
-    int arrayLength = buffer.getInt(offset + 20);
-    byte flags = buffer.get(offset + 24);
-    byte elementType = buffer.get(offset + 25);
+    long id = buffer.getLong(offset + IndexFormat.OBJECT_OFFSET_ID);
+    long fileOffset = buffer.getLong(offset + IndexFormat.OBJECT_OFFSET_FILE_OFFSET);
+    int dataSize = buffer.getInt(offset + IndexFormat.OBJECT_OFFSET_DATA_SIZE);
+    int classId = buffer.getInt(offset + IndexFormat.OBJECT_OFFSET_CLASS_ID);
+    int arrayLength = buffer.getInt(offset + IndexFormat.OBJECT_OFFSET_ARRAY_LENGTH);
+    byte flags = buffer.get(offset + IndexFormat.OBJECT_OFFSET_FLAGS);
+    byte elementType = buffer.get(offset + IndexFormat.OBJECT_OFFSET_ELEMENT_TYPE);
 
     // Sanity check
-    if (id32 != objectId32) {
+    if (id != objectId) {
       throw new IllegalStateException(
           String.format(
-              "Corrupted index: expected ID %d at offset %d, found %d", objectId32, offset, id32));
+              "Corrupted index: expected ID %d at offset %d, found %d", objectId, offset, id));
     }
 
-    return new ObjectMetadata(id32, fileOffset, dataSize, classId, arrayLength, flags, elementType);
+    return new ObjectMetadata(id, fileOffset, dataSize, classId, arrayLength, flags, elementType);
   }
 
   /**
@@ -161,7 +163,7 @@ public final class ObjectIndexReader implements AutoCloseable {
    *
    * @return object count
    */
-  public int getEntryCount() {
+  public long getEntryCount() {
     return entryCount;
   }
 
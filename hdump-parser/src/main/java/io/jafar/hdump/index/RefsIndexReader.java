@@ -0,0 +1,207 @@
+package io.jafar.hdump.index;
+
+import io.jafar.utils.CustomByteBuffer;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * Memory-mapped reader for refs.idx with O(1) adjacency lookup.
+ *
+ * <p>This reader provides the strong outbound references of every object as 32-bit object IDs,
+ * laid out as compressed sparse rows. Graph traversals read the edges of an object directly from
+ * the mapped file instead of decoding its field values from the heap dump.
+ *
+ * <p><strong>Performance Characteristics:</strong>
+ *
+ * <ul>
+ *   <li>Adjacency lookup: O(1) with two edge starts per object
+ *   <li>Memory footprint: Only mapped pages consume RAM (lazy loading)
+ *   <li>File size: 8 bytes per object + 4 bytes per reference
+ *   <li>Example: 114M objects, 300M references = 2.1 GB on disk
+ * </ul>
+ *
+ * <p><strong>Usage:</strong>
+ *
+ * <pre>{@code
+ * RefsIndexReader reader = new RefsIndexReader(indexDir);
+ * long end = reader.getEdgeEnd(objectId32);
+ * for (long edge = reader.getEdgeStart(objectId32); edge < end; edge++) {
+ *     int refId32 = reader.getEdge(edge);
+ * }
+ * reader.close();
+ * }</pre>
+ */
+public final class RefsIndexReader implements AutoCloseable {
+
+  private static final int SPLICE_SIZE = 256 * 1024 * 1024; // 256 MB
+
+  private static final int[] EMPTY_REFS = new int[0];
+
+  private final CustomByteBuffer buffer;
+  private final int entryCount;
+  private final int formatVersion;
+  private final long edgeCount;
+  private final long edgesStart;
+
+  /**
+   * Opens the refs.idx file for reading.
+   *
+   * @param indexDir directory containing index files
+   * @throws IOException if file cannot be opened or is corrupted
+   */
+  public RefsIndexReader(Path indexDir) throws IOException {
+    Path indexFile = indexDir.resolve(IndexFormat.REFS_INDEX_NAME);
+
+    buffer = CustomByteBuffer.map(indexFile, SPLICE_SIZE);
+    buffer.order(ByteOrder.BIG_ENDIAN);
+
+    // Read and validate header
+    int magic = buffer.getInt();
+    if (magic != IndexFormat.REFS_INDEX_MAGIC) {
+      throw new IOException(
+          String.format(
+              "Invalid refs.idx magic: 0x%08X (expected 0x%08X)",
+              magic, IndexFormat.REFS_INDEX_MAGIC));
+    }
+
+    formatVersion = buffer.getInt();
+    if (formatVersion != IndexFormat.FORMAT_VERSION) {
+      throw new IOException(
+          String.format(
+              "Unsupported format version: %d (expected %d)",
+              formatVersion, IndexFormat.FORMAT_VERSION));
+    }
+
+    long entryCountLong = buffer.getLong();
+    if (entryCountLong > Integer.MAX_VALUE) {
+      throw new IOException("Entry count exceeds Integer.MAX_VALUE: " + entryCountLong);
+    }
+    entryCount = (int) entryCountLong;
+
+    int flags = buffer.getInt(); // Reserved for future use
+
+    edgesStart =
+        IndexFormat.REFS_OFFSETS_START + (entryCount + 1L) * IndexFormat.REFS_OFFSET_ENTRY_SIZE;
+    edgeCount = edgeStartAt(entryCount);
+    long expectedSize = edgesStart + edgeCount * IndexFormat.REFS_EDGE_SIZE;
+    if (buffer.limit() < expectedSize) {
+      throw new IOException(
+          String.format(
+              "Truncated refs.idx: %d bytes (expected %d)", buffer.limit(), expectedSize));
+    }
+  }
+
+  /**
+   * Gets the index of the first outbound reference of an object.
+   *
+   * @param objectId32 32-bit sequential object ID (0 to entryCount-1)
+   * @return edge index, to be passed to {@link #getEdge(long)}
+   * @throws IllegalArgumentException if objectId32 is out of range
+   */
+  public long getEdgeStart(int objectId32) {
+    checkObjectId(objectId32);
+    return edgeStartAt(objectId32);
+  }
+
+  /**
+   * Gets the index following the last outbound reference of an object.
+   *
+   * @param objectId32 32-bit sequential object ID (0 to entryCount-1)
+   * @return edge index (exclusive)
+   * @throws IllegalArgumentException if objectId32 is out of range
+   */
+  public long getEdgeEnd(int objectId32) {
+    checkObjectId(objectId32);
+    return edgeStartAt(objectId32 + 1);
+  }
+
+  /**
+   * Gets a referenced object.
+   *
+   * @param edge edge index (0 to edgeCount-1)
+   * @return 32-bit ID of the referenced object
+   */
+  public int getEdge(long edge) {
+    return buffer.getInt(edgesStart + edge * IndexFormat.REFS_EDGE_SIZE);
+  }
+
+  /**
+   * Gets the number of strong outbound references of an object.
+   *
+   * @param objectId32 32-bit sequential object ID (0 to entryCount-1)
+   * @return outbound reference count
+   * @throws IllegalArgumentException if objectId32 is out of range
+   */
+  public int getReferenceCount(int objectId32) {
+    checkObjectId(objectId32);
+    return (int) (edgeStartAt(objectId32 + 1) - edgeStartAt(objectId32));
+  }
+
+  /**
+   * Gets the strong outbound references of an object.
+   *
+   * @param objectId32 32-bit sequential object ID (0 to entryCount-1)
+   * @return 32-bit IDs of the referenced objects, in field or element order
+   * @throws IllegalArgumentException if objectId32 is out of range
+   */
+  public int[] getReferences(int objectId32) {
+    checkObjectId(objectId32);
+    long start = edgeStartAt(objectId32);
+    int count = (int) (edgeStartAt(objectId32 + 1) - start);
+    if (count == 0) {
+      return EMPTY_REFS;
+    }
+    int[] refs = new int[count];
+    for (int i = 0; i < count; i++) {
+      refs[i] = getEdge(start + i);
+    }
+    return refs;
+  }
+
+  private long edgeStartAt(int index) {
+    // Long arithmetic avoids int overflow for >268M objects
+    return buffer.getLong(
+        IndexFormat.REFS_OFFSETS_START + (long) index * IndexFormat.REFS_OFFSET_ENTRY_SIZE);
+  }
+
+  private void checkObjectId(int objectId32) {
+    if (objectId32 < 0 || objectId32 >= entryCount) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Object ID out of range: %d (valid range: 0 to %d)", objectId32, entryCount - 1));
+    }
+  }
+
+  /**
+   * Returns the total number of entries (objects) in the index.
+   *
+   * @return entry count
+   */
+  public int getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * Returns the total number of references in the index.
+   *
+   * @return edge count
+   */
+  public long getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Returns the format version of the index.
+   *
+   * @return format version
+   */
+  public int getFormatVersion() {
+    return formatVersion;
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer.close();
+  }
+}
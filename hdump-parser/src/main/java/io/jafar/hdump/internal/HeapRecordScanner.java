@@ -0,0 +1,209 @@
+package io.jafar.hdump.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans the HEAP_DUMP and HEAP_DUMP_SEGMENT records of an HPROF file in parallel.
+ *
+ * <p>Heap dump records are self-contained: the sub-records of a segment can be decoded without
+ * reading any other segment, provided class layouts are already known. This scanner locates the
+ * heap dump records with one pass over the top-level record headers, then hands each record to a
+ * worker thread reading through its own {@link HprofReader#createView() view} of the shared
+ * mapping.
+ *
+ * <p>Results are returned in file order, so callers merging them sequentially get the same
+ * outcome as a single-threaded scan. A single non-segmented HEAP_DUMP record cannot be split and
+ * is scanned by one thread.
+ *
+ * <p><strong>Usage:</strong>
+ *
+ * <pre>{@code
+ * List<RecordHeader> heapRecords = HeapRecordScanner.locateHeapRecords(reader, null);
+ * List<Partial> partials =
+ *     HeapRecordScanner.scan(reader, heapRecords, parallelism, HeapDumpWorker::scan, null);
+ * for (Partial partial : partials) {
+ *     merge(partial);
+ * }
+ * }</pre>
+ */
+public final class HeapRecordScanner {
+
+  private HeapRecordScanner() {}
+
+  /** Scans one heap dump record. Called concurrently with readers of different records. */
+  @FunctionalInterface
+  public interface RecordTask<T> {
+    /**
+     * Scans the sub-records of a heap dump record.
+     *
+     * @param reader reader owned by the calling thread, positioned at the record body
+     * @param header the heap dump record
+     * @return partial result for this record
+     * @throws IOException if the record is malformed
+     */
+    T scan(HprofReader reader, HprofReader.RecordHeader header) throws IOException;
+  }
+
+  /** Handles a top-level record other than a heap dump record. */
+  @FunctionalInterface
+  public interface RecordVisitor {
+    /**
+     * Visits a record; the reader is positioned at the end of the record afterwards.
+     *
+     * @param header the record
+     * @throws IOException if the record is malformed
+     */
+    void visit(HprofReader.RecordHeader header) throws IOException;
+  }
+
+  /** Receives progress of a scan on the calling thread. */
+  @FunctionalInterface
+  public interface ProgressListener {
+    /**
+     * Called after each heap dump record is complete, in file order.
+     *
+     * @param bytesDone total size of the completed records
+     * @param bytesTotal total size of all records
+     */
+    void onProgress(long bytesDone, long bytesTotal);
+  }
+
+  /**
+   * Returns the default number of worker threads, one per available processor.
+   *
+   * @return parallelism
+   */
+  public static int defaultParallelism() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Walks the top-level records of a file and returns its heap dump records in file order.
+   *
+   * @param reader reader to walk; reset to the first record and left at the end of the file
+   * @param otherRecords optional visitor for all other records, such as UTF8 and LOAD_CLASS
+   * @return HEAP_DUMP and HEAP_DUMP_SEGMENT record headers
+   * @throws IOException if a visitor fails
+   */
+  public static List<HprofReader.RecordHeader> locateHeapRecords(
+      HprofReader reader, RecordVisitor otherRecords) throws IOException {
+    List<HprofReader.RecordHeader> heapRecords = new ArrayList<>();
+    reader.reset();
+    while (reader.hasMoreRecords()) {
+      HprofReader.RecordHeader header = reader.readRecordHeader();
+      if (header == null) break;
+
+      if (header.tag() == HprofTag.HEAP_DUMP || header.tag() == HprofTag.HEAP_DUMP_SEGMENT) {
+        heapRecords.add(header);
+      } else if (otherRecords != null) {
+        otherRecords.visit(header);
+      }
+      reader.skipRecordBody(header);
+    }
+    return heapRecords;
+  }
+
+  /**
+   * Scans heap dump records, in parallel when more than one thread and one record are available.
+   *
+   * @param reader reader of the file; each worker thread uses its own view of it
+   * @param records heap dump records, as returned by {@link #locateHeapRecords}
+   * @param parallelism maximum number of worker threads
+   * @param task scans one record
+   * @param progressListener optional listener for progress updates
+   * @return one partial result per record, in the order of {@code records}
+   * @throws IOException if any task fails; remaining tasks are cancelled
+   */
+  public static <T> List<T> scan(
+      HprofReader reader,
+      List<HprofReader.RecordHeader> records,
+      int parallelism,
+      RecordTask<T> task,
+      ProgressListener progressListener)
+      throws IOException {
+    long bytesTotal = 0;
+    for (HprofReader.RecordHeader header : records) {
+      bytesTotal += header.length();
+    }
+
+    List<T> results = new ArrayList<>(records.size());
+    int threads = Math.min(Math.max(parallelism, 1), records.size());
+    if (threads <= 1) {
+      long bytesDone = 0;
+      for (HprofReader.RecordHeader header : records) {
+        reader.position(header.bodyPosition());
+        results.add(task.scan(reader, header));
+        bytesDone += header.length();
+        if (progressListener != null) {
+          progressListener.onProgress(bytesDone, bytesTotal);
+        }
+      }
+      return results;
+    }
+
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "hprof-scanner-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    ThreadLocal<HprofReader> views = ThreadLocal.withInitial(reader::createView);
+    try {
+      List<Future<T>> futures = new ArrayList<>(records.size());
+      for (HprofReader.RecordHeader header : records) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  HprofReader view = views.get();
+                  view.position(header.bodyPosition());
+                  return task.scan(view, header);
+                }));
+      }
+
+      long bytesDone = 0;
+      for (int i = 0; i < futures.size(); i++) {
+        results.add(await(futures.get(i)));
+        bytesDone += records.get(i).length();
+        if (progressListener != null) {
+          progressListener.onProgress(bytesDone, bytesTotal);
+        }
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static <T> T await(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while scanning heap dump records", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException ioe) {
+        throw ioe;
+      } else if (cause instanceof UncheckedIOException uioe) {
+        throw uioe.getCause();
+      } else if (cause instanceof RuntimeException re) {
+        throw re;
+      } else if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IOException("Failed to scan heap dump records", cause);
+    }
+  }
+}
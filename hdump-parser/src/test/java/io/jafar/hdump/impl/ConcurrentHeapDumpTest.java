@@ -0,0 +1,169 @@
+package io.jafar.hdump.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jafar.hdump.api.HeapClass;
+import io.jafar.hdump.api.HeapDump;
+import io.jafar.hdump.api.HeapDumpParser;
+import io.jafar.hdump.api.HeapDumpParser.ParserOptions;
+import io.jafar.hdump.api.HeapObject;
+import io.jafar.hdump.test.SyntheticHeapDumpGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for querying a heap dump from several threads and through parallel streams. */
+class ConcurrentHeapDumpTest {
+
+  private static final int SEGMENTS = 8;
+  private static final int NODES_PER_SEGMENT = 250;
+  private static final int NODES = SEGMENTS * NODES_PER_SEGMENT;
+
+  private Path tempDir;
+  private Path heapDump;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("jafar-concurrent-test");
+    heapDump = tempDir.resolve("segments.hprof");
+    SyntheticHeapDumpGenerator.generateB5Segments(heapDump, SEGMENTS, NODES_PER_SEGMENT);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (tempDir != null && Files.exists(tempDir)) {
+      try (Stream<Path> paths = Files.walk(tempDir)) {
+        paths
+            .sorted((a, b) -> -a.compareTo(b))
+            .forEach(
+                path -> {
+                  try {
+                    Files.delete(path);
+                  } catch (IOException e) {
+                    // Ignore
+                  }
+                });
+      }
+    }
+  }
+
+  @Test
+  void testLruCacheStripes() {
+    LruCache<Long, String> cache = new LruCache<>(64, 8);
+    for (long key = 0; key < 1000; key++) {
+      cache.put(key * 8, "v" + key);
+    }
+    assertEquals(8, cache.stripeCount());
+    assertTrue(cache.size() <= 64, "Cache should not exceed its capacity: " + cache.size());
+    assertEquals(cache.size(), cache.values().size());
+
+    String cached = cache.putIfAbsent(-8L, "first");
+    assertEquals("first", cached);
+    assertSame(cached, cache.putIfAbsent(-8L, "second"), "First value should be kept");
+
+    assertEquals(1, new LruCache<Long, String>(100).stripeCount(), "Small caches keep one stripe");
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void testParallelStreamsMatchSequential() throws IOException {
+    // A tiny object cache forces constant eviction and reloading from the index
+    ParserOptions options =
+        ParserOptions.builder()
+            .parsingMode(HeapDumpParser.ParsingMode.INDEXED)
+            .objectCacheSize(64)
+            .build();
+    try (HeapDump dump = HeapDumpParser.parse(heapDump, options)) {
+      HeapClass nodeClass = dump.getClassByName("Node").orElseThrow();
+
+      Map<Long, Long> expected = nextIds(dump.getObjectsOfClass(nodeClass));
+      assertEquals(NODES, expected.size());
+
+      assertEquals(expected, nextIds(dump.getObjects().parallel().filter(o -> isNode(o))));
+      HeapDumpImpl impl = (HeapDumpImpl) dump;
+      assertEquals(
+          ids(impl.getObjectsOfClassFast(nodeClass)),
+          ids(impl.getObjectsOfClassFast(nodeClass).parallel()));
+      assertEquals(
+          dump.getObjects().count(), dump.getObjects().parallel().count(), "Object count");
+    }
+  }
+
+  @Test
+  void testConcurrentLookups() throws Exception {
+    ParserOptions options =
+        ParserOptions.builder()
+            .parsingMode(HeapDumpParser.ParsingMode.INDEXED)
+            .objectCacheSize(64)
+            .build();
+    try (HeapDump dump = HeapDumpParser.parse(heapDump, options)) {
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+          long seed = t;
+          futures.add(executor.submit(() -> lookUpNodes(dump, new Random(seed), 5000)));
+        }
+        for (Future<Integer> future : futures) {
+          assertEquals(5000, get(future).intValue(), "Every lookup should see the right node");
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  /** Looks up random nodes and checks their next field; returns the number of correct lookups. */
+  private static int lookUpNodes(HeapDump dump, Random random, int lookups) {
+    int correct = 0;
+    for (int i = 0; i < lookups; i++) {
+      int node = random.nextInt(NODES);
+      HeapObject object = dump.getObjectById(1000 + node).orElseThrow();
+      HeapObject next = (HeapObject) object.getFieldValue("next");
+      if (object.getId() == 1000 + node
+          && next.getId() == 1000 + (node + NODES_PER_SEGMENT) % NODES) {
+        correct++;
+      }
+    }
+    return correct;
+  }
+
+  private static boolean isNode(HeapObject object) {
+    return object.getHeapClass() != null && "Node".equals(object.getHeapClass().getName());
+  }
+
+  private static Set<Long> ids(Stream<HeapObject> objects) {
+    return objects.map(HeapObject::getId).collect(Collectors.toSet());
+  }
+
+  private static Map<Long, Long> nextIds(Stream<HeapObject> nodes) {
+    return nodes.collect(
+        Collectors.toConcurrentMap(
+            HeapObject::getId, o -> ((HeapObject) o.getFieldValue("next")).getId()));
+  }
+
+  private static <T> T get(Future<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw (Exception) e.getCause();
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package io.jafar.hdump.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the semi-NCA dominator engine against a brute-force reference. */
+class DominatorEngineTest {
+
+  private Path tempDir;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("jafar-dominator-test");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (tempDir != null && Files.exists(tempDir)) {
+      Files.walk(tempDir)
+          .sorted((a, b) -> -a.compareTo(b))
+          .forEach(
+              path -> {
+                try {
+                  Files.delete(path);
+                } catch (IOException e) {
+                  // Ignore
+                }
+              });
+    }
+  }
+
+  @Test
+  void testChainAndDiamond() throws IOException {
+    // 0 -> 1 -> 2 -> {3, 4} -> 5, node 6 unreachable
+    int[][] adjacency = {{1}, {2}, {3, 4}, {5}, {5}, {}, {0}};
+    DominatorEngine.Result result = compute(adjacency, new int[] {0}, null, Long.MAX_VALUE);
+
+    assertEquals(DominatorEngine.VIRTUAL_ROOT, result.immediateDominator(0));
+    assertEquals(0, result.immediateDominator(1));
+    assertEquals(1, result.immediateDominator(2));
+    assertEquals(2, result.immediateDominator(3));
+    assertEquals(2, result.immediateDominator(4));
+    assertEquals(2, result.immediateDominator(5));
+    assertEquals(DominatorEngine.UNREACHABLE, result.immediateDominator(6));
+    assertArrayEquals(new int[] {3, 4, 5}, sorted(result.dominatedNodes(2)));
+
+    // Shallow size of node i is i + 1
+    assertEquals(1 + 2 + 3 + 4 + 5 + 6, result.retainedSize(0));
+    assertEquals(3 + 4 + 5 + 6, result.retainedSize(2));
+    assertEquals(4, result.retainedSize(3));
+    assertEquals(7, result.retainedSize(6), "Unreachable nodes retain their shallow size");
+    assertEquals(6, result.reachableCount());
+  }
+
+  @Test
+  void testRootReachableFromAnotherRoot() throws IOException {
+    // Both 0 and 1 are GC roots; 1 is also referenced by 0, so 0 must not dominate it
+    int[][] adjacency = {{1}, {2}, {}};
+    DominatorEngine.Result result = compute(adjacency, new int[] {0, 1}, null, Long.MAX_VALUE);
+
+    assertEquals(DominatorEngine.VIRTUAL_ROOT, result.immediateDominator(0));
+    assertEquals(DominatorEngine.VIRTUAL_ROOT, result.immediateDominator(1));
+    assertEquals(1, result.immediateDominator(2));
+    assertEquals(1, result.retainedSize(0));
+    assertEquals(2 + 3, result.retainedSize(1));
+  }
+
+  @Test
+  void testRandomGraphsMatchBruteForce() throws IOException {
+    Random random = new Random(42);
+    for (int iteration = 0; iteration < 200; iteration++) {
+      int n = 1 + random.nextInt(40);
+      int[][] adjacency = randomGraph(random, n, random.nextInt(4 * n + 1));
+      int[] roots = random.ints(1 + random.nextInt(3), 0, n).toArray();
+      assertMatchesBruteForce(adjacency, roots, compute(adjacency, roots, null, Long.MAX_VALUE));
+    }
+  }
+
+  @Test
+  void testSpilledPredecessorsMatchBruteForce() throws IOException {
+    Random random = new Random(7);
+    for (int iteration = 0; iteration < 20; iteration++) {
+      int n = 1 + random.nextInt(200);
+      int[][] adjacency = randomGraph(random, n, random.nextInt(3 * n + 1));
+      int[] roots = random.ints(1 + random.nextInt(5), 0, n).toArray();
+      assertMatchesBruteForce(adjacency, roots, compute(adjacency, roots, tempDir, 0));
+    }
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertEquals(0, files.count(), "Temporary spill files should be deleted");
+    }
+  }
+
+  @Test
+  void testDeepChain() throws IOException {
+    int n = 1_000_000;
+    int[][] adjacency = new int[n][];
+    for (int i = 0; i < n; i++) {
+      adjacency[i] = i + 1 < n ? new int[] {i + 1} : new int[0];
+    }
+    DominatorEngine.Result result = compute(adjacency, new int[] {0}, null, Long.MAX_VALUE);
+    assertEquals(n - 2, result.immediateDominator(n - 1));
+    assertEquals((long) n * (n + 1) / 2, result.retainedSize(0));
+  }
+
+  private static DominatorEngine.Result compute(
+      int[][] adjacency, int[] roots, Path spillDir, long spillThreshold) throws IOException {
+    int[] edgeStarts = new int[adjacency.length + 1];
+    for (int i = 0; i < adjacency.length; i++) {
+      edgeStarts[i + 1] = edgeStarts[i] + adjacency[i].length;
+    }
+    int[] edges = Arrays.stream(adjacency).flatMapToInt(Arrays::stream).toArray();
+    return DominatorEngine.compute(
+        DominatorEngine.of(edgeStarts, edges),
+        roots,
+        node -> node + 1,
+        spillDir,
+        spillThreshold,
+        null);
+  }
+
+  private static int[][] randomGraph(Random random, int n, int edgeCount) {
+    List<List<Integer>> lists = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      lists.add(new ArrayList<>());
+    }
+    for (int e = 0; e < edgeCount; e++) {
+      lists.get(random.nextInt(n)).add(random.nextInt(n));
+    }
+    int[][] adjacency = new int[n][];
+    for (int i = 0; i < n; i++) {
+      adjacency[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+    }
+    return adjacency;
+  }
+
+  /**
+   * Checks every immediate dominator and retained size against their definitions: d dominates v if
+   * v is unreachable once d is removed, and v retains every node it dominates.
+   */
+  private static void assertMatchesBruteForce(
+      int[][] adjacency, int[] roots, DominatorEngine.Result result) {
+    int n = adjacency.length;
+    boolean[] reachable = reachable(adjacency, roots, -1);
+    boolean[][] dominates = new boolean[n][];
+    for (int d = 0; d < n; d++) {
+      boolean[] withoutD = reachable(adjacency, roots, d);
+      dominates[d] = new boolean[n];
+      for (int v = 0; v < n; v++) {
+        dominates[d][v] = reachable[v] && (v == d || !withoutD[v]);
+      }
+    }
+
+    for (int v = 0; v < n; v++) {
+      if (!reachable[v]) {
+        assertEquals(DominatorEngine.UNREACHABLE, result.immediateDominator(v), "idom of " + v);
+        assertEquals(v + 1, result.retainedSize(v), "retained size of " + v);
+        continue;
+      }
+      // The immediate dominator is the strict dominator dominated by all other strict dominators
+      int expectedIdom = DominatorEngine.VIRTUAL_ROOT;
+      for (int d = 0; d < n; d++) {
+        if (d != v && dominates[d][v]) {
+          if (expectedIdom == DominatorEngine.VIRTUAL_ROOT || dominates[expectedIdom][d]) {
+            expectedIdom = d;
+          }
+        }
+      }
+      assertEquals(expectedIdom, result.immediateDominator(v), "idom of " + v);
+
+      long expectedRetained = 0;
+      for (int w = 0; w < n; w++) {
+        if (dominates[v][w]) {
+          expectedRetained += w + 1;
+        }
+      }
+      assertEquals(expectedRetained, result.retainedSize(v), "retained size of " + v);
+    }
+  }
+
+  private static boolean[] reachable(int[][] adjacency, int[] roots, int removed) {
+    boolean[] seen = new boolean[adjacency.length];
+    int[] stack = new int[adjacency.length];
+    int top = 0;
+    for (int root : roots) {
+      if (root != removed && !seen[root]) {
+        seen[root] = true;
+        stack[top++] = root;
+      }
+    }
+    while (top > 0) {
+      for (int w : adjacency[stack[--top]]) {
+        if (w != removed && !seen[w]) {
+          seen[w] = true;
+          stack[top++] = w;
+        }
+      }
+    }
+    return seen;
+  }
+
+  private static int[] sorted(int[] values) {
+    int[] copy = values.clone();
+    Arrays.sort(copy);
+    return copy;
+  }
+}
@@ -1,16 +1,27 @@
 package io.jafar.hdump.impl;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import io.jafar.hdump.api.HeapClass;
 import io.jafar.hdump.api.HeapDump;
 import io.jafar.hdump.api.HeapDumpParser;
 import io.jafar.hdump.api.HeapDumpParser.ParserOptions;
+import io.jafar.hdump.api.HeapObject;
+import io.jafar.hdump.index.IndexFormat;
+import io.jafar.hdump.index.RefsIndexReader;
 import io.jafar.hdump.test.SyntheticHeapDumpGenerator;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -166,4 +177,164 @@ class IndexedParsingTest {
           "Inbound count reader should be initialized from existing index");
     }
   }
+
+  @Test
+  void testRefsIndexMatchesHeapDump() throws IOException {
+    ParserOptions options =
+        ParserOptions.builder().parsingMode(HeapDumpParser.ParsingMode.INDEXED).build();
+
+    Path chain = tempDir.resolve("chain.hprof");
+    Path cycles = tempDir.resolve("cycles.hprof");
+    SyntheticHeapDumpGenerator.generateA4ComplexReferences(chain);
+    SyntheticHeapDumpGenerator.generateB3CircularReferences(cycles);
+
+    for (Path heapDump : List.of(chain, cycles, testHeapDump)) {
+      try (HeapDump inMemory = HeapDumpParser.parse(heapDump, ParserOptions.IN_MEMORY);
+          HeapDump indexed = HeapDumpParser.parse(heapDump, options)) {
+        Path indexDir = heapDump.getParent().resolve(heapDump.getFileName() + ".idx");
+        assertTrue(Files.exists(indexDir.resolve("refs.idx")), "refs.idx should be created");
+
+        RefsIndexReader refs = ((HeapDumpImpl) indexed).getRefsIndexReader();
+        assertNotNull(refs, "References index should be loaded");
+
+        List<HeapObject> objects = inMemory.getObjects().collect(Collectors.toList());
+        long edges = 0;
+        for (HeapObject expected : objects) {
+          long[] expectedRefs = ((HeapObjectImpl) expected).getStrongOutboundReferenceIds();
+          HeapObjectImpl actual =
+              (HeapObjectImpl) indexed.getObjectById(expected.getId()).orElseThrow();
+          assertArrayEquals(
+              expectedRefs,
+              actual.getStrongOutboundReferenceIds(),
+              "References of object " + expected.getId());
+          edges += expectedRefs.length;
+        }
+        assertEquals(edges, refs.getEdgeCount(), "Edge count should match");
+      }
+    }
+  }
+
+  @Test
+  void testIndexedDominatorTreeMatchesInMemory() throws IOException {
+    ParserOptions options =
+        ParserOptions.builder().parsingMode(HeapDumpParser.ParsingMode.INDEXED).build();
+
+    Path chain = tempDir.resolve("chain.hprof");
+    Path cycles = tempDir.resolve("cycles.hprof");
+    SyntheticHeapDumpGenerator.generateA4ComplexReferences(chain);
+    SyntheticHeapDumpGenerator.generateB3CircularReferences(cycles);
+
+    for (Path heapDump : List.of(chain, cycles)) {
+      try (HeapDump inMemory = HeapDumpParser.parse(heapDump, ParserOptions.IN_MEMORY);
+          HeapDump indexed = HeapDumpParser.parse(heapDump, options)) {
+        HeapDumpImpl inMemoryImpl = (HeapDumpImpl) inMemory;
+        HeapDumpImpl indexedImpl = (HeapDumpImpl) indexed;
+        inMemoryImpl.computeFullDominatorTree(null);
+        indexedImpl.computeFullDominatorTree(null);
+
+        Path indexDir = heapDump.getParent().resolve(heapDump.getFileName() + ".idx");
+        assertTrue(
+            Files.exists(indexDir.resolve("retained.idx")), "retained.idx should be created");
+        assertTrue(indexedImpl.hasFullDominatorTree(), "Full dominator tree should be computed");
+
+        for (HeapObject expected : inMemory.getObjects().collect(Collectors.toList())) {
+          HeapObject actual = indexed.getObjectById(expected.getId()).orElseThrow();
+          // retained.idx stores the shallow size of objects not reachable from any GC root
+          long expectedRetained = expected.getRetainedSizeIfAvailable();
+          assertEquals(
+              expectedRetained != -1 ? expectedRetained : expected.getShallowSize(),
+              actual.getRetainedSize(),
+              "Retained size of object " + expected.getId());
+          assertArrayEquals(
+              dominatedIds(inMemoryImpl, expected),
+              dominatedIds(indexedImpl, actual),
+              "Objects dominated by " + expected.getId());
+        }
+      }
+    }
+  }
+
+  @Test
+  void testParallelIndexingMatchesSequential() throws IOException {
+    Path sequential =
+        Files.createDirectory(tempDir.resolve("sequential")).resolve("segments.hprof");
+    Path parallel = Files.createDirectory(tempDir.resolve("parallel")).resolve("segments.hprof");
+    SyntheticHeapDumpGenerator.generateB5Segments(sequential, 16, 100);
+    Files.copy(sequential, parallel);
+
+    ParserOptions.Builder options =
+        ParserOptions.builder().parsingMode(HeapDumpParser.ParsingMode.INDEXED);
+    try (HeapDump expected = HeapDumpParser.parse(sequential, options.parallelism(1).build());
+        HeapDump actual = HeapDumpParser.parse(parallel, options.parallelism(4).build())) {
+      assertEquals(
+          expected.getObjectCount(), actual.getObjectCount(), "Object count should match");
+      assertEquals(16 * 100 + 16, actual.getObjectCount());
+      ((HeapDumpImpl) expected).ensureInboundIndexBuilt(null);
+      ((HeapDumpImpl) actual).ensureInboundIndexBuilt(null);
+    }
+
+    Path sequentialIndex = sequential.resolveSibling("segments.hprof.idx");
+    Path parallelIndex = parallel.resolveSibling("segments.hprof.idx");
+    for (String name :
+        List.of(
+            "objects.idx",
+            "refs.idx",
+            "inbound.idx",
+            "classmap.idx",
+            "gcroots.idx",
+            "classinstances-offset.idx",
+            "classinstances-data.idx")) {
+      assertArrayEquals(
+          Files.readAllBytes(sequentialIndex.resolve(name)),
+          Files.readAllBytes(parallelIndex.resolve(name)),
+          name + " should not depend on parallelism");
+    }
+    try (Stream<Path> files = Files.list(parallelIndex)) {
+      assertTrue(
+          files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")),
+          "Reference spill files should be deleted");
+    }
+  }
+
+  @Test
+  void testClassInstancesIndexExcludesClassObjects() throws IOException {
+    ParserOptions options =
+        ParserOptions.builder().parsingMode(HeapDumpParser.ParsingMode.INDEXED).build();
+
+    try (HeapDump dump = HeapDumpParser.parse(testHeapDump, options)) {
+      HeapDumpImpl impl = (HeapDumpImpl) dump;
+      assertTrue(impl.hasClassInstancesIndex(), "class-instances index should be loaded");
+      HeapClass objectClass = dump.getClassByName("java/lang/Object").orElseThrow();
+
+      // The index used to list the class object as an instance of its own class (26 objects)
+      Set<Long> scanned = ids(dump.getObjectsOfClass(objectClass));
+      Set<Long> indexed = ids(impl.getObjectsOfClassFast(objectClass));
+      assertEquals(25, scanned.size(), "Scan should find every other object");
+      assertEquals(scanned, indexed, "Index should list the same instances as a scan");
+      assertFalse(indexed.contains(objectClass.getId()), "Class object is not an instance");
+    }
+  }
+
+  @Test
+  void testObjectCountLimit() {
+    // Only retained sizes and dominators are limited; basic indexing takes any object count
+    HeapDumpImpl.checkObjectCount(IndexFormat.MAX_OBJECT_COUNT);
+    UnsupportedOperationException e =
+        assertThrows(
+            UnsupportedOperationException.class,
+            () -> HeapDumpImpl.checkObjectCount(IndexFormat.MAX_OBJECT_COUNT + 1));
+    assertTrue(
+        e.getMessage().contains("retained sizes and dominators support at most"), e.getMessage());
+  }
+
+  private static Set<Long> ids(Stream<HeapObject> objects) {
+    return objects.map(HeapObject::getId).collect(Collectors.toSet());
+  }
+
+  private static long[] dominatedIds(HeapDumpImpl dump, HeapObject dominator) {
+    return dump.getDominatedObjects(dominator).stream()
+        .mapToLong(HeapObject::getId)
+        .sorted()
+        .toArray();
+  }
 }
@@ -0,0 +1,137 @@
+package io.jafar.hdump.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jafar.hdump.api.HeapDump;
+import io.jafar.hdump.api.HeapDumpParser;
+import io.jafar.hdump.api.HeapDumpParser.ParserOptions;
+import io.jafar.hdump.api.HeapObject;
+import io.jafar.hdump.test.SyntheticHeapDumpGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parses heap dump files beyond 2 GB and 4 GB, on a sparse file generated by {@link
+ * SyntheticHeapDumpGenerator#generateLargeSparseHeapDump}.
+ *
+ * <p>The file holds a handful of objects spread over the 2 GB and 4 GB boundaries, so this covers
+ * 64-bit file offsets and huge arrays only. Object IDs beyond 2^31 are covered by {@code
+ * IndexIntegrationTest}; heaps above the {@linkplain
+ * io.jafar.hdump.index.IndexFormat#MAX_OBJECT_COUNT limit} of retained sizes and dominators are
+ * indexed without the reference graph.
+ *
+ * <p>Excluded from the default test run. Run with {@code ./gradlew :hdump-parser:largeHeapTest};
+ * the file size defaults to 5g and is set with {@code -Dhdump.large.size=70g} for files beyond 64
+ * GB. The file takes little disk space on file systems supporting sparse files.
+ */
+@Tag("large")
+class LargeHeapDumpTest {
+
+  private static final long DEFAULT_SIZE = 5L << 30;
+
+  private Path tempDir;
+  private Path heapDump;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("jafar-large-test");
+    heapDump = tempDir.resolve("large.hprof");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (tempDir != null && Files.exists(tempDir)) {
+      try (Stream<Path> paths = Files.walk(tempDir)) {
+        paths
+            .sorted((a, b) -> -a.compareTo(b))
+            .forEach(
+                path -> {
+                  try {
+                    Files.delete(path);
+                  } catch (IOException e) {
+                    // Ignore
+                  }
+                });
+      }
+    }
+  }
+
+  @Test
+  void testIndexedParsingBeyond4GB() throws IOException {
+    long minSize = parseSize(System.getProperty("hdump.large.size"));
+    int paddingArrays = SyntheticHeapDumpGenerator.generateLargeSparseHeapDump(heapDump, minSize);
+    assertTrue(Files.size(heapDump) >= minSize, "Heap dump should be at least " + minSize);
+
+    ParserOptions options =
+        ParserOptions.builder().parsingMode(HeapDumpParser.ParsingMode.INDEXED).build();
+
+    // First open builds the indexes, second open reads them back
+    try (HeapDump dump = HeapDumpParser.parse(heapDump, options)) {
+      assertLargeHeapDump(dump, paddingArrays);
+
+      ((HeapDumpImpl) dump).computeFullDominatorTree(null);
+      long longArrayRetained =
+          dump.getIdSize() + 12 + 8L * SyntheticHeapDumpGenerator.LARGE_LONG_ARRAY_LENGTH;
+      assertEquals(
+          longArrayRetained,
+          dump.getObjectById(2000).orElseThrow().getRetainedSize(),
+          "Retained size of an array beyond 2 GB should be exact");
+      assertEquals(
+          3 * (long) dump.getObjectById(1000).orElseThrow().getShallowSize(),
+          dump.getObjectById(1000).orElseThrow().getRetainedSize(),
+          "Root node should retain the node cycle");
+    }
+    try (HeapDump dump = HeapDumpParser.parse(heapDump, options)) {
+      assertLargeHeapDump(dump, paddingArrays);
+    }
+  }
+
+  private static void assertLargeHeapDump(HeapDump dump, int paddingArrays) {
+    assertEquals(3 + paddingArrays, dump.getObjectCount(), "Object count");
+
+    // Nodes before 2 GB, between the arrays and at the end of the file
+    for (long id = 1000; id <= 1002; id++) {
+      HeapObject node = dump.getObjectById(id).orElseThrow();
+      long next = id == 1002 ? 1000 : id + 1;
+      assertEquals(id * 31, node.getFieldValue("value"), "Value of node " + id);
+      HeapObject nextNode = (HeapObject) node.getFieldValue("next");
+      assertEquals(next, nextNode.getId(), "Next of node " + id);
+    }
+
+    HeapObject longArray = dump.getObjectById(2000).orElseThrow();
+    assertEquals(SyntheticHeapDumpGenerator.LARGE_LONG_ARRAY_LENGTH, longArray.getArrayLength());
+    assertEquals(Integer.MAX_VALUE, longArray.getShallowSize(), "Shallow size saturates");
+
+    HeapObject lastPadding = dump.getObjectById(2000 + paddingArrays - 1).orElseThrow();
+    assertEquals(
+        SyntheticHeapDumpGenerator.LARGE_BYTE_ARRAY_LENGTH, lastPadding.getArrayLength());
+  }
+
+  /** Parses sizes such as {@code 5g}, {@code 512m} or a plain number of bytes. */
+  private static long parseSize(String value) {
+    if (value == null || value.isBlank()) {
+      return DEFAULT_SIZE;
+    }
+    String size = value.trim().toLowerCase(Locale.ROOT);
+    int shift =
+        switch (size.charAt(size.length() - 1)) {
+          case 'k' -> 10;
+          case 'm' -> 20;
+          case 'g' -> 30;
+          case 't' -> 40;
+          default -> 0;
+        };
+    if (shift != 0) {
+      size = size.substring(0, size.length() - 1);
+    }
+    return Long.parseLong(size) << shift;
+  }
+}
@@ -119,14 +119,14 @@ class TwoPassParsingTest {
 
       // Read first object
       ObjectIndexReader.ObjectMetadata obj0 = reader.readObject(0);
-      assertEquals(0, obj0.objectId32, "First object should have ID 0");
+      assertEquals(0, obj0.objectId, "First object should have ID 0");
       assertTrue(obj0.fileOffset > 0, "Should have valid file offset");
       assertEquals(16, obj0.dataSize, "Should have 16 bytes of data (from synthetic generator)");
       assertFalse(obj0.isArray(), "Object instances are not arrays");
 
       // Read last object
       ObjectIndexReader.ObjectMetadata obj9 = reader.readObject(9);
-      assertEquals(9, obj9.objectId32, "Last object should have ID 9");
+      assertEquals(9, obj9.objectId, "Last object should have ID 9");
       assertTrue(obj9.fileOffset > obj0.fileOffset, "Later objects should have higher offsets");
     }
   }
@@ -155,7 +155,7 @@ class TwoPassParsingTest {
       // Verify all objects can be read and have correct IDs
       for (int i = 0; i < 10; i++) {
         ObjectIndexReader.ObjectMetadata meta = reader.readObject(i);
-        assertEquals(i, meta.objectId32, "Object " + i + " should have correct ID");
+        assertEquals(i, meta.objectId, "Object " + i + " should have correct ID");
         assertNotEquals(-1, meta.classId, "Object should have valid class ID");
         assertTrue(meta.dataSize >= 0, "Object should have valid data size");
       }
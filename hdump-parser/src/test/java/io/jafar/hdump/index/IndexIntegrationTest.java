@@ -7,6 +7,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 /** Integration tests for IndexWriter and ObjectIndexReader. */
@@ -45,7 +46,7 @@ class IndexIntegrationTest {
 
       for (int i = 0; i < objectCount; i++) {
         writer.writeObjectEntry(
-            i, // objectId32
+            i, // objectId
             1000L + (i * 100), // fileOffset
             64 + (i * 8), // dataSize
             i % 3, // classId (3 different classes)
@@ -62,7 +63,7 @@ class IndexIntegrationTest {
     Path indexFile = tempDir.resolve(IndexFormat.OBJECTS_INDEX_NAME);
     assertTrue(Files.exists(indexFile), "Index file should exist");
 
-    // Expected size: header (20 bytes) + entries (10 × 33 bytes) = 350 bytes
+    // Expected size: header (20 bytes) + entries (10 × 30 bytes) = 320 bytes
     long expectedSize = IndexFormat.HEADER_SIZE + (objectCount * IndexFormat.OBJECT_ENTRY_SIZE);
     assertEquals(expectedSize, Files.size(indexFile), "Index file size should match");
 
@@ -76,7 +77,7 @@ class IndexIntegrationTest {
       for (int i = 0; i < objectCount; i++) {
         ObjectIndexReader.ObjectMetadata meta = reader.readObject(i);
 
-        assertEquals(i, meta.objectId32, "Object ID should match");
+        assertEquals(i, meta.objectId, "Object ID should match");
         assertEquals(1000L + (i * 100), meta.fileOffset, "File offset should match");
         assertEquals(64 + (i * 8), meta.dataSize, "Data size should match");
         assertEquals(i % 3, meta.classId, "Class ID should match");
@@ -153,4 +154,118 @@ class IndexIntegrationTest {
     Path finalFile = tempDir.resolve(IndexFormat.OBJECTS_INDEX_NAME);
     assertTrue(Files.exists(finalFile), "Final index file should exist");
   }
+
+  @Test
+  void testWriteAndReadRefsIndex() throws IOException {
+    // Entries are written in heap dump order, not object ID order
+    try (IndexWriter writer = new IndexWriter(tempDir)) {
+      writer.beginRefsIndex(5);
+      writer.writeRefsEntry(3, new int[] {0, 4, 4, 99}, 3); // only the first 3 are valid
+      writer.writeRefsEntry(0, new int[] {1}, 1);
+      writer.writeRefsEntry(2, new int[0], 0); // no references
+      writer.writeRefsEntry(4, new int[] {4, 0}, 2);
+
+      // Spill file should exist during write
+      Path spillFile = tempDir.resolve(IndexFormat.REFS_INDEX_NAME + ".edges.tmp");
+      assertTrue(Files.exists(spillFile), "Spill file should exist during write");
+
+      writer.finishRefsIndex();
+
+      assertFalse(Files.exists(spillFile), "Spill file should be cleaned up");
+    }
+
+    // Expected size: header + padding (24 bytes) + edge starts (6 × 8 bytes) + edges (6 × 4 bytes)
+    Path indexFile = tempDir.resolve(IndexFormat.REFS_INDEX_NAME);
+    assertEquals(24 + 6 * 8 + 6 * 4, Files.size(indexFile), "Index file size should match");
+
+    try (RefsIndexReader reader = new RefsIndexReader(tempDir)) {
+      assertEquals(5, reader.getEntryCount(), "Entry count should match");
+      assertEquals(6, reader.getEdgeCount(), "Edge count should match");
+
+      assertArrayEquals(new int[] {1}, reader.getReferences(0));
+      assertArrayEquals(new int[0], reader.getReferences(1));
+      assertArrayEquals(new int[0], reader.getReferences(2));
+      assertArrayEquals(new int[] {0, 4, 4}, reader.getReferences(3));
+      assertArrayEquals(new int[] {4, 0}, reader.getReferences(4));
+
+      assertEquals(3, reader.getReferenceCount(3), "Reference count should match");
+      assertEquals(reader.getEdgeEnd(2), reader.getEdgeStart(3), "Rows should be contiguous");
+      assertEquals(0, reader.getEdge(reader.getEdgeStart(3)), "First edge should match");
+
+      assertThrows(IllegalArgumentException.class, () -> reader.getReferences(5));
+      assertThrows(IllegalArgumentException.class, () -> reader.getEdgeStart(-1));
+    }
+  }
+
+  @Test
+  void testClassInstancesIndexesBeyondIntRange() throws IOException {
+    long[] ids = {Integer.MAX_VALUE, 1L << 31, (1L << 32) + 7, 5};
+    try (IndexWriter writer = new IndexWriter(tempDir)) {
+      // Instance IDs are scattered to the start of their class, in any order
+      writer.beginClassInstancesDataIndex(ids.length);
+      for (int i = ids.length - 1; i >= 0; i--) {
+        writer.writeInstanceId(i, ids[i]);
+      }
+      assertThrows(IllegalArgumentException.class, () -> writer.writeInstanceId(ids.length, 0));
+      writer.finishClassInstancesDataIndex();
+
+      writer.beginClassInstancesOffsetIndex(3);
+      writer.writeClassInstancesOffsetEntry(0, 0, 3);
+      writer.writeClassInstancesOffsetEntry(1, 3, 1);
+      writer.writeClassInstancesOffsetEntry(2, (1L << 31) + 3, (1L << 31) + 5);
+      writer.finishClassInstancesOffsetIndex();
+    }
+
+    try (ClassInstancesDataReader data = new ClassInstancesDataReader(tempDir);
+        ClassInstancesOffsetReader offsets = new ClassInstancesOffsetReader(tempDir)) {
+      assertEquals(ids.length, data.getTotalInstances());
+
+      ClassInstancesOffsetReader.InstancesLocation first = offsets.getInstancesLocation(0);
+      assertArrayEquals(
+          new long[] {Integer.MAX_VALUE, 1L << 31, (1L << 32) + 7},
+          data.readInstanceIds(first.dataFileOffset(), first.instanceCount()).toArray());
+      ClassInstancesOffsetReader.InstancesLocation second = offsets.getInstancesLocation(1);
+      assertArrayEquals(
+          new long[] {5},
+          data.readInstanceIds(second.dataFileOffset(), second.instanceCount()).toArray());
+
+      // Offsets and counts of classes with more than 2^31 instances are not truncated
+      assertEquals(
+          new ClassInstancesOffsetReader.InstancesLocation((1L << 31) + 3, (1L << 31) + 5),
+          offsets.getInstancesLocation(2));
+    }
+  }
+
+  /**
+   * Writes and reads objects.idx entries around object ID 2^31 in a sparse file of some 64 GB.
+   * Excluded from the default test run; run with {@code ./gradlew :hdump-parser:largeHeapTest}.
+   */
+  @Test
+  @Tag("large")
+  void testObjectsIndexBeyondIntRange() throws IOException {
+    long objectCount = (1L << 31) + 4;
+    long[] objectIds = {0, Integer.MAX_VALUE, 1L << 31, objectCount - 1};
+    try (IndexWriter writer = new IndexWriter(tempDir)) {
+      writer.beginObjectsIndex(objectCount);
+      for (long objectId : objectIds) {
+        writer.writeObjectEntry(
+            objectId, objectId * 16, 24, (int) (objectId % 7), -1, (byte) 0, (byte) 0);
+      }
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> writer.writeObjectEntry(objectCount, 0, 0, 0, -1, (byte) 0, (byte) 0));
+      writer.finishObjectsIndex();
+    }
+
+    try (ObjectIndexReader reader = new ObjectIndexReader(tempDir)) {
+      assertEquals(objectCount, reader.getEntryCount(), "Entry count should not be truncated");
+      for (long objectId : objectIds) {
+        ObjectIndexReader.ObjectMetadata meta = reader.readObject(objectId);
+        assertEquals(objectId, meta.objectId, "Object ID should match");
+        assertEquals(objectId * 16, meta.fileOffset, "File offset should match");
+        assertEquals(objectId % 7, meta.classId, "Class ID should match");
+      }
+      assertThrows(IllegalArgumentException.class, () -> reader.readObject(objectCount));
+    }
+  }
 }
@@ -0,0 +1,139 @@
+package io.jafar.hdump.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the sorted, chunked address-to-ID mapping. */
+class ObjectIdMapTest {
+
+  private Path tempDir;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("jafar-objectid-test");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (tempDir != null && Files.exists(tempDir)) {
+      try (Stream<Path> paths = Files.walk(tempDir)) {
+        paths
+            .sorted((a, b) -> -a.compareTo(b))
+            .forEach(
+                path -> {
+                  try {
+                    Files.delete(path);
+                  } catch (IOException e) {
+                    // Ignore
+                  }
+                });
+      }
+    }
+  }
+
+  @Test
+  void testUniformAddressesAcrossChunks() {
+    Random random = new Random(42);
+    long[] addresses = new long[5000];
+    for (int i = 0; i < addresses.length; i++) {
+      addresses[i] = 0x7_0000_0000L + (long) random.nextInt(1 << 24) * 8;
+    }
+    addresses = Arrays.stream(addresses).distinct().toArray();
+
+    // 16 addresses per chunk, so buckets regularly straddle chunk boundaries
+    assertMapping(addresses, ObjectIdMap.of(split(addresses, 7), 4));
+    assertMapping(addresses, ObjectIdMap.of(split(addresses, 1)));
+  }
+
+  @Test
+  void testClusteredAddresses() {
+    // Dense young generation far below a sparse old generation: most buckets are empty and a
+    // few hold thousands of addresses
+    long[] addresses = new long[3000];
+    for (int i = 0; i < 2000; i++) {
+      addresses[i] = 0x6_0000_0000L + i * 16L;
+    }
+    for (int i = 2000; i < addresses.length; i++) {
+      addresses[i] = 0x7F_0000_0000L + (i - 2000) * 4096L;
+    }
+
+    assertMapping(addresses, ObjectIdMap.of(split(addresses, 3), 5));
+  }
+
+  @Test
+  void testSingleAndNoAddresses() {
+    assertMapping(new long[] {0x1000}, ObjectIdMap.of(split(new long[] {0x1000}, 1)));
+
+    ObjectIdMap empty = ObjectIdMap.of(List.of());
+    assertEquals(0, empty.size());
+    assertEquals(-1, empty.indexOf(0x1000));
+    assertThrows(IndexOutOfBoundsException.class, () -> empty.addressAt(0));
+  }
+
+  @Test
+  void testReadObjectMapIndex() throws IOException {
+    Random random = new Random(7);
+    long[] addresses = new long[1000];
+    for (int i = 0; i < addresses.length; i++) {
+      addresses[i] = 0x10_0000L + i * 24L + random.nextInt(3) * 8;
+    }
+    ObjectIdMap built = ObjectIdMap.of(split(addresses, 4));
+
+    // Entries in any order, as written by earlier versions from a hash map
+    int[] order = new int[addresses.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = (i * 389) % order.length;
+    }
+    try (IndexWriter writer = new IndexWriter(tempDir)) {
+      writer.beginObjectMapIndex(order.length);
+      for (int id : order) {
+        writer.writeObjectMapEntry(id, built.addressAt(id));
+      }
+      writer.finishObjectMapIndex();
+    }
+
+    assertMapping(addresses, ObjectIdMap.read(tempDir));
+  }
+
+  private static void assertMapping(long[] addresses, ObjectIdMap map) {
+    long[] sorted = addresses.clone();
+    Arrays.sort(sorted);
+
+    assertEquals(sorted.length, map.size(), "Size");
+    for (int id = 0; id < sorted.length; id++) {
+      assertEquals(sorted[id], map.addressAt(id), "Address of ID " + id);
+      assertEquals(id, map.indexOf(sorted[id]), "ID of address " + sorted[id]);
+      if (Arrays.binarySearch(sorted, sorted[id] + 1) < 0) {
+        assertEquals(-1, map.indexOf(sorted[id] + 1), "Missing address " + (sorted[id] + 1));
+      }
+    }
+    assertEquals(-1, map.indexOf(sorted[0] - 8), "Address below the range");
+    assertEquals(-1, map.indexOf(sorted[sorted.length - 1] + 8), "Address above the range");
+    assertThrows(IndexOutOfBoundsException.class, () -> map.addressAt(sorted.length));
+  }
+
+  /** Splits addresses round-robin into lists, like the per-record lists of Pass 1. */
+  private static List<LongArrayList> split(long[] addresses, int lists) {
+    List<LongArrayList> result = new ArrayList<>();
+    for (int i = 0; i < lists; i++) {
+      result.add(new LongArrayList());
+    }
+    for (int i = 0; i < addresses.length; i++) {
+      result.get(i % lists).add(addresses[i]);
+    }
+    return result;
+  }
+}
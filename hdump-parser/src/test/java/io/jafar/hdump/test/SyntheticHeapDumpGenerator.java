@@ -4,8 +4,11 @@ import io.jafar.hdump.internal.BasicType;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Generates synthetic HPROF heap dumps for testing parser spec compliance.
@@ -601,8 +604,220 @@ public class SyntheticHeapDumpGenerator {
     }
   }
 
+  /**
+   * Test Suite B5: Heap dump split into many HEAP_DUMP_SEGMENT records.
+   *
+   * <p>Each segment holds a run of nodes whose {@code next} field points into the following segment
+   * (the last segment wraps around to the first), an object array over its nodes and a GC root.
+   * The array class is only dumped halfway through the file. Verifies that scanning segments
+   * independently gives the same result as a sequential scan.
+   *
+   * @param outputPath where to write the heap dump
+   * @param segments number of segments holding instances
+   * @param objectsPerSegment number of nodes per segment
+   * @throws IOException if writing fails
+   */
+  public static void generateB5Segments(Path outputPath, int segments, int objectsPerSegment)
+      throws IOException {
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(outputPath))) {
+      writeHeader(out);
+
+      writeUtf8String(out, 1, "Node");
+      writeUtf8String(out, 2, "next");
+      writeUtf8String(out, 3, "[LNode;");
+      writeLoadClass(out, 1, 100);
+      writeLoadClass(out, 3, 101);
+
+      ByteArrayOutputStream classes = new ByteArrayOutputStream();
+      DataOutputStream c = new DataOutputStream(classes);
+      c.writeByte(0x20); // CLASS_DUMP
+      c.writeLong(100); // class ID
+      c.writeInt(0); // stack trace
+      c.writeLong(0); // super
+      c.writeLong(0); // loader
+      c.writeLong(0); // signers
+      c.writeLong(0); // protection domain
+      c.writeLong(0); // reserved
+      c.writeLong(0); // reserved
+      c.writeInt(8); // instance size
+      c.writeShort(0); // constant pool size
+      c.writeShort(0); // static fields
+      c.writeShort(1); // instance field count
+      c.writeLong(2); // field name "next"
+      c.writeByte(BasicType.OBJECT); // field type
+      writeHeapDumpSegment(out, classes.toByteArray());
+
+      int totalNodes = segments * objectsPerSegment;
+      for (int segment = 0; segment < segments; segment++) {
+        ByteArrayOutputStream heap = new ByteArrayOutputStream();
+        DataOutputStream h = new DataOutputStream(heap);
+
+        if (segment == segments / 2) {
+          writeClassDump(h, 101, 0, 0, 0, 0);
+        }
+
+        long[] nodes = new long[objectsPerSegment];
+        for (int i = 0; i < objectsPerSegment; i++) {
+          int node = segment * objectsPerSegment + i;
+          nodes[i] = 1000 + node;
+          ByteArrayOutputStream fieldData = new ByteArrayOutputStream();
+          new DataOutputStream(fieldData).writeLong(1000 + (node + objectsPerSegment) % totalNodes);
+          writeInstanceDump(h, nodes[i], 100, fieldData.toByteArray());
+        }
+
+        long arrayId = 1000 + totalNodes + segment;
+        writeObjArrayDump(h, arrayId, 101, nodes);
+
+        h.writeByte(0xFF); // ROOT_UNKNOWN
+        h.writeLong(arrayId);
+
+        writeHeapDumpSegment(out, heap.toByteArray());
+      }
+
+      out.writeByte(0x2C); // HEAP_DUMP_END
+      out.writeInt(0);
+      out.writeInt(0);
+    }
+  }
+
+  /**
+   * Large-file harness: a sparse heap dump of at least {@code minSize} bytes.
+   *
+   * <p>Three {@code Node} objects with a {@code next} and a {@code value} field form a cycle
+   * {@code 1000 -> 1001 -> 1002 -> 1000}. They are separated by padding arrays whose contents are
+   * never written, so the file takes little disk space however large it is. Object data and
+   * references therefore span the 2 GB and 4 GB boundaries, and any further ones up to {@code
+   * minSize}.
+   *
+   * <ul>
+   *   <li>1000: first segment, GC root
+   *   <li>2000: {@code long[]} of {@link #LARGE_LONG_ARRAY_LENGTH} elements (2.56 GB of data), GC
+   *       root
+   *   <li>1001: after the {@code long[]}
+   *   <li>2001, 2002, ...: {@code byte[]} of {@link #LARGE_BYTE_ARRAY_LENGTH} elements until the
+   *       file reaches {@code minSize}, GC roots
+   *   <li>1002: last segment
+   * </ul>
+   *
+   * <p>Node values are {@code id * 31}.
+   *
+   * @param outputPath where to write the heap dump
+   * @param minSize minimum file size in bytes
+   * @return number of padding arrays
+   * @throws IOException if writing fails
+   */
+  public static int generateLargeSparseHeapDump(Path outputPath, long minSize)
+      throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            outputPath,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      ByteArrayOutputStream records = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(records);
+      writeHeader(out);
+
+      writeUtf8String(out, 1, "Node");
+      writeUtf8String(out, 2, "next");
+      writeUtf8String(out, 3, "value");
+      writeLoadClass(out, 1, 100);
+
+      ByteArrayOutputStream heap = new ByteArrayOutputStream();
+      DataOutputStream h = new DataOutputStream(heap);
+      h.writeByte(0x20); // CLASS_DUMP
+      h.writeLong(100); // class ID
+      h.writeInt(0); // stack trace
+      h.writeLong(0); // super
+      h.writeLong(0); // loader
+      h.writeLong(0); // signers
+      h.writeLong(0); // protection domain
+      h.writeLong(0); // reserved
+      h.writeLong(0); // reserved
+      h.writeInt(16); // instance size
+      h.writeShort(0); // constant pool size
+      h.writeShort(0); // static fields
+      h.writeShort(2); // instance field count
+      h.writeLong(2); // field name "next"
+      h.writeByte(BasicType.OBJECT);
+      h.writeLong(3); // field name "value"
+      h.writeByte(BasicType.LONG);
+      writeNode(h, 1000, 1001);
+      h.writeByte(0xFF); // ROOT_UNKNOWN
+      h.writeLong(1000);
+      h.writeByte(0xFF);
+      h.writeLong(2000);
+      writeHeapDumpSegment(out, heap.toByteArray());
+      channel.write(ByteBuffer.wrap(records.toByteArray()));
+
+      writeSparsePrimArraySegment(channel, 2000, BasicType.LONG, LARGE_LONG_ARRAY_LENGTH);
+
+      writeNodeSegment(channel, 1001, 1002, -1);
+
+      int paddingArrays = 1;
+      while (channel.position() < minSize) {
+        long arrayId = 2000 + paddingArrays++;
+        writeSparsePrimArraySegment(channel, arrayId, BasicType.BYTE, LARGE_BYTE_ARRAY_LENGTH);
+        writeNodeSegment(channel, -1, -1, arrayId);
+      }
+
+      writeNodeSegment(channel, 1002, 1000, -1);
+      channel.write(ByteBuffer.wrap(new byte[] {0x2C, 0, 0, 0, 0, 0, 0, 0, 0})); // HEAP_DUMP_END
+      return paddingArrays;
+    }
+  }
+
+  /** Length of the {@code long[]} padding array of the large-file harness. */
+  public static final int LARGE_LONG_ARRAY_LENGTH = 320_000_000;
+
+  /** Length of the {@code byte[]} padding arrays of the large-file harness. */
+  public static final int LARGE_BYTE_ARRAY_LENGTH = Integer.MAX_VALUE - 64;
+
   // ===== Helper Methods =====
 
+  private static void writeNode(DataOutputStream out, long id, long next) throws IOException {
+    ByteArrayOutputStream fieldData = new ByteArrayOutputStream();
+    DataOutputStream fields = new DataOutputStream(fieldData);
+    fields.writeLong(next);
+    fields.writeLong(id * 31);
+    writeInstanceDump(out, id, 100, fieldData.toByteArray());
+  }
+
+  /** Writes a segment with an optional node and an optional GC root. */
+  private static void writeNodeSegment(FileChannel channel, long id, long next, long rootId)
+      throws IOException {
+    ByteArrayOutputStream heap = new ByteArrayOutputStream();
+    DataOutputStream h = new DataOutputStream(heap);
+    if (id >= 0) {
+      writeNode(h, id, next);
+    }
+    if (rootId >= 0) {
+      h.writeByte(0xFF); // ROOT_UNKNOWN
+      h.writeLong(rootId);
+    }
+    ByteArrayOutputStream record = new ByteArrayOutputStream();
+    writeHeapDumpSegment(new DataOutputStream(record), heap.toByteArray());
+    channel.write(ByteBuffer.wrap(record.toByteArray()));
+  }
+
+  /** Writes a segment with one primitive array, leaving a hole where the elements would be. */
+  private static void writeSparsePrimArraySegment(
+      FileChannel channel, long arrayId, int elementType, int length) throws IOException {
+    long dataSize = (long) length * getElementSize(elementType);
+    ByteArrayOutputStream record = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(record);
+    out.writeByte(0x1C); // HEAP_DUMP_SEGMENT
+    out.writeInt(0);
+    out.writeInt((int) (1 + ID_SIZE + 4 + 4 + 1 + dataSize)); // u4, may exceed 2^31
+    out.writeByte(0x23); // PRIM_ARRAY_DUMP
+    out.writeLong(arrayId);
+    out.writeInt(0); // stack trace
+    out.writeInt(length);
+    out.writeByte(elementType);
+    channel.write(ByteBuffer.wrap(record.toByteArray()));
+    channel.position(channel.position() + dataSize);
+  }
+
   private static void writeHeader(DataOutputStream out) throws IOException {
     out.write("JAVA PROFILE 1.0.2\0".getBytes("UTF-8"));
     out.writeInt(ID_SIZE);
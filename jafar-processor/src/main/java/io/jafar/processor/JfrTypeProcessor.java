@@ -2,13 +2,18 @@ package io.jafar.processor;
 
 import com.google.auto.service.AutoService;
 import io.jafar.parser.api.JfrField;
+import io.jafar.parser.api.JfrFlyweight;
 import io.jafar.parser.api.JfrIgnore;
 import io.jafar.parser.api.JfrType;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
@@ -39,6 +44,9 @@ import javax.tools.JavaFileObject;
  *   <li>A handler implementation class that implements the interface
  *   <li>A handler factory class with thread-local caching for reduced allocations
  * </ul>
+ *
+ * <p>Interfaces also annotated with {@link JfrFlyweight} get a handler which decodes each field
+ * from the recording stream when its getter is called instead of copying all fields on read.
  */
 @AutoService(Processor.class)
 public class JfrTypeProcessor extends AbstractProcessor {
@@ -125,10 +133,87 @@ public class JfrTypeProcessor extends AbstractProcessor {
   private static final String GETTER_TEMPLATE =
       "  @Override\n" + "  public %s %s() {\n" + "    return this.%s;\n" + "  }\n\n";
 
+  private static final String SLOT_CASE_TEMPLATE =
+      "      case \"%s\":\n" + "        return %d;\n";
+
+  private static final String FLYWEIGHT_GETTER_CP_TEMPLATE =
+      "  @Override\n"
+          + "  public %s %s() {\n"
+          + "    long offset = offset(%d);\n"
+          + "    if (%s == -1L || constantPools == null || offset < 0) {\n"
+          + "      return null;\n"
+          + "    }\n"
+          + "    long position = stream.position();\n"
+          + "    stream.position(offset);\n"
+          + "    long ref = stream.readVarint();\n"
+          + "    stream.position(position);\n"
+          + "    return (%s) constantPools.getConstantPool(%s).get(ref);\n"
+          + "  }\n\n";
+
+  private static final String FLYWEIGHT_GETTER_CP_ARRAY_TEMPLATE =
+      "  @Override\n"
+          + "  public %s[] %s() {\n"
+          + "    long offset = offset(%d);\n"
+          + "    if (%s == -1L || constantPools == null || offset < 0) {\n"
+          + "      return null;\n"
+          + "    }\n"
+          + "    ConstantPool pool = constantPools.getConstantPool(%s);\n"
+          + "    long position = stream.position();\n"
+          + "    stream.position(offset);\n"
+          + "    try {\n"
+          + "      int count = (int) stream.readVarint();\n"
+          + "      %s[] result = new %s[count];\n"
+          + "      for (int i = 0; i < count; i++) {\n"
+          + "        result[i] = (%s) pool.get(stream.readVarint());\n"
+          + "      }\n"
+          + "      return result;\n"
+          + "    } finally {\n"
+          + "      stream.position(position);\n"
+          + "    }\n"
+          + "  }\n\n";
+
+  private static final String FLYWEIGHT_GETTER_ARRAY_TEMPLATE =
+      "  @Override\n"
+          + "  public %s[] %s() {\n"
+          + "    long offset = offset(%d);\n"
+          + "    if (offset < 0) {\n"
+          + "      return null;\n"
+          + "    }\n"
+          + "    long position = stream.position();\n"
+          + "    stream.position(offset);\n"
+          + "    try {\n"
+          + "      int count = (int) stream.readVarint();\n"
+          + "      %s[] result = new %s[count];\n"
+          + "      for (int i = 0; i < count; i++) {\n"
+          + "        result[i] = %s;\n"
+          + "      }\n"
+          + "      return result;\n"
+          + "    } finally {\n"
+          + "      stream.position(position);\n"
+          + "    }\n"
+          + "  }\n\n";
+
+  private static final String FLYWEIGHT_GETTER_TEMPLATE =
+      "  @Override\n"
+          + "  public %s %s() {\n"
+          + "    long offset = offset(%d);\n"
+          + "    if (offset < 0) {\n"
+          + "      return %s;\n"
+          + "    }\n"
+          + "    long position = stream.position();\n"
+          + "    stream.position(offset);\n"
+          + "    try {\n"
+          + "      return %s;\n"
+          + "    } finally {\n"
+          + "      stream.position(position);\n"
+          + "    }\n"
+          + "  }\n\n";
+
   private Filer filer;
   private Messager messager;
   private final Set<String> generatedFactories = new HashSet<>();
   private TemplateEngine handlerTemplate;
+  private TemplateEngine flyweightHandlerTemplate;
   private TemplateEngine factoryTemplate;
 
   @Override
@@ -140,6 +225,8 @@ public class JfrTypeProcessor extends AbstractProcessor {
     // Load templates
     try {
       this.handlerTemplate = new TemplateEngine("templates/HandlerTemplate.java");
+      this.flyweightHandlerTemplate =
+          new TemplateEngine("templates/FlyweightHandlerTemplate.java");
       this.factoryTemplate = new TemplateEngine("templates/FactoryTemplate.java");
     } catch (IOException e) {
       messager.printMessage(Diagnostic.Kind.ERROR, "Failed to load templates: " + e.getMessage());
@@ -218,7 +305,20 @@ public class JfrTypeProcessor extends AbstractProcessor {
 
     // Generate handler code from template
     String handlerCode =
-        handlerTemplate
+        interfaceElement.getAnnotation(JfrFlyweight.class) != null
+            ? flyweightHandlerTemplate
+                .builder()
+                .set("PACKAGE", packageName)
+                .set("INTERFACE_NAME", interfaceName)
+                .set("HANDLER_NAME", handlerName)
+                .set("JFR_TYPE_NAME", jfrTypeName)
+                .set("STATIC_TYPE_ID_FIELDS", buildStaticTypeIdFields(fields))
+                .set("FIELD_COUNT", String.valueOf(fields.size()))
+                .set("BIND_BODY", buildBindBody(fields))
+                .set("SLOT_CASES", buildSlotCases(fields))
+                .set("GETTER_METHODS", buildFlyweightGetterMethods(fields))
+                .render()
+            : handlerTemplate
             .builder()
             .set("PACKAGE", packageName)
             .set("INTERFACE_NAME", interfaceName)
@@ -413,6 +513,66 @@ public class JfrTypeProcessor extends AbstractProcessor {
     return String.format(GETTER_TEMPLATE, returnType, methodName, fieldName);
   }
 
+  /** Generates a switch case mapping a JFR field name to its flyweight slot. */
+  private String slotCase(String jfrFieldName, int slot) {
+    return String.format(SLOT_CASE_TEMPLATE, jfrFieldName, slot);
+  }
+
+  /** Generates flyweight getter method for constant pool field. */
+  private String flyweightGetterMethodCp(
+      String returnType, String methodName, String cpTypeName, int slot) {
+    String cpTypeIdField = cpTypeIdFieldName(cpTypeName);
+    return String.format(
+        FLYWEIGHT_GETTER_CP_TEMPLATE,
+        returnType,
+        methodName,
+        slot,
+        cpTypeIdField,
+        returnType,
+        cpTypeIdField);
+  }
+
+  /** Generates flyweight getter method for constant pool array field. */
+  private String flyweightGetterMethodCpArray(
+      String elementType, String methodName, String cpTypeName, int slot) {
+    String cpTypeIdField = cpTypeIdFieldName(cpTypeName);
+    return String.format(
+        FLYWEIGHT_GETTER_CP_ARRAY_TEMPLATE,
+        elementType,
+        methodName,
+        slot,
+        cpTypeIdField,
+        cpTypeIdField,
+        elementType,
+        elementType,
+        elementType);
+  }
+
+  /** Generates flyweight getter method for primitive or String array field. */
+  private String flyweightGetterMethodArray(
+      String elementType, String methodName, int slot, String readCode) {
+    return String.format(
+        FLYWEIGHT_GETTER_ARRAY_TEMPLATE,
+        elementType,
+        methodName,
+        slot,
+        elementType,
+        elementType,
+        readCode);
+  }
+
+  /** Generates flyweight getter method for direct field. */
+  private String flyweightGetterMethod(
+      String returnType, String methodName, int slot, String readCode) {
+    return String.format(
+        FLYWEIGHT_GETTER_TEMPLATE,
+        returnType,
+        methodName,
+        slot,
+        getDefaultValue(returnType),
+        readCode);
+  }
+
   // --- Build methods (aggregate multiple items) ---
 
   /** Builds static type ID fields for constant pool resolution. */
@@ -547,15 +707,46 @@ public class JfrTypeProcessor extends AbstractProcessor {
     return sb.toString();
   }
 
-  private List<FieldInfo> extractFields(TypeElement interfaceElement) {
-    List<FieldInfo> fields = new ArrayList<>();
+  /** Builds the switch cases mapping JFR field names to flyweight slots. */
+  private String buildSlotCases(List<FieldInfo> fields) {
+    StringBuilder sb = new StringBuilder();
+    for (int slot = 0; slot < fields.size(); slot++) {
+      sb.append(slotCase(fields.get(slot).jfrFieldName, slot));
+    }
+    return sb.toString();
+  }
 
-    for (Element enclosed : interfaceElement.getEnclosedElements()) {
-      if (enclosed.getKind() != ElementKind.METHOD) {
-        continue;
+  /** Builds flyweight getter method implementations, decoding from the stream on each call. */
+  private String buildFlyweightGetterMethods(List<FieldInfo> fields) {
+    StringBuilder sb = new StringBuilder();
+    for (int slot = 0; slot < fields.size(); slot++) {
+      FieldInfo field = fields.get(slot);
+      if (field.needsConstantPool) {
+        if (field.isArray) {
+          sb.append(
+              flyweightGetterMethodCpArray(
+                  field.elementType, field.methodName, field.cpTypeName, slot));
+        } else {
+          sb.append(
+              flyweightGetterMethodCp(field.returnType, field.methodName, field.cpTypeName, slot));
+        }
+      } else if (field.isArray) {
+        sb.append(
+            flyweightGetterMethodArray(
+                field.elementType, field.methodName, slot, flyweightReadCode(field)));
+      } else {
+        sb.append(
+            flyweightGetterMethod(
+                field.returnType, field.methodName, slot, flyweightReadCode(field)));
       }
+    }
+    return sb.toString();
+  }
+
+  private List<FieldInfo> extractFields(TypeElement interfaceElement) {
+    List<FieldInfo> fields = new ArrayList<>();
 
-      ExecutableElement method = (ExecutableElement) enclosed;
+    for (ExecutableElement method : collectMethods(interfaceElement)) {
 
       // Skip methods with @JfrIgnore
       if (method.getAnnotation(JfrIgnore.class) != null) {
@@ -601,6 +792,35 @@ public class JfrTypeProcessor extends AbstractProcessor {
     return fields;
   }
 
+  /**
+   * Collects the methods of an interface and of its super-interfaces, so that handlers for JFR
+   * subtypes implement the accessors of inherited fields. A method redeclared by a subinterface
+   * hides the inherited one.
+   */
+  private List<ExecutableElement> collectMethods(TypeElement interfaceElement) {
+    Map<String, ExecutableElement> methods = new LinkedHashMap<>();
+    Deque<TypeElement> pending = new ArrayDeque<>();
+    Set<TypeElement> visited = new HashSet<>();
+    pending.add(interfaceElement);
+    TypeElement current;
+    while ((current = pending.poll()) != null) {
+      if (!visited.add(current)) {
+        continue;
+      }
+      for (Element enclosed : current.getEnclosedElements()) {
+        if (enclosed.getKind() == ElementKind.METHOD) {
+          methods.putIfAbsent(enclosed.getSimpleName().toString(), (ExecutableElement) enclosed);
+        }
+      }
+      for (TypeMirror superInterface : current.getInterfaces()) {
+        if (superInterface.getKind() == TypeKind.DECLARED) {
+          pending.add((TypeElement) ((DeclaredType) superInterface).asElement());
+        }
+      }
+    }
+    return new ArrayList<>(methods.values());
+  }
+
   private void analyzeType(TypeMirror type, FieldInfo field) {
     TypeKind kind = type.getKind();
 
@@ -703,6 +923,12 @@ public class JfrTypeProcessor extends AbstractProcessor {
     return generateReadCodeForType(typeToRead);
   }
 
+  private String flyweightReadCode(FieldInfo field) {
+    // Getters cannot throw IOException; the template wraps string reads
+    String readCode = generateReadCode(field);
+    return readCode.equals("stream.readUTF8()") ? "readUTF8()" : readCode;
+  }
+
   private String generateReadCodeForType(String javaType) {
     // Note: RecordingStream uses readVarint() for all varint-encoded integers
     if (javaType.equals("long")) {
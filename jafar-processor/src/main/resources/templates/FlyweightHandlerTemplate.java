@@ -0,0 +1,124 @@
+package {{PACKAGE}};
+
+import io.jafar.parser.api.ConstantPool;
+import io.jafar.parser.api.ConstantPools;
+import io.jafar.parser.api.MetadataLookup;
+import io.jafar.parser.internal_api.RecordingStream;
+import io.jafar.parser.internal_api.TypeSkipper;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import io.jafar.parser.internal_api.metadata.MetadataField;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generated flyweight handler implementation for {@link {{INTERFACE_NAME}}}.
+ * JFR type: {{JFR_TYPE_NAME}}
+ *
+ * <p>Getters decode their field from the recording stream on each call and are only valid
+ * during the event callback.
+ */
+public final class {{HANDLER_NAME}} implements {{INTERFACE_NAME}} {
+
+{{STATIC_TYPE_ID_FIELDS}}
+
+  // Stream and constant pools of the current event
+  private RecordingStream stream;
+  private ConstantPools constantPools;
+
+  // Field layout of the metadata class of the current event
+  private MetadataClass layout;
+  private List<MetadataField> layoutFields;
+  private int[] layoutSlots;
+
+  // Offsets of the interface fields in the current event; -1 until located, or if absent
+  private final long[] offsets = new long[{{FIELD_COUNT}}];
+  private int scanIndex;
+  private long scanPosition;
+
+  /**
+   * Binds type IDs from the recording metadata.
+   * Must be called before using handlers with a new recording.
+   */
+  public static void bind(MetadataLookup metadata) {
+{{BIND_BODY}}
+  }
+
+  /**
+   * Points the handler at the event data in the stream; no field is decoded.
+   * @param stream the recording stream positioned at event data
+   * @param metadata the metadata class for this event type
+   * @param constantPools the constant pools for resolving references
+   * @throws IOException if reading fails
+   */
+  public void read(RecordingStream stream, MetadataClass metadata, ConstantPools constantPools) throws IOException {
+    this.stream = stream;
+    this.constantPools = constantPools;
+    if (metadata != layout) {
+      List<MetadataField> fields = metadata.getAllFields();
+      int[] slots = new int[fields.size()];
+      for (int i = 0; i < slots.length; i++) {
+        slots[i] = slot(fields.get(i).getName());
+      }
+      this.layout = metadata;
+      this.layoutFields = fields;
+      this.layoutSlots = slots;
+    }
+    Arrays.fill(offsets, -1L);
+    this.scanIndex = 0;
+    this.scanPosition = stream.position();
+  }
+
+  /** Resets the handler for reuse. */
+  public void reset() {
+    this.stream = null;
+    this.constantPools = null;
+  }
+
+  /** Maps a JFR field name to the index of its interface field, or -1. */
+  private static int slot(String fieldName) {
+    switch (fieldName) {
+{{SLOT_CASES}}
+      default:
+        return -1;
+    }
+  }
+
+  /** Locates an interface field in the current event, skipping the fields before it once. */
+  private long offset(int slot) {
+    long offset = offsets[slot];
+    if (offset != -1L || scanIndex == layoutSlots.length) {
+      return offset;
+    }
+    long position = stream.position();
+    try {
+      stream.position(scanPosition);
+      while (scanIndex < layoutSlots.length) {
+        int found = layoutSlots[scanIndex];
+        if (found >= 0) {
+          offsets[found] = scanPosition;
+        }
+        TypeSkipper.skip(layoutFields.get(scanIndex++), stream);
+        scanPosition = stream.position();
+        if (found == slot) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read event data", e);
+    } finally {
+      stream.position(position);
+    }
+    return offsets[slot];
+  }
+
+  private String readUTF8() {
+    try {
+      return stream.readUTF8();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read event data", e);
+    }
+  }
+
+{{GETTER_METHODS}}
+}
@@ -38,7 +38,7 @@ public final class {{HANDLER_NAME}} implements {{INTERFACE_NAME}} {
    */
   public void read(RecordingStream stream, MetadataClass metadata, ConstantPools constantPools) throws IOException {
     this.constantPools = constantPools;
-    List<MetadataField> metaFields = metadata.getFields();
+    List<MetadataField> metaFields = metadata.getAllFields();
     for (MetadataField metaField : metaFields) {
       String fieldName = metaField.getName();
       switch (fieldName) {
@@ -0,0 +1,198 @@
+package io.jafar.processor;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import io.jafar.parser.api.HandlerFactory;
+import io.jafar.parser.api.JfrField;
+import io.jafar.parser.api.JfrType;
+import io.jafar.parser.api.TypedJafarParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parses a recording through a flyweight handler generated by {@link JfrTypeProcessor} and compares
+ * the events with those of the runtime generated typed parser.
+ */
+public class FlyweightHandlerRuntimeTest {
+
+  /** Fields of {@code jdk.ExecutionSample} read by both parsers. */
+  @JfrType("jdk.ExecutionSample")
+  public interface ExecutionSample {
+    long startTime();
+
+    @JfrField(value = "sampledThread", raw = true)
+    long sampledThreadId();
+
+    @JfrField(value = "stackTrace", raw = true)
+    long stackTraceId();
+  }
+
+  private static Class<? extends ExecutionSample> flyweightType;
+  private static Class<?> flyweightHandler;
+  private static Class<?> flyweightFactory;
+
+  @BeforeAll
+  static void compileFlyweightHandler() throws Exception {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.FlyweightExecutionSample",
+            """
+                package test;
+
+                import io.jafar.parser.api.JfrFlyweight;
+                import io.jafar.parser.api.JfrType;
+                import io.jafar.processor.FlyweightHandlerRuntimeTest;
+
+                @JfrType("jdk.ExecutionSample")
+                @JfrFlyweight
+                public interface FlyweightExecutionSample
+                    extends FlyweightHandlerRuntimeTest.ExecutionSample {}
+                """);
+
+    Compilation compilation = javac().withProcessors(new JfrTypeProcessor()).compile(source);
+    assertThat(compilation).succeeded();
+
+    ClassLoader loader = new CompilationClassLoader(compilation);
+    flyweightType =
+        loader.loadClass("test.FlyweightExecutionSample").asSubclass(ExecutionSample.class);
+    flyweightHandler = loader.loadClass("test.FlyweightExecutionSampleHandler");
+    flyweightFactory = loader.loadClass("test.FlyweightExecutionSampleFactory");
+  }
+
+  @Test
+  void flyweightHandlerReadsSameValuesAsTypedParser() throws Exception {
+    List<String> expected = typedEvents();
+    assertFalse(expected.isEmpty(), "recording should contain execution samples");
+
+    // Reading the last field first locates all fields before the first one is decoded
+    List<String> events = Collections.synchronizedList(new ArrayList<>());
+    AtomicLong flyweights = new AtomicLong();
+    try (TypedJafarParser parser = flyweightParser()) {
+      handle(
+          parser,
+          flyweightType,
+          event -> {
+            if (flyweightHandler.isInstance(event)) {
+              flyweights.incrementAndGet();
+            }
+            long stackTraceId = event.stackTraceId();
+            long sampledThreadId = event.sampledThreadId();
+            long startTime = event.startTime();
+            events.add(format(startTime, sampledThreadId, stackTraceId));
+          });
+      parser.run();
+    }
+
+    // The factory is bound to the metadata of every chunk
+    assertEquals(
+        expected.size(), flyweights.get(), "events should be read by the flyweight handler");
+    Collections.sort(expected);
+    Collections.sort(events);
+    assertEquals(expected, events);
+  }
+
+  @Test
+  void unreadFlyweightEventsAreSkipped() throws Exception {
+    // Handlers reading no field leave the stream at the event payload; the parser moves it past
+    // the event using its size
+    AtomicLong count = new AtomicLong();
+    try (TypedJafarParser parser = flyweightParser()) {
+      handle(parser, flyweightType, event -> count.incrementAndGet());
+      parser.run();
+    }
+    assertEquals(typedEvents().size(), count.get());
+  }
+
+  @Test
+  void partiallyReadFlyweightEventsAreSkipped() throws Exception {
+    // Reading only the first field leaves the remaining fields unscanned
+    List<Long> startTimes = Collections.synchronizedList(new ArrayList<>());
+    try (TypedJafarParser parser = flyweightParser()) {
+      handle(parser, flyweightType, event -> startTimes.add(event.startTime()));
+      parser.run();
+    }
+
+    List<Long> expected = new ArrayList<>();
+    for (String event : typedEvents()) {
+      expected.add(Long.parseLong(event.substring(0, event.indexOf(':'))));
+    }
+    Collections.sort(expected);
+    Collections.sort(startTimes);
+    assertEquals(expected, startTimes);
+  }
+
+  private static List<String> typedEvents() throws Exception {
+    List<String> events = Collections.synchronizedList(new ArrayList<>());
+    try (TypedJafarParser parser = TypedJafarParser.open(recording())) {
+      handle(
+          parser,
+          ExecutionSample.class,
+          event ->
+              events.add(format(event.startTime(), event.sampledThreadId(), event.stackTraceId())));
+      parser.run();
+    }
+    return new ArrayList<>(events);
+  }
+
+  private static TypedJafarParser flyweightParser() throws Exception {
+    TypedJafarParser parser = TypedJafarParser.open(recording());
+    parser.registerFactory(
+        (HandlerFactory<?>) flyweightFactory.getDeclaredConstructor().newInstance());
+    return parser;
+  }
+
+  private static <T extends ExecutionSample> void handle(
+      TypedJafarParser parser, Class<T> type, Consumer<T> consumer) {
+    parser.handle(type, (event, ctl) -> consumer.accept(event));
+  }
+
+  private static String format(long startTime, long sampledThreadId, long stackTraceId) {
+    return startTime + ":" + sampledThreadId + ":" + stackTraceId;
+  }
+
+  private static Path recording() {
+    return Paths.get("..", "parser-core", "src", "test", "resources", "test-ap.jfr")
+        .normalize()
+        .toAbsolutePath();
+  }
+
+  /** Loads the classes compiled by a {@link Compilation}. */
+  private static final class CompilationClassLoader extends ClassLoader {
+    private final Compilation compilation;
+
+    CompilationClassLoader(Compilation compilation) {
+      super(FlyweightHandlerRuntimeTest.class.getClassLoader());
+      this.compilation = compilation;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      JavaFileObject file =
+          compilation
+              .generatedFile(StandardLocation.CLASS_OUTPUT, name.replace('.', '/') + ".class")
+              .orElseThrow(() -> new ClassNotFoundException(name));
+      try (InputStream in = file.openInputStream()) {
+        byte[] bytes = in.readAllBytes();
+        return defineClass(name, bytes, 0, bytes.length);
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
+}
@@ -866,4 +866,174 @@ class JfrTypeProcessorTest {
         .contentsAsUtf8String()
         .contains("for (int i = 0; i < this.frames_cpRef.length; i++)");
   }
+
+  @Test
+  void generatesAccessorsForInheritedFields() {
+    JavaFileObject baseInterface =
+        JavaFileObjects.forSourceString(
+            "test.JFRBaseEvent",
+            """
+                package test;
+
+                import io.jafar.parser.api.JfrType;
+
+                @JfrType("test.BaseEvent")
+                public interface JFRBaseEvent {
+                    long startTime();
+                }
+                """);
+
+    JavaFileObject derivedInterface =
+        JavaFileObjects.forSourceString(
+            "test.JFRDerivedEvent",
+            """
+                package test;
+
+                import io.jafar.parser.api.JfrType;
+
+                @JfrType("test.DerivedEvent")
+                public interface JFRDerivedEvent extends JFRBaseEvent {
+                    String data();
+                }
+                """);
+
+    Compilation compilation =
+        javac().withProcessors(new JfrTypeProcessor()).compile(baseInterface, derivedInterface);
+
+    assertThat(compilation).succeeded();
+
+    // Verify the handler reads and exposes the field declared on the super-interface
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRDerivedEventHandler")
+        .contentsAsUtf8String()
+        .contains("case \"startTime\":");
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRDerivedEventHandler")
+        .contentsAsUtf8String()
+        .contains("public long startTime()");
+
+    // Verify the handler iterates the fields inherited from JFR super types
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRDerivedEventHandler")
+        .contentsAsUtf8String()
+        .contains("metadata.getAllFields()");
+  }
+
+  @Test
+  void generatesFlyweightHandler() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString(
+            "test.JFRFlyweightEvent",
+            """
+                package test;
+
+                import io.jafar.parser.api.JfrFlyweight;
+                import io.jafar.parser.api.JfrType;
+
+                @JfrType("jdk.FlyweightEvent")
+                @JfrFlyweight
+                public interface JFRFlyweightEvent {
+                    long startTime();
+                    String message();
+                    int[] values();
+                }
+                """);
+
+    Compilation compilation = javac().withProcessors(new JfrTypeProcessor()).compile(source);
+
+    assertThat(compilation).succeeded();
+    assertThat(compilation).generatedSourceFile("test.JFRFlyweightEventFactory");
+
+    // Verify fields are located by slot instead of being copied on read
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightEventHandler")
+        .contentsAsUtf8String()
+        .contains("private final long[] offsets = new long[3]");
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightEventHandler")
+        .contentsAsUtf8String()
+        .contains("case \"message\":\n        return 1;");
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightEventHandler")
+        .contentsAsUtf8String()
+        .doesNotContain("private long startTime;");
+
+    // Verify getters decode at the field offset and restore the stream position
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightEventHandler")
+        .contentsAsUtf8String()
+        .contains("long offset = offset(0);");
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightEventHandler")
+        .contentsAsUtf8String()
+        .contains("stream.position(offset);\n    try {\n      return stream.readVarint();");
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightEventHandler")
+        .contentsAsUtf8String()
+        .contains("stream.position(position);");
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightEventHandler")
+        .contentsAsUtf8String()
+        .contains("return readUTF8();");
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightEventHandler")
+        .contentsAsUtf8String()
+        .contains("int[] result = new int[count];");
+  }
+
+  @Test
+  void flyweightHandlerResolvesConstantPoolReferencesOnDemand() {
+    JavaFileObject frameInterface =
+        JavaFileObjects.forSourceString(
+            "test.JFRStackFrame",
+            """
+                package test;
+
+                import io.jafar.parser.api.JfrType;
+
+                @JfrType("jdk.types.StackFrame")
+                public interface JFRStackFrame {
+                    int lineNumber();
+                }
+                """);
+
+    JavaFileObject eventSource =
+        JavaFileObjects.forSourceString(
+            "test.JFRFlyweightStackEvent",
+            """
+                package test;
+
+                import io.jafar.parser.api.JfrFlyweight;
+                import io.jafar.parser.api.JfrType;
+
+                @JfrType("jdk.FlyweightStackEvent")
+                @JfrFlyweight
+                public interface JFRFlyweightStackEvent {
+                    JFRStackFrame topFrame();
+                    JFRStackFrame[] frames();
+                }
+                """);
+
+    Compilation compilation =
+        javac().withProcessors(new JfrTypeProcessor()).compile(frameInterface, eventSource);
+
+    assertThat(compilation).succeeded();
+
+    // Verify no reference arrays are kept per event
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightStackEventHandler")
+        .contentsAsUtf8String()
+        .doesNotContain("_cpRef");
+
+    // Verify references are read at the field offset and resolved in the getter
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightStackEventHandler")
+        .contentsAsUtf8String()
+        .contains(
+            "return (test.JFRStackFrame) constantPools.getConstantPool(STACKFRAME_TYPE_ID).get(ref);");
+    assertThat(compilation)
+        .generatedSourceFile("test.JFRFlyweightStackEventHandler")
+        .contentsAsUtf8String()
+        .contains("result[i] = (test.JFRStackFrame) pool.get(stream.readVarint());");
+  }
 }
@@ -3,6 +3,7 @@ package io.jafar.parser.impl;
 import io.jafar.parser.TypeFilter;
 import io.jafar.parser.api.Control;
 import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.api.UntypedProjection;
 import io.jafar.parser.api.UntypedStrategy;
 import io.jafar.parser.internal_api.CheckpointEvent;
 import io.jafar.parser.internal_api.ChunkHeader;
@@ -14,6 +15,9 @@ import io.jafar.parser.internal_api.UntypedEventDeserializer;
 import io.jafar.parser.internal_api.metadata.MetadataClass;
 import io.jafar.parser.internal_api.metadata.MetadataEvent;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Event stream with Tier 3 bytecode generation optimization for untyped parsing.
@@ -29,6 +33,9 @@ import java.util.Map;
  *   <li>Simple events (≤10 fields) use eager HashMap deserialization
  *   <li>Complex events (&gt;10 fields) use lazy ArrayPool + LazyEventMap
  *   <li>Deserializers cached by event type ID for reuse
+ *   <li>With an {@link UntypedProjection}, fields outside of it are skipped instead of decoded
+ *   <li>With {@link UntypedStrategy#AUTO}, each type is decoded lazily while its field accesses are
+ *       sampled and then regenerated for the strategy chosen by {@link AdaptiveStrategy}
  * </ul>
  */
 @SuppressWarnings("unchecked")
@@ -36,6 +43,10 @@ public abstract class EventStreamGenerated implements ChunkParserListener {
   private final ChunkParserListener delegate;
   private final ThreadLocal<Control> control = ThreadLocal.withInitial(ControlImpl::new);
 
+  /** Deserializers of the event types decided by {@link AdaptiveStrategy}, by type ID. */
+  private final ConcurrentMap<Long, UntypedEventDeserializer> adaptiveDeserializers =
+      new ConcurrentHashMap<>();
+
   /**
    * Constructs a new EventStreamGenerated with the specified delegate.
    *
@@ -67,6 +78,27 @@ public abstract class EventStreamGenerated implements ChunkParserListener {
     return delegate == null || delegate.onChunkEnd(context, chunkIndex, skipped);
   }
 
+  @Override
+  public final boolean supportsIntraChunkParallelism() {
+    return delegate == null || delegate.supportsIntraChunkParallelism();
+  }
+
+  @Override
+  public final void onWorkerStart(ParserContext chunkContext, ParserContext workerContext) {
+    ((ControlImpl) control.get()).setStream(workerContext.get(RecordingStream.class));
+    if (delegate != null) {
+      delegate.onWorkerStart(chunkContext, workerContext);
+    }
+  }
+
+  @Override
+  public final void onWorkerEnd(ParserContext workerContext) {
+    ((ControlImpl) control.get()).setStream(null);
+    if (delegate != null) {
+      delegate.onWorkerEnd(workerContext);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public final boolean onEvent(
@@ -91,24 +123,36 @@ public abstract class EventStreamGenerated implements ChunkParserListener {
         strategy = UntypedStrategy.SPARSE_ACCESS;
       }
       final UntypedStrategy finalStrategy = strategy;
-
-      UntypedEventDeserializer deserializer =
-          cache.computeIfAbsent(
-              typeId,
-              id -> {
-                try {
-                  return UntypedCodeGenerator.generate(eventClz, finalStrategy);
-                } catch (Exception e) {
-                  throw new RuntimeException(
-                      "Failed to generate deserializer for event type: " + eventClz.getName(), e);
-                }
-              });
+      // Only the projected fields are read when the parser has a projection for the type
+      UntypedProjection projection = context.get(UntypedProjection.class);
+      final Set<String> projectedFields =
+          projection != null ? projection.fields(eventClz.getName()) : null;
+
+      AdaptiveStrategy adaptive = context.get(AdaptiveStrategy.class);
+      AdaptiveStrategy.Profile profile = adaptive != null ? adaptive.profile(eventClz) : null;
+      UntypedEventDeserializer deserializer;
+      if (profile != null && profile.decision() != UntypedStrategy.AUTO) {
+        // The sampling is over; use a deserializer for the chosen strategy
+        UntypedStrategy decision = profile.decision();
+        deserializer =
+            adaptiveDeserializers.computeIfAbsent(
+                typeId, id -> generate(eventClz, decision, projectedFields));
+      } else {
+        deserializer =
+            cache.computeIfAbsent(typeId, id -> generate(eventClz, finalStrategy, projectedFields));
+      }
 
       // Deserialize event using generated code
       Map<String, Object> value = deserializer.deserialize(stream, context);
 
       // Process event value
+      if (profile != null) {
+        profile.track(value);
+      }
       onEventValue(eventClz, value, ctl);
+      if (profile != null) {
+        profile.record(value);
+      }
 
     } catch (Exception e) {
       // Handle any errors during generation or deserialization
@@ -121,6 +165,16 @@ public abstract class EventStreamGenerated implements ChunkParserListener {
             || delegate.onEvent(context, typeId, eventStartPos, rawSize, payloadSize));
   }
 
+  private static UntypedEventDeserializer generate(
+      MetadataClass eventClz, UntypedStrategy strategy, Set<String> projectedFields) {
+    try {
+      return UntypedCodeGenerator.generate(eventClz, strategy, projectedFields);
+    } catch (Exception e) {
+      throw new RuntimeException(
+          "Failed to generate deserializer for event type: " + eventClz.getName(), e);
+    }
+  }
+
   @Override
   public final void onRecordingStart(ParserContext context) {
     if (delegate != null) {
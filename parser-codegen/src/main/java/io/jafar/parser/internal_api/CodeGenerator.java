@@ -11,13 +11,20 @@ import io.jafar.parser.api.ParserContext;
 import io.jafar.parser.impl.TypedParserContext;
 import io.jafar.parser.internal_api.metadata.MetadataClass;
 import io.jafar.parser.internal_api.metadata.MetadataField;
+import io.jafar.parser.internal_api.metadata.MetadataFingerprint;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -823,7 +830,7 @@ final class CodeGenerator {
           return;
         }
     }
-    for (MetadataField fld : fldType.getFields()) {
+    for (MetadataField fld : fldType.getAllFields()) {
       mv.visitInsn(Opcodes.DUP); // [stream, stream]
       addFieldSkipper(mv, fld, streamIdx, varTracker); // [stream]
     }
@@ -1383,7 +1390,7 @@ final class CodeGenerator {
     int streamIdx = 0;
     VarIndexTracker varTracker = new VarIndexTracker(streamIdx);
 
-    for (MetadataField fld : clz.getFields()) {
+    for (MetadataField fld : clz.getAllFields()) {
       mv.visitVarInsn(Opcodes.ALOAD, streamIdx); // [stream]
       addFieldSkipper(mv, fld, streamIdx, varTracker); // []
     }
@@ -1537,6 +1544,20 @@ final class CodeGenerator {
       // No target mapping requested; generate a skipper-only deserializer
       return new Deserializer.Generated<>(null, null, TypeSkipper.createSkipper(clz));
     }
+    GeneratedClassCache classCache = context.get(GeneratedClassCache.class);
+    MetadataFingerprint fingerprint = context.get(MetadataFingerprint.class);
+    String cacheKey =
+        classCache != null && fingerprint != null ? classCacheKey(clz, target, context) : null;
+    if (cacheKey != null) {
+      byte[] cached = classCache.load(fingerprint, cacheKey);
+      if (cached != null) {
+        try {
+          return defineDeserializer(cached, clz, target);
+        } catch (Exception e) {
+          log.debug("Failed to define cached handler class for {}, regenerating", clz, e);
+        }
+      }
+    }
     String origClzName = target != null ? target.getName() : clz.getName();
     String origSimpleName = target != null ? target.getSimpleName() : clz.getSimpleName();
     String clzName =
@@ -1569,17 +1590,6 @@ final class CodeGenerator {
 
     Deque<MetadataClass> stack = new ArrayDeque<>();
     stack.push(clz);
-    // TODO ignore inheritence for now
-    //                        while (true) {
-    //                            MetadataClass superMd = context.getMetadataLookup().;
-    //                            String superName = mdClass.getSuperType();
-    //                            if (superName != null) {
-    //
-    // stack.push(context.getMetadataLookup().getClass(mdClass.getId()));
-    //                            } else {
-    //                                break;
-    //                            }
-    //                        }
 
     List<MetadataField> allFields = new ArrayList<>();
     Set<MetadataField> appliedFields = new HashSet<>();
@@ -1588,7 +1598,8 @@ final class CodeGenerator {
     while (!stack.isEmpty()) {
       MetadataClass current = stack.pop();
       if (target != null) {
-        for (MetadataField field : current.getFields()) {
+        // inherited fields are flattened into the handler, in stream order
+        for (MetadataField field : current.getAllFields()) {
           String fieldName = field.getName().replace('.', '_');
           allFields.add(field);
           if (usedAttributes.contains(fieldName)) {
@@ -1713,30 +1724,11 @@ final class CodeGenerator {
     }
 
     try {
-      // Define the class using the best available strategy for the current JDK
-      Class<?> implClz;
-      try {
-        ClassDefiner definer = ClassDefiners.best();
-        if (log.isDebugEnabled()) {
-          log.debug("Generating typed class using definer: {}", definer.name());
-        }
-        implClz = definer.define(classData, CodeGenerator.class);
-      } catch (Throwable t) {
-        throw new Exception(t);
-      }
-
-      MethodHandle createHandle = null;
-      if (target != null) {
-        Method mCreate = implClz.getDeclaredMethod("create", RecordingStream.class);
-        mCreate.setAccessible(true);
-        createHandle = MethodHandles.lookup().unreflect(mCreate);
+      Deserializer<T> deserializer = defineDeserializer(classData, clz, target);
+      if (cacheKey != null) {
+        classCache.store(fingerprint, cacheKey, classData);
       }
-
-      Method mSkip = implClz.getDeclaredMethod("skip", RecordingStream.class);
-      mSkip.setAccessible(true);
-      MethodHandle skipHandle = MethodHandles.lookup().unreflect(mSkip);
-
-      return new Deserializer.Generated<>(createHandle, skipHandle, TypeSkipper.createSkipper(clz));
+      return deserializer;
     } catch (Exception e) {
       log.error(
           "Failed to load generated handler class for {}, bytecode can be found at {}",
@@ -1751,6 +1743,165 @@ final class CodeGenerator {
     }
   }
 
+  /**
+   * Defines a generated handler class and wraps it in a deserializer.
+   *
+   * @param classData the class bytes
+   * @param clz the metadata class the handler was generated for
+   * @param target the handler interface, or {@code null} for a skip-only handler
+   * @return the deserializer
+   * @throws Exception if the class cannot be defined or lacks the expected methods
+   */
+  private static <T> Deserializer<T> defineDeserializer(
+      byte[] classData, MetadataClass clz, Class<?> target) throws Exception {
+    // Define the class using the best available strategy for the current JDK
+    Class<?> implClz;
+    try {
+      ClassDefiner definer = ClassDefiners.best();
+      if (log.isDebugEnabled()) {
+        log.debug("Generating typed class using definer: {}", definer.name());
+      }
+      implClz = definer.define(classData, CodeGenerator.class);
+    } catch (Throwable t) {
+      throw new Exception(t);
+    }
+
+    MethodHandle createHandle = null;
+    if (target != null) {
+      Method mCreate = implClz.getDeclaredMethod("create", RecordingStream.class);
+      mCreate.setAccessible(true);
+      createHandle = MethodHandles.lookup().unreflect(mCreate);
+    }
+
+    Method mSkip = implClz.getDeclaredMethod("skip", RecordingStream.class);
+    mSkip.setAccessible(true);
+    MethodHandle skipHandle = MethodHandles.lookup().unreflect(mSkip);
+
+    return new Deserializer.Generated<>(createHandle, skipHandle, TypeSkipper.createSkipper(clz));
+  }
+
+  /** Marks a class whose class file is not available, so it can't take part in a cache key. */
+  private static final byte[] NO_CLASS_FILE = new byte[0];
+
+  /** Hash of this generator's class file, computed once; {@link #NO_CLASS_FILE} if unavailable. */
+  private static final class GeneratorFingerprint {
+    static final byte[] HASH = classHash(CodeGenerator.class, new byte[0][]);
+  }
+
+  /**
+   * Hash of a handler interface's class file and of the hashes of its super-interfaces, computed
+   * once per interface; {@link #NO_CLASS_FILE} if any of the class files is unavailable.
+   */
+  private static final ClassValue<byte[]> INTERFACE_HASHES =
+      new ClassValue<byte[]>() {
+        @Override
+        protected byte[] computeValue(Class<?> type) {
+          Class<?>[] interfaces = type.getInterfaces();
+          byte[][] superHashes = new byte[interfaces.length][];
+          for (int i = 0; i < interfaces.length; i++) {
+            superHashes[i] = INTERFACE_HASHES.get(interfaces[i]);
+            if (superHashes[i] == NO_CLASS_FILE) {
+              return NO_CLASS_FILE;
+            }
+          }
+          return classHash(type, superHashes);
+        }
+      };
+
+  /**
+   * Hashes the name and class file of a class together with the given hashes.
+   *
+   * @return the SHA-256 hash, or {@link #NO_CLASS_FILE} if the class file is not available
+   */
+  private static byte[] classHash(Class<?> clz, byte[][] hashes) {
+    byte[] classFile = readClassFile(clz);
+    if (classFile == null) {
+      return NO_CLASS_FILE;
+    }
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      md.update(clz.getName().getBytes(StandardCharsets.UTF_8));
+      md.update(classFile);
+      for (byte[] hash : hashes) {
+        md.update(hash);
+      }
+      return md.digest();
+    } catch (NoSuchAlgorithmException e) {
+      return NO_CLASS_FILE;
+    }
+  }
+
+  /**
+   * Computes the {@link GeneratedClassCache} key of the handler class for a type and handler
+   * interface.
+   *
+   * <p>The metadata structure is covered by the fingerprint the entry is stored under; the key
+   * covers the remaining inputs of the generated bytecode: this generator, the class files of the
+   * handler interface and its super-interfaces, and the handler interfaces mapped to the fields.
+   * The class file hashes are computed once per class, so only the field mapping is hashed per
+   * call.
+   *
+   * @return the key, or {@code null} if a class file is not available and the class can't be cached
+   */
+  private static String classCacheKey(
+      MetadataClass clz, Class<?> target, TypedParserContext context) {
+    byte[] generatorHash = GeneratorFingerprint.HASH;
+    byte[] targetHash = INTERFACE_HASHES.get(target);
+    if (generatorHash == NO_CLASS_FILE || targetHash == NO_CLASS_FILE) {
+      return null;
+    }
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      md.update(generatorHash);
+      md.update(targetHash);
+      StringBuilder fields = new StringBuilder().append(clz.getId()).append(clz.getName());
+      for (MetadataField field : clz.getAllFields()) {
+        MetadataClass fldType = field.getType();
+        while (fldType.isSimpleType()) {
+          fldType = fldType.getFields().get(0).getType();
+        }
+        Class<?> fldClz = context.getClassTargetType(fldType.getName());
+        fields
+            .append(';')
+            .append(field.getName())
+            .append(':')
+            .append(fldClz != null ? fldClz.getName() : "");
+      }
+      md.update(fields.toString().getBytes(StandardCharsets.UTF_8));
+
+      byte[] hash = md.digest();
+      StringBuilder key = new StringBuilder(target.getSimpleName()).append('-');
+      for (int i = 0; i < 16; i++) {
+        key.append(String.format("%02x", hash[i]));
+      }
+      return key.toString();
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
+  private static byte[] readClassFile(Class<?> clz) {
+    String resource = clz.getName().replace('.', '/') + ".class";
+    ClassLoader cl = clz.getClassLoader();
+    try (InputStream in =
+        cl != null
+            ? cl.getResourceAsStream(resource)
+            : ClassLoader.getSystemResourceAsStream(resource)) {
+      if (in == null) {
+        return null;
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   private static Set<String> collectUsedAttributes(
       Class<?> clz, Map<String, Set<FieldMapping>> fieldToMethodMap) {
     Set<String> usedAttributes = new HashSet<>();
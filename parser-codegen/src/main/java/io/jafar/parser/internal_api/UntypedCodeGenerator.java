@@ -8,8 +8,10 @@ import io.jafar.parser.impl.LazyMapValueBuilder;
 import io.jafar.parser.internal_api.metadata.MetadataClass;
 import io.jafar.parser.internal_api.metadata.MetadataField;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
@@ -37,6 +39,10 @@ import org.slf4j.LoggerFactory;
  *       LazyMapValueBuilder.ArrayPool
  * </ul>
  *
+ * <p>When a set of projected fields is given, only those fields are read; runs of other fields are
+ * jumped over with one {@link TypeSkipper} per run and the event data after the last projected
+ * field is not read at all (see {@link FieldProjection}).
+ *
  * <p>All generated code includes stack state comments for debugging/maintenance.
  *
  * @see UntypedEventDeserializer
@@ -55,6 +61,9 @@ public final class UntypedCodeGenerator {
 
   private static final int SIMPLE_EVENT_NESTED_THRESHOLD = 2;
 
+  /** Name of the instance field holding the skippers of projected deserializers. */
+  private static final String SKIPPERS_FIELD = "skippers";
+
   private UntypedCodeGenerator() {
     // Static utility class
   }
@@ -78,7 +87,24 @@ public final class UntypedCodeGenerator {
    */
   public static UntypedEventDeserializer generate(
       MetadataClass eventType, UntypedStrategy strategy) {
+    return generate(eventType, strategy, null);
+  }
+
+  /**
+   * Generates a deserializer reading only the projected fields of the given event type.
+   *
+   * <p>The produced maps contain only the projected fields which exist in the type.
+   *
+   * @param eventType the metadata for the event type
+   * @param strategy the optimization strategy
+   * @param projectedFields the names of the top-level fields to read, or {@code null} for all
+   * @return a generated deserializer instance
+   */
+  public static UntypedEventDeserializer generate(
+      MetadataClass eventType, UntypedStrategy strategy, Set<String> projectedFields) {
     try {
+      FieldProjection projection =
+          projectedFields != null ? FieldProjection.of(eventType, projectedFields) : null;
       String className = generateClassName(eventType);
       ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
 
@@ -92,12 +118,12 @@ public final class UntypedCodeGenerator {
           new String[] {Type.getInternalName(UntypedEventDeserializer.class)});
 
       // Decide strategy: eager (simple) vs lazy (complex) based on strategy and event structure
-      boolean useEager = shouldUseEagerDeserialization(eventType, strategy);
+      boolean useEager = shouldUseEagerDeserialization(readFields(eventType, projection), strategy);
 
       if (useEager) {
-        generateEagerDeserializer(cw, className, eventType);
+        generateEagerDeserializer(cw, className, eventType, projection);
       } else {
-        generateLazyDeserializer(cw, className, eventType);
+        generateLazyDeserializer(cw, className, eventType, projection);
       }
 
       cw.visitEnd();
@@ -107,6 +133,13 @@ public final class UntypedCodeGenerator {
       Class<?> generatedClass =
           ClassDefiners.best().define(bytecode, UntypedEventDeserializer.class);
 
+      if (projection != null) {
+        // Projected deserializers hold the skippers for the unprojected field runs
+        return (UntypedEventDeserializer)
+            generatedClass
+                .getDeclaredConstructor(TypeSkipper[].class)
+                .newInstance((Object) projection.skippers());
+      }
       // Return instance (stateless deserializer)
       return (UntypedEventDeserializer) generatedClass.getDeclaredConstructor().newInstance();
 
@@ -119,12 +152,12 @@ public final class UntypedCodeGenerator {
   /**
    * Determines whether to use eager HashMap deserialization based on strategy and event structure.
    *
-   * @param type the event type metadata
+   * @param fields the fields read from the event
    * @param strategy the optimization strategy
    * @return true if eager HashMap should be used, false if lazy deserialization should be used
    */
   private static boolean shouldUseEagerDeserialization(
-      MetadataClass type, UntypedStrategy strategy) {
+      List<MetadataField> fields, UntypedStrategy strategy) {
     UntypedStrategy effectiveStrategy = strategy != null ? strategy : UntypedStrategy.SPARSE_ACCESS;
 
     switch (effectiveStrategy) {
@@ -134,15 +167,15 @@ public final class UntypedCodeGenerator {
 
       case SPARSE_ACCESS:
         // Use hybrid: eager for simple events, lazy for complex events
-        return isSimpleEvent(type);
+        return isSimpleEvent(fields);
 
       case AUTO:
-        // TODO: Implement adaptive logic based on runtime profiling
-        // For now, fall back to SPARSE_ACCESS behavior
-        return isSimpleEvent(type);
+        // Lazy maps record the field accesses sampled by AdaptiveStrategy; the event stream
+        // switches to a deserializer for the chosen strategy once the sampling is over
+        return false;
 
       default:
-        return isSimpleEvent(type);
+        return isSimpleEvent(fields);
     }
   }
 
@@ -166,17 +199,17 @@ public final class UntypedCodeGenerator {
    *
    * <p>Simple events: ≤10 fields AND (no nested objects OR ≤2 small nested objects)
    *
-   * @param type the event type metadata
+   * @param fields the fields read from the event
    * @return true if simple event (use eager HashMap), false if complex (use lazy ArrayPool)
    */
-  private static boolean isSimpleEvent(MetadataClass type) {
-    int fieldCount = type.getFields().size();
+  private static boolean isSimpleEvent(List<MetadataField> fields) {
+    int fieldCount = fields.size();
     if (fieldCount > SIMPLE_EVENT_FIELD_THRESHOLD) {
       return false;
     }
 
     int nestedObjectCount = 0;
-    for (MetadataField field : type.getFields()) {
+    for (MetadataField field : fields) {
       MetadataClass fieldType = field.getType();
       // Count non-primitive, non-simple-type fields (excluding arrays and CP refs)
       if (!fieldType.isSimpleType()
@@ -199,20 +232,10 @@ public final class UntypedCodeGenerator {
    * <p>Pattern: new HashMap(size) → put(field, value) for each field → return
    */
   private static void generateEagerDeserializer(
-      ClassWriter cw, String className, MetadataClass type) {
+      ClassWriter cw, String className, MetadataClass type, FieldProjection projection) {
 
-    // Generate constructor (no-op)
-    MethodVisitor ctor = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
-    ctor.visitCode();
-    // Stack: []
-    ctor.visitVarInsn(Opcodes.ALOAD, 0);
-    // Stack: [this]
-    ctor.visitMethodInsn(
-        Opcodes.INVOKESPECIAL, Type.getInternalName(Object.class), "<init>", "()V", false);
-    // Stack: []
-    ctor.visitInsn(Opcodes.RETURN);
-    ctor.visitMaxs(0, 0);
-    ctor.visitEnd();
+    // Generate constructor (no-op unless projected)
+    generateConstructor(cw, className, projection);
 
     // Generate deserialize() method
     MethodVisitor mv =
@@ -231,7 +254,7 @@ public final class UntypedCodeGenerator {
 
     // Create HashMap with exact size
     // Stack: []
-    int fieldCount = type.getFields().size();
+    int fieldCount = projection != null ? projection.fieldCount() : type.getAllFields().size();
     mv.visitTypeInsn(Opcodes.NEW, Type.getInternalName(HashMap.class));
     // Stack: [HashMap]
     mv.visitInsn(Opcodes.DUP);
@@ -252,7 +275,12 @@ public final class UntypedCodeGenerator {
     Set<MetadataClass> nestedTypes = new HashSet<>();
 
     // For each field: read and put in map
-    for (MetadataField field : type.getFields()) {
+    for (int step = 0; step < stepCount(type, projection); step++) {
+      MetadataField field = stepField(type, projection, step);
+      if (field == null) {
+        generateSkip(mv, className, step, 1);
+        continue;
+      }
       // Stack: []
       mv.visitVarInsn(Opcodes.ALOAD, 3); // Load map
       // Stack: [Map]
@@ -294,7 +322,7 @@ public final class UntypedCodeGenerator {
    * LazyEventMap(pool, size)
    */
   private static void generateLazyDeserializer(
-      ClassWriter cw, String className, MetadataClass type) {
+      ClassWriter cw, String className, MetadataClass type, FieldProjection projection) {
 
     // Add ThreadLocal<ArrayPool> static field
     cw.visitField(
@@ -347,14 +375,7 @@ public final class UntypedCodeGenerator {
     clinit.visitEnd();
 
     // Generate constructor
-    MethodVisitor ctor = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
-    ctor.visitCode();
-    ctor.visitVarInsn(Opcodes.ALOAD, 0);
-    ctor.visitMethodInsn(
-        Opcodes.INVOKESPECIAL, Type.getInternalName(Object.class), "<init>", "()V", false);
-    ctor.visitInsn(Opcodes.RETURN);
-    ctor.visitMaxs(0, 0);
-    ctor.visitEnd();
+    generateConstructor(cw, className, projection);
 
     // Generate deserialize() method
     MethodVisitor mv =
@@ -407,7 +428,12 @@ public final class UntypedCodeGenerator {
     Set<MetadataClass> nestedTypes = new HashSet<>();
 
     // For each field: read and add to pool
-    for (MetadataField field : type.getFields()) {
+    for (int step = 0; step < stepCount(type, projection); step++) {
+      MetadataField field = stepField(type, projection, step);
+      if (field == null) {
+        generateSkip(mv, className, step, 1);
+        continue;
+      }
       // Stack: []
       mv.visitVarInsn(Opcodes.ALOAD, 3); // Load pool
       // Stack: [ArrayPool]
@@ -458,6 +484,100 @@ public final class UntypedCodeGenerator {
     }
   }
 
+  /**
+   * Generates the constructor.
+   *
+   * <p>Unprojected deserializers get a no-op constructor. Projected ones take the skippers of the
+   * {@link FieldProjection} and keep them in an instance field.
+   */
+  private static void generateConstructor(
+      ClassWriter cw, String className, FieldProjection projection) {
+    String skippersDesc = Type.getDescriptor(TypeSkipper[].class);
+    if (projection != null) {
+      cw.visitField(
+              Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, SKIPPERS_FIELD, skippersDesc, null, null)
+          .visitEnd();
+    }
+    String ctorDesc =
+        projection != null
+            ? Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(TypeSkipper[].class))
+            : "()V";
+    MethodVisitor ctor = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", ctorDesc, null, null);
+    ctor.visitCode();
+    // Stack: []
+    ctor.visitVarInsn(Opcodes.ALOAD, 0);
+    // Stack: [this]
+    ctor.visitMethodInsn(
+        Opcodes.INVOKESPECIAL, Type.getInternalName(Object.class), "<init>", "()V", false);
+    // Stack: []
+    if (projection != null) {
+      ctor.visitVarInsn(Opcodes.ALOAD, 0);
+      // Stack: [this]
+      ctor.visitVarInsn(Opcodes.ALOAD, 1);
+      // Stack: [this, TypeSkipper[]]
+      ctor.visitFieldInsn(
+          Opcodes.PUTFIELD, className.replace('.', '/'), SKIPPERS_FIELD, skippersDesc);
+      // Stack: []
+    }
+    ctor.visitInsn(Opcodes.RETURN);
+    ctor.visitMaxs(0, 0);
+    ctor.visitEnd();
+  }
+
+  /**
+   * Generates bytecode skipping a run of unprojected fields: {@code skippers[step].skip(stream)}.
+   *
+   * <p>Entry and exit: Stack: []
+   */
+  private static void generateSkip(MethodVisitor mv, String className, int step, int streamVar) {
+    // Stack: []
+    mv.visitVarInsn(Opcodes.ALOAD, 0);
+    // Stack: [this]
+    mv.visitFieldInsn(
+        Opcodes.GETFIELD,
+        className.replace('.', '/'),
+        SKIPPERS_FIELD,
+        Type.getDescriptor(TypeSkipper[].class));
+    // Stack: [TypeSkipper[]]
+    pushInt(mv, step);
+    // Stack: [TypeSkipper[], int]
+    mv.visitInsn(Opcodes.AALOAD);
+    // Stack: [TypeSkipper]
+    mv.visitVarInsn(Opcodes.ALOAD, streamVar);
+    // Stack: [TypeSkipper, RecordingStream]
+    mv.visitMethodInsn(
+        Opcodes.INVOKEVIRTUAL,
+        Type.getInternalName(TypeSkipper.class),
+        "skip",
+        Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(RecordingStream.class)),
+        false);
+    // Stack: []
+  }
+
+  /** Returns the number of decoding steps: one per field, or per projection step. */
+  private static int stepCount(MetadataClass type, FieldProjection projection) {
+    return projection != null ? projection.size() : type.getAllFields().size();
+  }
+
+  /** Returns the field read by a step, or {@code null} if the step skips. */
+  private static MetadataField stepField(MetadataClass type, FieldProjection projection, int step) {
+    return projection != null ? projection.field(step) : type.getAllFields().get(step);
+  }
+
+  /** Returns the fields read from the event. */
+  private static List<MetadataField> readFields(MetadataClass type, FieldProjection projection) {
+    if (projection == null) {
+      return type.getAllFields();
+    }
+    List<MetadataField> fields = new ArrayList<>(projection.fieldCount());
+    for (int step = 0; step < projection.size(); step++) {
+      if (projection.field(step) != null) {
+        fields.add(projection.field(step));
+      }
+    }
+    return fields;
+  }
+
   /**
    * Generates bytecode to read a single field value.
    *
@@ -613,7 +733,7 @@ public final class UntypedCodeGenerator {
 
     // Always use small HashMap for nested objects (typically <5 fields)
     // Stack: []
-    int fieldCount = nestedType.getFields().size();
+    int fieldCount = nestedType.getAllFields().size();
     mv.visitTypeInsn(Opcodes.NEW, Type.getInternalName(HashMap.class));
     // Stack: [HashMap]
     mv.visitInsn(Opcodes.DUP);
@@ -634,7 +754,7 @@ public final class UntypedCodeGenerator {
     Set<MetadataClass> innerNestedTypes = new HashSet<>();
 
     // Read all nested fields
-    for (MetadataField field : nestedType.getFields()) {
+    for (MetadataField field : nestedType.getAllFields()) {
       // Stack: []
       mv.visitVarInsn(Opcodes.ALOAD, 2);
       // Stack: [Map]
@@ -0,0 +1,106 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.TypedJafarParser;
+import io.jafar.parser.internal_api.GlobalHandlerCache;
+import io.jafar.parser.types.JFRExecutionSample;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for the persistent cache of generated deserializer classes. */
+public class GeneratedClassCacheTest {
+  private static final FileTime STORED = FileTime.fromMillis(1_000_000_000_000L);
+
+  @TempDir Path cacheDir;
+
+  @AfterEach
+  void teardown() {
+    GlobalHandlerCache.getInstance().clear();
+  }
+
+  @Test
+  void storedClassesAreReusedByNewContexts() throws Exception {
+    GlobalHandlerCache.getInstance().clear();
+    Map<String, Long> generated = parse(ParsingContext.builder().classCache(cacheDir).build());
+
+    List<Path> entries = entries();
+    assertFalse(entries.isEmpty());
+    for (Path entry : entries) {
+      Files.setLastModifiedTime(entry, STORED);
+    }
+
+    // a fresh process has no in-memory handlers; the stored classes must be loaded instead
+    GlobalHandlerCache.getInstance().clear();
+    Map<String, Long> loaded = parse(ParsingContext.builder().classCache(cacheDir).build());
+
+    assertEquals(generated, loaded);
+    assertEquals(entries, entries());
+    for (Path entry : entries()) {
+      assertEquals(STORED, Files.getLastModifiedTime(entry), entry.toString());
+    }
+  }
+
+  @Test
+  void unreadableEntriesAreRegenerated() throws Exception {
+    GlobalHandlerCache.getInstance().clear();
+    Map<String, Long> generated = parse(ParsingContext.builder().classCache(cacheDir).build());
+    for (Path entry : entries()) {
+      Files.write(entry, new byte[] {1, 2, 3});
+    }
+
+    GlobalHandlerCache.getInstance().clear();
+    Map<String, Long> regenerated = parse(ParsingContext.builder().classCache(cacheDir).build());
+
+    assertEquals(generated, regenerated);
+    for (Path entry : entries()) {
+      assertTrue(Files.size(entry) > 3, entry.toString());
+    }
+  }
+
+  @Test
+  void cacheIsDisabledByDefault() throws Exception {
+    GlobalHandlerCache.getInstance().clear();
+    parse(ParsingContext.create());
+    assertTrue(entries().isEmpty());
+  }
+
+  private List<Path> entries() throws Exception {
+    try (Stream<Path> files = Files.walk(cacheDir)) {
+      return files
+          .filter(f -> f.getFileName().toString().endsWith(".class"))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static Map<String, Long> parse(ParsingContext context) throws Exception {
+    Path recording =
+        new File(GeneratedClassCacheTest.class.getClassLoader().getResource("test-ap.jfr").toURI())
+            .toPath();
+    Map<String, Long> samples = new ConcurrentHashMap<>();
+    try (TypedJafarParser p = context.newTypedParser(recording)) {
+      p.handle(
+          JFRExecutionSample.class,
+          (e, ctl) -> {
+            String key = e.startTime() + ":" + e.state() + ":" + e.sampledThread().javaName();
+            samples.merge(key, 1L, Long::sum);
+          });
+      p.run();
+    }
+    return samples;
+  }
+}
@@ -0,0 +1,221 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.jafar.parser.api.JfrType;
+import io.jafar.parser.api.TypedJafarParser;
+import io.jafar.parser.api.UntypedJafarParser;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that fields inherited from a JFR super type are decoded by typed handlers.
+ *
+ * <p>The recording is built by hand because the JMC writer does not declare super types with
+ * fields: {@code test.Derived} extends {@code test.Base} and declares only {@code own}, while its
+ * events carry the inherited {@code startTime} value first.
+ */
+public class InheritedFieldsTest {
+
+  @JfrType("test.Derived")
+  public interface DerivedEvent {
+    long startTime();
+
+    long own();
+  }
+
+  @TempDir Path tempDir;
+
+  @Test
+  void typedHandlerReadsInheritedFields() throws Exception {
+    Path jfrFile = tempDir.resolve("inherited.jfr");
+    Files.write(jfrFile, buildSyntheticJfr());
+
+    List<long[]> values = new ArrayList<>();
+    try (TypedJafarParser parser = TypedJafarParser.open(jfrFile.toString())) {
+      parser.handle(
+          DerivedEvent.class,
+          (event, ctl) -> values.add(new long[] {event.startTime(), event.own()}));
+      parser.run();
+    }
+
+    assertEquals(2, values.size());
+    assertEquals(42L, values.get(0)[0]);
+    assertEquals(7L, values.get(0)[1]);
+    assertEquals(43L, values.get(1)[0]);
+    assertEquals(8L, values.get(1)[1]);
+  }
+
+  @Test
+  void untypedParserReadsInheritedFields() throws Exception {
+    Path jfrFile = tempDir.resolve("inherited-untyped.jfr");
+    Files.write(jfrFile, buildSyntheticJfr());
+
+    List<Map<String, Object>> values = new ArrayList<>();
+    try (UntypedJafarParser parser = UntypedJafarParser.open(jfrFile)) {
+      parser.handle(
+          (type, value, ctl) -> {
+            if ("test.Derived".equals(type.getName())) {
+              values.add(value);
+            }
+          });
+      parser.run();
+    }
+
+    assertEquals(2, values.size());
+    assertEquals(42L, ((Number) values.get(0).get("startTime")).longValue());
+    assertEquals(7L, ((Number) values.get(0).get("own")).longValue());
+  }
+
+  // -------------------------------------------------------------------------
+  // Synthetic JFR binary
+  // -------------------------------------------------------------------------
+
+  /**
+   * Builds a single-chunk recording with two {@code test.Derived} events.
+   *
+   * <pre>
+   *   root
+   *     metadata
+   *       class (id=1, name=long)
+   *       class (id=2, name=java.lang.String)
+   *       class (id=100, name=test.Base)
+   *         field (name=startTime, class=1)
+   *       class (id=101, name=test.Derived, superType=test.Base)
+   *         field (name=own, class=1)
+   * </pre>
+   */
+  private static byte[] buildSyntheticJfr() throws IOException {
+    String[] strings = {
+      "root", // 0
+      "metadata", // 1
+      "class", // 2
+      "field", // 3
+      "id", // 4
+      "name", // 5
+      "superType", // 6
+      "1", // 7
+      "long", // 8
+      "2", // 9
+      "java.lang.String", // 10
+      "100", // 11
+      "test.Base", // 12
+      "101", // 13
+      "test.Derived", // 14
+      "startTime", // 15
+      "own" // 16
+    };
+
+    ByteArrayOutputStream meta = new ByteArrayOutputStream();
+    writeVarint(meta, 0); // typeId = 0 (metadata event)
+    writeVarint(meta, 0); // startTime
+    writeVarint(meta, 0); // duration
+    writeVarint(meta, 1); // metadataId
+    writeVarint(meta, strings.length);
+    for (String s : strings) {
+      meta.write(5); // LATIN-1 encoding
+      writeVarint(meta, s.length());
+      meta.write(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+    // element: name index, attribute count, (key, value) pairs, sub-element count
+    writeVarints(meta, 0, 0, 1); // root
+    writeVarints(meta, 1, 0, 4); // metadata
+    writeVarints(meta, 2, 2, 4, 7, 5, 8, 0); // class long
+    writeVarints(meta, 2, 2, 4, 9, 5, 10, 0); // class java.lang.String
+    writeVarints(meta, 2, 2, 4, 11, 5, 12, 1); // class test.Base
+    writeVarints(meta, 3, 2, 5, 15, 2, 7, 0); // field startTime
+    writeVarints(meta, 2, 3, 4, 13, 5, 14, 6, 12, 1); // class test.Derived
+    writeVarints(meta, 3, 2, 5, 16, 2, 7, 0); // field own
+    byte[] metaEvent = sized(meta.toByteArray());
+
+    ByteArrayOutputStream cp = new ByteArrayOutputStream();
+    writeVarint(cp, 1); // typeId = 1 (checkpoint)
+    writeVarint(cp, 0); // startTime
+    writeVarint(cp, 0); // duration
+    writeVarint(cp, 0); // nextOffsetDelta
+    cp.write(0); // isFlush
+    writeVarint(cp, 0); // pool count
+    byte[] cpEvent = sized(cp.toByteArray());
+
+    ByteArrayOutputStream events = new ByteArrayOutputStream();
+    for (int i = 0; i < 2; i++) {
+      ByteArrayOutputStream event = new ByteArrayOutputStream();
+      writeVarint(event, 101); // test.Derived
+      writeVarint(event, 42 + i); // inherited startTime
+      writeVarint(event, 7 + i); // own
+      events.write(sized(event.toByteArray()));
+    }
+    byte[] eventBytes = events.toByteArray();
+
+    int headerSize = 68;
+    int cpOffset = headerSize + eventBytes.length;
+    int metaOffset = cpOffset + cpEvent.length;
+    int chunkSize = metaOffset + metaEvent.length;
+
+    ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.BIG_ENDIAN);
+    header.put((byte) 'F').put((byte) 'L').put((byte) 'R').put((byte) '\0');
+    header.putShort((short) 2); // major version
+    header.putShort((short) 0); // minor version
+    header.putLong(chunkSize);
+    header.putLong(cpOffset);
+    header.putLong(metaOffset);
+    header.putLong(0L); // startNanos
+    header.putLong(0L); // duration
+    header.putLong(0L); // startTicks
+    header.putLong(1_000_000_000L); // frequency
+    header.putInt(0); // compressed = false
+
+    ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+    chunk.write(header.array());
+    chunk.write(eventBytes);
+    chunk.write(cpEvent);
+    chunk.write(metaEvent);
+    return chunk.toByteArray();
+  }
+
+  /** Prefixes an event payload with its total size, including the size varint itself. */
+  private static byte[] sized(byte[] payload) throws IOException {
+    int size = payload.length + 1;
+    while (payload.length + varintLen(size) != size) {
+      size = payload.length + varintLen(size);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeVarint(out, size);
+    out.write(payload);
+    return out.toByteArray();
+  }
+
+  private static void writeVarints(ByteArrayOutputStream out, long... values) {
+    for (long v : values) {
+      writeVarint(out, v);
+    }
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, long v) {
+    do {
+      byte b = (byte) (v & 0x7F);
+      v >>>= 7;
+      if (v != 0) b |= (byte) 0x80;
+      out.write(b & 0xFF);
+    } while (v != 0);
+  }
+
+  private static int varintLen(long v) {
+    int len = 0;
+    do {
+      v >>>= 7;
+      len++;
+    } while (v != 0);
+    return len;
+  }
+}
@@ -0,0 +1,73 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.TypedJafarParser;
+import io.jafar.parser.types.JFRExecutionSample;
+import io.jafar.parser.types.JFRStackTrace;
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+
+public class IntraChunkParallelTypedTest {
+
+  @Test
+  void parallelDecodingResolvesSameConstantsAsSequential() throws Exception {
+    URI uri = IntraChunkParallelTypedTest.class.getClassLoader().getResource("test-ap.jfr").toURI();
+    Path path = Paths.get(new File(uri).getAbsolutePath());
+
+    Map<String, Long> sequential = samplesPerThread(ParsingContext.create(), path);
+    Map<String, Long> parallel =
+        samplesPerThread(
+            ParsingContext.builder().intraChunkParallelism(4).intraChunkMinSize(0).build(), path);
+
+    assertFalse(sequential.isEmpty());
+    assertEquals(sequential, parallel);
+  }
+
+  @Test
+  void eagerConstantPoolsResolveSameConstantsAsLazy() throws Exception {
+    URI uri = IntraChunkParallelTypedTest.class.getClassLoader().getResource("test-ap.jfr").toURI();
+    Path path = Paths.get(new File(uri).getAbsolutePath());
+
+    Map<String, Long> lazy = samplesPerThread(ParsingContext.create(), path);
+    Map<String, Long> eager =
+        samplesPerThread(
+            ParsingContext.builder()
+                .eagerConstantPools(true)
+                .intraChunkParallelism(4)
+                .intraChunkMinSize(0)
+                .build(),
+            path);
+
+    assertFalse(lazy.isEmpty());
+    assertEquals(lazy, eager);
+  }
+
+  private static Map<String, Long> samplesPerThread(ParsingContext ctx, Path path)
+      throws Exception {
+    Map<String, LongAdder> frames = new ConcurrentHashMap<>();
+    try (TypedJafarParser p = ctx.newTypedParser(path)) {
+      p.handle(
+          JFRExecutionSample.class,
+          (e, ctl) -> {
+            String thread = e.sampledThread() != null ? e.sampledThread().javaName() : "<none>";
+            JFRStackTrace st = e.stackTrace();
+            int depth = st != null && st.frames() != null ? st.frames().length : 0;
+            frames.computeIfAbsent(String.valueOf(thread), k -> new LongAdder()).add(1 + depth);
+          });
+      p.run();
+    }
+    Map<String, Long> result = new TreeMap<>();
+    frames.forEach((k, v) -> result.put(k, v.sum()));
+    return result;
+  }
+}
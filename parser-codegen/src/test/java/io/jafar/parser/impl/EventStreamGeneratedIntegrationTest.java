@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import io.jafar.parser.api.Control;
 import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedProjection;
+import io.jafar.parser.api.UntypedStrategy;
 import io.jafar.parser.internal_api.StreamingChunkParser;
 import io.jafar.parser.internal_api.UntypedDeserializerCache;
 import io.jafar.parser.internal_api.metadata.MetadataClass;
@@ -11,8 +13,15 @@ import java.io.File;
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
@@ -215,4 +224,55 @@ public class EventStreamGeneratedIntegrationTest {
     // Should not have parsed all events (verify abort worked)
     // Note: We can't verify exact count without knowing total events, but abort should work
   }
+
+  @Test
+  void testProjectedDeserializersSkipUnprojectedFields() throws Exception {
+    URI uri = getClass().getClassLoader().getResource("test-ap.jfr").toURI();
+    Path jfrFile = Paths.get(new File(uri).getAbsolutePath());
+    String eventType = "jdk.ExecutionSample";
+    UntypedProjection projection =
+        UntypedProjection.builder().include(eventType, "startTime", "state").build();
+
+    for (UntypedStrategy strategy : UntypedStrategy.values()) {
+      Set<Set<String>> keySets = ConcurrentHashMap.newKeySet();
+      List<Long> full = collectStartTimes(jfrFile, eventType, strategy, null, keySets);
+      keySets.clear();
+      List<Long> projected = collectStartTimes(jfrFile, eventType, strategy, projection, keySets);
+
+      assertFalse(full.isEmpty(), "Should have parsed " + eventType + " events");
+      assertEquals(full, projected, "Projected startTime values should match for " + strategy);
+      assertEquals(
+          Collections.singleton(new HashSet<>(Arrays.asList("startTime", "state"))), keySets);
+    }
+  }
+
+  private static List<Long> collectStartTimes(
+      Path jfrFile,
+      String eventType,
+      UntypedStrategy strategy,
+      UntypedProjection projection,
+      Set<Set<String>> keySets)
+      throws Exception {
+    ParsingContext ctx = ParsingContext.create();
+    List<Long> startTimes = Collections.synchronizedList(new ArrayList<>());
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(
+            ((ParsingContextImpl) ctx).untypedContextFactory(strategy, projection))) {
+      EventStreamGenerated listener =
+          new EventStreamGenerated(null) {
+            @Override
+            protected void onEventValue(
+                MetadataClass type, Map<String, Object> value, Control ctl) {
+              if (eventType.equals(type.getName())) {
+                keySets.add(new HashSet<>(value.keySet()));
+                startTimes.add((Long) value.get("startTime"));
+              }
+            }
+          };
+      parser.parse(jfrFile, listener);
+    }
+    List<Long> sorted = new ArrayList<>(startTimes);
+    Collections.sort(sorted);
+    return sorted;
+  }
 }
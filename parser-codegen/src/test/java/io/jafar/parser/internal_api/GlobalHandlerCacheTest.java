@@ -3,8 +3,9 @@ package io.jafar.parser.internal_api;
 import static org.junit.jupiter.api.Assertions.*;
 
 import io.jafar.parser.internal_api.metadata.MetadataFingerprint;
-import java.util.HashSet;
-import java.util.Set;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -159,18 +160,59 @@ public class GlobalHandlerCacheTest {
     assertEquals(1, cache.size(), "Should have only 1 cache entry");
   }
 
+  @Test
+  public void testPerFingerprintStatistics() {
+    MetadataFingerprint fp1 = createFingerprint(1);
+    MetadataFingerprint fp2 = createFingerprint(2);
+
+    cache.getOrCreateCache(fp1);
+    cache.getOrCreateCache(fp1);
+    cache.getOrCreateCache(fp1);
+    cache.getOrCreateCache(fp2);
+
+    assertEquals(2, cache.getHits(fp1));
+    assertEquals(1, cache.getMisses(fp1));
+    assertEquals(200.0 / 3, cache.getHitRate(fp1), 0.01);
+    assertEquals(0, cache.getHits(fp2));
+    assertEquals(0.0, cache.getHitRate(fp2), 0.01);
+    assertEquals(0, cache.getMisses(createFingerprint(3)), "Unknown fingerprint has no statistics");
+  }
+
+  @Test
+  public void testEvictionRemovesLeastRecentlyUsedInBatches() {
+    List<Runnable> tasks = new ArrayList<>();
+    GlobalHandlerCache small = new GlobalHandlerCache(10, tasks::add);
+    for (int i = 0; i < 10; i++) {
+      small.getOrCreateCache(createFingerprint(i));
+    }
+    small.getOrCreateCache(createFingerprint(0)); // most recently used from now on
+    small.getOrCreateCache(createFingerprint(10));
+    small.getOrCreateCache(createFingerprint(11));
+
+    // lookups never evict themselves; a single eviction is scheduled
+    assertEquals(12, small.size());
+    assertEquals(1, tasks.size());
+
+    tasks.get(0).run();
+    assertEquals(9, small.size(), "Eviction should remove the excess plus one batch");
+    assertEquals(3, small.getTotalEvictions());
+    assertEquals(1, small.getHits(createFingerprint(0)));
+
+    // statistics of evicted fingerprints are kept when they come back
+    small.getOrCreateCache(createFingerprint(1));
+    assertEquals(2, small.getMisses(createFingerprint(1)));
+  }
+
   // Helper method to create unique fingerprints
   private MetadataFingerprint createFingerprint(int seed) {
-    MutableMetadataLookup lookup = new MutableMetadataLookup();
-    // Create a unique reachable set that will produce different hashes
-    Set<Long> reachable = new HashSet<>();
-    for (int i = 0; i < seed; i++) {
-      reachable.add((long) i);
-    }
-    // Ensure at least one element
-    if (reachable.isEmpty()) {
-      reachable.add((long) seed);
+    // Fingerprints computed from an empty lookup all hash the same content
+    try {
+      Constructor<MetadataFingerprint> ctor =
+          MetadataFingerprint.class.getDeclaredConstructor(byte[].class);
+      ctor.setAccessible(true);
+      return ctor.newInstance((Object) new byte[] {(byte) seed, (byte) (seed >> 8)});
+    } catch (ReflectiveOperationException e) {
+      throw new AssertionError(e);
     }
-    return MetadataFingerprint.compute(lookup, reachable);
   }
 }
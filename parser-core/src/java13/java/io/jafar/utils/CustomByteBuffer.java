@@ -9,6 +9,19 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 public interface CustomByteBuffer {
+  /**
+   * Wraps a byte array in a CustomByteBuffer with the same byte-order semantics as a memory-mapped
+   * JFR file: the returned buffer has {@link #isNativeOrder()} == false so that multi-byte reads in
+   * {@link io.jafar.parser.internal_api.RecordingStreamReader} apply the same byte-reversal that
+   * file-backed buffers use.
+   *
+   * @param bytes the byte array to wrap
+   * @return a custom byte buffer wrapping the array
+   */
+  static CustomByteBuffer wrap(byte[] bytes) {
+    return new ByteBufferWrapper(ByteBuffer.wrap(bytes));
+  }
+
   static CustomByteBuffer map(Path channel) throws IOException {
     return map(channel, Integer.MAX_VALUE);
   }
@@ -67,6 +80,15 @@ public interface CustomByteBuffer {
 
   long getLong(long offset);
 
+  default long peekLong() {
+    long l = getLong(position());
+    return order() == ByteOrder.LITTLE_ENDIAN ? l : Long.reverseBytes(l);
+  }
+
+  default boolean load(long offset, long length) {
+    return false;
+  }
+
   void close() throws IOException;
 
   class ByteBufferWrapper implements CustomByteBuffer {
@@ -189,6 +211,12 @@ public interface CustomByteBuffer {
       return delegate.getLong((int) offset);
     }
 
+    @Override
+    public long peekLong() {
+      long l = delegate.getLong(delegate.position());
+      return delegate.order() == ByteOrder.LITTLE_ENDIAN ? l : Long.reverseBytes(l);
+    }
+
     @Override
     public void close() throws IOException {
       // MappedByteBuffers are unmapped by GC
@@ -265,6 +265,20 @@ public final class SplicedMappedByteBuffer implements CustomByteBuffer {
     return ByteBuffer.wrap(numArray).order(splices[0].order()).getLong();
   }
 
+  @Override
+  public long peekLong() {
+    MappedByteBuffer splice = splices[index];
+    long l;
+    if (spliceSize - offset >= 8) {
+      l = splice.getLong(offset);
+    } else {
+      // the value spans a splice boundary
+      l = getLong(position);
+      splice = splices[0];
+    }
+    return splice.order() == ByteOrder.LITTLE_ENDIAN ? l : Long.reverseBytes(l);
+  }
+
   @Override
   public void close() throws IOException {
     // MappedByteBuffers are unmapped by GC
@@ -2,18 +2,45 @@ package io.jafar.utils;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 public interface CustomByteBuffer {
+  /**
+   * Wraps a byte array in a CustomByteBuffer with the same byte-order semantics as a memory-mapped
+   * JFR file: the returned buffer has {@link #isNativeOrder()} == false so that multi-byte reads in
+   * {@link io.jafar.parser.internal_api.RecordingStreamReader} apply the same byte-reversal that
+   * file-backed buffers use.
+   *
+   * @param bytes the byte array to wrap
+   * @return a custom byte buffer wrapping the array
+   */
+  static CustomByteBuffer wrap(byte[] bytes) {
+    return new ByteBufferWrapper(ByteBuffer.wrap(bytes));
+  }
+
   static CustomByteBuffer map(Path channel) throws IOException {
     return map(channel, Integer.MAX_VALUE);
   }
 
+  /**
+   * Maps a file path to a custom byte buffer.
+   *
+   * <p>The whole file is mapped to a single {@code MemorySegment} when the Foreign Memory API is
+   * available, regardless of {@code spliceSize}; {@link #close()} then unmaps the file.
+   *
+   * @param path the file path to map
+   * @param spliceSize the maximum size for a single mapped buffer, if segments are unavailable
+   * @return a custom byte buffer for the file
+   * @throws IOException if an I/O error occurs during mapping
+   */
   static CustomByteBuffer map(Path path, int spliceSize) throws IOException {
+    if (SegmentMappedByteBuffer.isSupported()) {
+      return SegmentMappedByteBuffer.map(path);
+    }
     long size = Files.size(path);
     if (size > spliceSize) {
       return new SplicedMappedByteBuffer(path, spliceSize);
@@ -67,13 +94,22 @@ public interface CustomByteBuffer {
 
   long getLong(long offset);
 
+  default long peekLong() {
+    long l = getLong(position());
+    return order() == ByteOrder.LITTLE_ENDIAN ? l : Long.reverseBytes(l);
+  }
+
+  default boolean load(long offset, long length) {
+    return false;
+  }
+
   void close() throws IOException;
 
   class ByteBufferWrapper implements CustomByteBuffer {
-    private final MappedByteBuffer delegate;
+    private final ByteBuffer delegate;
     private final boolean nativeOrder;
 
-    public ByteBufferWrapper(MappedByteBuffer delegate) {
+    public ByteBufferWrapper(ByteBuffer delegate) {
       this.delegate = delegate;
       this.nativeOrder = delegate.order() == ByteOrder.nativeOrder();
       delegate.order(ByteOrder.nativeOrder());
@@ -185,6 +221,12 @@ public interface CustomByteBuffer {
       return delegate.getLong((int) offset);
     }
 
+    @Override
+    public long peekLong() {
+      long l = delegate.getLong(delegate.position());
+      return delegate.order() == ByteOrder.LITTLE_ENDIAN ? l : Long.reverseBytes(l);
+    }
+
     @Override
     public void close() throws IOException {
       // MappedByteBuffers are unmapped by GC
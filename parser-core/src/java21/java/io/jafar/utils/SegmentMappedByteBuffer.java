@@ -0,0 +1,499 @@
+package io.jafar.utils;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Cleaner;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link CustomByteBuffer} backed by a single memory-mapped {@code MemorySegment}.
+ *
+ * <p>A segment has 64-bit offsets, so files over 2 GB are mapped at once and reads need no splice
+ * bookkeeping. The mapping belongs to a shared {@code Arena}: {@link #close()} of the buffer
+ * returned by {@link #map(Path)} unmaps the file right away, and a cleaner unmaps it once neither
+ * that buffer nor any of its slices is reachable. Slices share the mapping and must not be used
+ * after the mapping is closed.
+ *
+ * <p>The Foreign Memory API is a preview API in JDK 21 and final from JDK 22, so it is bound
+ * through method handles instead of being linked at compile time. The handles are constants, which
+ * the JIT inlines into plain memory accesses. When binding fails, {@link #isSupported()} returns
+ * {@code false} and {@link CustomByteBuffer#map(Path, int)} maps files as before.
+ */
+final class SegmentMappedByteBuffer implements CustomByteBuffer {
+  private static final Cleaner CLEANER = Cleaner.create();
+  private static final boolean BIG_ENDIAN_NATIVE = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+  private static final boolean SUPPORTED;
+  private static final MethodHandle OPEN_ARENA; // () -> Arena
+  private static final MethodHandle CLOSE_ARENA; // (Arena) -> void
+  private static final MethodHandle MAP; // (FileChannel, MapMode, long, long, Arena) -> MemorySegment
+  private static final MethodHandle AS_SLICE; // (MemorySegment, long, long) -> MemorySegment
+  private static final MethodHandle COPY; // (MemorySegment, long, byte[], int, int) -> void
+  private static final MethodHandle LOAD; // (MemorySegment) -> void
+  private static final MethodHandle GET_BYTE;
+  private static final MethodHandle GET_SHORT;
+  private static final MethodHandle GET_INT;
+  private static final MethodHandle GET_LONG;
+  private static final MethodHandle GET_FLOAT;
+  private static final MethodHandle GET_DOUBLE;
+
+  static {
+    MethodHandle openArena = null;
+    MethodHandle closeArena = null;
+    MethodHandle map = null;
+    MethodHandle asSlice = null;
+    MethodHandle copy = null;
+    MethodHandle load = null;
+    MethodHandle getByte = null;
+    MethodHandle getShort = null;
+    MethodHandle getInt = null;
+    MethodHandle getLong = null;
+    MethodHandle getFloat = null;
+    MethodHandle getDouble = null;
+    boolean supported = false;
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      Class<?> arena = Class.forName("java.lang.foreign.Arena");
+      Class<?> segment = Class.forName("java.lang.foreign.MemorySegment");
+      Class<?> valueLayout = Class.forName("java.lang.foreign.ValueLayout");
+      Class<?> ofByte = Class.forName("java.lang.foreign.ValueLayout$OfByte");
+
+      openArena =
+          lookup
+              .findStatic(arena, "ofShared", MethodType.methodType(arena))
+              .asType(MethodType.methodType(Object.class));
+      closeArena =
+          lookup
+              .findVirtual(arena, "close", MethodType.methodType(void.class))
+              .asType(MethodType.methodType(void.class, Object.class));
+      map =
+          lookup
+              .findVirtual(
+                  FileChannel.class,
+                  "map",
+                  MethodType.methodType(
+                      segment, FileChannel.MapMode.class, long.class, long.class, arena))
+              .asType(
+                  MethodType.methodType(
+                      Object.class,
+                      FileChannel.class,
+                      FileChannel.MapMode.class,
+                      long.class,
+                      long.class,
+                      Object.class));
+      asSlice =
+          lookup
+              .findVirtual(
+                  segment, "asSlice", MethodType.methodType(segment, long.class, long.class))
+              .asType(MethodType.methodType(Object.class, Object.class, long.class, long.class));
+      copy =
+          MethodHandles.insertArguments(
+                  lookup.findStatic(
+                      segment,
+                      "copy",
+                      MethodType.methodType(
+                          void.class,
+                          segment,
+                          valueLayout,
+                          long.class,
+                          Object.class,
+                          int.class,
+                          int.class)),
+                  1,
+                  valueLayout.getField("JAVA_BYTE").get(null))
+              .asType(
+                  MethodType.methodType(
+                      void.class, Object.class, long.class, byte[].class, int.class, int.class));
+      load =
+          lookup
+              .findVirtual(segment, "load", MethodType.methodType(void.class))
+              .asType(MethodType.methodType(void.class, Object.class));
+      // unaligned layouts in native byte order, as the mapped buffers of CustomByteBuffer#map
+      getByte = getter(lookup, segment, valueLayout, "JAVA_BYTE", ofByte, byte.class);
+      getShort =
+          getter(
+              lookup,
+              segment,
+              valueLayout,
+              "JAVA_SHORT_UNALIGNED",
+              Class.forName("java.lang.foreign.ValueLayout$OfShort"),
+              short.class);
+      getInt =
+          getter(
+              lookup,
+              segment,
+              valueLayout,
+              "JAVA_INT_UNALIGNED",
+              Class.forName("java.lang.foreign.ValueLayout$OfInt"),
+              int.class);
+      getLong =
+          getter(
+              lookup,
+              segment,
+              valueLayout,
+              "JAVA_LONG_UNALIGNED",
+              Class.forName("java.lang.foreign.ValueLayout$OfLong"),
+              long.class);
+      getFloat =
+          getter(
+              lookup,
+              segment,
+              valueLayout,
+              "JAVA_FLOAT_UNALIGNED",
+              Class.forName("java.lang.foreign.ValueLayout$OfFloat"),
+              float.class);
+      getDouble =
+          getter(
+              lookup,
+              segment,
+              valueLayout,
+              "JAVA_DOUBLE_UNALIGNED",
+              Class.forName("java.lang.foreign.ValueLayout$OfDouble"),
+              double.class);
+      supported = true;
+    } catch (Throwable ignored) {
+      // fall back to MappedByteBuffer based mappings
+    }
+    SUPPORTED = supported;
+    OPEN_ARENA = openArena;
+    CLOSE_ARENA = closeArena;
+    MAP = map;
+    AS_SLICE = asSlice;
+    COPY = copy;
+    LOAD = load;
+    GET_BYTE = getByte;
+    GET_SHORT = getShort;
+    GET_INT = getInt;
+    GET_LONG = getLong;
+    GET_FLOAT = getFloat;
+    GET_DOUBLE = getDouble;
+  }
+
+  /** Binds {@code MemorySegment.get(layout, offset)} to a {@code (Object, long)} handle. */
+  private static MethodHandle getter(
+      MethodHandles.Lookup lookup,
+      Class<?> segment,
+      Class<?> valueLayout,
+      String layoutName,
+      Class<?> layoutType,
+      Class<?> valueType)
+      throws ReflectiveOperationException {
+    MethodHandle get =
+        lookup.findVirtual(
+            segment, "get", MethodType.methodType(valueType, layoutType, long.class));
+    return MethodHandles.insertArguments(get, 1, valueLayout.getField(layoutName).get(null))
+        .asType(MethodType.methodType(valueType, Object.class, long.class));
+  }
+
+  /**
+   * Checks whether files can be mapped to segments in this runtime.
+   *
+   * @return {@code true} if the Foreign Memory API is available
+   */
+  static boolean isSupported() {
+    return SUPPORTED;
+  }
+
+  /**
+   * Maps a whole file to a single segment.
+   *
+   * @param path the file to map
+   * @return the buffer owning the mapping
+   * @throws IOException if the file cannot be mapped
+   */
+  static SegmentMappedByteBuffer map(Path path) throws IOException {
+    Object arena = invoke(OPEN_ARENA);
+    Mapping mapping = new Mapping(arena);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      Object segment =
+          (Object) MAP.invokeExact(channel, FileChannel.MapMode.READ_ONLY, 0L, channel.size(), arena);
+      return new SegmentMappedByteBuffer(mapping, segment, channel.size(), true);
+    } catch (IOException | RuntimeException | Error e) {
+      mapping.cleanable.clean();
+      throw e;
+    } catch (Throwable t) {
+      mapping.cleanable.clean();
+      throw new IOException(t);
+    }
+  }
+
+  private static Object invoke(MethodHandle factory) throws IOException {
+    try {
+      return (Object) factory.invokeExact();
+    } catch (Throwable t) {
+      throw new IOException(t);
+    }
+  }
+
+  /**
+   * The arena of a mapping, shared by a buffer and its slices so that the cleaner unmaps the file
+   * only once none of them is reachable.
+   */
+  private static final class Mapping {
+    final Cleaner.Cleanable cleanable;
+
+    Mapping(Object arena) {
+      // the action must not reference the mapping, or it would never become unreachable
+      this.cleanable = CLEANER.register(this, new Unmap(arena));
+    }
+  }
+
+  private static final class Unmap implements Runnable {
+    private final Object arena;
+
+    Unmap(Object arena) {
+      this.arena = arena;
+    }
+
+    @Override
+    public void run() {
+      try {
+        CLOSE_ARENA.invokeExact(arena);
+      } catch (Throwable ignored) {
+        // already closed, or still accessed by another thread; nothing left to release here
+      }
+    }
+  }
+
+  private final Mapping mapping;
+  private final Object segment;
+  private final long limit;
+  private final boolean owner;
+
+  private long position;
+  private long mark = -1;
+  private ByteOrder order = ByteOrder.nativeOrder();
+  private boolean swap;
+
+  private SegmentMappedByteBuffer(Mapping mapping, Object segment, long limit, boolean owner) {
+    this.mapping = mapping;
+    this.segment = segment;
+    this.limit = limit;
+    this.owner = owner;
+  }
+
+  private static RuntimeException rethrow(Throwable t) {
+    if (t instanceof RuntimeException) {
+      // IndexOutOfBoundsException past the end, IllegalStateException once unmapped
+      return (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    return new IllegalStateException(t);
+  }
+
+  private long advance(int n) {
+    long p = position;
+    if (limit - p < n) {
+      throw new BufferUnderflowException();
+    }
+    position = p + n;
+    return p;
+  }
+
+  @Override
+  public boolean isNativeOrder() {
+    // same as a freshly mapped MappedByteBuffer, which is big-endian
+    return BIG_ENDIAN_NATIVE;
+  }
+
+  @Override
+  public CustomByteBuffer slice() {
+    return slice(position, limit - position);
+  }
+
+  @Override
+  public CustomByteBuffer slice(long pos, long len) {
+    if (pos < 0 || len < 0 || pos + len > limit) {
+      throw new BufferOverflowException();
+    }
+    try {
+      return new SegmentMappedByteBuffer(
+          mapping, (Object) AS_SLICE.invokeExact(segment, pos, len), len, false);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  public CustomByteBuffer order(ByteOrder order) {
+    this.order = order;
+    this.swap = order != ByteOrder.nativeOrder();
+    return this;
+  }
+
+  @Override
+  public ByteOrder order() {
+    return order;
+  }
+
+  @Override
+  public void position(long position) {
+    if (position < 0 || position > limit) {
+      throw new BufferOverflowException();
+    }
+    this.position = position;
+  }
+
+  @Override
+  public long position() {
+    return position;
+  }
+
+  @Override
+  public long remaining() {
+    return limit - position;
+  }
+
+  @Override
+  public void get(byte[] buffer, int offset, int length) {
+    long p = advance(length);
+    try {
+      COPY.invokeExact(segment, p, buffer, offset, length);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  public byte get() {
+    return get(advance(1));
+  }
+
+  @Override
+  public short getShort() {
+    long p = advance(2);
+    try {
+      short s = (short) GET_SHORT.invokeExact(segment, p);
+      return swap ? Short.reverseBytes(s) : s;
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  public int getInt() {
+    return getInt(advance(4));
+  }
+
+  @Override
+  public float getFloat() {
+    long p = advance(4);
+    if (swap) {
+      return Float.intBitsToFloat(getInt(p));
+    }
+    try {
+      return (float) GET_FLOAT.invokeExact(segment, p);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  public double getDouble() {
+    long p = advance(8);
+    if (swap) {
+      return Double.longBitsToDouble(getLong(p));
+    }
+    try {
+      return (double) GET_DOUBLE.invokeExact(segment, p);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  public long getLong() {
+    return getLong(advance(8));
+  }
+
+  @Override
+  public void mark() {
+    mark = position;
+  }
+
+  @Override
+  public void reset() {
+    if (mark > -1) {
+      position = mark;
+    }
+  }
+
+  @Override
+  public long limit() {
+    return limit;
+  }
+
+  @Override
+  public byte get(long offset) {
+    try {
+      return (byte) GET_BYTE.invokeExact(segment, offset);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  public int getInt(long offset) {
+    try {
+      int i = (int) GET_INT.invokeExact(segment, offset);
+      return swap ? Integer.reverseBytes(i) : i;
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  public long getLong(long offset) {
+    try {
+      long l = (long) GET_LONG.invokeExact(segment, offset);
+      return swap ? Long.reverseBytes(l) : l;
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  public long peekLong() {
+    try {
+      long l = (long) GET_LONG.invokeExact(segment, position);
+      return BIG_ENDIAN_NATIVE ? Long.reverseBytes(l) : l;
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  /** Loads the range through {@code MemorySegment.load()}, which also advises the kernel. */
+  @Override
+  public boolean load(long offset, long length) {
+    long len = Math.min(length, limit - offset);
+    if (offset < 0 || len <= 0) {
+      return true;
+    }
+    try {
+      LOAD.invokeExact((Object) AS_SLICE.invokeExact(segment, offset, len));
+      return true;
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  /**
+   * Unmaps the file if this buffer owns the mapping; closing a slice does nothing. Reads from the
+   * buffer or any of its slices fail afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    if (owner) {
+      mapping.cleanable.clean();
+    }
+  }
+}
@@ -125,6 +125,30 @@ public final class ParsingUtils {
     }
   }
 
+  /**
+   * Reads a string from the recording stream, leaving inline UTF-8 and Latin-1 content undecoded in
+   * the recording buffer.
+   *
+   * <p>Constant pool references resolve to the pooled string, which is decoded once per chunk and
+   * constant pool id. Other encodings are decoded as by {@link #readUTF8(RecordingStream, long)}.
+   *
+   * @param stream the recording stream to read from
+   * @param stringTypeId the type ID of the string constant pool, or -1 for metadata strings
+   * @return the string or a {@link io.jafar.utils.LazyString} view, or {@code null}
+   * @throws IOException if an I/O error occurs or the string encoding is invalid
+   */
+  public static CharSequence readUTF8View(RecordingStream stream, long stringTypeId)
+      throws IOException {
+    long start = stream.position();
+    byte id = stream.read();
+    if (id == 3 || id == 5) {
+      int size = (int) stream.readVarint();
+      return size == 0 ? "" : stream.readView(size, id == 5);
+    }
+    stream.position(start);
+    return readUTF8(stream, stringTypeId);
+  }
+
   /**
    * Skips over a UTF-8 encoded string in the recording stream without decoding it.
    *
@@ -0,0 +1,118 @@
+package io.jafar.parser.api;
+
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import java.util.List;
+
+/**
+ * A block of events of one type decoded into columns, one per top-level event field.
+ *
+ * <p>Column values are stored in primitive arrays wherever possible:
+ *
+ * <ul>
+ *   <li>{@link ColumnKind#LONG} - integral and boolean fields ({@code 1} for {@code true}) and
+ *       constant pool references, stored as the chunk-local constant pool id. Timestamps and
+ *       durations are normalized to nanoseconds as in the event maps.
+ *   <li>{@link ColumnKind#DOUBLE} - {@code float} and {@code double} fields
+ *   <li>{@link ColumnKind#OBJECT} - strings, inline complex values and arrays, represented as in
+ *       the event maps
+ * </ul>
+ *
+ * <p>A batch and its column arrays are reused for the next block of events of the same type. They
+ * are valid only during the {@link UntypedJafarParser.BatchHandler} call; the arrays may be longer
+ * than {@link #size()}.
+ *
+ * <pre>{@code
+ * parser.handleBatches(Set.of("jdk.ObjectAllocationSample"), (batch, ctl) -> {
+ *   long[] weight = batch.longColumn("weight");
+ *   long total = 0;
+ *   for (int i = 0; i < batch.size(); i++) {
+ *     total += weight[i];
+ *   }
+ *   totalWeight.add(total);
+ * });
+ * }</pre>
+ *
+ * @see UntypedJafarParser#handleBatches(java.util.Set, int, UntypedJafarParser.BatchHandler)
+ */
+public interface EventBatch {
+  /** Default number of events per batch. */
+  int DEFAULT_SIZE = 1024;
+
+  /** Storage of a column. */
+  enum ColumnKind {
+    /** Values stored in a {@code long[]}. */
+    LONG,
+    /** Values stored in a {@code double[]}. */
+    DOUBLE,
+    /** Values stored in an {@code Object[]}. */
+    OBJECT
+  }
+
+  /**
+   * Gets the event type of all events in the batch.
+   *
+   * @return the event type
+   */
+  MetadataClass type();
+
+  /**
+   * Gets the number of events in the batch.
+   *
+   * @return the number of valid rows of each column
+   */
+  int size();
+
+  /**
+   * Gets the names of the columns.
+   *
+   * @return the column names in field order; only the projected fields if the parser has an {@link
+   *     UntypedProjection} for the type
+   */
+  List<String> columns();
+
+  /**
+   * Gets the storage of a column.
+   *
+   * @param column the field name
+   * @return the kind, or {@code null} if the batch has no such column
+   */
+  ColumnKind kind(String column);
+
+  /**
+   * Gets a {@link ColumnKind#LONG} column.
+   *
+   * @param column the field name
+   * @return the values, or {@code null} if the batch has no such column or it is of another kind
+   */
+  long[] longColumn(String column);
+
+  /**
+   * Gets a {@link ColumnKind#DOUBLE} column.
+   *
+   * @param column the field name
+   * @return the values, or {@code null} if the batch has no such column or it is of another kind
+   */
+  double[] doubleColumn(String column);
+
+  /**
+   * Gets a {@link ColumnKind#OBJECT} column.
+   *
+   * @param column the field name
+   * @return the values, or {@code null} if the batch has no such column or it is of another kind
+   */
+  Object[] objectColumn(String column);
+
+  /**
+   * Gets the value a constant pool reference column points to.
+   *
+   * <p>References resolve only during the {@link UntypedJafarParser.BatchHandler} call, while the
+   * constant pools of the batch's chunk are available. Handlers aggregating by reference should key
+   * by the id in {@link #longColumn(String)} and resolve each distinct id once.
+   *
+   * @param column the field name
+   * @param row the row index, less than {@link #size()}
+   * @return the referenced value as in the event maps, or {@code null} if the column does not hold
+   *     constant pool references
+   */
+  ComplexType reference(String column, int row);
+}
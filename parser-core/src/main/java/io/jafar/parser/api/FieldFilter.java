@@ -0,0 +1,105 @@
+package io.jafar.parser.api;
+
+import java.util.Objects;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A condition on a top-level event field, evaluated while an untyped event is decoded.
+ *
+ * <p>Filters registered with {@link UntypedJafarParser#handle(java.util.Set, java.util.List,
+ * UntypedJafarParser.EventHandler)} are checked before the event map is built: only the filtered
+ * fields are read from the stream, all other fields are skipped. The event map is built only if
+ * every filter of the handler accepts the event.
+ *
+ * <p>The test receives the field value as it would appear in the event map (boxed primitives,
+ * {@link String}, nested {@code Map}s, {@link ComplexType} for constant pool references or {@link
+ * ArrayType}), or {@code null} if the event type has no such field.
+ *
+ * <p>Primitive fields are tested on the value read from the stream, without building the event map;
+ * filters created with {@link #ofLong(String, LongPredicate)} test integral fields without boxing
+ * them either. A filter on a constant pool field is tested once per distinct constant pool entry
+ * of a chunk and its result reused for the other events referencing that entry, so its result must
+ * depend only on the field value.
+ */
+public final class FieldFilter {
+  private final String field;
+  private final Predicate<Object> test;
+
+  /** The test of integral field values, {@code null} unless created by {@link #ofLong}. */
+  private final LongPredicate longTest;
+
+  private FieldFilter(String field, Predicate<Object> test, LongPredicate longTest) {
+    this.field = Objects.requireNonNull(field, "field");
+    this.test = Objects.requireNonNull(test, "test");
+    this.longTest = longTest;
+  }
+
+  /**
+   * Creates a filter on a top-level event field.
+   *
+   * @param field the field name, e.g. {@code state}
+   * @param test the condition on the field value
+   * @return the filter
+   */
+  public static FieldFilter of(String field, Predicate<Object> test) {
+    return new FieldFilter(field, test, null);
+  }
+
+  /**
+   * Creates a filter on an integral ({@code byte}, {@code short}, {@code int} or {@code long})
+   * top-level event field. Values of other fields, and absent fields, do not match.
+   *
+   * @param field the field name, e.g. {@code startTime}
+   * @param test the condition on the field value; timestamps and durations are in nanoseconds, as
+   *     in the event map
+   * @return the filter
+   */
+  public static FieldFilter ofLong(String field, LongPredicate test) {
+    Objects.requireNonNull(test, "test");
+    return new FieldFilter(
+        field,
+        v ->
+            (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte)
+                && test.test(((Number) v).longValue()),
+        test);
+  }
+
+  /**
+   * Gets the name of the filtered field.
+   *
+   * @return the field name
+   */
+  public String field() {
+    return field;
+  }
+
+  /**
+   * Tests a field value.
+   *
+   * @param value the field value, or {@code null} if the field is absent
+   * @return {@literal true} if the value matches
+   */
+  public boolean test(Object value) {
+    return test.test(value);
+  }
+
+  /**
+   * Whether integral field values can be tested by {@link #testLong(long)} without boxing them.
+   *
+   * @return {@literal true} if the filter was created by {@link #ofLong(String, LongPredicate)}
+   */
+  public boolean isLongFilter() {
+    return longTest != null;
+  }
+
+  /**
+   * Tests the value of an integral field.
+   *
+   * @param value the field value
+   * @return {@literal true} if the value matches
+   */
+  public boolean testLong(long value) {
+    return longTest != null ? longTest.test(value) : test.test(value);
+  }
+}
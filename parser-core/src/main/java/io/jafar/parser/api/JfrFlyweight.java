@@ -0,0 +1,24 @@
+package io.jafar.parser.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Requests a flyweight handler for a {@link JfrType} event interface generated at build time.
+ *
+ * <p>A flyweight handler does not copy the event fields when an event is read. It remembers where
+ * the event starts in the recording, and each getter decodes its field from the recording on
+ * demand, locating it by skipping the fields before it once per event. Event callbacks which only
+ * read primitive fields allocate nothing; arrays and strings are allocated only when their getter
+ * is called.
+ *
+ * <p>The handler is valid only during the callback receiving it, and each getter call decodes the
+ * field again. Handlers must not be stored or used from another thread; copy the values needed
+ * later instead. Interfaces used as constant pool types should not be flyweights, as their values
+ * are cached beyond a single event.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface JfrFlyweight {}
@@ -66,6 +66,21 @@ public abstract class ParserContext {
     this.constantPools = constantPools;
   }
 
+  /**
+   * Constructs a worker context for intra-chunk parallel decoding.
+   *
+   * <p>The new context shares the metadata lookup and constant pools of {@code chunkContext} and
+   * starts with a snapshot of its stored values, but owns its reusable buffers and string parsers
+   * so that it can be used concurrently with the chunk context.
+   *
+   * @param chunkContext the context of the chunk being decoded
+   */
+  protected ParserContext(ParserContext chunkContext) {
+    this(chunkContext.chunkIndex, chunkContext.metadataLookup, chunkContext.constantPools);
+    this.stringTypeId = chunkContext.stringTypeId;
+    this.storage.putAll(chunkContext.storage);
+  }
+
   /**
    * Removes a value stored under the class name key.
    *
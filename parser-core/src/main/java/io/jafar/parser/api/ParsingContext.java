@@ -1,7 +1,11 @@
 package io.jafar.parser.api;
 
 import io.jafar.parser.impl.ParsingContextImpl;
+import io.jafar.parser.internal_api.ChunkParserOptions;
+import io.jafar.parser.internal_api.GeneratedClassCache;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Cross-recording context. Implementation specific, but allows sharing computationally intensive
@@ -28,6 +32,15 @@ public interface ParsingContext {
     return new ParsingContextImpl();
   }
 
+  /**
+   * Creates a builder for a customized ParsingContext.
+   *
+   * @return a new builder
+   */
+  static Builder builder() {
+    return new Builder();
+  }
+
   /**
    * Creates a new instance of a {@link TypedJafarParser} for the given path.
    *
@@ -57,7 +70,7 @@ public interface ParsingContext {
    *       (filtering, sampling)
    *   <li>{@link UntypedStrategy#FULL_ITERATION} - Optimized for iterating all fields (bulk export,
    *       conversion)
-   *   <li>{@link UntypedStrategy#AUTO} - Auto-detect access pattern (future feature)
+   *   <li>{@link UntypedStrategy#AUTO} - Auto-detect access pattern per event type
    * </ul>
    *
    * @param path the path to the recording
@@ -66,6 +79,21 @@ public interface ParsingContext {
    */
   UntypedJafarParser newUntypedParser(Path path, UntypedStrategy strategy);
 
+  /**
+   * Creates a new instance of an {@link UntypedJafarParser} for the given path which decodes only
+   * the projected fields of the projected event types.
+   *
+   * <p>Fields outside of the projection are skipped in the stream and are absent from the event
+   * maps. Field filters see such fields as {@code null}.
+   *
+   * @param path the path to the recording
+   * @param strategy the optimization strategy
+   * @param projection the fields to decode per event type, or {@code null} to decode all
+   * @return a new {@link UntypedJafarParser} instance
+   */
+  UntypedJafarParser newUntypedParser(
+      Path path, UntypedStrategy strategy, UntypedProjection projection);
+
   /**
    * Returns the uptime of the parsing context in nanoseconds.
    *
@@ -74,4 +102,271 @@ public interface ParsingContext {
    * @return the uptime in nanoseconds
    */
   long uptime();
+
+  /** Builder for a {@link ParsingContext} with non-default parsing options. */
+  final class Builder {
+    private final ChunkParserOptions.Builder options = ChunkParserOptions.builder();
+
+    Builder() {}
+
+    /**
+     * Sets the number of threads decoding the events of a single chunk.
+     *
+     * <p>When greater than {@code 1}, each large chunk is split into ranges at event boundaries
+     * which are decoded concurrently. Handlers must then be thread-safe and must not rely on the
+     * event order within a chunk. Defaults to {@code 1} (sequential decoding within a chunk).
+     *
+     * @param parallelism the number of decoding threads per chunk, at least {@code 1}
+     * @return this builder
+     * @throws IllegalArgumentException if {@code parallelism} is less than {@code 1}
+     */
+    public Builder intraChunkParallelism(int parallelism) {
+      options.intraChunkParallelism(parallelism);
+      return this;
+    }
+
+    /**
+     * Sets the minimum chunk payload size for a chunk to be decoded by several threads.
+     *
+     * @param bytes the minimum size in bytes, non-negative
+     * @return this builder
+     * @throws IllegalArgumentException if {@code bytes} is negative
+     */
+    public Builder intraChunkMinSize(long bytes) {
+      options.intraChunkMinSize(bytes);
+      return this;
+    }
+
+    /**
+     * Sets an executor shared by all parsers of the context for decoding chunks, including the
+     * {@linkplain #intraChunkParallelism(int) intra-chunk workers}.
+     *
+     * <p>The executor is owned by the caller and is not shut down by the parsers. By default each
+     * parser creates its own thread pool for chunks, and intra-chunk workers use a pool shared by
+     * all parsers.
+     *
+     * @param executor the shared executor, or {@code null} for per-parser pools
+     * @return this builder
+     */
+    public Builder executor(ExecutorService executor) {
+      options.executor(executor);
+      return this;
+    }
+
+    /**
+     * Requests that each chunk, and each intra-chunk worker, run on its own virtual thread when no
+     * shared {@linkplain #executor(ExecutorService) executor} is set. Ignored on JVMs without
+     * virtual threads.
+     *
+     * @param virtualThreads {@code true} to use virtual threads
+     * @return this builder
+     */
+    public Builder virtualThreads(boolean virtualThreads) {
+      options.virtualThreads(virtualThreads);
+      return this;
+    }
+
+    /**
+     * Limits the number of chunks each parser keeps in flight (being decoded or queued).
+     *
+     * @param maxChunksInFlight the limit, or {@code 0} for unbounded (the default)
+     * @return this builder
+     * @throws IllegalArgumentException if {@code maxChunksInFlight} is negative
+     */
+    public Builder maxChunksInFlight(int maxChunksInFlight) {
+      options.maxChunksInFlight(maxChunksInFlight);
+      return this;
+    }
+
+    /**
+     * Requests a {@code <recording>.chunks} sidecar mapping chunks to compressed offsets when
+     * parsing gzip, zstd or LZ4 compressed recordings.
+     *
+     * @param compressedChunkIndex {@code true} to write the sidecar
+     * @return this builder
+     */
+    public Builder compressedChunkIndex(boolean compressedChunkIndex) {
+      options.compressedChunkIndex(compressedChunkIndex);
+      return this;
+    }
+
+    /**
+     * Uses and maintains a {@code <recording>.jfridx} event index letting parsers for a subset of
+     * event types skip chunks and event ranges without matching events.
+     *
+     * @param eventIndex {@code true} to use the event index
+     * @return this builder
+     */
+    public Builder eventIndex(boolean eventIndex) {
+      options.eventIndex(eventIndex);
+      return this;
+    }
+
+    /**
+     * Makes untyped parsers pass inline event strings as {@link io.jafar.utils.LazyString}
+     * character sequences left undecoded in the recording buffer.
+     *
+     * <p>String values in event maps are then {@link CharSequence}s which are only valid while
+     * their chunk is parsed; call {@code toString()} to keep them. Saves decoding and allocating
+     * strings which are never read.
+     *
+     * @param lazyStrings {@code true} to pass string views
+     * @return this builder
+     */
+    public Builder lazyStrings(boolean lazyStrings) {
+      options.lazyStrings(lazyStrings);
+      return this;
+    }
+
+    /**
+     * Persists the deserializer classes generated for typed parsers under {@code ~/.jafar/classes},
+     * so that later runs parsing recordings with the same metadata (for example from the same JDK
+     * build) load them instead of generating them again.
+     *
+     * @param classCache {@code true} to use the persistent class cache
+     * @return this builder
+     */
+    public Builder classCache(boolean classCache) {
+      options.classCacheDirectory(classCache ? GeneratedClassCache.defaultDirectory() : null);
+      return this;
+    }
+
+    /**
+     * Persists the deserializer classes generated for typed parsers in the given directory.
+     *
+     * @param directory the cache directory, or {@code null} to disable the cache
+     * @return this builder
+     * @see #classCache(boolean)
+     */
+    public Builder classCache(Path directory) {
+      options.classCacheDirectory(directory);
+      return this;
+    }
+
+    /**
+     * Decodes the constant pool entries of each chunk in bulk, in parallel with the {@linkplain
+     * #intraChunkParallelism(int) intra-chunk workers}, right after the pools are read. Lookups of
+     * stack traces, methods and symbols then hit arrays indexed by entry id.
+     *
+     * @param eagerConstantPools {@code true} to materialize constant pools eagerly
+     * @return this builder
+     */
+    public Builder eagerConstantPools(boolean eagerConstantPools) {
+      options.eagerConstantPools(eagerConstantPools);
+      return this;
+    }
+
+    /**
+     * Shares identical method, class, symbol and stack trace constant pool entries between the
+     * chunks of a recording, so that each of them is decoded once per recording instead of once
+     * per chunk.
+     *
+     * @param internConstantPools {@code true} to intern constant pool entries across chunks
+     * @return this builder
+     */
+    public Builder internConstantPools(boolean internConstantPools) {
+      options.internConstantPools(internConstantPools);
+      return this;
+    }
+
+    /**
+     * Reads the metadata and constant pools of upcoming chunks into memory on a background thread
+     * while earlier chunks are decoded. Helps when a recording file is parsed from a cold page
+     * cache; has no effect on compressed recordings.
+     *
+     * @param readAhead {@code true} to read chunk metadata and constant pools ahead
+     * @return this builder
+     */
+    public Builder readAhead(boolean readAhead) {
+      options.readAhead(readAhead);
+      return this;
+    }
+
+    /**
+     * Reads the event pages of upcoming chunks into memory ahead of the decoders as well. Combine
+     * with {@link #maxChunksInFlight(int)} for recordings larger than the available memory.
+     *
+     * @param prefetchEvents {@code true} to read event pages ahead
+     * @return this builder
+     */
+    public Builder prefetchEvents(boolean prefetchEvents) {
+      options.prefetchEvents(prefetchEvents);
+      return this;
+    }
+
+    /**
+     * Unmaps recording files when their parse completes instead of leaving them to the garbage
+     * collector. Values resolved lazily from a recording, such as constant pool entries, can then
+     * no longer be read once {@code run()} returns.
+     *
+     * @param unmapOnClose {@code true} to unmap recordings when their parse completes
+     * @return this builder
+     */
+    public Builder unmapOnClose(boolean unmapOnClose) {
+      options.unmapOnClose(unmapOnClose);
+      return this;
+    }
+
+    /**
+     * Passes only the events starting in the given time window to the handlers of typed and
+     * untyped parsers. Chunks outside of the window are skipped using their header, and other
+     * events outside of it are skipped before they are decoded.
+     *
+     * @param start the inclusive start, or {@code null} for no lower bound
+     * @param end the exclusive end, or {@code null} for no upper bound
+     * @return this builder
+     * @throws IllegalArgumentException if {@code end} is before {@code start}
+     */
+    public Builder timeWindow(Instant start, Instant end) {
+      options.timeWindow(
+          start != null ? epochNanos(start) : Long.MIN_VALUE,
+          end != null ? epochNanos(end) : Long.MAX_VALUE);
+      return this;
+    }
+
+    private static long epochNanos(Instant instant) {
+      try {
+        return Math.addExact(
+            Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+      } catch (ArithmeticException e) {
+        return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+      }
+    }
+
+    /**
+     * Passes only a deterministic sample of the events to the handlers. Unselected events are
+     * skipped before they are decoded.
+     *
+     * @param rate the fraction of events passed, between {@code 0} and {@code 1}
+     * @return this builder
+     * @throws IllegalArgumentException if {@code rate} is not between {@code 0} and {@code 1}
+     */
+    public Builder sampleRate(double rate) {
+      options.sampleRate(rate);
+      return this;
+    }
+
+    /**
+     * Passes only a deterministic sample of the events of the given type to the handlers, for
+     * example {@code 0.01} for one percent of {@code jdk.ObjectAllocationSample}.
+     *
+     * @param eventType the event type name
+     * @param rate the fraction of events passed, between {@code 0} and {@code 1}
+     * @return this builder
+     * @throws IllegalArgumentException if {@code rate} is not between {@code 0} and {@code 1}
+     */
+    public Builder sampleRate(String eventType, double rate) {
+      options.sampleRate(eventType, rate);
+      return this;
+    }
+
+    /**
+     * Builds the parsing context.
+     *
+     * @return a new ParsingContext
+     */
+    public ParsingContext build() {
+      return new ParsingContextImpl(options.build());
+    }
+  }
 }
@@ -5,7 +5,12 @@ import io.jafar.parser.impl.UntypedJafarParserImpl;
 import io.jafar.parser.internal_api.metadata.MetadataClass;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Untyped JFR parser with optimization strategies for different access patterns.
@@ -114,6 +119,22 @@ public interface UntypedJafarParser extends JafarParser, AutoCloseable {
     void handle(MetadataClass type, Map<String, Object> value, Control ctl);
   }
 
+  /**
+   * Functional interface for handling blocks of untyped JFR events decoded into columns.
+   *
+   * @see EventBatch
+   */
+  @FunctionalInterface
+  interface BatchHandler {
+    /**
+     * Handles a batch of events of one type.
+     *
+     * @param batch the events; only valid during this call
+     * @param ctl parser control object for flow control and metadata access
+     */
+    void handle(EventBatch batch, Control ctl);
+  }
+
   /**
    * Start a new parsing session.
    *
@@ -170,11 +191,27 @@ public interface UntypedJafarParser extends JafarParser, AutoCloseable {
    * @throws IllegalArgumentException if {@code context} is not a supported implementation
    */
   static UntypedJafarParser open(Path path, ParsingContext context, UntypedStrategy strategy) {
+    return open(path, context, strategy, null);
+  }
+
+  /**
+   * Start a new parsing session with a shared context, optimization strategy and projection.
+   *
+   * @param path the recording path
+   * @param context the shared context. When recordings are opened with the same context,
+   *     computationally expensive resources may be reused across sessions
+   * @param strategy the optimization strategy for event deserialization
+   * @param projection the fields to decode per event type, or {@code null} to decode all
+   * @return the parser instance
+   * @throws IllegalArgumentException if {@code context} is not a supported implementation
+   */
+  static UntypedJafarParser open(
+      Path path, ParsingContext context, UntypedStrategy strategy, UntypedProjection projection) {
     if (!(context instanceof ParsingContextImpl)) {
       throw new IllegalArgumentException(
           "parsingContext must be an instance of ParsingContextImpl");
     }
-    return new UntypedJafarParserImpl(path, (ParsingContextImpl) context, strategy);
+    return new UntypedJafarParserImpl(path, (ParsingContextImpl) context, strategy, projection);
   }
 
   /**
@@ -189,4 +226,98 @@ public interface UntypedJafarParser extends JafarParser, AutoCloseable {
    * @return a registration that can be destroyed to stop receiving events
    */
   HandlerRegistration<?> handle(EventHandler handler);
+
+  /**
+   * Registers a handler receiving only events of the given types.
+   *
+   * <p>Events of other types are not decoded for this handler. When no handler needs all event
+   * types, chunks and event ranges without matching events can be skipped using the recording's
+   * event index (see {@link ParsingContext.Builder#eventIndex(boolean)}).
+   *
+   * @param eventTypes names of the event types to receive, e.g. {@code jdk.ExecutionSample}
+   * @param handler consumer of event maps
+   * @return a registration that can be destroyed to stop receiving events
+   */
+  default HandlerRegistration<?> handle(Set<String> eventTypes, EventHandler handler) {
+    Set<String> types = new HashSet<>(eventTypes);
+    return handle(
+        (type, value, ctl) -> {
+          if (types.contains(type.getName())) {
+            handler.handle(type, value, ctl);
+          }
+        });
+  }
+
+  /**
+   * Registers a handler receiving only the events of the given types matching all field filters.
+   *
+   * <p>The filters are pushed down into event decoding: for each event only the filtered fields are
+   * read and the event map is built only if all filters match. Selective filters therefore avoid
+   * most of the decoding and allocation cost of the events they reject.
+   *
+   * @param eventTypes names of the event types to receive
+   * @param filters conditions on top-level event fields, all of which must match
+   * @param handler consumer of event maps
+   * @return a registration that can be destroyed to stop receiving events
+   */
+  default HandlerRegistration<?> handle(
+      Set<String> eventTypes, List<FieldFilter> filters, EventHandler handler) {
+    List<FieldFilter> checks = new ArrayList<>(filters);
+    return handle(
+        eventTypes,
+        (type, value, ctl) -> {
+          for (FieldFilter filter : checks) {
+            if (!filter.test(value.get(filter.field()))) {
+              return;
+            }
+          }
+          handler.handle(type, value, ctl);
+        });
+  }
+
+  /**
+   * Registers a handler receiving events of the given types in {@linkplain EventBatch column
+   * batches} of at most {@link EventBatch#DEFAULT_SIZE} events.
+   *
+   * @param eventTypes names of the event types to receive
+   * @param handler consumer of event batches
+   * @return a registration that can be destroyed to stop receiving events
+   */
+  default HandlerRegistration<?> handleBatches(Set<String> eventTypes, BatchHandler handler) {
+    return handleBatches(eventTypes, EventBatch.DEFAULT_SIZE, handler);
+  }
+
+  /**
+   * Registers a handler receiving events of the given types in {@linkplain EventBatch column
+   * batches}.
+   *
+   * <p>Events are decoded straight into primitive column arrays which are reused from batch to
+   * batch, without building an event map per event. A batch is passed to the handler when it is
+   * full and at the end of each chunk, so constant pool references can be resolved through {@link
+   * EventBatch#reference(String, int)} during the call. If several handlers receive the same type,
+   * they share its batches, sized by the smallest requested batch size.
+   *
+   * <p>The columns are the top-level event fields, limited to the projected fields if the parser
+   * has an {@link UntypedProjection}. Field filters and the {@link UntypedStrategy} apply to event
+   * maps only.
+   *
+   * @param eventTypes names of the event types to receive
+   * @param batchSize the maximum number of events per batch
+   * @param handler consumer of event batches
+   * @return a registration that can be destroyed to stop receiving events
+   * @throws IllegalArgumentException if {@code batchSize} is not positive
+   */
+  HandlerRegistration<?> handleBatches(Set<String> eventTypes, int batchSize, BatchHandler handler);
+
+  /**
+   * Gets the per event type decoding choices made by {@link UntypedStrategy#AUTO}.
+   *
+   * <p>The statistics accumulate over all runs of this parser.
+   *
+   * @return the statistics by event type name; empty unless the parser uses {@link
+   *     UntypedStrategy#AUTO}
+   */
+  default Map<String, UntypedTypeStats> strategyStats() {
+    return Collections.emptyMap();
+  }
 }
@@ -0,0 +1,140 @@
+package io.jafar.parser.api;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The fields of untyped events which should be decoded.
+ *
+ * <p>A projection lists field paths per event type. Events of a projected type are decoded into
+ * maps holding only the listed fields; all other fields are skipped over in the stream without
+ * being decoded, and nothing after the last listed field is read at all. Events of types not
+ * mentioned in the projection are decoded in full.
+ *
+ * <p>A path is a dot-separated chain of field names, e.g. {@code stackTrace.frames}. Its first
+ * segment selects the top-level event field. Constant pool references are resolved lazily, so the
+ * remaining segments cost nothing extra to decode and the referenced value is available as a whole.
+ *
+ * <pre>{@code
+ * UntypedProjection projection =
+ *     UntypedProjection.builder()
+ *         .include("jdk.ExecutionSample", "startTime", "stackTrace")
+ *         .build();
+ * try (UntypedJafarParser parser =
+ *     ctx.newUntypedParser(file, UntypedStrategy.SPARSE_ACCESS, projection)) {
+ *   ...
+ * }
+ * }</pre>
+ */
+public final class UntypedProjection {
+  private final Map<String, Set<String>> fields;
+
+  private UntypedProjection(Map<String, Set<String>> fields) {
+    this.fields = fields;
+  }
+
+  /**
+   * Creates a builder for a projection.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets the names of the top-level fields decoded for an event type.
+   *
+   * @param eventType the event type name
+   * @return the field names in the order they were added, or {@code null} if all fields of the type
+   *     are decoded
+   */
+  public Set<String> fields(String eventType) {
+    return fields.get(eventType);
+  }
+
+  /**
+   * Whether a top-level field of an event type is decoded.
+   *
+   * @param eventType the event type name
+   * @param field the field name
+   * @return {@literal true} if the field is decoded
+   */
+  public boolean includes(String eventType, String field) {
+    Set<String> included = fields.get(eventType);
+    return included == null || included.contains(field);
+  }
+
+  /**
+   * Gets the projected event types.
+   *
+   * @return the names of the event types with a restricted field set
+   */
+  public Set<String> eventTypes() {
+    return fields.keySet();
+  }
+
+  @Override
+  public String toString() {
+    return "UntypedProjection" + fields;
+  }
+
+  /** Builder for an {@link UntypedProjection}. */
+  public static final class Builder {
+    private final Map<String, Set<String>> fields = new HashMap<>();
+
+    private Builder() {}
+
+    /**
+     * Adds field paths to decode for an event type.
+     *
+     * @param eventType the event type name, e.g. {@code jdk.ExecutionSample}
+     * @param paths the field paths, e.g. {@code startTime}, {@code stackTrace.frames}
+     * @return this builder
+     * @throws IllegalArgumentException if a path is empty
+     */
+    public Builder include(String eventType, String... paths) {
+      return include(eventType, Arrays.asList(paths));
+    }
+
+    /**
+     * Adds field paths to decode for an event type.
+     *
+     * @param eventType the event type name, e.g. {@code jdk.ExecutionSample}
+     * @param paths the field paths, e.g. {@code startTime}, {@code stackTrace.frames}
+     * @return this builder
+     * @throws IllegalArgumentException if a path is empty
+     */
+    public Builder include(String eventType, Collection<String> paths) {
+      Objects.requireNonNull(eventType, "eventType");
+      Set<String> included = fields.computeIfAbsent(eventType, k -> new LinkedHashSet<>());
+      for (String path : paths) {
+        int dot = path.indexOf('.');
+        String field = dot < 0 ? path : path.substring(0, dot);
+        if (field.isEmpty()) {
+          throw new IllegalArgumentException("Invalid field path: '" + path + "'");
+        }
+        included.add(field);
+      }
+      return this;
+    }
+
+    /**
+     * Builds the projection.
+     *
+     * @return the projection
+     */
+    public UntypedProjection build() {
+      Map<String, Set<String>> copy = new HashMap<>();
+      fields.forEach(
+          (type, names) -> copy.put(type, Collections.unmodifiableSet(new LinkedHashSet<>(names))));
+      return new UntypedProjection(Collections.unmodifiableMap(copy));
+    }
+  }
+}
@@ -10,7 +10,7 @@ package io.jafar.parser.api;
  *   <li>{@link #SPARSE_ACCESS} - Optimized for accessing only a few fields per event (filtering,
  *       sampling)
  *   <li>{@link #FULL_ITERATION} - Optimized for iterating all fields (bulk export, conversion)
- *   <li>{@link #AUTO} - Auto-detect access pattern (future feature)
+ *   <li>{@link #AUTO} - Auto-detect access pattern per event type
  * </ul>
  *
  * <h2>How to Choose</h2>
@@ -106,10 +106,14 @@ public enum UntypedStrategy {
   /**
    * Auto-detect access pattern based on runtime behavior.
    *
-   * <p><b>Current behavior:</b> Falls back to {@link #SPARSE_ACCESS}.
+   * <p>Each event type is first decoded lazily while the number of distinct fields the handlers
+   * read, and whether they iterate the maps, is measured. After a warm-up window of events the type
+   * switches to {@link #FULL_ITERATION} if most events were iterated or had most of their fields
+   * read, and to {@link #SPARSE_ACCESS} otherwise.
    *
-   * <p><b>Future enhancement:</b> Will adaptively switch between strategies based on observed field
-   * access patterns after warm-up period.
+   * <p><b>Best for:</b> Mixed workloads, where different event types are accessed differently
+   *
+   * <p>The per-type decisions are available from {@link UntypedJafarParser#strategyStats()}.
    */
   AUTO
 }
@@ -0,0 +1,128 @@
+package io.jafar.parser.api;
+
+/**
+ * Field access statistics and the resulting deserialization choice for one event type under {@link
+ * UntypedStrategy#AUTO}.
+ *
+ * <p>While a type is sampled, its events are decoded lazily and the handlers' field accesses are
+ * measured. Once the warm-up window is full, the type is switched to eager decoding ({@link
+ * UntypedStrategy#FULL_ITERATION}) if handlers iterate the event maps or read most of their fields,
+ * and stays with lazy decoding ({@link UntypedStrategy#SPARSE_ACCESS}) otherwise.
+ *
+ * @see UntypedJafarParser#strategyStats()
+ */
+public final class UntypedTypeStats {
+  private final String eventType;
+  private final UntypedStrategy decision;
+  private final long events;
+  private final long sampledEvents;
+  private final double averageFields;
+  private final double averageAccessedFields;
+  private final double iteratedFraction;
+
+  /**
+   * Creates a statistics snapshot.
+   *
+   * @param eventType the event type name
+   * @param decision the chosen strategy, or {@link UntypedStrategy#AUTO} while sampling
+   * @param events the number of decoded events
+   * @param sampledEvents the number of events whose field accesses were measured
+   * @param averageFields the average number of fields per sampled event
+   * @param averageAccessedFields the average number of distinct fields read per sampled event
+   * @param iteratedFraction the fraction of sampled events whose maps were iterated
+   */
+  public UntypedTypeStats(
+      String eventType,
+      UntypedStrategy decision,
+      long events,
+      long sampledEvents,
+      double averageFields,
+      double averageAccessedFields,
+      double iteratedFraction) {
+    this.eventType = eventType;
+    this.decision = decision;
+    this.events = events;
+    this.sampledEvents = sampledEvents;
+    this.averageFields = averageFields;
+    this.averageAccessedFields = averageAccessedFields;
+    this.iteratedFraction = iteratedFraction;
+  }
+
+  /**
+   * Gets the event type name.
+   *
+   * @return the event type name
+   */
+  public String eventType() {
+    return eventType;
+  }
+
+  /**
+   * Gets the strategy chosen for the type.
+   *
+   * @return {@link UntypedStrategy#FULL_ITERATION} for eager decoding, {@link
+   *     UntypedStrategy#SPARSE_ACCESS} for lazy decoding, or {@link UntypedStrategy#AUTO} while the
+   *     type is still sampled
+   */
+  public UntypedStrategy decision() {
+    return decision;
+  }
+
+  /**
+   * Gets the number of decoded events of the type.
+   *
+   * @return the event count
+   */
+  public long events() {
+    return events;
+  }
+
+  /**
+   * Gets the number of events whose field accesses were measured.
+   *
+   * @return the sampled event count
+   */
+  public long sampledEvents() {
+    return sampledEvents;
+  }
+
+  /**
+   * Gets the average number of fields of the sampled events.
+   *
+   * @return the average field count
+   */
+  public double averageFields() {
+    return averageFields;
+  }
+
+  /**
+   * Gets the average number of distinct fields the handlers read from a sampled event.
+   *
+   * @return the average accessed field count; an iterated event counts all its fields
+   */
+  public double averageAccessedFields() {
+    return averageAccessedFields;
+  }
+
+  /**
+   * Gets the fraction of sampled events whose maps were iterated.
+   *
+   * @return a value between 0 and 1
+   */
+  public double iteratedFraction() {
+    return iteratedFraction;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s{decision=%s, events=%d, sampled=%d, fields=%.1f, accessed=%.1f, iterated=%.2f}",
+        eventType,
+        decision,
+        events,
+        sampledEvents,
+        averageFields,
+        averageAccessedFields,
+        iteratedFraction);
+  }
+}
@@ -0,0 +1,175 @@
+package io.jafar.parser.impl;
+
+import io.jafar.parser.api.UntypedStrategy;
+import io.jafar.parser.api.UntypedTypeStats;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per event type choice between lazy and eager map decoding for {@link UntypedStrategy#AUTO}.
+ *
+ * <p>Each type starts out sampled: its events are decoded into {@link LazyEventMap}s which record
+ * the distinct fields the handlers read. After {@code warmupEvents} events the type is switched to
+ * eager decoding if the maps were iterated or most of their fields were read in at least half of
+ * the cases, and kept lazy otherwise. The decision is final for the lifetime of this instance.
+ *
+ * <p>Thread-safe; shared by all contexts of a parser.
+ */
+public final class AdaptiveStrategy {
+  /** Default number of events sampled per type before deciding. */
+  public static final int DEFAULT_WARMUP_EVENTS = 1024;
+
+  /** Fraction of the fields or of the events above which eager decoding is chosen. */
+  private static final double EAGER_THRESHOLD = 0.5;
+
+  private final int warmupEvents;
+  private final ConcurrentMap<String, Profile> profiles = new ConcurrentHashMap<>();
+
+  /** Creates a strategy sampling {@link #DEFAULT_WARMUP_EVENTS} events per type. */
+  public AdaptiveStrategy() {
+    this(DEFAULT_WARMUP_EVENTS);
+  }
+
+  /**
+   * Creates a strategy.
+   *
+   * @param warmupEvents the number of events sampled per type before deciding
+   * @throws IllegalArgumentException if {@code warmupEvents} is not positive
+   */
+  public AdaptiveStrategy(int warmupEvents) {
+    if (warmupEvents <= 0) {
+      throw new IllegalArgumentException("warmupEvents must be positive: " + warmupEvents);
+    }
+    this.warmupEvents = warmupEvents;
+  }
+
+  /**
+   * Gets the profile of an event type.
+   *
+   * @param type the event type
+   * @return the profile, shared by all types of the same name
+   */
+  public Profile profile(MetadataClass type) {
+    return profile(type.getName());
+  }
+
+  /**
+   * Gets the profile of an event type.
+   *
+   * @param eventType the event type name
+   * @return the profile
+   */
+  public Profile profile(String eventType) {
+    Profile profile = profiles.get(eventType);
+    return profile != null
+        ? profile
+        : profiles.computeIfAbsent(eventType, name -> new Profile(name, warmupEvents));
+  }
+
+  /**
+   * Takes a snapshot of the statistics of all profiled event types.
+   *
+   * @return the statistics by event type name, sorted by name
+   */
+  public Map<String, UntypedTypeStats> stats() {
+    Map<String, UntypedTypeStats> stats = new TreeMap<>();
+    profiles.forEach((name, profile) -> stats.put(name, profile.stats()));
+    return stats;
+  }
+
+  /** Access statistics and decision for one event type. */
+  public static final class Profile {
+    private final String eventType;
+    private final int warmupEvents;
+    private final LongAdder events = new LongAdder();
+    private final AtomicLong sampled = new AtomicLong();
+    private final LongAdder fields = new LongAdder();
+    private final LongAdder accessed = new LongAdder();
+    private final LongAdder iterated = new LongAdder();
+    private final LongAdder eagerVotes = new LongAdder();
+    private volatile UntypedStrategy decision = UntypedStrategy.AUTO;
+
+    private Profile(String eventType, int warmupEvents) {
+      this.eventType = eventType;
+      this.warmupEvents = warmupEvents;
+    }
+
+    /**
+     * Gets the strategy chosen for the type.
+     *
+     * @return {@link UntypedStrategy#FULL_ITERATION} for eager decoding, {@link
+     *     UntypedStrategy#SPARSE_ACCESS} for lazy decoding, or {@link UntypedStrategy#AUTO} while
+     *     sampling, when events must be decoded lazily
+     */
+    public UntypedStrategy decision() {
+      return decision;
+    }
+
+    /**
+     * Prepares a decoded event map for measuring the handlers' field accesses.
+     *
+     * @param value the event map about to be dispatched
+     */
+    public void track(Map<String, Object> value) {
+      if (decision == UntypedStrategy.AUTO && value instanceof LazyEventMap) {
+        ((LazyEventMap) value).trackAccess();
+      }
+    }
+
+    /**
+     * Records a dispatched event map.
+     *
+     * <p>Lazy maps sampled during the warm-up are detached from the pooled arrays they were decoded
+     * into, so handlers may keep them beyond the dispatch. Once the type has been decided, lazy
+     * maps are left attached, exactly as with {@link UntypedStrategy#SPARSE_ACCESS}.
+     *
+     * @param value the event map after all handlers ran
+     */
+    public void record(Map<String, Object> value) {
+      events.increment();
+      if (!(value instanceof LazyEventMap)) {
+        return;
+      }
+      LazyEventMap map = (LazyEventMap) value;
+      if (map.isTracked()) {
+        map.detach();
+        long n = sampled.incrementAndGet();
+        if (n <= warmupEvents) {
+          int size = map.size();
+          int read = map.accessedFields();
+          fields.add(size);
+          accessed.add(read);
+          if (map.isMaterialized()) {
+            iterated.increment();
+          }
+          if (map.isMaterialized() || read > size * EAGER_THRESHOLD) {
+            eagerVotes.increment();
+          }
+          if (n == warmupEvents) {
+            decision =
+                eagerVotes.sum() >= warmupEvents * EAGER_THRESHOLD
+                    ? UntypedStrategy.FULL_ITERATION
+                    : UntypedStrategy.SPARSE_ACCESS;
+          }
+        }
+      }
+    }
+
+    UntypedTypeStats stats() {
+      long samples = Math.min(sampled.get(), warmupEvents);
+      return new UntypedTypeStats(
+          eventType,
+          decision,
+          events.sum(),
+          samples,
+          samples > 0 ? (double) fields.sum() / samples : 0,
+          samples > 0 ? (double) accessed.sum() / samples : 0,
+          samples > 0 ? (double) iterated.sum() / samples : 0);
+    }
+  }
+}
@@ -0,0 +1,298 @@
+package io.jafar.parser.impl;
+
+import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.Control;
+import io.jafar.parser.api.EventBatch;
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.internal_api.FieldProjection;
+import io.jafar.parser.internal_api.GenericValueReader;
+import io.jafar.parser.internal_api.RecordingStream;
+import io.jafar.parser.internal_api.TypeSkipper;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import io.jafar.parser.internal_api.metadata.MetadataField;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EventBatch} decoding events of one type directly into reusable column arrays.
+ *
+ * <p>Primitive fields and constant pool references are read straight from the stream without
+ * boxing; only {@link EventBatch.ColumnKind#OBJECT} columns allocate per event.
+ *
+ * <p>Not thread-safe; each chunk or worker context holds its own batches.
+ */
+final class ColumnBatch implements EventBatch {
+  private static final int BYTE = 0;
+  private static final int BOOLEAN = 1;
+  private static final int SHORT = 2;
+  private static final int CHAR = 3;
+  private static final int INT = 4;
+  private static final int LONG = 5;
+  private static final int FLOAT = 6;
+  private static final int DOUBLE = 7;
+  private static final int STRING = 8;
+  private static final int CONSTANT_POOL = 9;
+  private static final int VALUE = 10;
+
+  private final ParserContext context;
+  private final MetadataClass type;
+  private final int capacity;
+  private final boolean lazyStrings;
+
+  /** The field read by each step, or {@code null} for steps skipping unprojected fields. */
+  private final MetadataField[] steps;
+
+  private final TypeSkipper[] skippers;
+  private final int[] codes;
+  private final int[] temporalKinds;
+  private final long[][] longs;
+  private final double[][] doubles;
+  private final Object[][] objects;
+
+  private final List<String> columns;
+  private final Map<String, Integer> columnIndex;
+  private GenericValueReader valueReader;
+  private Control.ChunkInfo chunkInfo;
+  private int size;
+
+  /**
+   * Creates a batch.
+   *
+   * @param context the chunk or worker context
+   * @param type the event type
+   * @param capacity the number of events per batch
+   * @param projection the decoding steps of a projected type, or {@code null} to decode all fields
+   * @param lazyStrings {@code true} to store inline strings as undecoded views
+   */
+  ColumnBatch(
+      ParserContext context,
+      MetadataClass type,
+      int capacity,
+      FieldProjection projection,
+      boolean lazyStrings) {
+    this.context = context;
+    this.type = type;
+    this.capacity = capacity;
+    this.lazyStrings = lazyStrings;
+    if (projection != null) {
+      steps = new MetadataField[projection.size()];
+      skippers = projection.skippers();
+      for (int i = 0; i < steps.length; i++) {
+        steps[i] = projection.field(i);
+      }
+    } else {
+      steps = type.getAllFields().toArray(new MetadataField[0]);
+      skippers = new TypeSkipper[steps.length];
+    }
+    codes = new int[steps.length];
+    temporalKinds = new int[steps.length];
+    longs = new long[steps.length][];
+    doubles = new double[steps.length][];
+    objects = new Object[steps.length][];
+    List<String> names = new ArrayList<>(steps.length);
+    columnIndex = new HashMap<>();
+    for (int i = 0; i < steps.length; i++) {
+      MetadataField field = steps[i];
+      if (field == null) {
+        continue;
+      }
+      int code = code(field);
+      codes[i] = code;
+      if (code <= LONG || code == CONSTANT_POOL) {
+        longs[i] = new long[capacity];
+        temporalKinds[i] =
+            code == INT || code == LONG
+                ? TemporalNormalizer.kind(type, field.getName())
+                : TemporalNormalizer.KIND_NONE;
+      } else if (code <= DOUBLE) {
+        doubles[i] = new double[capacity];
+      } else {
+        objects[i] = new Object[capacity];
+      }
+      names.add(field.getName());
+      columnIndex.put(field.getName(), i);
+    }
+    columns = Collections.unmodifiableList(names);
+  }
+
+  private static int code(MetadataField field) {
+    if (field.getDimension() > 0) {
+      return VALUE;
+    }
+    if (field.hasConstantPool()) {
+      return CONSTANT_POOL;
+    }
+    switch (field.getType().getName()) {
+      case "byte":
+        return BYTE;
+      case "boolean":
+        return BOOLEAN;
+      case "short":
+        return SHORT;
+      case "char":
+        return CHAR;
+      case "int":
+        return INT;
+      case "long":
+        return LONG;
+      case "float":
+        return FLOAT;
+      case "double":
+        return DOUBLE;
+      case "java.lang.String":
+        return STRING;
+      default:
+        return VALUE;
+    }
+  }
+
+  /**
+   * Appends the event at the current stream position.
+   *
+   * @param stream the stream positioned at the event payload
+   * @return {@code true} if the batch is full
+   * @throws IOException if the event cannot be read
+   */
+  boolean read(RecordingStream stream) throws IOException {
+    int row = size;
+    for (int i = 0; i < steps.length; i++) {
+      MetadataField field = steps[i];
+      if (field == null) {
+        skippers[i].skip(stream);
+        continue;
+      }
+      switch (codes[i]) {
+        case BYTE:
+          longs[i][row] = stream.read();
+          break;
+        case BOOLEAN:
+          longs[i][row] = stream.read() != 0 ? 1 : 0;
+          break;
+        case SHORT:
+          longs[i][row] = (short) stream.readVarint();
+          break;
+        case CHAR:
+          longs[i][row] = (char) stream.readVarint();
+          break;
+        case INT:
+          longs[i][row] = normalize(i, (int) stream.readVarint());
+          break;
+        case LONG:
+          longs[i][row] = normalize(i, stream.readVarint());
+          break;
+        case CONSTANT_POOL:
+          longs[i][row] = stream.readVarint();
+          break;
+        case FLOAT:
+          doubles[i][row] = stream.readFloat();
+          break;
+        case DOUBLE:
+          doubles[i][row] = stream.readDouble();
+          break;
+        case STRING:
+          objects[i][row] = lazyStrings ? stream.readUTF8View() : stream.readUTF8();
+          break;
+        default:
+          objects[i][row] = readValue(stream, field);
+      }
+    }
+    return ++size == capacity;
+  }
+
+  private long normalize(int step, long value) {
+    int kind = temporalKinds[step];
+    if (kind == TemporalNormalizer.KIND_NONE) {
+      return value;
+    }
+    if (chunkInfo == null) {
+      chunkInfo = context.get(Control.ChunkInfo.class);
+    }
+    return TemporalNormalizer.normalize(kind, value, chunkInfo);
+  }
+
+  /** Decodes an inline complex value or an array the same way as for the event maps. */
+  private Object readValue(RecordingStream stream, MetadataField field) throws IOException {
+    if (valueReader == null) {
+      valueReader = new GenericValueReader(new MapValueBuilder(context), lazyStrings);
+    }
+    MapValueBuilder builder = valueReader.getProcessor();
+    builder.reset();
+    builder.onComplexValueStart(null, null, type);
+    valueReader.readField(stream, type, field);
+    builder.onComplexValueEnd(null, null, type);
+    return builder.getRoot().get(field.getName());
+  }
+
+  /** Empties the batch for the next block of events. */
+  void clear() {
+    for (Object[] column : objects) {
+      if (column != null) {
+        Arrays.fill(column, 0, size, null);
+      }
+    }
+    size = 0;
+  }
+
+  @Override
+  public MetadataClass type() {
+    return type;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public List<String> columns() {
+    return columns;
+  }
+
+  @Override
+  public ColumnKind kind(String column) {
+    Integer i = columnIndex.get(column);
+    if (i == null) {
+      return null;
+    }
+    return longs[i] != null
+        ? ColumnKind.LONG
+        : doubles[i] != null ? ColumnKind.DOUBLE : ColumnKind.OBJECT;
+  }
+
+  @Override
+  public long[] longColumn(String column) {
+    Integer i = columnIndex.get(column);
+    return i != null ? longs[i] : null;
+  }
+
+  @Override
+  public double[] doubleColumn(String column) {
+    Integer i = columnIndex.get(column);
+    return i != null ? doubles[i] : null;
+  }
+
+  @Override
+  public Object[] objectColumn(String column) {
+    Integer i = columnIndex.get(column);
+    return i != null ? objects[i] : null;
+  }
+
+  @Override
+  public ComplexType reference(String column, int row) {
+    Integer i = columnIndex.get(column);
+    if (i == null || codes[i] != CONSTANT_POOL) {
+      return null;
+    }
+    return new ConstantPoolAccessor(context, steps[i].getType(), longs[i][row]);
+  }
+
+  @Override
+  public String toString() {
+    return "EventBatch{" + type.getName() + ", size=" + size + ", columns=" + columns + "}";
+  }
+}
@@ -0,0 +1,74 @@
+package io.jafar.parser.impl;
+
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.api.UntypedProjection;
+import io.jafar.parser.internal_api.FieldProjection;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The column batches of one chunk or worker context, by event type.
+ *
+ * <p>Not thread-safe; each chunk or worker context holds its own instance.
+ */
+final class ColumnBatches {
+  private final ParserContext context;
+  private final Map<String, Integer> batchSizes;
+  private final FieldProjection.Cache projections;
+  private final boolean lazyStrings;
+  private final Map<MetadataClass, ColumnBatch> batches = new IdentityHashMap<>();
+  private final List<ColumnBatch> created = new ArrayList<>();
+
+  /**
+   * Creates the batches of a context.
+   *
+   * @param context the chunk or worker context
+   * @param batchSizes the number of events per batch by event type name
+   * @param lazyStrings {@code true} to store inline strings as undecoded views
+   */
+  ColumnBatches(ParserContext context, Map<String, Integer> batchSizes, boolean lazyStrings) {
+    this.context = context;
+    this.batchSizes = batchSizes;
+    this.lazyStrings = lazyStrings;
+    UntypedProjection projection = context.get(UntypedProjection.class);
+    this.projections = projection != null ? new FieldProjection.Cache(projection) : null;
+  }
+
+  /**
+   * Gets the batch collecting events of a type.
+   *
+   * @param type the event type
+   * @return the batch, or {@code null} if the type is not batched
+   */
+  ColumnBatch get(MetadataClass type) {
+    ColumnBatch batch = batches.get(type);
+    if (batch == null && !batches.containsKey(type)) {
+      Integer size = batchSizes.get(type.getName());
+      if (size != null) {
+        batch =
+            new ColumnBatch(
+                context,
+                type,
+                size,
+                projections != null ? projections.get(type) : null,
+                lazyStrings);
+        created.add(batch);
+      }
+      // types which are not batched map to null
+      batches.put(type, batch);
+    }
+    return batch;
+  }
+
+  /**
+   * Gets all batches created so far.
+   *
+   * @return the batches, possibly empty
+   */
+  List<ColumnBatch> all() {
+    return created;
+  }
+}
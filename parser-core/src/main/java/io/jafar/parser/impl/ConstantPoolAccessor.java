@@ -45,6 +45,24 @@ public final class ConstantPoolAccessor implements ComplexType {
     this.pointer = pointer;
   }
 
+  /**
+   * Gets the type ID of the constant pool holding the entry.
+   *
+   * @return the constant pool type ID
+   */
+  public long getTypeId() {
+    return typeId;
+  }
+
+  /**
+   * Gets the chunk-local ID of the entry.
+   *
+   * @return the constant pool entry pointer (index)
+   */
+  public long getPointer() {
+    return pointer;
+  }
+
   @Override
   public Map<String, Object> getValue() {
     MutableConstantPools pools = (MutableConstantPools) context.getConstantPools();
@@ -0,0 +1,402 @@
+package io.jafar.parser.impl;
+
+import io.jafar.parser.api.Control;
+import io.jafar.parser.api.FieldFilter;
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.api.UntypedProjection;
+import io.jafar.parser.internal_api.GenericValueReader;
+import io.jafar.parser.internal_api.RecordingStream;
+import io.jafar.parser.internal_api.TypeSkipper;
+import io.jafar.parser.internal_api.collections.LongObjectHashMap;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import io.jafar.parser.internal_api.metadata.MetadataField;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Field filters of the untyped event handlers, evaluated on the raw event data before the event map
+ * is built.
+ *
+ * <p>Each {@link Alternative} holds the event types and filters of one handler. An event is decoded
+ * if all filters of at least one alternative accepting its type match. Only the filtered fields are
+ * read for the check; the fields in between are skipped with {@link TypeSkipper} and the fields
+ * after the last filtered one are not touched at all. Primitive fields are compared as read from
+ * the stream and constant pool fields by their entry index, with one filter result per entry.
+ */
+final class EventPrefilter {
+  /** The event types and field filters of a single handler. */
+  static final class Alternative {
+    /** Accepted event type names, or {@code null} for all. */
+    final Set<String> types;
+
+    /** Filters which must all match; empty to accept every event of the types. */
+    final List<FieldFilter> filters;
+
+    Alternative(Set<String> types, List<FieldFilter> filters) {
+      this.types = types;
+      this.filters = filters;
+    }
+
+    boolean accepts(MetadataClass type) {
+      return types == null || types.contains(type.getName());
+    }
+
+    boolean matches(Map<String, Object> values) {
+      for (FieldFilter filter : filters) {
+        if (!filter.test(values.get(filter.field()))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** Kinds of the fields read for a check, as stored in {@link Plan#kinds}. */
+  private static final int SKIP = 0;
+
+  private static final int BYTE = 1;
+  private static final int SHORT = 2;
+  private static final int CHAR = 3;
+  private static final int INT = 4;
+  private static final int LONG = 5;
+  private static final int BOOLEAN = 6;
+  private static final int FLOAT = 7;
+  private static final int DOUBLE = 8;
+
+  /** A constant pool reference, tested once per referenced entry. */
+  private static final int CONSTANT_POOL = 9;
+
+  /** Any other field (strings, arrays, inline complex values), decoded into the probe map. */
+  private static final int DECODED = 10;
+
+  /** A field filter bound to the field it reads. */
+  private static final class Check {
+    final FieldFilter filter;
+
+    /** Index of the field in the event type, or {@code -1} if the type has no such field. */
+    final int field;
+
+    /** Results of a constant pool field filter by entry index. */
+    final LongObjectHashMap<Boolean> results;
+
+    Check(FieldFilter filter, int field, boolean constantPool) {
+      this.filter = filter;
+      this.field = field;
+      this.results = constantPool ? new LongObjectHashMap<>() : null;
+    }
+  }
+
+  /** How the events of one type are checked; owned by a single probe. */
+  private static final class Plan {
+    /** Whether an alternative without filters accepts the type. */
+    final boolean always;
+
+    /** Per alternative accepting the type, the checks which must all pass. */
+    final Check[][] alternatives;
+
+    /** Per field, up to the last filtered one, how it is read; {@link #SKIP} if it is not. */
+    final int[] kinds;
+
+    /** Temporal normalization kinds of the {@link #INT} and {@link #LONG} fields. */
+    final int[] normalization;
+
+    /** Whether any field is {@link #DECODED} into the probe map. */
+    final boolean decodes;
+
+    /** Raw values of the primitive and constant pool fields read for the current event. */
+    final long[] raw;
+
+    Plan(boolean always, Check[][] alternatives, int[] kinds, int[] normalization) {
+      this.always = always;
+      this.alternatives = alternatives;
+      this.kinds = kinds;
+      this.normalization = normalization;
+      boolean decodes = false;
+      for (int kind : kinds) {
+        decodes |= kind == DECODED;
+      }
+      this.decodes = decodes;
+      this.raw = new long[kinds.length];
+    }
+  }
+
+  /** Per-context decoding state; contexts are never used by two threads at once. */
+  static final class Probe {
+    private final ParserContext context;
+    private final MapValueBuilder builder;
+    private final GenericValueReader reader;
+    private final UntypedProjection projection;
+    private final Map<MetadataClass, Plan> plans = new IdentityHashMap<>();
+    private Control.ChunkInfo chunkInfo;
+
+    private Probe(ParserContext context) {
+      this.context = context;
+      this.builder = new MapValueBuilder(context);
+      this.reader = new GenericValueReader(builder);
+      this.projection = context.get(UntypedProjection.class);
+    }
+
+    private Control.ChunkInfo chunkInfo() {
+      if (chunkInfo == null) chunkInfo = context.get(Control.ChunkInfo.class);
+      return chunkInfo;
+    }
+  }
+
+  private final List<Alternative> alternatives;
+
+  EventPrefilter(List<Alternative> alternatives) {
+    this.alternatives = new ArrayList<>(alternatives);
+  }
+
+  /**
+   * Creates the decoding state for a chunk or worker context.
+   *
+   * @param context the context
+   * @return the probe
+   */
+  Probe newProbe(ParserContext context) {
+    return new Probe(context);
+  }
+
+  /**
+   * Checks an event against the filters, consuming a part of its payload.
+   *
+   * <p>Primitive fields are read into {@link Plan#raw} and constant pool references are kept as
+   * entry indexes, so rejecting an event filtered on such fields allocates nothing; only filters on
+   * other fields need their values decoded into a map.
+   *
+   * @param probe the decoding state of the current context
+   * @param type the event type
+   * @param stream the stream positioned at the event payload
+   * @return {@literal true} if the event map should be built
+   * @throws IOException if the event data cannot be read
+   */
+  boolean accept(Probe probe, MetadataClass type, RecordingStream stream) throws IOException {
+    Plan plan = probe.plans.get(type);
+    if (plan == null) {
+      plan = plan(type, probe.projection);
+      probe.plans.put(type, plan);
+    }
+    if (plan.always) {
+      return true;
+    }
+    if (plan.alternatives.length == 0) {
+      return false;
+    }
+    List<MetadataField> fields = type.getAllFields();
+    MapValueBuilder builder = probe.builder;
+    if (plan.decodes) {
+      builder.reset();
+      builder.onComplexValueStart(null, null, type);
+    }
+    try {
+      long[] raw = plan.raw;
+      for (int i = 0; i < plan.kinds.length; i++) {
+        switch (plan.kinds[i]) {
+          case SKIP:
+            TypeSkipper.skip(fields.get(i), stream);
+            break;
+          case BYTE:
+            raw[i] = stream.read();
+            break;
+          case BOOLEAN:
+            raw[i] = stream.read() != 0 ? 1 : 0;
+            break;
+          case SHORT:
+            raw[i] = (short) stream.readVarint();
+            break;
+          case CHAR:
+            raw[i] = (char) stream.readVarint();
+            break;
+          case INT:
+            raw[i] =
+                TemporalNormalizer.normalize(
+                    plan.normalization[i], (int) stream.readVarint(), probe.chunkInfo());
+            break;
+          case LONG:
+            raw[i] =
+                TemporalNormalizer.normalize(
+                    plan.normalization[i], stream.readVarint(), probe.chunkInfo());
+            break;
+          case FLOAT:
+            raw[i] = Float.floatToRawIntBits(stream.readFloat());
+            break;
+          case DOUBLE:
+            raw[i] = Double.doubleToRawLongBits(stream.readDouble());
+            break;
+          case CONSTANT_POOL:
+            raw[i] = stream.readVarint();
+            break;
+          default:
+            probe.reader.readField(stream, type, fields.get(i));
+        }
+      }
+    } finally {
+      if (plan.decodes) {
+        builder.onComplexValueEnd(null, null, type);
+      }
+    }
+    for (Check[] checks : plan.alternatives) {
+      if (matches(probe, plan, type, checks)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean matches(Probe probe, Plan plan, MetadataClass type, Check[] checks) {
+    for (Check check : checks) {
+      if (!test(probe, plan, type, check)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Tests the value of the checked field, boxed as in the event map when the filter needs it. */
+  private static boolean test(Probe probe, Plan plan, MetadataClass type, Check check) {
+    FieldFilter filter = check.filter;
+    int i = check.field;
+    if (i < 0) {
+      return filter.test(null);
+    }
+    long raw = plan.raw[i];
+    switch (plan.kinds[i]) {
+      case BYTE:
+        return filter.isLongFilter() ? filter.testLong(raw) : filter.test((byte) raw);
+      case SHORT:
+        return filter.isLongFilter() ? filter.testLong(raw) : filter.test((short) raw);
+      case INT:
+      case LONG:
+        return filter.testLong(raw);
+      case CHAR:
+        return filter.test((char) raw);
+      case BOOLEAN:
+        return filter.test(raw != 0);
+      case FLOAT:
+        return filter.test(Float.intBitsToFloat((int) raw));
+      case DOUBLE:
+        return filter.test(Double.longBitsToDouble(raw));
+      case CONSTANT_POOL:
+        Boolean result = check.results.get(raw);
+        if (result == null) {
+          MetadataClass fieldType = type.getAllFields().get(i).getType();
+          result = filter.test(new ConstantPoolAccessor(probe.context, fieldType, raw));
+          check.results.put(raw, result);
+        }
+        return result;
+      default:
+        return filter.test(probe.builder.getRoot().get(filter.field()));
+    }
+  }
+
+  private Plan plan(MetadataClass type, UntypedProjection projection) {
+    List<Alternative> applicable = new ArrayList<>();
+    Set<String> filtered = new HashSet<>();
+    for (Alternative alternative : alternatives) {
+      if (alternative.accepts(type)) {
+        if (alternative.filters.isEmpty()) {
+          return new Plan(true, null, new int[0], new int[0]);
+        }
+        applicable.add(alternative);
+        for (FieldFilter filter : alternative.filters) {
+          filtered.add(filter.field());
+        }
+      }
+    }
+    if (projection != null) {
+      // filters see the event map, which has no fields outside of the projection
+      Set<String> projected = projection.fields(type.getName());
+      if (projected != null) {
+        filtered.retainAll(projected);
+      }
+    }
+    List<MetadataField> fields = type.getAllFields();
+    int last = -1;
+    for (int i = 0; i < fields.size(); i++) {
+      if (filtered.contains(fields.get(i).getName())) {
+        last = i;
+      }
+    }
+    int[] kinds = new int[last + 1];
+    int[] normalization = new int[last + 1];
+    for (int i = 0; i <= last; i++) {
+      MetadataField field = fields.get(i);
+      if (filtered.contains(field.getName())) {
+        kinds[i] = kind(field);
+        normalization[i] = TemporalNormalizer.kind(type, field.getName());
+      }
+    }
+    Check[][] checks = new Check[applicable.size()][];
+    for (int a = 0; a < checks.length; a++) {
+      List<FieldFilter> filters = applicable.get(a).filters;
+      checks[a] = new Check[filters.size()];
+      for (int f = 0; f < filters.size(); f++) {
+        int field = indexOf(fields, kinds, filters.get(f).field());
+        checks[a][f] =
+            new Check(filters.get(f), field, field >= 0 && kinds[field] == CONSTANT_POOL);
+      }
+    }
+    return new Plan(false, checks, kinds, normalization);
+  }
+
+  /** Gets the index of a filtered field read by the plan, or {@code -1} if it is not read. */
+  private static int indexOf(List<MetadataField> fields, int[] kinds, String name) {
+    for (int i = 0; i < kinds.length; i++) {
+      if (kinds[i] != SKIP && fields.get(i).getName().equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int kind(MetadataField field) {
+    if (field.getDimension() > 0) {
+      return DECODED;
+    }
+    if (field.hasConstantPool()) {
+      return CONSTANT_POOL;
+    }
+    switch (field.getType().getName()) {
+      case "byte":
+        return BYTE;
+      case "short":
+        return SHORT;
+      case "char":
+        return CHAR;
+      case "int":
+        return INT;
+      case "long":
+        return LONG;
+      case "boolean":
+        return BOOLEAN;
+      case "float":
+        return FLOAT;
+      case "double":
+        return DOUBLE;
+      default:
+        return DECODED;
+    }
+  }
+
+  /**
+   * Creates the alternative of a handler.
+   *
+   * @param types the accepted event types, or {@code null} for all
+   * @param filters the field filters, or {@code null} for none
+   * @return the alternative
+   */
+  static Alternative alternative(Set<String> types, List<FieldFilter> filters) {
+    return new Alternative(
+        types,
+        filters != null
+            ? Collections.unmodifiableList(new ArrayList<>(filters))
+            : Collections.emptyList());
+  }
+}
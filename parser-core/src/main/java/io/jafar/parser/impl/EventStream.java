@@ -2,16 +2,23 @@ package io.jafar.parser.impl;
 
 import io.jafar.parser.TypeFilter;
 import io.jafar.parser.api.Control;
+import io.jafar.parser.api.EventBatch;
 import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.api.UntypedProjection;
+import io.jafar.parser.api.UntypedStrategy;
 import io.jafar.parser.internal_api.CheckpointEvent;
 import io.jafar.parser.internal_api.ChunkHeader;
 import io.jafar.parser.internal_api.ChunkParserListener;
+import io.jafar.parser.internal_api.FieldProjection;
 import io.jafar.parser.internal_api.GenericValueReader;
 import io.jafar.parser.internal_api.RecordingStream;
+import io.jafar.parser.internal_api.TypeSkipper;
 import io.jafar.parser.internal_api.metadata.MetadataClass;
 import io.jafar.parser.internal_api.metadata.MetadataEvent;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Abstract base class for event stream processing in JFR recordings.
@@ -24,15 +31,98 @@ public abstract class EventStream implements ChunkParserListener {
   /** The delegate chunk parser listener. */
   private final ChunkParserListener delegate;
 
+  /** Names of the event types decoded into maps, or {@code null} for all. */
+  private final Set<String> eventTypes;
+
+  /** Field filters checked before building the event map, or {@code null}. */
+  private final EventPrefilter prefilter;
+
+  /** Number of events per column batch by event type name, or {@code null}. */
+  private final Map<String, Integer> batchSizes;
+
+  /** Whether inline strings are decoded into {@link io.jafar.utils.LazyString} views. */
+  private final boolean lazyStrings;
+
   private final ThreadLocal<Control> control = ThreadLocal.withInitial(ControlImpl::new);
 
+  /** Context key of the reader building lazy maps for {@link AdaptiveStrategy}. */
+  private static final String LAZY_READER = "io.jafar.parser.impl.EventStream.lazyReader";
+
   /**
    * Constructs a new EventStream with the specified delegate.
    *
    * @param delegate the delegate chunk parser listener
    */
   public EventStream(ChunkParserListener delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * Constructs a new EventStream decoding only events of the given types.
+   *
+   * <p>Events of other types are not decoded and not passed to {@link #onEventValue}. The types are
+   * also reported as {@linkplain #acceptedEventTypes() accepted}, letting the parser skip chunks
+   * and event ranges without matching events when an event index is available.
+   *
+   * @param delegate the delegate chunk parser listener
+   * @param eventTypes the names of the event types to decode, or {@code null} for all
+   */
+  public EventStream(ChunkParserListener delegate, Set<String> eventTypes) {
+    this(delegate, eventTypes, null);
+  }
+
+  /**
+   * Constructs a new EventStream decoding only events of the given types which pass the prefilter.
+   *
+   * @param delegate the delegate chunk parser listener
+   * @param eventTypes the names of the event types to decode, or {@code null} for all
+   * @param prefilter the field filters checked on the raw event data, or {@code null}
+   */
+  EventStream(ChunkParserListener delegate, Set<String> eventTypes, EventPrefilter prefilter) {
+    this(delegate, eventTypes, prefilter, null, false);
+  }
+
+  /**
+   * Constructs a new EventStream which additionally decodes events of some types into column
+   * batches passed to {@link #onEventBatch}.
+   *
+   * @param delegate the delegate chunk parser listener
+   * @param eventTypes the names of the event types to decode into maps, or {@code null} for all
+   * @param prefilter the field filters checked on the raw event data, or {@code null}
+   * @param batchSizes the number of events per batch by event type name, or {@code null}
+   * @param lazyStrings {@code true} to pass inline strings as undecoded views
+   */
+  EventStream(
+      ChunkParserListener delegate,
+      Set<String> eventTypes,
+      EventPrefilter prefilter,
+      Map<String, Integer> batchSizes,
+      boolean lazyStrings) {
     this.delegate = delegate;
+    this.eventTypes = eventTypes;
+    this.prefilter = prefilter;
+    this.batchSizes = batchSizes != null && !batchSizes.isEmpty() ? batchSizes : null;
+    this.lazyStrings = lazyStrings;
+  }
+
+  @Override
+  public final Set<String> acceptedEventTypes() {
+    if (eventTypes == null) {
+      return null;
+    }
+    Set<String> delegateTypes = delegate != null ? delegate.acceptedEventTypes() : eventTypes;
+    if (delegateTypes == null) {
+      return null;
+    }
+    if (delegate == null && batchSizes == null) {
+      return eventTypes;
+    }
+    Set<String> types = new HashSet<>(eventTypes);
+    types.addAll(delegateTypes);
+    if (batchSizes != null) {
+      types.addAll(batchSizes.keySet());
+    }
+    return types;
   }
 
   @Override
@@ -48,24 +138,93 @@ public abstract class EventStream implements ChunkParserListener {
     context.put(Control.ChunkInfo.class, new ChunkInfoImpl(header));
 
     MapValueBuilder builder = new MapValueBuilder(context);
-    GenericValueReader r = new GenericValueReader(builder);
+    GenericValueReader r = new GenericValueReader(builder, lazyStrings);
 
     // Make sure we hava the generic value reader available
     context.put(GenericValueReader.class, r);
     // We do this in the untyped parser -> we need 'all accepting' type filter
     context.put(TypeFilter.class, t -> true);
+    if (prefilter != null) {
+      context.put(EventPrefilter.Probe.class, prefilter.newProbe(context));
+    }
+    UntypedProjection projection = context.get(UntypedProjection.class);
+    if (projection != null) {
+      context.put(FieldProjection.Cache.class, new FieldProjection.Cache(projection));
+    }
+    if (context.get(AdaptiveStrategy.class) != null) {
+      context.put(
+          LAZY_READER,
+          GenericValueReader.class,
+          new GenericValueReader(new LazyMapValueBuilder(context), lazyStrings));
+    }
+    if (batchSizes != null) {
+      context.put(ColumnBatches.class, new ColumnBatches(context, batchSizes, lazyStrings));
+    }
 
     return delegate == null || delegate.onChunkStart(context, chunkIndex, header);
   }
 
   @Override
   public final boolean onChunkEnd(ParserContext context, int chunkIndex, boolean skipped) {
+    flushBatches(context);
+    context.remove(ColumnBatches.class);
     context.remove(GenericValueReader.class);
     context.remove(TypeFilter.class);
+    context.remove(EventPrefilter.Probe.class);
+    context.remove(FieldProjection.Cache.class);
+    context.remove(LAZY_READER, GenericValueReader.class);
 
     return delegate == null || delegate.onChunkEnd(context, chunkIndex, skipped);
   }
 
+  @Override
+  public final boolean supportsIntraChunkParallelism() {
+    return delegate == null || delegate.supportsIntraChunkParallelism();
+  }
+
+  @Override
+  public final void onWorkerStart(ParserContext chunkContext, ParserContext workerContext) {
+    ((ControlImpl) control.get()).setStream(workerContext.get(RecordingStream.class));
+    // The value reader is stateful; each worker needs its own
+    workerContext.put(
+        GenericValueReader.class,
+        new GenericValueReader(new MapValueBuilder(workerContext), lazyStrings));
+    if (prefilter != null) {
+      workerContext.put(EventPrefilter.Probe.class, prefilter.newProbe(workerContext));
+    }
+    UntypedProjection projection = workerContext.get(UntypedProjection.class);
+    if (projection != null) {
+      workerContext.put(FieldProjection.Cache.class, new FieldProjection.Cache(projection));
+    }
+    if (workerContext.get(AdaptiveStrategy.class) != null) {
+      workerContext.put(
+          LAZY_READER,
+          GenericValueReader.class,
+          new GenericValueReader(new LazyMapValueBuilder(workerContext), lazyStrings));
+    }
+    if (batchSizes != null) {
+      workerContext.put(
+          ColumnBatches.class, new ColumnBatches(workerContext, batchSizes, lazyStrings));
+    }
+    if (delegate != null) {
+      delegate.onWorkerStart(chunkContext, workerContext);
+    }
+  }
+
+  @Override
+  public final void onWorkerEnd(ParserContext workerContext) {
+    flushBatches(workerContext);
+    workerContext.remove(ColumnBatches.class);
+    ((ControlImpl) control.get()).setStream(null);
+    workerContext.remove(GenericValueReader.class);
+    workerContext.remove(EventPrefilter.Probe.class);
+    workerContext.remove(FieldProjection.Cache.class);
+    workerContext.remove(LAZY_READER, GenericValueReader.class);
+    if (delegate != null) {
+      delegate.onWorkerEnd(workerContext);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public final boolean onEvent(
@@ -82,16 +241,55 @@ public abstract class EventStream implements ChunkParserListener {
       }
 
       MetadataClass eventClz = context.getMetadataLookup().getClass(typeId);
+      boolean decodeMap = eventTypes == null || eventTypes.contains(eventClz.getName());
+      RecordingStream stream = context.get(RecordingStream.class);
+      ColumnBatches batches = batchSizes != null ? context.get(ColumnBatches.class) : null;
+      ColumnBatch batch = batches != null ? batches.get(eventClz) : null;
+      if (batch != null) {
+        long payloadStart = stream.position();
+        if (batch.read(stream)) {
+          flush(batch, ctl);
+        }
+        if (decodeMap) {
+          stream.position(payloadStart);
+        }
+      }
+      if (!decodeMap) {
+        return !ctl.abortFlag
+            && (delegate == null
+                || delegate.onEvent(context, typeId, eventStartPos, rawSize, payloadSize));
+      }
+      if (prefilter != null) {
+        // Check the filtered fields first and build the map only for matching events
+        long payloadStart = stream.position();
+        if (!prefilter.accept(context.get(EventPrefilter.Probe.class), eventClz, stream)) {
+          return !ctl.abortFlag
+              && (delegate == null
+                  || delegate.onEvent(context, typeId, eventStartPos, rawSize, payloadSize));
+        }
+        stream.position(payloadStart);
+      }
+      AdaptiveStrategy adaptive = context.get(AdaptiveStrategy.class);
+      AdaptiveStrategy.Profile profile = adaptive != null ? adaptive.profile(eventClz) : null;
+      if (profile != null && profile.decision() != UntypedStrategy.FULL_ITERATION) {
+        readLazy(context, stream, eventClz, profile, ctl);
+        return !ctl.abortFlag
+            && (delegate == null
+                || delegate.onEvent(context, typeId, eventStartPos, rawSize, payloadSize));
+      }
       try {
         builder.reset();
         builder.onComplexValueStart(null, null, eventClz);
-        r.readValue(context.get(RecordingStream.class), eventClz);
+        read(context, r, stream, eventClz);
       } finally {
         builder.onComplexValueEnd(null, null, eventClz);
         Map<String, Object> value = builder.getRoot();
 
         // Process event value with parsed data
         onEventValue(eventClz, value, ctl);
+        if (profile != null) {
+          profile.record(value);
+        }
       }
     } catch (IOException e) {
       return !ctl.abortFlag
@@ -103,6 +301,81 @@ public abstract class EventStream implements ChunkParserListener {
             || delegate.onEvent(context, typeId, eventStartPos, rawSize, payloadSize));
   }
 
+  /** Decodes an event into a lazy map for a type sampled or found to be sparsely accessed. */
+  private void readLazy(
+      ParserContext context,
+      RecordingStream stream,
+      MetadataClass eventClz,
+      AdaptiveStrategy.Profile profile,
+      ControlImpl ctl)
+      throws IOException {
+    GenericValueReader r = context.get(LAZY_READER, GenericValueReader.class);
+    LazyMapValueBuilder builder = r.getProcessor();
+    try {
+      builder.reset();
+      builder.onComplexValueStart(null, null, eventClz);
+      read(context, r, stream, eventClz);
+    } finally {
+      builder.onComplexValueEnd(null, null, eventClz);
+      Map<String, Object> value = builder.getRoot();
+      profile.track(value);
+      try {
+        onEventValue(eventClz, value, ctl);
+      } finally {
+        profile.record(value);
+      }
+    }
+  }
+
+  /** Passes the remaining events of all batches of a context to {@link #onEventBatch}. */
+  private void flushBatches(ParserContext context) {
+    ColumnBatches batches = context.get(ColumnBatches.class);
+    if (batches == null) {
+      return;
+    }
+    ControlImpl ctl = (ControlImpl) control.get();
+    for (ColumnBatch batch : batches.all()) {
+      if (batch.size() > 0) {
+        flush(batch, ctl);
+      }
+    }
+  }
+
+  private void flush(ColumnBatch batch, ControlImpl ctl) {
+    try {
+      if (!ctl.abortFlag) {
+        onEventBatch(batch, ctl);
+      }
+    } finally {
+      batch.clear();
+    }
+  }
+
+  private static void read(
+      ParserContext context, GenericValueReader r, RecordingStream stream, MetadataClass eventClz)
+      throws IOException {
+    FieldProjection.Cache projections = context.get(FieldProjection.Cache.class);
+    FieldProjection projected = projections != null ? projections.get(eventClz) : null;
+    if (projected != null) {
+      readProjected(r, stream, eventClz, projected);
+    } else {
+      r.readValue(stream, eventClz);
+    }
+  }
+
+  private static void readProjected(
+      GenericValueReader r, RecordingStream stream, MetadataClass type, FieldProjection projected)
+      throws IOException {
+    for (int i = 0; i < projected.size(); i++) {
+      TypeSkipper skipper = projected.skipper(i);
+      if (skipper != null) {
+        skipper.skip(stream);
+      } else {
+        r.readField(stream, type, projected.field(i));
+      }
+    }
+  }
+
   @Override
   public final void onRecordingStart(ParserContext context) {
     if (delegate != null) {
@@ -139,4 +412,15 @@ public abstract class EventStream implements ChunkParserListener {
    * @param ctl parser {@linkplain Control} object
    */
   protected abstract void onEventValue(MetadataClass type, Map<String, Object> value, Control ctl);
+
+  /**
+   * Called when a column batch is full, and with the remaining events at the end of each chunk.
+   *
+   * <p>Only called for the event types given as batch sizes on construction. The batch is reused
+   * for the next events of its type once this method returns.
+   *
+   * @param batch the decoded events
+   * @param ctl parser {@linkplain Control} object
+   */
+  protected void onEventBatch(EventBatch batch, Control ctl) {}
 }
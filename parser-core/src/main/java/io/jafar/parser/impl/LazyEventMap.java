@@ -26,6 +26,9 @@ import java.util.Set;
  * <p>This optimization targets the common use case where handlers only access a few fields per
  * event (e.g., filtering by timestamp, checking event type), and also handles count-only scenarios
  * efficiently.
+ *
+ * <p>For {@link io.jafar.parser.api.UntypedStrategy#AUTO} the map can record which fields are read,
+ * see {@link AdaptiveStrategy}.
  */
 public final class LazyEventMap extends AbstractMap<String, Object> {
   // Reference to the ArrayPool to extract arrays on demand
@@ -37,6 +40,9 @@ public final class LazyEventMap extends AbstractMap<String, Object> {
   private Object[] values;
   private Map<String, Object> materializedMap;
 
+  // Bit set of the read field indices while the access pattern is sampled, or null
+  private long[] accessed;
+
   public LazyEventMap(LazyMapValueBuilder.ArrayPool pool, int size) {
     this.pool = pool;
     this.size = size;
@@ -60,6 +66,7 @@ public final class LazyEventMap extends AbstractMap<String, Object> {
     // Linear search for sparse access (fast for small field counts)
     for (int i = 0; i < size; i++) {
       if (Objects.equals(keys[i], key)) {
+        markAccessed(i);
         return values[i];
       }
     }
@@ -76,6 +83,7 @@ public final class LazyEventMap extends AbstractMap<String, Object> {
 
     for (int i = 0; i < size; i++) {
       if (Objects.equals(keys[i], key)) {
+        markAccessed(i);
         return true;
       }
     }
@@ -121,6 +129,48 @@ public final class LazyEventMap extends AbstractMap<String, Object> {
     };
   }
 
+  /** Starts recording the distinct fields read through {@link #get} and {@link #containsKey}. */
+  void trackAccess() {
+    accessed = new long[(size + 63) >>> 6];
+  }
+
+  boolean isTracked() {
+    return accessed != null;
+  }
+
+  /**
+   * Gets the number of distinct fields read since {@link #trackAccess()}.
+   *
+   * @return the accessed field count; all fields once the map has been iterated
+   */
+  int accessedFields() {
+    if (materializedMap != null) {
+      return size;
+    }
+    int count = 0;
+    if (accessed != null) {
+      for (long word : accessed) {
+        count += Long.bitCount(word);
+      }
+    }
+    return count;
+  }
+
+  boolean isMaterialized() {
+    return materializedMap != null;
+  }
+
+  /** Copies the field arrays out of the pool, keeping the map valid once the pool is reused. */
+  void detach() {
+    ensureArrays();
+  }
+
+  private void markAccessed(int idx) {
+    if (accessed != null) {
+      accessed[idx >>> 6] |= 1L << idx;
+    }
+  }
+
   private void materialize() {
     if (materializedMap == null) {
       ensureArrays();
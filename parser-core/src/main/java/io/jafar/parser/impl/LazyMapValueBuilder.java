@@ -95,6 +95,11 @@ public final class LazyMapValueBuilder implements ValueProcessor {
     addFieldValue(fld, value);
   }
 
+  @Override
+  public void onStringView(MetadataClass owner, String fld, CharSequence value) {
+    addFieldValue(fld, value);
+  }
+
   @Override
   public void onShortValue(MetadataClass type, String fld, short value) {
     addFieldValue(fld, value);
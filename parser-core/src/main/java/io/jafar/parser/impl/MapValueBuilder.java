@@ -31,6 +31,11 @@ public final class MapValueBuilder implements ValueProcessor {
 
   @Override
   public void onStringValue(MetadataClass owner, String fld, String value) {
+    onStringView(owner, fld, value);
+  }
+
+  @Override
+  public void onStringView(MetadataClass owner, String fld, CharSequence value) {
     ArrayHolder ah = stack.peek(ArrayHolder.class);
     if (ah != null) {
       ah.add(value);
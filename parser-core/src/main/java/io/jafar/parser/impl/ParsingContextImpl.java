@@ -3,8 +3,11 @@ package io.jafar.parser.impl;
 import io.jafar.parser.api.ParsingContext;
 import io.jafar.parser.api.TypedJafarParser;
 import io.jafar.parser.api.UntypedJafarParser;
+import io.jafar.parser.api.UntypedProjection;
 import io.jafar.parser.api.UntypedStrategy;
+import io.jafar.parser.internal_api.ChunkParserOptions;
 import io.jafar.parser.internal_api.DeserializerFactory;
+import io.jafar.parser.internal_api.GeneratedClassCache;
 import io.jafar.parser.internal_api.ParserContextFactory;
 import java.nio.file.Path;
 import java.util.Iterator;
@@ -23,6 +26,9 @@ public final class ParsingContextImpl implements ParsingContext {
   /** Factory for creating typed parser contexts. */
   private final TypedParserContextFactory typedFactory;
 
+  /** Options applied to all chunk parsers created for this context. */
+  private final ChunkParserOptions chunkParserOptions;
+
   /** The start timestamp for tracking uptime. */
   private final long startTs = System.nanoTime();
 
@@ -36,7 +42,31 @@ public final class ParsingContextImpl implements ParsingContext {
 
   /** Constructs a new ParsingContextImpl. */
   public ParsingContextImpl() {
-    this.typedFactory = new TypedParserContextFactory(DESERIALIZER_FACTORY);
+    this(ChunkParserOptions.DEFAULT);
+  }
+
+  /**
+   * Constructs a new ParsingContextImpl with the given chunk parser options.
+   *
+   * @param chunkParserOptions the options applied to all chunk parsers of this context
+   */
+  public ParsingContextImpl(ChunkParserOptions chunkParserOptions) {
+    this.chunkParserOptions =
+        chunkParserOptions != null ? chunkParserOptions : ChunkParserOptions.DEFAULT;
+    Path classCacheDirectory = this.chunkParserOptions.classCacheDirectory();
+    this.typedFactory =
+        new TypedParserContextFactory(
+            DESERIALIZER_FACTORY,
+            classCacheDirectory != null ? new GeneratedClassCache(classCacheDirectory) : null);
+  }
+
+  /**
+   * Gets the options applied to all chunk parsers created for this context.
+   *
+   * @return the chunk parser options
+   */
+  public ChunkParserOptions chunkParserOptions() {
+    return chunkParserOptions;
   }
 
   /**
@@ -64,7 +94,19 @@ public final class ParsingContextImpl implements ParsingContext {
    * @return the untyped context factory
    */
   public ParserContextFactory untypedContextFactory(UntypedStrategy strategy) {
-    return new UntypedParserContextFactory(strategy);
+    return untypedContextFactory(strategy, null);
+  }
+
+  /**
+   * Gets the untyped context factory with specified strategy and projection.
+   *
+   * @param strategy the optimization strategy for event deserialization
+   * @param projection the fields to decode per event type, or {@code null} to decode all
+   * @return the untyped context factory
+   */
+  public ParserContextFactory untypedContextFactory(
+      UntypedStrategy strategy, UntypedProjection projection) {
+    return new UntypedParserContextFactory(strategy, projection);
   }
 
   @Override
@@ -82,6 +124,12 @@ public final class ParsingContextImpl implements ParsingContext {
     return UntypedJafarParser.open(path, this, strategy);
   }
 
+  @Override
+  public UntypedJafarParser newUntypedParser(
+      Path path, UntypedStrategy strategy, UntypedProjection projection) {
+    return UntypedJafarParser.open(path, this, strategy, projection);
+  }
+
   @Override
   public long uptime() {
     return System.nanoTime() - startTs;
@@ -28,6 +28,7 @@ final class TemporalNormalizer {
   // The default (and most common) unit for both annotations in JFR recordings.
   private static final String TICKS = "TICKS";
 
+  static final int KIND_NONE = 0;
   private static final int KIND_TIMESTAMP = 1;
   private static final int KIND_TIMESPAN = 2;
 
@@ -53,10 +54,33 @@ final class TemporalNormalizer {
     if (owner == null || fld == null || fld.isEmpty() || chunkInfo == null) {
       return value;
     }
+    return normalize(kind(owner, fld), value, chunkInfo);
+  }
+
+  /**
+   * Gets the normalization kind of a field, for callers converting many values of the same field.
+   *
+   * @param owner the metadata class that owns the field
+   * @param fld the field name
+   * @return the kind to pass to {@link #normalize(int, long, Control.ChunkInfo)}
+   */
+  static int kind(MetadataClass owner, String fld) {
     Map<String, Integer> kinds =
         NORM_CACHE.computeIfAbsent(owner, TemporalNormalizer::buildKindMap);
     Integer kind = kinds.get(fld);
-    if (kind == null) {
+    return kind != null ? kind : KIND_NONE;
+  }
+
+  /**
+   * Normalizes a field value of a known normalization kind.
+   *
+   * @param kind the kind returned by {@link #kind(MetadataClass, String)}
+   * @param value the raw field value (ticks)
+   * @param chunkInfo the chunk timing info used for conversion (may be null)
+   * @return the normalized value, or {@code value} unchanged when no conversion applies
+   */
+  static long normalize(int kind, long value, Control.ChunkInfo chunkInfo) {
+    if (kind == KIND_NONE || chunkInfo == null) {
       return value;
     }
     if (kind == KIND_TIMESTAMP) {
@@ -68,7 +92,7 @@ final class TemporalNormalizer {
 
   private static Map<String, Integer> buildKindMap(MetadataClass owner) {
     Map<String, Integer> map = null;
-    for (MetadataField field : owner.getFields()) {
+    for (MetadataField field : owner.getAllFields()) {
       for (MetadataAnnotation ann : field.getAnnotations()) {
         MetadataClass annType = ann.getType();
         if (annType == null) continue;
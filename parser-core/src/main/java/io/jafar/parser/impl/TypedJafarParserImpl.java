@@ -115,7 +115,9 @@ public final class TypedJafarParserImpl implements TypedJafarParser {
    * @param parsingContext the parsing context to use
    */
   public TypedJafarParserImpl(Path recording, ParsingContextImpl parsingContext) {
-    this.parser = new StreamingChunkParser(parsingContext.typedContextFactory());
+    this.parser =
+        new StreamingChunkParser(
+            parsingContext.typedContextFactory(), parsingContext.chunkParserOptions());
     this.recording = recording;
     this.handlerMap = new HashMap<>();
     this.chunkTypeClassMap = new IntObjectArrayMap<>();
@@ -227,6 +229,47 @@ public final class TypedJafarParserImpl implements TypedJafarParser {
                 || parserListener.onChunkEnd(context, chunkIndex, skipped);
           }
 
+          @Override
+          public boolean supportsIntraChunkParallelism() {
+            return parserListener == null || parserListener.supportsIntraChunkParallelism();
+          }
+
+          @Override
+          public Set<String> acceptedEventTypes() {
+            Set<String> types = new HashSet<>();
+            if (parserListener != null) {
+              Set<String> listenerTypes = parserListener.acceptedEventTypes();
+              if (listenerTypes == null) {
+                return null;
+              }
+              types.addAll(listenerTypes);
+            }
+            for (Class<?> clz : handlerMap.keySet()) {
+              JfrType typeAnnotation = clz.getAnnotation(JfrType.class);
+              if (typeAnnotation == null) {
+                return null;
+              }
+              types.add(typeAnnotation.value());
+            }
+            return types;
+          }
+
+          @Override
+          public void onWorkerStart(ParserContext chunkContext, ParserContext workerContext) {
+            ((ControlImpl) control.get()).setStream(workerContext.get(RecordingStream.class));
+            if (parserListener != null) {
+              parserListener.onWorkerStart(chunkContext, workerContext);
+            }
+          }
+
+          @Override
+          public void onWorkerEnd(ParserContext workerContext) {
+            ((ControlImpl) control.get()).setStream(null);
+            if (parserListener != null) {
+              parserListener.onWorkerEnd(workerContext);
+            }
+          }
+
           @Override
           public boolean onMetadata(ParserContext context, MetadataEvent metadata) {
             if (!(context instanceof TypedParserContext)) {
@@ -239,25 +282,25 @@ public final class TypedJafarParserImpl implements TypedJafarParser {
             if (!factoryMap.isEmpty() && !factoriesBound) {
               synchronized (TypedJafarParserImpl.this) {
                 if (!factoriesBound) {
-                  // First, bind factories for type ID resolution
+                  // Bind factories for type ID resolution
                   for (HandlerFactory<?> factory : factoryMap.values()) {
                     factory.bind(context.getMetadataLookup());
                   }
 
-                  // Then inject factories into corresponding MetadataClass instances
-                  for (Map.Entry<Class<?>, HandlerFactory<?>> entry : factoryMap.entrySet()) {
-                    String jfrTypeName = entry.getValue().getJfrTypeName();
-                    MetadataClass metadataClass = context.getMetadataLookup().getClass(jfrTypeName);
-                    if (metadataClass != null) {
-                      metadataClass.bindFactory(entry.getValue());
-                    }
-                  }
-
                   factoriesBound = true;
                 }
               }
             }
 
+            // Inject factories into the MetadataClass instances of each chunk
+            for (HandlerFactory<?> factory : factoryMap.values()) {
+              MetadataClass metadataClass =
+                  context.getMetadataLookup().getClass(factory.getJfrTypeName());
+              if (metadataClass != null) {
+                metadataClass.bindFactory(factory);
+              }
+            }
+
             // Build transitive closure of all types referenced by registered handlers (once per
             // session)
             if (!globalHandlerMap.isEmpty() && referencedTypes == null) {
@@ -436,7 +479,7 @@ public final class TypedJafarParserImpl implements TypedJafarParser {
         // Add all field types to processing queue
         // This recursively includes simple types: if Method has field "name" of type Symbol,
         // Symbol gets added to toProcess, and then Symbol's field "string" gets processed
-        for (MetadataField field : metadataClass.getFields()) {
+        for (MetadataField field : metadataClass.getAllFields()) {
           MetadataClass fieldType = field.getType();
           if (fieldType != null) {
             String fieldTypeName = fieldType.getName();
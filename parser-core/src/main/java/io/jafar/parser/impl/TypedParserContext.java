@@ -54,8 +54,8 @@ public final class TypedParserContext extends ParserContext {
       this.id = clz.getId();
       this.name = clz.getName();
       this.superType = clz.getSuperType();
-      this.fieldNames = new ArrayList<>(clz.getFields().size());
-      for (MetadataField field : clz.getFields()) {
+      this.fieldNames = new ArrayList<>(clz.getAllFields().size());
+      for (MetadataField field : clz.getAllFields()) {
         MetadataClass ft = field.getType();
         this.fieldNames.add(
             (ft != null ? ft.getName() : "<unknown:" + field.getTypeId() + ">")
@@ -165,6 +165,21 @@ public final class TypedParserContext extends ParserContext {
     }
   }
 
+  /**
+   * Constructs a worker context sharing the metadata, constant pools, type mappings and
+   * deserializer cache of the given chunk context.
+   *
+   * @param chunkContext the context of the chunk being decoded
+   */
+  TypedParserContext(TypedParserContext chunkContext) {
+    super(chunkContext);
+    this.globalDeserializerCache = chunkContext.globalDeserializerCache;
+    this.factory = chunkContext.factory;
+    this.typeFilter = chunkContext.typeFilter;
+    this.classTargetTypeMap.putAll(chunkContext.classTargetTypeMap);
+    this.classTypeMap = chunkContext.classTypeMap;
+  }
+
   /**
    * Gets the current type filter.
    *
@@ -4,11 +4,14 @@ import io.jafar.parser.api.ParserContext;
 import io.jafar.parser.internal_api.ChunkHeader;
 import io.jafar.parser.internal_api.DeserializerCache;
 import io.jafar.parser.internal_api.DeserializerFactory;
+import io.jafar.parser.internal_api.GeneratedClassCache;
 import io.jafar.parser.internal_api.GlobalHandlerCache;
+import io.jafar.parser.internal_api.MutableConstantPool;
 import io.jafar.parser.internal_api.MutableConstantPools;
 import io.jafar.parser.internal_api.MutableMetadataLookup;
 import io.jafar.parser.internal_api.ParserContextFactory;
 import io.jafar.parser.internal_api.collections.IntObjectArrayMap;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
 import io.jafar.parser.internal_api.metadata.MetadataFingerprint;
 import java.util.Set;
 
@@ -26,6 +29,7 @@ import java.util.Set;
  */
 public final class TypedParserContextFactory implements ParserContextFactory {
   private final DeserializerFactory deserializerFactory;
+  private final GeneratedClassCache classCache;
 
   /**
    * Constructs a TypedParserContextFactory with the given DeserializerFactory.
@@ -33,7 +37,20 @@ public final class TypedParserContextFactory implements ParserContextFactory {
    * @param deserializerFactory the factory for creating deserializers, or null if unavailable
    */
   public TypedParserContextFactory(DeserializerFactory deserializerFactory) {
+    this(deserializerFactory, null);
+  }
+
+  /**
+   * Constructs a TypedParserContextFactory with the given DeserializerFactory and persistent class
+   * cache.
+   *
+   * @param deserializerFactory the factory for creating deserializers, or null if unavailable
+   * @param classCache the persistent cache of generated classes, or null if disabled
+   */
+  public TypedParserContextFactory(
+      DeserializerFactory deserializerFactory, GeneratedClassCache classCache) {
     this.deserializerFactory = deserializerFactory;
+    this.classCache = classCache;
   }
 
   /**
@@ -60,7 +77,7 @@ public final class TypedParserContextFactory implements ParserContextFactory {
     if (parent == null) {
       // New recording — create a fresh per-recording state and attach it to the root context.
       // Each concurrent recording gets its own RecordingState so chunk-indexed maps never collide.
-      TypedParserContext root = new TypedParserContext(null);
+      TypedParserContext root = new TypedParserContext((DeserializerCache) null);
       root.put(RecordingState.class, new RecordingState());
       if (deserializerFactory != null) {
         root.put(DeserializerFactory.class, deserializerFactory);
@@ -88,11 +105,39 @@ public final class TypedParserContextFactory implements ParserContextFactory {
     if (deserializerFactory != null) {
       ctx.put(DeserializerFactory.class, deserializerFactory);
     }
+    if (classCache != null) {
+      ctx.put(GeneratedClassCache.class, classCache);
+    }
     // Propagate the per-recording state so resolveDeserializerCache can reach it
     ctx.put(RecordingState.class, state);
     return ctx;
   }
 
+  @Override
+  public ParserContext newWorkerContext(ParserContext chunkContext) {
+    return new TypedParserContext((TypedParserContext) chunkContext);
+  }
+
+  /**
+   * Materializes the pools resolved by typed handlers: handler types, strings and the simple types
+   * wrapping them. Other pools are only skipped over by the generated code.
+   */
+  @Override
+  public MutableConstantPool.Materialization constantPoolMaterialization(
+      ParserContext chunkContext, MutableConstantPool pool) {
+    MetadataClass type = pool.getType();
+    if (type == null) {
+      return null;
+    }
+    if (type.isPrimitive()
+        || type.isSimpleType()
+        || type.getFactory() != null
+        || ((TypedParserContext) chunkContext).getClassTargetType(type.getName()) != null) {
+      return MutableConstantPool.Materialization.OBJECTS;
+    }
+    return null;
+  }
+
   @Override
   public void onChunkMetadata(ParserContext context, ChunkHeader header) {
     if (context instanceof TypedParserContext) {
@@ -107,7 +152,8 @@ public final class TypedParserContextFactory implements ParserContextFactory {
    * Resolves and sets the deserializer cache for a context based on metadata fingerprint.
    *
    * <p>Computes a fingerprint for the reachable types from the context's target event types, then
-   * retrieves or creates a deserializer cache from the global cache.
+   * retrieves or creates a deserializer cache from the global cache. The fingerprint is kept in the
+   * context for deserializer factories using the {@link GeneratedClassCache}.
    *
    * @param chunkIndex the chunk index
    * @param metadata the metadata lookup for this chunk
@@ -119,6 +165,7 @@ public final class TypedParserContextFactory implements ParserContextFactory {
     Set<String> eventTypes = context.getTargetEventTypes();
     Set<Long> reachableTypes = MetadataFingerprint.computeReachableTypes(metadata, eventTypes);
     MetadataFingerprint fingerprint = MetadataFingerprint.compute(metadata, reachableTypes);
+    context.put(MetadataFingerprint.class, fingerprint);
 
     // Get or create cache from global registry
     DeserializerCache cache = GlobalHandlerCache.getInstance().getOrCreateCache(fingerprint);
@@ -1,17 +1,25 @@
 package io.jafar.parser.impl;
 
 import io.jafar.parser.api.Control;
+import io.jafar.parser.api.EventBatch;
+import io.jafar.parser.api.FieldFilter;
 import io.jafar.parser.api.HandlerRegistration;
 import io.jafar.parser.api.JafarParser;
 import io.jafar.parser.api.ParsingContext;
 import io.jafar.parser.api.UntypedJafarParser;
+import io.jafar.parser.api.UntypedProjection;
 import io.jafar.parser.api.UntypedStrategy;
+import io.jafar.parser.api.UntypedTypeStats;
 import io.jafar.parser.internal_api.ChunkParserListener;
 import io.jafar.parser.internal_api.StreamingChunkParser;
 import io.jafar.parser.internal_api.metadata.MetadataClass;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,15 +36,15 @@ public final class UntypedJafarParserImpl implements UntypedJafarParser {
    * @param <T> the type parameter (unused in untyped parsing)
    */
   private final class HandlerRegistrationImpl<T> implements HandlerRegistration<T> {
-    /** The event handler associated with this registration. */
-    private final EventHandler handler;
+    /** The event or batch handler associated with this registration. */
+    private final Object handler;
 
     /**
      * Constructs a new HandlerRegistrationImpl with the specified handler.
      *
-     * @param handler the event handler to register
+     * @param handler the event or batch handler to register
      */
-    HandlerRegistrationImpl(EventHandler handler) {
+    HandlerRegistrationImpl(Object handler) {
       this.handler = handler;
     }
 
@@ -44,6 +52,7 @@ public final class UntypedJafarParserImpl implements UntypedJafarParser {
     public void destroy(JafarParser cookie) {
       assert cookie == UntypedJafarParserImpl.this;
       handlers.remove(handler);
+      batchHandlers.remove(handler);
     }
   }
 
@@ -59,8 +68,17 @@ public final class UntypedJafarParserImpl implements UntypedJafarParser {
   /** The optimization strategy for event deserialization. */
   private final UntypedStrategy strategy;
 
-  /** The set of registered event handlers. */
-  private final Set<EventHandler> handlers;
+  /** The fields to decode per event type, or {@code null} to decode all. */
+  private final UntypedProjection projection;
+
+  /** The per-type decoding choice for {@link UntypedStrategy#AUTO}, or {@code null}. */
+  private final AdaptiveStrategy adaptiveStrategy;
+
+  /** The registered event handlers with their event types and field filters. */
+  private final Map<EventHandler, EventPrefilter.Alternative> handlers;
+
+  /** The registered batch handlers with the batch size by event type name. */
+  private final Map<BatchHandler, Map<String, Integer>> batchHandlers;
 
   /**
    * Constructs a new UntypedJafarParserImpl for the specified path and context.
@@ -80,10 +98,51 @@ public final class UntypedJafarParserImpl implements UntypedJafarParser {
    * @param strategy the optimization strategy for event deserialization
    */
   public UntypedJafarParserImpl(Path path, ParsingContext context, UntypedStrategy strategy) {
+    this(path, context, strategy, null);
+  }
+
+  /**
+   * Constructs a new UntypedJafarParserImpl for the specified path, context, strategy and
+   * projection.
+   *
+   * @param path the path to the JFR recording file
+   * @param context the parsing context to use
+   * @param strategy the optimization strategy for event deserialization
+   * @param projection the fields to decode per event type, or {@code null} to decode all
+   */
+  public UntypedJafarParserImpl(
+      Path path, ParsingContext context, UntypedStrategy strategy, UntypedProjection projection) {
+    this(path, context, strategy, projection, null);
+  }
+
+  /**
+   * Constructs a new UntypedJafarParserImpl with the given per-type decisions for {@link
+   * UntypedStrategy#AUTO}.
+   *
+   * @param path the path to the JFR recording file
+   * @param context the parsing context to use
+   * @param strategy the optimization strategy for event deserialization
+   * @param projection the fields to decode per event type, or {@code null} to decode all
+   * @param adaptiveStrategy the per-type decisions, used only if {@code strategy} is {@link
+   *     UntypedStrategy#AUTO}; {@code null} for a new {@link AdaptiveStrategy} with the default
+   *     warm-up
+   */
+  public UntypedJafarParserImpl(
+      Path path,
+      ParsingContext context,
+      UntypedStrategy strategy,
+      UntypedProjection projection,
+      AdaptiveStrategy adaptiveStrategy) {
     this.path = path;
     this.context = context;
     this.strategy = strategy != null ? strategy : UntypedStrategy.SPARSE_ACCESS;
-    this.handlers = new HashSet<>();
+    this.projection = projection;
+    this.adaptiveStrategy =
+        this.strategy != UntypedStrategy.AUTO
+            ? null
+            : adaptiveStrategy != null ? adaptiveStrategy : new AdaptiveStrategy();
+    this.handlers = new HashMap<>();
+    this.batchHandlers = new HashMap<>();
     this.parserListener = null;
   }
 
@@ -97,27 +156,88 @@ public final class UntypedJafarParserImpl implements UntypedJafarParser {
     this.path = other.path;
     this.context = other.context;
     this.strategy = other.strategy;
+    this.projection = other.projection;
+    this.adaptiveStrategy = other.adaptiveStrategy;
 
-    this.handlers = new HashSet<>(other.handlers);
+    this.handlers = new HashMap<>(other.handlers);
+    this.batchHandlers = new HashMap<>(other.batchHandlers);
     this.parserListener = listener;
   }
 
   @Override
   public HandlerRegistration<?> handle(EventHandler handler) {
-    handlers.add(handler);
+    handlers.put(handler, EventPrefilter.alternative(null, null));
+    return new HandlerRegistrationImpl<>(handler);
+  }
+
+  @Override
+  public HandlerRegistration<?> handle(Set<String> eventTypes, EventHandler handler) {
+    return handle(eventTypes, null, handler);
+  }
+
+  @Override
+  public HandlerRegistration<?> handle(
+      Set<String> eventTypes, List<FieldFilter> filters, EventHandler handler) {
+    handlers.put(
+        handler,
+        EventPrefilter.alternative(
+            Collections.unmodifiableSet(new HashSet<>(eventTypes)), filters));
+    return new HandlerRegistrationImpl<>(handler);
+  }
+
+  @Override
+  public HandlerRegistration<?> handleBatches(
+      Set<String> eventTypes, int batchSize, BatchHandler handler) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    Map<String, Integer> sizes = new HashMap<>();
+    for (String type : eventTypes) {
+      sizes.put(type, batchSize);
+    }
+    batchHandlers.put(handler, sizes);
     return new HandlerRegistrationImpl<>(handler);
   }
 
+  @Override
+  public Map<String, UntypedTypeStats> strategyStats() {
+    return adaptiveStrategy != null ? adaptiveStrategy.stats() : Collections.emptyMap();
+  }
+
   @Override
   public void run() throws IOException {
+    ParsingContextImpl contextImpl = (ParsingContextImpl) context;
     try (StreamingChunkParser parser =
-        new StreamingChunkParser(((ParsingContextImpl) context).untypedContextFactory(strategy))) {
+        new StreamingChunkParser(
+            new UntypedParserContextFactory(strategy, projection, adaptiveStrategy),
+            contextImpl.chunkParserOptions())) {
       ChunkParserListener listener =
-          new EventStream(parserListener) {
+          new EventStream(
+              parserListener,
+              acceptedEventTypes(),
+              prefilter(),
+              batchSizes(),
+              contextImpl.chunkParserOptions().lazyStrings()) {
             @Override
             protected void onEventValue(
                 MetadataClass type, Map<String, Object> value, Control ctl) {
-              handlers.forEach(h -> h.handle(type, value, ctl));
+              handlers.forEach(
+                  (h, registration) -> {
+                    if (registration.accepts(type) && registration.matches(value)) {
+                      h.handle(type, value, ctl);
+                    }
+                  });
+            }
+
+            @Override
+            protected void onEventBatch(EventBatch batch, Control ctl) {
+              String type = batch.type().getName();
+              batchHandlers.forEach(
+                  (h, sizes) -> {
+                    if (sizes.containsKey(type)) {
+                      h.handle(batch, ctl);
+                    }
+                  });
             }
           };
       parser.parse(path, listener);
@@ -128,9 +248,53 @@ public final class UntypedJafarParserImpl implements UntypedJafarParser {
     }
   }
 
+  /**
+   * Gets the union of the event types of all handlers.
+   *
+   * @return the event type names, or {@code null} if a handler accepts all event types
+   */
+  private Set<String> acceptedEventTypes() {
+    Set<String> types = new HashSet<>();
+    for (EventPrefilter.Alternative registration : handlers.values()) {
+      if (registration.types == null) {
+        return null;
+      }
+      types.addAll(registration.types);
+    }
+    return types;
+  }
+
+  /**
+   * Gets the batch size of each event type received by a batch handler.
+   *
+   * @return the smallest requested batch size by event type name
+   */
+  private Map<String, Integer> batchSizes() {
+    Map<String, Integer> sizes = new HashMap<>();
+    for (Map<String, Integer> registration : batchHandlers.values()) {
+      registration.forEach((type, size) -> sizes.merge(type, size, Math::min));
+    }
+    return sizes;
+  }
+
+  /**
+   * Gets the field filters to check before building event maps.
+   *
+   * @return the prefilter, or {@code null} if no handler has field filters
+   */
+  private EventPrefilter prefilter() {
+    for (EventPrefilter.Alternative registration : handlers.values()) {
+      if (!registration.filters.isEmpty()) {
+        return new EventPrefilter(new ArrayList<>(handlers.values()));
+      }
+    }
+    return null;
+  }
+
   @Override
   public void close() throws Exception {
     handlers.clear();
+    batchHandlers.clear();
   }
 
   /**
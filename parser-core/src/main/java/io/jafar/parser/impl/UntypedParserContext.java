@@ -1,6 +1,7 @@
 package io.jafar.parser.impl;
 
 import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.api.UntypedProjection;
 import io.jafar.parser.api.UntypedStrategy;
 import io.jafar.parser.internal_api.UntypedDeserializerCache;
 
@@ -17,6 +18,9 @@ public class UntypedParserContext extends ParserContext {
   /** Optimization strategy for event deserialization. */
   private final UntypedStrategy strategy;
 
+  /** Fields to decode per event type, or {@code null} to decode all. */
+  private final UntypedProjection projection;
+
   /**
    * Constructs a new UntypedParserContext for the specified chunk.
    *
@@ -45,12 +49,46 @@ public class UntypedParserContext extends ParserContext {
    */
   public UntypedParserContext(
       int chunkIndex, UntypedDeserializerCache deserializerCache, UntypedStrategy strategy) {
+    this(chunkIndex, deserializerCache, strategy, null);
+  }
+
+  /**
+   * Constructs a new UntypedParserContext with the specified deserializer cache, strategy and
+   * projection.
+   *
+   * @param chunkIndex the index of the chunk this context is for
+   * @param deserializerCache the deserializer cache to use
+   * @param strategy the optimization strategy for event deserialization
+   * @param projection the fields to decode per event type, or {@code null} to decode all
+   */
+  public UntypedParserContext(
+      int chunkIndex,
+      UntypedDeserializerCache deserializerCache,
+      UntypedStrategy strategy,
+      UntypedProjection projection) {
     super(chunkIndex);
     this.deserializerCache =
         deserializerCache != null ? deserializerCache : new UntypedDeserializerCache.Impl();
     this.strategy = strategy != null ? strategy : UntypedStrategy.SPARSE_ACCESS;
+    this.projection = projection;
     this.put(UntypedDeserializerCache.class, this.deserializerCache);
     this.put(UntypedStrategy.class, this.strategy);
+    if (projection != null) {
+      this.put(UntypedProjection.class, projection);
+    }
+  }
+
+  /**
+   * Constructs a worker context sharing the metadata, constant pools, deserializer cache, strategy
+   * and projection of the given chunk context.
+   *
+   * @param chunkContext the context of the chunk being decoded
+   */
+  UntypedParserContext(UntypedParserContext chunkContext) {
+    super(chunkContext);
+    this.deserializerCache = chunkContext.deserializerCache;
+    this.strategy = chunkContext.strategy;
+    this.projection = chunkContext.projection;
   }
 
   /**
@@ -71,6 +109,15 @@ public class UntypedParserContext extends ParserContext {
     return strategy;
   }
 
+  /**
+   * Gets the fields decoded per event type.
+   *
+   * @return the projection, or {@code null} if all fields are decoded
+   */
+  public UntypedProjection getProjection() {
+    return projection;
+  }
+
   /**
    * Called when constant pools are ready for processing.
    *
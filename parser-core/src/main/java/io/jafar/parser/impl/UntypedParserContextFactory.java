@@ -1,7 +1,9 @@
 package io.jafar.parser.impl;
 
 import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.api.UntypedProjection;
 import io.jafar.parser.api.UntypedStrategy;
+import io.jafar.parser.internal_api.MutableConstantPool;
 import io.jafar.parser.internal_api.ParserContextFactory;
 import io.jafar.parser.internal_api.UntypedDeserializerCache;
 
@@ -19,6 +21,12 @@ public final class UntypedParserContextFactory implements ParserContextFactory {
   /** The optimization strategy for event deserialization. */
   private final UntypedStrategy strategy;
 
+  /** The fields to decode per event type, or {@code null} to decode all. */
+  private final UntypedProjection projection;
+
+  /** The per-type decoding choice for {@link UntypedStrategy#AUTO}, or {@code null}. */
+  private final AdaptiveStrategy adaptiveStrategy;
+
   /**
    * Public constructor for UntypedParserContextFactory with default SPARSE_ACCESS strategy.
    *
@@ -38,7 +46,32 @@ public final class UntypedParserContextFactory implements ParserContextFactory {
    * @param strategy the optimization strategy for event deserialization
    */
   public UntypedParserContextFactory(UntypedStrategy strategy) {
+    this(strategy, null);
+  }
+
+  /**
+   * Public constructor for UntypedParserContextFactory with specified strategy and projection.
+   *
+   * @param strategy the optimization strategy for event deserialization
+   * @param projection the fields to decode per event type, or {@code null} to decode all
+   */
+  public UntypedParserContextFactory(UntypedStrategy strategy, UntypedProjection projection) {
+    this(strategy, projection, strategy == UntypedStrategy.AUTO ? new AdaptiveStrategy() : null);
+  }
+
+  /**
+   * Public constructor for UntypedParserContextFactory sharing the adaptive decoding choices of an
+   * {@link UntypedStrategy#AUTO} parser.
+   *
+   * @param strategy the optimization strategy for event deserialization
+   * @param projection the fields to decode per event type, or {@code null} to decode all
+   * @param adaptiveStrategy the per-type decoding choice, used with {@link UntypedStrategy#AUTO}
+   */
+  public UntypedParserContextFactory(
+      UntypedStrategy strategy, UntypedProjection projection, AdaptiveStrategy adaptiveStrategy) {
     this.strategy = strategy != null ? strategy : UntypedStrategy.SPARSE_ACCESS;
+    this.projection = projection;
+    this.adaptiveStrategy = this.strategy == UntypedStrategy.AUTO ? adaptiveStrategy : null;
   }
 
   /**
@@ -53,12 +86,42 @@ public final class UntypedParserContextFactory implements ParserContextFactory {
    */
   @Override
   public ParserContext newContext(ParserContext parent, int chunkIndex) {
+    UntypedParserContext context;
     if (parent == null) {
-      return new UntypedParserContext(chunkIndex, deserializerCache, strategy);
+      context = new UntypedParserContext(chunkIndex, deserializerCache, strategy, projection);
+    } else {
+      // Share the deserializer cache, strategy and projection from parent
+      UntypedParserContext parentCtx = (UntypedParserContext) parent;
+      context =
+          new UntypedParserContext(
+              chunkIndex,
+              parentCtx.getDeserializerCache(),
+              parentCtx.getStrategy(),
+              parentCtx.getProjection());
+    }
+    if (adaptiveStrategy != null) {
+      context.put(AdaptiveStrategy.class, adaptiveStrategy);
+    }
+    return context;
+  }
+
+  @Override
+  public ParserContext newWorkerContext(ParserContext chunkContext) {
+    return new UntypedParserContext((UntypedParserContext) chunkContext);
+  }
+
+  /**
+   * Materializes strings as values and all other pools as the maps shared by the constant pool
+   * accessors.
+   */
+  @Override
+  public MutableConstantPool.Materialization constantPoolMaterialization(
+      ParserContext chunkContext, MutableConstantPool pool) {
+    if (pool.getType() == null) {
+      return null;
     }
-    // Share the deserializer cache and strategy from parent
-    UntypedParserContext parentCtx = (UntypedParserContext) parent;
-    return new UntypedParserContext(
-        chunkIndex, parentCtx.getDeserializerCache(), parentCtx.getStrategy());
+    return pool.getType().isPrimitive()
+        ? MutableConstantPool.Materialization.OBJECTS
+        : MutableConstantPool.Materialization.MAPS;
   }
 }
@@ -0,0 +1,85 @@
+package io.jafar.parser.internal_api;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A small pool of direct buffers holding chunks read from an {@link java.io.InputStream}.
+ *
+ * <p>Buffers are handed out with position {@code 0} and limit set to the requested size. Their
+ * capacity is rounded up to whole MiBs so that a buffer can be reused for the next chunk even if it
+ * is slightly larger.
+ */
+final class ChunkBufferPool {
+  private static final int CAPACITY_GRANULARITY = 1024 * 1024;
+
+  /** Maximum number of idle buffers kept for reuse. */
+  private final int maxPooled;
+
+  private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+  /**
+   * Creates a new pool.
+   *
+   * @param maxPooled maximum number of idle buffers kept for reuse
+   */
+  ChunkBufferPool(int maxPooled) {
+    this.maxPooled = maxPooled;
+  }
+
+  /**
+   * Borrows a buffer able to hold {@code size} bytes.
+   *
+   * @param size the required size
+   * @return a buffer with position {@code 0} and limit {@code size}
+   */
+  synchronized ByteBuffer acquire(int size) {
+    ByteBuffer buffer = null;
+    Iterator<ByteBuffer> it = free.iterator();
+    while (it.hasNext()) {
+      ByteBuffer candidate = it.next();
+      if (candidate.capacity() >= size) {
+        it.remove();
+        buffer = candidate;
+        break;
+      }
+    }
+    if (buffer == null) {
+      if (free.size() >= maxPooled) {
+        // every idle buffer is too small; drop one so the pool does not grow past its bound
+        free.poll();
+      }
+      buffer = ByteBuffer.allocateDirect(capacityFor(size));
+    }
+    buffer.clear();
+    buffer.limit(size);
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool. The buffer must not be used by the caller anymore.
+   *
+   * @param buffer the buffer obtained via {@link #acquire(int)}
+   * @throws IllegalStateException if the buffer is already in the pool
+   */
+  synchronized void release(ByteBuffer buffer) {
+    for (ByteBuffer idle : free) {
+      if (idle == buffer) {
+        // handing the buffer out twice would let two chunks overwrite each other
+        throw new IllegalStateException("Chunk buffer released twice");
+      }
+    }
+    if (free.size() < maxPooled) {
+      free.push(buffer);
+    }
+  }
+
+  private static int capacityFor(int size) {
+    long rounded =
+        ((long) Math.max(size, 1) + CAPACITY_GRANULARITY - 1)
+            / CAPACITY_GRANULARITY
+            * CAPACITY_GRANULARITY;
+    return (int) Math.min(rounded, Integer.MAX_VALUE - 8);
+  }
+}
@@ -0,0 +1,177 @@
+package io.jafar.parser.internal_api;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sidecar index mapping the chunks of a compressed recording to offsets in the compressed file.
+ *
+ * <p>The index is stored next to the recording as {@code <recording>}{@value #SUFFIX} and is
+ * written after a full pass over the recording. It is ignored once the recording changes. For
+ * seekable compression formats a later run can start decompressing at the frame holding the first
+ * chunk it needs instead of at the beginning of the file.
+ */
+final class ChunkOffsetIndex {
+  private static final Logger log = LoggerFactory.getLogger(ChunkOffsetIndex.class);
+
+  /** File name suffix of the sidecar index. */
+  static final String SUFFIX = ".chunks";
+
+  private static final int MAGIC = 0x4A434F49; // "JCOI"
+  private static final int VERSION = 1;
+
+  private final List<Entry> entries;
+
+  private ChunkOffsetIndex(List<Entry> entries) {
+    this.entries = Collections.unmodifiableList(entries);
+  }
+
+  /** Location of a single chunk. */
+  static final class Entry {
+    /** 1-based chunk index, as reported to {@link ChunkParserListener#onChunkStart}. */
+    final int chunkIndex;
+
+    /** Offset of the chunk in the decompressed recording. */
+    final long uncompressedOffset;
+
+    /** Offset in the compressed file to start decompressing the chunk from, or {@code -1}. */
+    final long compressedOffset;
+
+    /** Chunk size in bytes. */
+    final long size;
+
+    Entry(int chunkIndex, long uncompressedOffset, long compressedOffset, long size) {
+      this.chunkIndex = chunkIndex;
+      this.uncompressedOffset = uncompressedOffset;
+      this.compressedOffset = compressedOffset;
+      this.size = size;
+    }
+
+    /**
+     * Whether decompression can start at this chunk.
+     *
+     * @return {@literal true} if the chunk starts at a compressed frame boundary
+     */
+    boolean isSeekable() {
+      return compressedOffset >= 0;
+    }
+  }
+
+  /**
+   * Reads the sidecar index of a recording.
+   *
+   * @param recording the compressed recording
+   * @return the index, or {@code null} if there is no usable index for the current recording
+   */
+  static ChunkOffsetIndex read(Path recording) {
+    try (DataInputStream in = SidecarFile.open(recording, SUFFIX, MAGIC, VERSION)) {
+      if (in == null) {
+        return null;
+      }
+      int count = in.readInt();
+      List<Entry> entries = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        entries.add(new Entry(in.readInt(), in.readLong(), in.readLong(), in.readLong()));
+      }
+      return new ChunkOffsetIndex(entries);
+    } catch (IOException e) {
+      log.debug("Ignoring unreadable chunk offset index of {}", recording, e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes this index next to the recording, replacing any previous index.
+   *
+   * @param recording the compressed recording
+   * @throws IOException if the sidecar cannot be written
+   */
+  void write(Path recording) throws IOException {
+    SidecarFile.write(
+        recording,
+        SUFFIX,
+        MAGIC,
+        VERSION,
+        out -> {
+          out.writeInt(entries.size());
+          for (Entry e : entries) {
+            out.writeInt(e.chunkIndex);
+            out.writeLong(e.uncompressedOffset);
+            out.writeLong(e.compressedOffset);
+            out.writeLong(e.size);
+          }
+        });
+  }
+
+  /**
+   * Gets the indexed chunks in recording order.
+   *
+   * @return the chunk entries
+   */
+  List<Entry> entries() {
+    return entries;
+  }
+
+  /**
+   * Finds the closest chunk at or before {@code chunkIndex} at which decompression can start.
+   *
+   * @param chunkIndex the 1-based index of the first chunk needed
+   * @return the entry to start from, or {@code null} if decompression must start at the beginning
+   */
+  Entry seekTarget(int chunkIndex) {
+    Entry target = null;
+    for (Entry e : entries) {
+      if (e.chunkIndex > chunkIndex) {
+        break;
+      }
+      if (e.isSeekable() && e.chunkIndex > 1) {
+        target = e;
+      }
+    }
+    return target;
+  }
+
+  /** Collects the chunk offsets while a compressed recording is decompressed. */
+  static final class Builder {
+    private final DecompressingInputStream source;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Creates a builder.
+     *
+     * @param source the stream decompressing the recording from its beginning, not read yet
+     */
+    Builder(DecompressingInputStream source) {
+      this.source = source;
+      source.recordFrameStarts();
+    }
+
+    /**
+     * Records a chunk. Must be called in chunk order, after the chunk header has been read.
+     *
+     * @param chunkIndex the 1-based chunk index
+     * @param uncompressedOffset the chunk offset in the decompressed recording
+     * @param size the chunk size
+     */
+    void add(int chunkIndex, long uncompressedOffset, long size) {
+      entries.add(
+          new Entry(
+              chunkIndex, uncompressedOffset, source.compressedOffsetOf(uncompressedOffset), size));
+    }
+
+    /**
+     * Builds the index.
+     *
+     * @return the index
+     */
+    ChunkOffsetIndex build() {
+      return new ChunkOffsetIndex(entries);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package io.jafar.parser.internal_api;
 
 import io.jafar.parser.api.ParserContext;
 import io.jafar.parser.internal_api.metadata.MetadataEvent;
+import java.util.Set;
 
 /**
  * A callback to be provided to {@linkplain StreamingChunkParser#parse(java.nio.file.Path,
@@ -68,6 +69,47 @@ public interface ChunkParserListener {
     return true;
   }
 
+  /**
+   * Whether {@linkplain #onEvent(ParserContext, long, long, long, long)} may be called concurrently
+   * for events of the same chunk, each thread using its own worker context.
+   *
+   * <p>Listeners keeping per-chunk mutable state in the chunk context must initialize the
+   * equivalent per-worker state in {@linkplain #onWorkerStart(ParserContext, ParserContext)}.
+   *
+   * @return {@literal true} if intra-chunk parallel event decoding is supported
+   */
+  default boolean supportsIntraChunkParallelism() {
+    return false;
+  }
+
+  /**
+   * The names of the event types this listener is interested in.
+   *
+   * <p>When an {@linkplain EventIndex event index} is available, chunks containing none of these
+   * types are skipped and only the byte ranges holding events of these types are dispatched. Events
+   * of other types may still be delivered and must be ignored by the listener.
+   *
+   * @return the accepted event type names, or {@code null} if all event types are of interest
+   */
+  default Set<String> acceptedEventTypes() {
+    return null;
+  }
+
+  /**
+   * Called on a worker thread before it starts dispatching a range of events of a chunk.
+   *
+   * @param chunkContext the context of the chunk being decoded
+   * @param workerContext the worker context the range events will be dispatched with
+   */
+  default void onWorkerStart(ParserContext chunkContext, ParserContext workerContext) {}
+
+  /**
+   * Called on a worker thread after it has finished dispatching its range of events.
+   *
+   * @param workerContext the worker context
+   */
+  default void onWorkerEnd(ParserContext workerContext) {}
+
   /**
    * Called when a chunk is fully processed or skipped
    *
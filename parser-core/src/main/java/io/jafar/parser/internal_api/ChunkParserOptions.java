@@ -0,0 +1,634 @@
+package io.jafar.parser.internal_api;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tuning options for {@link StreamingChunkParser}.
+ *
+ * <p>Instances are immutable; use {@link #builder()} to create customized options. {@link #DEFAULT}
+ * reproduces the classic behaviour of one decoding task per chunk.
+ */
+public final class ChunkParserOptions {
+  /** Default minimum chunk payload size for intra-chunk parallel decoding (4 MiB). */
+  public static final long DEFAULT_INTRA_CHUNK_MIN_SIZE = 4L * 1024 * 1024;
+
+  /** Default options: intra-chunk parallel decoding is disabled. */
+  public static final ChunkParserOptions DEFAULT = builder().build();
+
+  /** Number of threads decoding the events of a single chunk; 1 disables the feature. */
+  private final int intraChunkParallelism;
+
+  /** Minimum chunk payload size (in bytes) for a chunk to be split between threads. */
+  private final long intraChunkMinSize;
+
+  /** Caller-owned executor running the chunk tasks, or {@code null} for a parser-owned pool. */
+  private final ExecutorService executor;
+
+  /** Whether a parser-owned executor should run each chunk on its own virtual thread. */
+  private final boolean virtualThreads;
+
+  /** Maximum number of chunks submitted but not yet finished; {@code 0} means unbounded. */
+  private final int maxChunksInFlight;
+
+  /** Whether a chunk offset sidecar is written next to compressed recordings. */
+  private final boolean compressedChunkIndex;
+
+  /** Whether the event index sidecar of recording files is read and written. */
+  private final boolean eventIndex;
+
+  /** Whether untyped parsers pass inline strings as undecoded views. */
+  private final boolean lazyStrings;
+
+  /** Directory of the persistent generated class cache, or {@code null} if disabled. */
+  private final Path classCacheDirectory;
+
+  /** Whether constant pools are decoded in bulk before the events of each chunk. */
+  private final boolean eagerConstantPools;
+
+  /** Whether identical constant pool entries are shared between the chunks of a recording. */
+  private final boolean internConstantPools;
+
+  /** Whether the metadata and constant pools of upcoming chunks are read ahead. */
+  private final boolean readAhead;
+
+  /** Whether the event pages of upcoming chunks are read ahead as well. */
+  private final boolean prefetchEvents;
+
+  /** Whether recording files are unmapped as soon as their parse completes. */
+  private final boolean unmapOnClose;
+
+  /** Start of the time window of the selected events, in epoch nanoseconds (inclusive). */
+  private final long timeWindowStart;
+
+  /** End of the time window of the selected events, in epoch nanoseconds (exclusive). */
+  private final long timeWindowEnd;
+
+  /** Fraction of the events selected, for event types without a specific rate. */
+  private final double sampleRate;
+
+  /** Fraction of the events selected, by event type name. */
+  private final Map<String, Double> sampleRates;
+
+  private ChunkParserOptions(Builder builder) {
+    this.intraChunkParallelism = builder.intraChunkParallelism;
+    this.intraChunkMinSize = builder.intraChunkMinSize;
+    this.executor = builder.executor;
+    this.virtualThreads = builder.virtualThreads;
+    this.maxChunksInFlight = builder.maxChunksInFlight;
+    this.compressedChunkIndex = builder.compressedChunkIndex;
+    this.eventIndex = builder.eventIndex;
+    this.lazyStrings = builder.lazyStrings;
+    this.classCacheDirectory = builder.classCacheDirectory;
+    this.eagerConstantPools = builder.eagerConstantPools;
+    this.internConstantPools = builder.internConstantPools;
+    this.readAhead = builder.readAhead;
+    this.prefetchEvents = builder.prefetchEvents;
+    this.unmapOnClose = builder.unmapOnClose;
+    this.timeWindowStart = builder.timeWindowStart;
+    this.timeWindowEnd = builder.timeWindowEnd;
+    this.sampleRate = builder.sampleRate;
+    this.sampleRates = Collections.unmodifiableMap(new HashMap<>(builder.sampleRates));
+  }
+
+  /**
+   * Creates a new builder initialized with the default values.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Creates a new builder initialized with the values of these options.
+   *
+   * @return a new builder
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Gets the number of threads decoding the events of a single chunk.
+   *
+   * @return the intra-chunk parallelism; {@code 1} means events are decoded sequentially
+   */
+  public int intraChunkParallelism() {
+    return intraChunkParallelism;
+  }
+
+  /**
+   * Gets the minimum chunk payload size for a chunk to be decoded by several threads.
+   *
+   * @return the minimum size in bytes
+   */
+  public long intraChunkMinSize() {
+    return intraChunkMinSize;
+  }
+
+  /**
+   * Gets the caller-owned executor running the chunk decoding tasks.
+   *
+   * @return the executor, or {@code null} if the parser creates its own
+   */
+  public ExecutorService executor() {
+    return executor;
+  }
+
+  /**
+   * Whether a parser-owned executor runs each chunk on its own virtual thread.
+   *
+   * @return {@code true} if virtual threads are requested
+   */
+  public boolean virtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Gets the maximum number of chunks being decoded or queued for decoding at the same time.
+   *
+   * @return the limit, or {@code 0} if unbounded
+   */
+  public int maxChunksInFlight() {
+    return maxChunksInFlight;
+  }
+
+  /**
+   * Whether a chunk offset sidecar is written next to compressed recordings.
+   *
+   * @return {@code true} if the sidecar is written
+   */
+  public boolean compressedChunkIndex() {
+    return compressedChunkIndex;
+  }
+
+  /**
+   * Whether the {@linkplain EventIndex event index} sidecar is used and written.
+   *
+   * @return {@code true} if the event index is used
+   */
+  public boolean eventIndex() {
+    return eventIndex;
+  }
+
+  /**
+   * Whether untyped parsers pass inline strings as {@link io.jafar.utils.LazyString} views.
+   *
+   * @return {@code true} if strings are left undecoded until used
+   */
+  public boolean lazyStrings() {
+    return lazyStrings;
+  }
+
+  /**
+   * Gets the directory of the persistent {@linkplain GeneratedClassCache generated class cache}.
+   *
+   * @return the cache directory, or {@code null} if the cache is disabled
+   */
+  public Path classCacheDirectory() {
+    return classCacheDirectory;
+  }
+
+  /**
+   * Whether the constant pools of each chunk are decoded in bulk before its events.
+   *
+   * @return {@code true} if constant pools are materialized eagerly
+   */
+  public boolean eagerConstantPools() {
+    return eagerConstantPools;
+  }
+
+  /**
+   * Whether identical constant pool entries of different chunks are shared through a recording-wide
+   * {@linkplain ConstantPoolInternTable intern table}.
+   *
+   * @return {@code true} if constant pool entries are interned
+   */
+  public boolean internConstantPools() {
+    return internConstantPools;
+  }
+
+  /**
+   * Whether the metadata and constant pools of upcoming chunks of mapped recordings are read ahead
+   * while earlier chunks are decoded.
+   *
+   * @return {@code true} if read-ahead is enabled
+   */
+  public boolean readAhead() {
+    return readAhead;
+  }
+
+  /**
+   * Whether the event pages of upcoming chunks of mapped recordings are read ahead as well.
+   *
+   * @return {@code true} if events are prefetched
+   */
+  public boolean prefetchEvents() {
+    return prefetchEvents;
+  }
+
+  /**
+   * Whether mapped recording files are unmapped when their parse completes rather than by the
+   * garbage collector.
+   *
+   * @return {@code true} if recordings are unmapped explicitly
+   */
+  public boolean unmapOnClose() {
+    return unmapOnClose;
+  }
+
+  /**
+   * Gets the start of the time window of the events passed to the listener.
+   *
+   * @return the inclusive start in epoch nanoseconds, or {@link Long#MIN_VALUE} if unbounded
+   */
+  public long timeWindowStart() {
+    return timeWindowStart;
+  }
+
+  /**
+   * Gets the end of the time window of the events passed to the listener.
+   *
+   * @return the exclusive end in epoch nanoseconds, or {@link Long#MAX_VALUE} if unbounded
+   */
+  public long timeWindowEnd() {
+    return timeWindowEnd;
+  }
+
+  /**
+   * Gets the fraction of the events passed to the listener, for event types without a {@linkplain
+   * #sampleRates() specific rate}.
+   *
+   * @return the sample rate, {@code 1} if all events are passed
+   */
+  public double sampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Gets the fractions of the events passed to the listener for specific event types.
+   *
+   * @return the sample rates by event type name, unmodifiable
+   */
+  public Map<String, Double> sampleRates() {
+    return sampleRates;
+  }
+
+  /** Builder for {@link ChunkParserOptions}. */
+  public static final class Builder {
+    private int intraChunkParallelism = 1;
+    private long intraChunkMinSize = DEFAULT_INTRA_CHUNK_MIN_SIZE;
+    private ExecutorService executor;
+    private boolean virtualThreads;
+    private int maxChunksInFlight;
+    private boolean compressedChunkIndex;
+    private boolean eventIndex;
+    private boolean lazyStrings;
+    private Path classCacheDirectory;
+    private boolean eagerConstantPools;
+    private boolean internConstantPools;
+    private boolean readAhead;
+    private boolean prefetchEvents;
+    private boolean unmapOnClose;
+    private long timeWindowStart = Long.MIN_VALUE;
+    private long timeWindowEnd = Long.MAX_VALUE;
+    private double sampleRate = 1.0d;
+    private final Map<String, Double> sampleRates = new HashMap<>();
+
+    private Builder() {}
+
+    private Builder(ChunkParserOptions options) {
+      this.intraChunkParallelism = options.intraChunkParallelism;
+      this.intraChunkMinSize = options.intraChunkMinSize;
+      this.executor = options.executor;
+      this.virtualThreads = options.virtualThreads;
+      this.maxChunksInFlight = options.maxChunksInFlight;
+      this.compressedChunkIndex = options.compressedChunkIndex;
+      this.eventIndex = options.eventIndex;
+      this.lazyStrings = options.lazyStrings;
+      this.classCacheDirectory = options.classCacheDirectory;
+      this.eagerConstantPools = options.eagerConstantPools;
+      this.internConstantPools = options.internConstantPools;
+      this.readAhead = options.readAhead;
+      this.prefetchEvents = options.prefetchEvents;
+      this.unmapOnClose = options.unmapOnClose;
+      this.timeWindowStart = options.timeWindowStart;
+      this.timeWindowEnd = options.timeWindowEnd;
+      this.sampleRate = options.sampleRate;
+      this.sampleRates.putAll(options.sampleRates);
+    }
+
+    /**
+     * Sets the number of threads decoding the events of a single chunk.
+     *
+     * <p>When greater than {@code 1}, the event section of each sufficiently large chunk is split
+     * into ranges at event boundaries and the ranges are decoded concurrently, sharing the chunk
+     * metadata and constant pools. Events of such a chunk are delivered out of order and the
+     * listener is called from several threads at once. The additional decoding threads run on the
+     * {@linkplain #executor(ExecutorService) shared executor} or virtual threads if configured,
+     * otherwise on a worker pool shared by all parsers and sized to the available processors.
+     *
+     * @param parallelism the number of decoding threads per chunk, at least {@code 1}
+     * @return this builder
+     * @throws IllegalArgumentException if {@code parallelism} is less than {@code 1}
+     */
+    public Builder intraChunkParallelism(int parallelism) {
+      if (parallelism < 1) {
+        throw new IllegalArgumentException("intraChunkParallelism must be >= 1: " + parallelism);
+      }
+      this.intraChunkParallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Sets the minimum chunk payload size for a chunk to be decoded by several threads. Smaller
+     * chunks are always decoded sequentially.
+     *
+     * @param bytes the minimum size in bytes, non-negative
+     * @return this builder
+     * @throws IllegalArgumentException if {@code bytes} is negative
+     */
+    public Builder intraChunkMinSize(long bytes) {
+      if (bytes < 0) {
+        throw new IllegalArgumentException("intraChunkMinSize must be >= 0: " + bytes);
+      }
+      this.intraChunkMinSize = bytes;
+      return this;
+    }
+
+    /**
+     * Sets a shared executor running the chunk decoding tasks and the {@linkplain
+     * #intraChunkParallelism(int) intra-chunk workers}.
+     *
+     * <p>The executor is owned by the caller and is not shut down when the parser is closed, which
+     * allows many concurrent parsers to share one bounded pool. When set, {@link
+     * #virtualThreads(boolean)} is ignored.
+     *
+     * @param executor the executor, or {@code null} to let the parser create its own
+     * @return this builder
+     */
+    public Builder executor(ExecutorService executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Requests that each chunk, and each intra-chunk worker, run on its own virtual thread instead
+     * of a platform thread pool. Falls back to the platform thread pools on JVMs without virtual
+     * threads.
+     *
+     * @param virtualThreads {@code true} to use virtual threads
+     * @return this builder
+     */
+    public Builder virtualThreads(boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
+    /**
+     * Limits the number of chunks being decoded or queued for decoding at the same time. The parser
+     * stops reading chunk headers until a chunk finishes, bounding the number of chunk contexts
+     * (and their constant pools) alive at once.
+     *
+     * @param maxChunksInFlight the limit, or {@code 0} for unbounded
+     * @return this builder
+     * @throws IllegalArgumentException if {@code maxChunksInFlight} is negative
+     */
+    public Builder maxChunksInFlight(int maxChunksInFlight) {
+      if (maxChunksInFlight < 0) {
+        throw new IllegalArgumentException("maxChunksInFlight must be >= 0: " + maxChunksInFlight);
+      }
+      this.maxChunksInFlight = maxChunksInFlight;
+      return this;
+    }
+
+    /**
+     * Requests a sidecar index of the chunk offsets when parsing a compressed recording.
+     *
+     * <p>The sidecar is written as {@code <recording>.chunks} after a full pass over the recording.
+     * For seekable formats (gzip recordings compressed as several members) later parses starting at
+     * a given chunk decompress from the nearest preceding member instead of from the beginning.
+     *
+     * @param compressedChunkIndex {@code true} to write the sidecar
+     * @return this builder
+     */
+    public Builder compressedChunkIndex(boolean compressedChunkIndex) {
+      this.compressedChunkIndex = compressedChunkIndex;
+      return this;
+    }
+
+    /**
+     * Enables the {@linkplain EventIndex event index} of the parsed recording.
+     *
+     * <p>A full parse of a recording file without an up-to-date index writes one as {@code
+     * <recording>.jfridx}. Later parses read it and, for listeners declaring their {@linkplain
+     * ChunkParserListener#acceptedEventTypes() accepted event types}, skip chunks without such
+     * events and decode only the byte ranges holding them.
+     *
+     * @param eventIndex {@code true} to use and write the event index
+     * @return this builder
+     */
+    public Builder eventIndex(boolean eventIndex) {
+      this.eventIndex = eventIndex;
+      return this;
+    }
+
+    /**
+     * Makes untyped parsers pass inline event strings as {@link io.jafar.utils.LazyString} views of
+     * the chunk buffer instead of {@link String}s.
+     *
+     * <p>A view is decoded the first time it is converted to a {@link String} and is only valid
+     * while its chunk is parsed. Handlers keeping string values beyond the event must call {@code
+     * toString()}. Strings held in constant pools are not affected.
+     *
+     * @param lazyStrings {@code true} to pass string views
+     * @return this builder
+     */
+    public Builder lazyStrings(boolean lazyStrings) {
+      this.lazyStrings = lazyStrings;
+      return this;
+    }
+
+    /**
+     * Stores the deserializer classes generated for typed parsers in a {@linkplain
+     * GeneratedClassCache persistent cache}, keyed by metadata fingerprint and handler interface.
+     *
+     * <p>Typed parsers in later JVMs reading recordings with the same metadata define the stored
+     * classes instead of generating them again, which shortens the start-up of short-lived tools.
+     *
+     * @param directory the cache directory, or {@code null} to disable the cache (the default)
+     * @return this builder
+     */
+    public Builder classCacheDirectory(Path directory) {
+      this.classCacheDirectory = directory;
+      return this;
+    }
+
+    /**
+     * Decodes the constant pools of each chunk in bulk after they are read, instead of lazily on
+     * first access.
+     *
+     * <p>The entries the parser resolves (typed handler types and strings for typed parsers, all
+     * pools for untyped parsers) are decoded in the order they are stored in the chunk, by the
+     * chunk thread together with the {@linkplain #intraChunkParallelism(int) intra-chunk workers},
+     * and are then looked up in arrays indexed by entry id. This pays off for analyses touching
+     * most entries, such as building flame graphs from stack traces, and costs time and memory for
+     * entries which would never have been resolved.
+     *
+     * @param eagerConstantPools {@code true} to materialize constant pools eagerly
+     * @return this builder
+     */
+    public Builder eagerConstantPools(boolean eagerConstantPools) {
+      this.eagerConstantPools = eagerConstantPools;
+      return this;
+    }
+
+    /**
+     * Shares identical constant pool entries between the chunks of a recording.
+     *
+     * <p>Methods, classes, symbols and stack traces of a recording are mostly the same in every
+     * chunk. With interning enabled, such an entry is decoded in the first chunk containing it and
+     * later chunks resolve it to the same instance, recognized by its encoded content rather than
+     * by its chunk-local id; see {@link ConstantPoolInternTable}. This saves decoding time and
+     * memory for long recordings with many chunks, and interned values stay valid after their chunk
+     * is parsed. Entries referenced by an interned entry are decoded when it is interned.
+     *
+     * @param internConstantPools {@code true} to intern constant pool entries across chunks
+     * @return this builder
+     */
+    public Builder internConstantPools(boolean internConstantPools) {
+      this.internConstantPools = internConstantPools;
+      return this;
+    }
+
+    /**
+     * Reads the metadata and constant pools of upcoming chunks into memory while earlier chunks are
+     * decoded.
+     *
+     * <p>Applies to uncompressed recording files, which are memory-mapped. After reading the header
+     * of a chunk, the parser asks a background thread to fault in the end of the chunk, where its
+     * metadata and constant pools are stored, and the header of the following chunk. A decoder
+     * starting on the chunk then finds these regions in memory instead of waiting for the disk,
+     * which matters when the recording is not in the page cache. Use {@link
+     * #maxChunksInFlight(int)} to bound how far ahead of the decoders the thread reads.
+     *
+     * @param readAhead {@code true} to read chunk metadata and constant pools ahead
+     * @return this builder
+     */
+    public Builder readAhead(boolean readAhead) {
+      this.readAhead = readAhead;
+      return this;
+    }
+
+    /**
+     * Reads the events of upcoming chunks into memory ahead of the decoders, in addition to their
+     * {@linkplain #readAhead(boolean) metadata and constant pools}.
+     *
+     * <p>The read-ahead thread touches the pages of each chunk after its metadata and constant
+     * pools, staying ahead of the decoder which reads them first. Without {@link
+     * #maxChunksInFlight(int)} the thread may read the whole recording ahead, which can evict pages
+     * still needed when the recording is larger than the available memory.
+     *
+     * @param prefetchEvents {@code true} to read event pages ahead
+     * @return this builder
+     */
+    public Builder prefetchEvents(boolean prefetchEvents) {
+      this.prefetchEvents = prefetchEvents;
+      return this;
+    }
+
+    /**
+     * Unmaps recording files as soon as their parse completes.
+     *
+     * <p>By default a mapped recording is released by the garbage collector once nothing reads
+     * from it any more, including values decoded lazily from its constant pools. On JDK 21 and
+     * later, where recordings are mapped as a single memory segment, this option releases the
+     * mapping (and its address space) when {@code parse} returns instead. Constant pool values,
+     * strings and other views of the recording which are resolved after that throw {@link
+     * IllegalStateException}, so listeners must resolve what they keep while the chunk is parsed.
+     * Has no effect on compressed recordings or older JDKs.
+     *
+     * @param unmapOnClose {@code true} to unmap recordings when their parse completes
+     * @return this builder
+     */
+    public Builder unmapOnClose(boolean unmapOnClose) {
+      this.unmapOnClose = unmapOnClose;
+      return this;
+    }
+
+    /**
+     * Passes only the events starting in the given time window to the listener.
+     *
+     * <p>Chunks ending before the window or starting after it are skipped using their header. The
+     * start time of the other events is read right after their type and events outside of the
+     * window are skipped by their size, before the listener or any handler sees them. A long event
+     * starting in the window may be written to a chunk starting after it, and is then not reported.
+     *
+     * @param startNanos the inclusive start in epoch nanoseconds, or {@link Long#MIN_VALUE}
+     * @param endNanos the exclusive end in epoch nanoseconds, or {@link Long#MAX_VALUE}
+     * @return this builder
+     * @throws IllegalArgumentException if {@code endNanos} is less than {@code startNanos}
+     */
+    public Builder timeWindow(long startNanos, long endNanos) {
+      if (endNanos < startNanos) {
+        throw new IllegalArgumentException(
+            "timeWindow end must be >= start: " + startNanos + ", " + endNanos);
+      }
+      this.timeWindowStart = startNanos;
+      this.timeWindowEnd = endNanos;
+      return this;
+    }
+
+    /**
+     * Passes only a sample of the events to the listener.
+     *
+     * <p>Events are sampled by hashing their position in the recording, so that the same events
+     * are selected on every parse of a recording. Unselected events are skipped by their size
+     * before the listener or any handler sees them. The rate applies to the event types without a
+     * {@linkplain #sampleRate(String, double) specific rate}.
+     *
+     * @param rate the fraction of events passed, between {@code 0} and {@code 1} (the default)
+     * @return this builder
+     * @throws IllegalArgumentException if {@code rate} is not between {@code 0} and {@code 1}
+     */
+    public Builder sampleRate(double rate) {
+      this.sampleRate = checkRate(rate);
+      return this;
+    }
+
+    /**
+     * Passes only a sample of the events of the given type to the listener, for example {@code
+     * 0.01} for one percent of {@code jdk.ObjectAllocationSample}.
+     *
+     * @param eventType the event type name
+     * @param rate the fraction of events passed, between {@code 0} and {@code 1}
+     * @return this builder
+     * @throws IllegalArgumentException if {@code rate} is not between {@code 0} and {@code 1}
+     * @see #sampleRate(double)
+     */
+    public Builder sampleRate(String eventType, double rate) {
+      this.sampleRates.put(eventType, checkRate(rate));
+      return this;
+    }
+
+    private static double checkRate(double rate) {
+      if (!(rate >= 0.0d && rate <= 1.0d)) {
+        throw new IllegalArgumentException("sampleRate must be between 0 and 1: " + rate);
+      }
+      return rate;
+    }
+
+    /**
+     * Builds the options.
+     *
+     * @return the immutable options
+     */
+    public ChunkParserOptions build() {
+      return new ChunkParserOptions(this);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package io.jafar.parser.internal_api;
+
+import io.jafar.parser.api.MetadataLookup;
+import java.util.Set;
+
+/**
+ * Decides which chunks of a recording and which parts of a chunk are decoded.
+ *
+ * <p>Chunks before the first requested chunk are skipped. With an {@link EventIndex} and a listener
+ * declaring its {@linkplain ChunkParserListener#acceptedEventTypes() accepted event types}, chunks
+ * without such events are skipped as well and only the event runs of the accepted types are
+ * decoded. While no valid index exists, a new one may be collected during the parse. An {@link
+ * EventFilter} further skips chunks outside of its time window and selects the events within a
+ * chunk.
+ */
+final class ChunkSelector {
+  private final int firstChunk;
+  private final EventIndex index;
+  private final EventIndex.Builder indexBuilder;
+  private final Set<String> eventTypes;
+  private final EventFilter filter;
+
+  /**
+   * Creates a selector.
+   *
+   * @param firstChunk the 1-based index of the first chunk to decode
+   * @param index the event index of the recording, or {@code null}
+   * @param indexBuilder collects a new event index, or {@code null}
+   * @param eventTypes the event types accepted by the listener, or {@code null} for all
+   * @param filter selects events by time and sampling, or {@code null} for all
+   */
+  ChunkSelector(
+      int firstChunk,
+      EventIndex index,
+      EventIndex.Builder indexBuilder,
+      Set<String> eventTypes,
+      EventFilter filter) {
+    this.firstChunk = firstChunk;
+    this.index = index;
+    this.indexBuilder = indexBuilder;
+    this.eventTypes = eventTypes;
+    this.filter = filter;
+  }
+
+  /**
+   * Creates a selector decoding all chunks starting at {@code firstChunk}.
+   *
+   * @param firstChunk the 1-based index of the first chunk to decode
+   * @param filter selects events by time and sampling, or {@code null} for all
+   * @return the selector
+   */
+  static ChunkSelector from(int firstChunk, EventFilter filter) {
+    return new ChunkSelector(firstChunk, null, null, null, filter);
+  }
+
+  /**
+   * Gets the first chunk to decode.
+   *
+   * @return the 1-based chunk index
+   */
+  int firstChunk() {
+    return firstChunk;
+  }
+
+  /**
+   * Whether a chunk can be skipped without decoding it.
+   *
+   * @param header the chunk header
+   * @return {@literal true} if the chunk contains nothing the listener is interested in
+   */
+  boolean skip(ChunkHeader header) {
+    boolean skip = header.order < firstChunk || (filter != null && filter.skip(header));
+    if (!skip && eventTypes != null) {
+      EventIndex.Chunk chunk = indexedChunk(header);
+      skip = chunk != null && !chunk.containsAny(eventTypes);
+    }
+    if (skip && indexBuilder != null) {
+      indexBuilder.markIncomplete();
+    }
+    return skip;
+  }
+
+  /**
+   * Gets the byte ranges of a chunk to decode.
+   *
+   * @param header the chunk header
+   * @return {@code [start, end)} pairs relative to the chunk start, or {@code null} to decode the
+   *     whole event section
+   */
+  long[] eventRanges(ChunkHeader header) {
+    if (eventTypes == null) {
+      return null;
+    }
+    EventIndex.Chunk chunk = indexedChunk(header);
+    return chunk != null ? chunk.eventRanges(eventTypes) : null;
+  }
+
+  /**
+   * Gets the event selection of a chunk.
+   *
+   * @param header the chunk header
+   * @param metadata the metadata of the chunk
+   * @return the selection, or {@code null} to pass all events of the chunk
+   */
+  EventFilter.Chunk eventFilter(ChunkHeader header, MetadataLookup metadata) {
+    return filter != null ? filter.forChunk(header, metadata) : null;
+  }
+
+  /**
+   * Gets the builder collecting a new event index.
+   *
+   * @return the builder, or {@code null} if no index is being built
+   */
+  EventIndex.Builder indexBuilder() {
+    return indexBuilder;
+  }
+
+  private EventIndex.Chunk indexedChunk(ChunkHeader header) {
+    if (index == null) {
+      return null;
+    }
+    EventIndex.Chunk chunk = index.chunk(header.order);
+    return chunk != null && chunk.matches(header) ? chunk : null;
+  }
+}
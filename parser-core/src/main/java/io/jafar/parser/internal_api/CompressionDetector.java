@@ -8,8 +8,9 @@ import java.nio.file.Path;
 /**
  * Detects well-known compression formats by inspecting the first bytes of a file.
  *
- * <p>Used to produce actionable error messages when a compressed file is passed to the JFR parser
- * instead of a raw JFR recording.
+ * <p>Used to decompress recordings passed to the JFR parser on the fly (see {@link
+ * DecompressingInputStream}) and to produce actionable error messages when the required
+ * decompressor is not available.
  */
 final class CompressionDetector {
 
@@ -0,0 +1,575 @@
+package io.jafar.parser.internal_api;
+
+import io.jafar.parser.api.ArrayType;
+import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.ConstantPool;
+import io.jafar.parser.api.ConstantPools;
+import io.jafar.parser.api.MetadataLookup;
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.impl.ConstantPoolAccessor;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import io.jafar.parser.internal_api.metadata.MetadataField;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recording-wide table of constant pool entries shared between the chunks of a recording.
+ *
+ * <p>Constant pool ids are local to a chunk, but most methods, classes, symbols and stack traces of
+ * a recording are written again, under different ids, in every chunk. The table recognizes an entry
+ * by its encoded bytes, with references to other constant pool entries replaced by the ids this
+ * table assigned to them, and hands out one {@link Entry} per distinct content. Recognizing an
+ * entry reads its bytes without decoding strings or building values, so an entry whose value was
+ * shared by an earlier chunk is never decoded again. Each entry has a recording-global id and keeps
+ * the first decoded value of each representation.
+ *
+ * <p>Only pools of the {@link #ROOT_TYPES} and of the types they reference are interned. Shared
+ * map values are {@linkplain #detach(Object, ConstantPools) detached} from their chunk: their
+ * constant pool references point to the shared values of the referenced entries. Other values,
+ * such as those of typed deserializers, resolve their references through the pools of the chunk
+ * they were decoded in and keep that chunk's pools and buffer reachable as long as the table. Such
+ * values are only shared from the first {@value #MAX_RETAINED_CHUNKS} chunks decoding them; see
+ * {@link MutableConstantPool#get(long)}.
+ *
+ * <p>Thread-safe; chunks of a recording may be parsed concurrently.
+ */
+public final class ConstantPoolInternTable {
+  /** Types whose pools are interned, together with the types they reference. */
+  static final Set<String> ROOT_TYPES =
+      Collections.unmodifiableSet(
+          new HashSet<>(
+              Arrays.asList(
+                  "jdk.types.Method", "java.lang.Class", "jdk.types.Symbol", "jdk.types.StackTrace")));
+
+  /** Producer of the values decoded by {@link MutableConstantPool#getAsMap(long)}. */
+  static final Object MAP_VALUES = new Object();
+
+  /** Number of chunks whose pools may be kept reachable by shared values. */
+  static final int MAX_RETAINED_CHUNKS = 4;
+
+  /** Nesting depth after which references are encoded by their chunk-local id. */
+  private static final int MAX_DEPTH = 32;
+
+  private static final byte NULL_REF = 0;
+  private static final byte GLOBAL_REF = 1;
+  private static final byte LOCAL_REF = 2;
+
+  private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong(1);
+
+  /** Contexts of the chunks kept reachable by shared values, see {@link #retains}. */
+  private final Set<ParserContext> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /** Constructs an empty table for one recording. */
+  public ConstantPoolInternTable() {}
+
+  /**
+   * Gets the number of distinct entries interned so far.
+   *
+   * @return the entry count
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Checks whether the pool of the given type is interned in a chunk with the given metadata.
+   *
+   * @param metadata the metadata of the chunk
+   * @param type the constant pool type
+   * @return {@code true} if the type is one of the {@link #ROOT_TYPES} or referenced by one of them
+   */
+  boolean interns(MetadataLookup metadata, MetadataClass type) {
+    if (type == null) {
+      return false;
+    }
+    if (ROOT_TYPES.contains(type.getName())) {
+      return true;
+    }
+    Set<Long> visited = new HashSet<>();
+    Deque<MetadataClass> pending = new ArrayDeque<>();
+    for (String root : ROOT_TYPES) {
+      MetadataClass clazz = metadata.getClass(root);
+      if (clazz != null && visited.add(clazz.getId())) {
+        pending.add(clazz);
+      }
+    }
+    while (!pending.isEmpty()) {
+      for (MetadataField field : pending.poll().getAllFields()) {
+        MetadataClass fieldType = field.getType();
+        if (fieldType == null) {
+          continue;
+        }
+        if (field.hasConstantPool() && fieldType.getId() == type.getId()) {
+          return true;
+        }
+        if (visited.add(fieldType.getId())) {
+          pending.add(fieldType);
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Interns the entry of a pool stored at the current position of the stream.
+   *
+   * @param pool the pool of the entry
+   * @param stream the stream positioned at the entry
+   * @param depth the number of entries being interned on the current thread
+   * @return the shared entry
+   * @throws IOException if the entry cannot be read
+   */
+  Entry intern(MutableConstantPool pool, RecordingStream stream, int depth) throws IOException {
+    MetadataClass type = pool.getType();
+    KeyBuilder key = new KeyBuilder(stream, depth);
+    key.walk(type);
+    return entries.computeIfAbsent(
+        new Key(type.getName(), key.toByteArray()), k -> new Entry(nextId.getAndIncrement()));
+  }
+
+  /**
+   * Checks whether values decoded in a chunk may be shared although they keep the chunk reachable.
+   * At most {@value #MAX_RETAINED_CHUNKS} chunks are retained this way.
+   *
+   * @param context the context of the chunk
+   * @return {@code true} if the chunk is, or now becomes, one of the retained chunks
+   */
+  synchronized boolean retains(ParserContext context) {
+    return retained.contains(context)
+        || (retained.size() < MAX_RETAINED_CHUNKS && retained.add(context));
+  }
+
+  /**
+   * Decodes the entries referenced by the entry stored at the current position of the stream, so
+   * that a shared value of the entry resolves them without reading its chunk again.
+   *
+   * @param pool the pool of the entry
+   * @param stream the stream positioned at the entry
+   * @throws IOException if the entry cannot be read
+   */
+  static void resolveReferences(MutableConstantPool pool, RecordingStream stream)
+      throws IOException {
+    ConstantPools pools = stream.getContext().getConstantPools();
+    new EntryWalker(stream) {
+      @Override
+      void onReference(MetadataClass type, long pointer) {
+        MutableConstantPool referenced = (MutableConstantPool) pools.getConstantPool(type.getId());
+        if (referenced != null) {
+          referenced.get(pointer);
+        }
+      }
+    }.walk(pool.getType());
+  }
+
+  /**
+   * Replaces the constant pool references of a freshly decoded value, in place, by the shared map
+   * values of the referenced entries, which are decoded as needed.
+   *
+   * @param value the decoded value
+   * @param pools the constant pools of the chunk the value was decoded in
+   * @return {@code true} if the value no longer refers to its chunk, {@code false} if some parts of
+   *     it do or the value is not a map
+   */
+  static boolean detach(Object value, ConstantPools pools) {
+    if (value instanceof ConstantPoolAccessor) {
+      return false;
+    }
+    if (value instanceof Map) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> map = (Map<String, Object>) value;
+      boolean detached = true;
+      for (Map.Entry<String, Object> e : map.entrySet()) {
+        Object v = e.getValue();
+        if (v instanceof ConstantPoolAccessor) {
+          Object shared = sharedReference((ConstantPoolAccessor) v, pools);
+          if (shared != null) {
+            e.setValue(shared);
+          } else {
+            detached = false;
+          }
+        } else {
+          detached &= detach(v, pools);
+        }
+      }
+      return detached;
+    }
+    if (value instanceof ArrayType) {
+      Object array = ((ArrayType) value).getArray();
+      if (!(array instanceof Object[])) {
+        return true;
+      }
+      Object[] elements = (Object[]) array;
+      boolean detached = true;
+      for (int i = 0; i < elements.length; i++) {
+        if (elements[i] instanceof ConstantPoolAccessor) {
+          Object shared = sharedReference((ConstantPoolAccessor) elements[i], pools);
+          if (shared != null) {
+            elements[i] = shared;
+          } else {
+            detached = false;
+          }
+        } else {
+          detached &= detach(elements[i], pools);
+        }
+      }
+      return detached;
+    }
+    // strings and boxed primitives; decoded constant pool values hold no string views
+    return true;
+  }
+
+  /**
+   * Resolves a constant pool reference to the shared map value of the referenced entry.
+   *
+   * @return the detached reference, or {@code null} if the referenced entry has no shared value
+   */
+  private static Object sharedReference(ConstantPoolAccessor accessor, ConstantPools pools) {
+    MutableConstantPool referenced =
+        (MutableConstantPool) pools.getConstantPool(accessor.getTypeId());
+    Map<String, Object> value =
+        referenced != null ? referenced.getAsMap(accessor.getPointer()) : null;
+    if (value == null) {
+      return SharedReference.NONE;
+    }
+    Entry entry = referenced.internedEntry(accessor.getPointer(), 0);
+    return entry != null && entry.value(MAP_VALUES) == value ? new SharedReference(value) : null;
+  }
+
+  /**
+   * A distinct constant pool entry of the recording.
+   *
+   * <p>Holds the first decoded value per producer: the handler factory or deserializer that
+   * decoded it, or a marker of the generic map representations. Values of different producers are
+   * never mixed up, as typed parsers with different handler classes may decode the same entry.
+   */
+  static final class Entry {
+    /** Recording-global id of the entry, starting at 1. */
+    final long id;
+
+    /** Producers and their values, in pairs. */
+    private Object[] values = new Object[0];
+
+    Entry(long id) {
+      this.id = id;
+    }
+
+    /**
+     * Gets the value decoded by a producer.
+     *
+     * @param producer the producer
+     * @return the shared value, or {@code null} if the producer has not decoded the entry yet
+     */
+    synchronized Object value(Object producer) {
+      Object[] v = values;
+      for (int i = 0; i < v.length; i += 2) {
+        if (v[i] == producer) {
+          return v[i + 1];
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Shares a value decoded by a producer.
+     *
+     * @param producer the producer
+     * @param value the decoded value
+     * @return the value shared first for the producer, which callers must use instead of {@code
+     *     value}
+     */
+    synchronized Object share(Object producer, Object value) {
+      Object prev = value(producer);
+      if (prev != null) {
+        return prev;
+      }
+      Object[] v = Arrays.copyOf(values, values.length + 2);
+      v[v.length - 2] = producer;
+      v[v.length - 1] = value;
+      values = v;
+      return value;
+    }
+  }
+
+  /** Content of an entry, qualified by the name of its type. */
+  private static final class Key {
+    private final String type;
+    private final byte[] content;
+    private final int hash;
+
+    Key(String type, byte[] content) {
+      this.type = type;
+      this.content = content;
+      this.hash = 31 * type.hashCode() + Arrays.hashCode(content);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key that = (Key) o;
+      return hash == that.hash && type.equals(that.type) && Arrays.equals(content, that.content);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /** A constant pool reference of a detached map value, resolved to the shared value. */
+  private static final class SharedReference implements ComplexType {
+    /** Reference to a missing entry. */
+    static final SharedReference NONE = new SharedReference(null);
+
+    private final Map<String, Object> value;
+
+    SharedReference(Map<String, Object> value) {
+      this.value = value;
+    }
+
+    @Override
+    public Map<String, Object> getValue() {
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return Objects.toString(value);
+    }
+  }
+
+  /**
+   * Walks the encoded value of an entry without decoding strings or building values, mirroring
+   * {@link GenericValueReader#readValue(RecordingStream, MetadataClass)}.
+   */
+  private abstract static class EntryWalker {
+    final RecordingStream stream;
+
+    EntryWalker(RecordingStream stream) {
+      this.stream = stream;
+    }
+
+    /** Called for a constant pool reference. */
+    abstract void onReference(MetadataClass type, long pointer);
+
+    /** Called for integral values, array lengths and string lengths. */
+    void onVarint(long value) {}
+
+    /** Called for a single byte which was read. */
+    void onByte(int value) {}
+
+    /** Called with the stream positioned at {@code len} bytes which must be consumed. */
+    void onBytes(int len) {
+      stream.skip(len);
+    }
+
+    /** Called for a string stored in the string constant pool. */
+    void onStringReference(long pointer) {}
+
+    final void walk(MetadataClass type) throws IOException {
+      if (type.isPrimitive()) {
+        primitive(type);
+      }
+      for (MetadataField fld : type.getAllFields()) {
+        if (fld.getDimension() == 1) {
+          int len = (int) stream.readVarint();
+          onVarint(len);
+          for (int i = 0; i < len; i++) {
+            field(fld);
+          }
+        } else {
+          field(fld);
+        }
+      }
+    }
+
+    private void field(MetadataField fld) throws IOException {
+      MetadataClass type = fld.getType();
+      if (fld.hasConstantPool()) {
+        onReference(type, stream.readVarint());
+      } else if (type.isPrimitive()) {
+        primitive(type);
+      } else {
+        walk(type);
+      }
+    }
+
+    private void primitive(MetadataClass type) throws IOException {
+      switch (type.getName()) {
+        case "short":
+        case "char":
+        case "int":
+        case "long":
+          onVarint(stream.readVarint());
+          break;
+        case "byte":
+        case "boolean":
+          onBytes(1);
+          break;
+        case "float":
+          onBytes(4);
+          break;
+        case "double":
+          onBytes(8);
+          break;
+        case "java.lang.String":
+          string();
+          break;
+        default:
+          throw new IllegalStateException("Unknown primitive type: " + type);
+      }
+    }
+
+    private void string() throws IOException {
+      byte id = stream.read();
+      onByte(id);
+      switch (id) {
+        case 0:
+        case 1:
+          break;
+        case 2:
+          onStringReference(stream.readVarint());
+          break;
+        case 3:
+        case 5:
+          {
+            int len = (int) stream.readVarint();
+            onVarint(len);
+            onBytes(len);
+            break;
+          }
+        case 4:
+          {
+            int len = (int) stream.readVarint();
+            onVarint(len);
+            for (int i = 0; i < len; i++) {
+              onVarint(stream.readVarint());
+            }
+            break;
+          }
+        default:
+          throw new IOException("Unexpected string constant id: " + id);
+      }
+    }
+  }
+
+  /**
+   * Encodes the content of an entry from its bytes, replacing the chunk-local ids of referenced
+   * entries by the ids of the table. Strings are kept in their encoding; only references to pooled
+   * strings are resolved.
+   */
+  private static final class KeyBuilder extends EntryWalker {
+    private final int depth;
+    private byte[] buf = new byte[64];
+    private int size;
+
+    KeyBuilder(RecordingStream stream, int depth) {
+      super(stream);
+      this.depth = depth;
+    }
+
+    @Override
+    void onVarint(long value) {
+      writeLong(value);
+    }
+
+    @Override
+    void onByte(int value) {
+      write(value);
+    }
+
+    @Override
+    void onBytes(int len) {
+      ensure(len);
+      stream.read(buf, size, len);
+      size += len;
+    }
+
+    @Override
+    void onStringReference(long pointer) {
+      ParserContext context = stream.getContext();
+      long stringTypeId = context.getStringTypeId();
+      ConstantPools pools = context.getConstantPools();
+      ConstantPool strings =
+          stringTypeId != -1 && pools != null ? pools.getConstantPool(stringTypeId) : null;
+      Object value =
+          stringTypeId == -1
+              ? context.getMetadataLookup().getString((int) pointer)
+              : strings != null ? strings.get(pointer) : null;
+      writeString(value instanceof String ? (String) value : null);
+    }
+
+    @Override
+    void onReference(MetadataClass type, long pointer) {
+      ConstantPools pools = stream.getContext().getConstantPools();
+      MutableConstantPool pool =
+          pools != null ? (MutableConstantPool) pools.getConstantPool(type.getId()) : null;
+      if (pool == null || !pool.containsKey(pointer)) {
+        write(NULL_REF);
+        return;
+      }
+      Entry entry = depth < MAX_DEPTH ? pool.internedEntry(pointer, depth + 1) : null;
+      if (entry != null) {
+        write(GLOBAL_REF);
+        writeLong(entry.id);
+      } else {
+        // not interned, or a reference cycle: the key only matches within this chunk
+        write(LOCAL_REF);
+        writeLong(stream.getContext().getChunkIndex());
+        writeLong(type.getId());
+        writeLong(pointer);
+      }
+    }
+
+    private void write(int b) {
+      ensure(1);
+      buf[size++] = (byte) b;
+    }
+
+    private void writeLong(long v) {
+      // LEB128, as most values are small ids and lengths
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        buf[size++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      buf[size++] = (byte) v;
+    }
+
+    private void writeString(String s) {
+      if (s == null) {
+        writeLong(-1);
+        return;
+      }
+      int len = s.length();
+      writeLong(len);
+      ensure(2 * len);
+      for (int i = 0; i < len; i++) {
+        char c = s.charAt(i);
+        buf[size++] = (byte) (c >>> 8);
+        buf[size++] = (byte) c;
+      }
+    }
+
+    private void ensure(int n) {
+      if (size + n > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buf, size);
+    }
+  }
+}
@@ -0,0 +1,368 @@
+package io.jafar.parser.internal_api;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a compressed JFR recording on the fly.
+ *
+ * <p>The decompressed bytes are consumed by {@link StreamingChunkParser} chunk by chunk, so a
+ * compressed recording never needs to be fully decompressed in memory or on disk. gzip is decoded
+ * with the JDK {@link Inflater}; zstd and LZ4 use zstd-jni and lz4-java respectively when they are
+ * available on the class path.
+ *
+ * <p>Formats made of independently decodable frames (currently gzip members) are <i>seekable</i>:
+ * decompression may start at the compressed offset of any frame, see {@link #recordFrameStarts()}
+ * and {@link #compressedOffsetOf(long)}.
+ */
+abstract class DecompressingInputStream extends InputStream {
+  private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Opens a decompressing stream over the whole recording.
+   *
+   * @param path the compressed recording
+   * @param format the compression format, as detected by {@link CompressionDetector}
+   * @return the decompressed recording data
+   * @throws IOException if the file cannot be opened or the format is not supported
+   */
+  static DecompressingInputStream open(Path path, CompressionDetector.Format format)
+      throws IOException {
+    return open(path, format, 0, 0);
+  }
+
+  /**
+   * Opens a decompressing stream starting at a frame boundary of a seekable format.
+   *
+   * @param path the compressed recording
+   * @param format the compression format, as detected by {@link CompressionDetector}
+   * @param compressedOffset the offset of a frame in the compressed file
+   * @param uncompressedOffset the offset of the frame data in the decompressed recording
+   * @return the decompressed recording data, starting at {@code uncompressedOffset}
+   * @throws IOException if the file cannot be opened or the format is not supported
+   */
+  static DecompressingInputStream open(
+      Path path, CompressionDetector.Format format, long compressedOffset, long uncompressedOffset)
+      throws IOException {
+    switch (format) {
+      case GZIP:
+        return new GzipMembers(path, compressedOffset, uncompressedOffset);
+      case ZSTD:
+        return Wrapped.open(
+            path, format, "com.github.luben.zstd.ZstdInputStream", "com.github.luben:zstd-jni");
+      case LZ4:
+        return Wrapped.open(
+            path, format, "net.jpountz.lz4.LZ4FrameInputStream", "org.lz4:lz4-java");
+      default:
+        throw new IOException("Not a compressed recording: " + path);
+    }
+  }
+
+  /**
+   * Makes the stream remember where its frames start, for {@link #compressedOffsetOf(long)}. Must
+   * be called before the first read; streams not asked to record frame starts keep none.
+   */
+  void recordFrameStarts() {}
+
+  /**
+   * Gets the compressed offset from which decompression can be restarted to produce the data at
+   * {@code uncompressedOffset}.
+   *
+   * <p>Only offsets which were already reached by this stream and at which a new frame starts have
+   * a compressed offset, provided that {@linkplain #recordFrameStarts() frame starts are recorded}.
+   * Offsets must be queried in increasing order.
+   *
+   * @param uncompressedOffset the offset in the decompressed recording
+   * @return the compressed offset, or {@code -1} if decompression cannot start there
+   */
+  long compressedOffsetOf(long uncompressedOffset) {
+    return -1;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    int n;
+    while ((n = read(b, 0, 1)) == 0) {}
+    return n < 0 ? -1 : b[0] & 0xFF;
+  }
+
+  /**
+   * Decodes a sequence of gzip members (RFC 1952), remembering where each member starts.
+   *
+   * <p>Each member is an independent deflate stream, therefore recordings compressed member by
+   * member (e.g. chunk by chunk) can later be decompressed starting at any member.
+   */
+  private static final class GzipMembers extends DecompressingInputStream {
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final FileChannel channel;
+    private final byte[] input = new byte[INPUT_BUFFER_SIZE];
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+
+    /** Member starts not queried yet, as {uncompressed offset, compressed offset} pairs. */
+    private final ArrayDeque<long[]> memberStarts = new ArrayDeque<>();
+
+    /** Whether member starts are recorded; they pile up unless they are queried. */
+    private boolean recordMemberStarts;
+
+    /** Compressed file offset of {@code input[0]}. */
+    private long inputBase;
+
+    private int inputLimit;
+    private int inputPos;
+
+    /** Number of decompressed bytes produced so far, including the initial offset. */
+    private long uncompressed;
+
+    private long memberStart;
+    private boolean inMember;
+
+    GzipMembers(Path path, long compressedOffset, long uncompressedOffset) throws IOException {
+      this.channel = FileChannel.open(path, StandardOpenOption.READ);
+      try {
+        channel.position(compressedOffset);
+      } catch (IOException e) {
+        channel.close();
+        throw e;
+      }
+      this.inputBase = compressedOffset;
+      this.uncompressed = uncompressedOffset;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (true) {
+        if (!inMember && !startMember()) {
+          return -1;
+        }
+        int n;
+        try {
+          n = inflater.inflate(b, off, len);
+        } catch (DataFormatException e) {
+          throw new ZipException("Corrupt gzip data at offset " + memberStart);
+        }
+        if (n > 0) {
+          crc.update(b, off, n);
+          uncompressed += n;
+          return n;
+        }
+        if (inflater.finished()) {
+          inputPos = inputLimit - inflater.getRemaining();
+          finishMember();
+        } else if (inflater.needsDictionary()) {
+          throw new ZipException("Unsupported preset dictionary in gzip member at " + memberStart);
+        } else if (inflater.needsInput()) {
+          if (!fill()) {
+            throw new EOFException("Unexpected end of gzip stream");
+          }
+          inflater.setInput(input, inputPos, inputLimit - inputPos);
+          inputPos = inputLimit;
+        }
+      }
+    }
+
+    @Override
+    void recordFrameStarts() {
+      recordMemberStarts = true;
+    }
+
+    @Override
+    long compressedOffsetOf(long uncompressedOffset) {
+      while (!memberStarts.isEmpty() && memberStarts.peekFirst()[0] < uncompressedOffset) {
+        memberStarts.pollFirst();
+      }
+      long[] start = memberStarts.peekFirst();
+      return start != null && start[0] == uncompressedOffset ? start[1] : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+      inflater.end();
+      channel.close();
+    }
+
+    private boolean startMember() throws IOException {
+      long offset = inputBase + inputPos;
+      int id1 = readByte();
+      if (id1 < 0) {
+        return false;
+      }
+      if (id1 != 0x1F || requireByte() != 0x8B) {
+        throw new ZipException("Not in gzip format at offset " + offset);
+      }
+      if (requireByte() != 8) {
+        throw new ZipException("Unsupported gzip compression method at offset " + offset);
+      }
+      int flags = requireByte();
+      skipBytes(6); // MTIME, XFL, OS
+      if ((flags & FEXTRA) != 0) {
+        skipBytes(requireByte() | (requireByte() << 8));
+      }
+      if ((flags & FNAME) != 0) {
+        skipZeroTerminated();
+      }
+      if ((flags & FCOMMENT) != 0) {
+        skipZeroTerminated();
+      }
+      if ((flags & FHCRC) != 0) {
+        skipBytes(2);
+      }
+      memberStart = offset;
+      if (recordMemberStarts) {
+        memberStarts.addLast(new long[] {uncompressed, offset});
+      }
+      inflater.reset();
+      crc.reset();
+      inflater.setInput(input, inputPos, inputLimit - inputPos);
+      inputPos = inputLimit;
+      inMember = true;
+      return true;
+    }
+
+    private void finishMember() throws IOException {
+      long expectedCrc = readIntLE();
+      long expectedSize = readIntLE();
+      if (expectedCrc != crc.getValue()) {
+        throw new ZipException("Corrupt gzip trailer (CRC) of member at offset " + memberStart);
+      }
+      if (expectedSize != (inflater.getBytesWritten() & 0xFFFFFFFFL)) {
+        throw new ZipException("Corrupt gzip trailer (size) of member at offset " + memberStart);
+      }
+      inMember = false;
+    }
+
+    private boolean fill() throws IOException {
+      inputBase += inputLimit;
+      inputPos = 0;
+      inputLimit = 0;
+      ByteBuffer buffer = ByteBuffer.wrap(input);
+      int n;
+      while ((n = channel.read(buffer)) == 0) {}
+      if (n < 0) {
+        return false;
+      }
+      inputLimit = n;
+      return true;
+    }
+
+    private int readByte() throws IOException {
+      if (inputPos == inputLimit && !fill()) {
+        return -1;
+      }
+      return input[inputPos++] & 0xFF;
+    }
+
+    private int requireByte() throws IOException {
+      int b = readByte();
+      if (b < 0) {
+        throw new EOFException("Unexpected end of gzip stream");
+      }
+      return b;
+    }
+
+    private long readIntLE() throws IOException {
+      return requireByte()
+          | (requireByte() << 8)
+          | (requireByte() << 16)
+          | ((long) requireByte() << 24);
+    }
+
+    private void skipBytes(int n) throws IOException {
+      for (int i = 0; i < n; i++) {
+        requireByte();
+      }
+    }
+
+    private void skipZeroTerminated() throws IOException {
+      while (requireByte() != 0) {}
+    }
+  }
+
+  /** Adapts the decompressing stream of an optional compression library. */
+  static final class Wrapped extends DecompressingInputStream {
+    private final InputStream delegate;
+
+    private Wrapped(InputStream delegate) {
+      this.delegate = delegate;
+    }
+
+    /**
+     * Opens the decompressing stream of a compression library.
+     *
+     * @param path the compressed recording
+     * @param format the compression format
+     * @param streamClass the decompressing {@link InputStream} class of the library
+     * @param artifact the library coordinates, reported if the library is not available
+     * @return the decompressed recording data
+     * @throws IOException if the library is not available or the file cannot be opened
+     */
+    static Wrapped open(
+        Path path, CompressionDetector.Format format, String streamClass, String artifact)
+        throws IOException {
+      Constructor<?> constructor;
+      try {
+        // Looked up reflectively so that the compression libraries stay optional
+        constructor =
+            Class.forName(streamClass, true, DecompressingInputStream.class.getClassLoader())
+                .getConstructor(InputStream.class);
+      } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+        throw new IOException(
+            "JFR file is "
+                + format.label
+                + "-compressed and "
+                + artifact
+                + " is not available on the class path. Add it or "
+                + format.hint
+                + " (file: "
+                + path
+                + ")");
+      }
+      InputStream raw = new BufferedInputStream(Files.newInputStream(path), INPUT_BUFFER_SIZE);
+      try {
+        return new Wrapped((InputStream) constructor.newInstance(raw));
+      } catch (InvocationTargetException e) {
+        raw.close();
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        throw new IOException("Cannot decompress " + path, cause);
+      } catch (ReflectiveOperationException e) {
+        raw.close();
+        throw new IOException("Cannot decompress " + path, e);
+      }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return delegate.read(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+  }
+}
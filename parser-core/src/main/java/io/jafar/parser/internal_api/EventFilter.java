@@ -0,0 +1,184 @@
+package io.jafar.parser.internal_api;
+
+import io.jafar.parser.api.MetadataLookup;
+import io.jafar.parser.internal_api.collections.LongObjectHashMap;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import io.jafar.parser.internal_api.metadata.MetadataField;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects the events passed to the listener by a {@linkplain
+ * ChunkParserOptions.Builder#timeWindow(long, long) time window} and {@linkplain
+ * ChunkParserOptions.Builder#sampleRate(double) sample rates}.
+ *
+ * <p>Chunks entirely outside of the window are skipped using their header. Within a chunk, events
+ * are selected after reading their size and type: the start time is read from the first field of
+ * the event, and sampling hashes the event position so that the same events are selected on every
+ * parse of a recording. Rejected events are skipped by their size, before any handler decodes them.
+ *
+ * <p>An event is written to the chunk in which it ends, so chunks ending before the window are
+ * skipped exactly. Chunks starting after the window are skipped as well, which drops the rare
+ * events starting in the window but ending after it in a later chunk.
+ */
+final class EventFilter {
+  /** Hashes at or above {@code 1 << 53} are never selected; see {@link #threshold(double)}. */
+  private static final double SAMPLE_SCALE = (double) (1L << 53);
+
+  private final long windowStart;
+  private final long windowEnd;
+  private final double sampleRate;
+  private final Map<String, Double> sampleRates;
+
+  private EventFilter(
+      long windowStart, long windowEnd, double sampleRate, Map<String, Double> sampleRates) {
+    this.windowStart = windowStart;
+    this.windowEnd = windowEnd;
+    this.sampleRate = sampleRate;
+    this.sampleRates = sampleRates;
+  }
+
+  /**
+   * Creates the filter configured by the options.
+   *
+   * @param options the parser options
+   * @return the filter, or {@code null} if all events are selected
+   */
+  static EventFilter of(ChunkParserOptions options) {
+    if (options.timeWindowStart() == Long.MIN_VALUE
+        && options.timeWindowEnd() == Long.MAX_VALUE
+        && options.sampleRate() >= 1.0d
+        && options.sampleRates().isEmpty()) {
+      return null;
+    }
+    return new EventFilter(
+        options.timeWindowStart(),
+        options.timeWindowEnd(),
+        options.sampleRate(),
+        options.sampleRates());
+  }
+
+  /**
+   * Whether a chunk lies entirely outside of the time window.
+   *
+   * @param header the chunk header
+   * @return {@code true} if no event of the chunk can be in the window
+   */
+  boolean skip(ChunkHeader header) {
+    if (header.startNanos >= windowEnd) {
+      return true;
+    }
+    // the duration of a chunk still being written is 0, its end is not known yet
+    return header.duration > 0 && header.startNanos + header.duration <= windowStart;
+  }
+
+  /**
+   * Creates the event selection of a chunk once its metadata is read.
+   *
+   * @param header the chunk header
+   * @param metadata the metadata of the chunk
+   * @return the selection, or {@code null} if all events of the chunk are selected
+   */
+  Chunk forChunk(ChunkHeader header, MetadataLookup metadata) {
+    long fromTicks = windowStart == Long.MIN_VALUE ? Long.MIN_VALUE : toTicks(header, windowStart);
+    long toTicks = windowEnd == Long.MAX_VALUE ? Long.MAX_VALUE : toTicks(header, windowEnd);
+    // events may start before their chunk, so even chunks inside the window are checked
+    boolean timed = fromTicks != Long.MIN_VALUE || toTicks != Long.MAX_VALUE;
+    LongObjectHashMap<Rule> rules = new LongObjectHashMap<>();
+    if (metadata instanceof MutableMetadataLookup) {
+      for (MetadataClass clz : ((MutableMetadataLookup) metadata).classes()) {
+        Double rate = sampleRates.get(clz.getName());
+        boolean startTime = timed && hasStartTime(clz);
+        if (rate != null || startTime) {
+          rules.put(
+              clz.getId(), new Rule(threshold(rate != null ? rate : sampleRate), startTime));
+        }
+      }
+    }
+    Rule defaultRule = new Rule(threshold(sampleRate), false);
+    if (rules.isEmpty() && defaultRule.threshold < 0) {
+      return null;
+    }
+    return new Chunk(header.offset, fromTicks, toTicks, rules, defaultRule);
+  }
+
+  private static boolean hasStartTime(MetadataClass clz) {
+    List<MetadataField> fields = clz.getAllFields();
+    return !fields.isEmpty() && "startTime".equals(fields.get(0).getName());
+  }
+
+  /** Converts epoch nanoseconds to the ticks of a chunk, rounding up. */
+  private static long toTicks(ChunkHeader header, long nanos) {
+    double ticks =
+        Math.ceil(((double) nanos - header.startNanos) * header.frequency / 1_000_000_000d);
+    // saturates instead of overflowing for far away instants
+    return (long) (header.startTicks + ticks);
+  }
+
+  /** Maps a rate to the hash threshold below which events are selected; -1 selects all. */
+  private static long threshold(double rate) {
+    return rate >= 1.0d ? -1 : (long) (Math.max(rate, 0.0d) * SAMPLE_SCALE);
+  }
+
+  private static final class Rule {
+    final long threshold;
+    final boolean startTime;
+
+    Rule(long threshold, boolean startTime) {
+      this.threshold = threshold;
+      this.startTime = startTime;
+    }
+  }
+
+  /** The event selection of a chunk; immutable, shared by the threads decoding the chunk. */
+  static final class Chunk {
+    private final long chunkOffset;
+    private final long fromTicks;
+    private final long toTicks;
+    private final LongObjectHashMap<Rule> rules;
+    private final Rule defaultRule;
+
+    Chunk(
+        long chunkOffset,
+        long fromTicks,
+        long toTicks,
+        LongObjectHashMap<Rule> rules,
+        Rule defaultRule) {
+      this.chunkOffset = chunkOffset;
+      this.fromTicks = fromTicks;
+      this.toTicks = toTicks;
+      this.rules = rules;
+      this.defaultRule = defaultRule;
+    }
+
+    /**
+     * Whether an event is passed to the listener.
+     *
+     * @param stream the chunk stream, positioned right after the event type; the position is
+     *     unchanged on return
+     * @param eventType the event type id
+     * @param eventPos the position of the event in the chunk
+     * @return {@code true} if the event is selected
+     */
+    boolean accept(RecordingStream stream, long eventType, long eventPos) {
+      Rule rule = rules.getOrDefault(eventType, defaultRule);
+      if (rule.threshold >= 0 && mix(chunkOffset + eventPos) >>> 11 >= rule.threshold) {
+        return false;
+      }
+      if (rule.startTime) {
+        long pos = stream.position();
+        long startTicks = stream.readVarint();
+        stream.position(pos);
+        return startTicks >= fromTicks && startTicks < toTicks;
+      }
+      return true;
+    }
+
+    /** The SplitMix64 finalizer, spreading close positions over the whole range. */
+    private static long mix(long z) {
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+    }
+  }
+}
@@ -0,0 +1,427 @@
+package io.jafar.parser.internal_api;
+
+import io.jafar.parser.api.MetadataLookup;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent index of the event types contained in the chunks of a recording.
+ *
+ * <p>For every chunk the index records its time span, the number of events of each type and the
+ * byte ranges ("runs") of consecutive events of each type. It is written next to the recording as
+ * {@code <recording>}{@value #SUFFIX} after the first full parse with {@link
+ * ChunkParserOptions.Builder#eventIndex(boolean)} enabled. Later parses whose listener declares its
+ * {@linkplain ChunkParserListener#acceptedEventTypes() accepted event types} skip chunks not
+ * containing any of them and only decode the runs of the accepted types.
+ *
+ * <p>Event types scattered over more than {@value #MAX_RUNS_PER_TYPE} runs in a chunk are stored
+ * without runs; chunks containing them are scanned in full.
+ */
+public final class EventIndex {
+  private static final Logger log = LoggerFactory.getLogger(EventIndex.class);
+
+  /** File name suffix of the sidecar index. */
+  public static final String SUFFIX = ".jfridx";
+
+  /** Maximum number of runs stored per event type and chunk. */
+  static final int MAX_RUNS_PER_TYPE = 4096;
+
+  private static final int MAGIC = 0x4A455649; // "JEVI"
+  private static final int VERSION = 1;
+
+  private final List<Chunk> chunks;
+
+  private EventIndex(List<Chunk> chunks) {
+    this.chunks = Collections.unmodifiableList(chunks);
+  }
+
+  /** Index entry of a single chunk. */
+  public static final class Chunk {
+    private final int index;
+    private final int size;
+    private final long startNanos;
+    private final long durationNanos;
+    private final Map<String, TypeEntry> types;
+
+    Chunk(int index, int size, long startNanos, long durationNanos, Map<String, TypeEntry> types) {
+      this.index = index;
+      this.size = size;
+      this.startNanos = startNanos;
+      this.durationNanos = durationNanos;
+      this.types = types;
+    }
+
+    /**
+     * Gets the 1-based chunk index.
+     *
+     * @return the chunk index
+     */
+    public int index() {
+      return index;
+    }
+
+    /**
+     * Gets the chunk size.
+     *
+     * @return the size in bytes
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Gets the start of the chunk time span.
+     *
+     * @return the start time in epoch nanoseconds
+     */
+    public long startNanos() {
+      return startNanos;
+    }
+
+    /**
+     * Gets the end of the chunk time span.
+     *
+     * @return the end time in epoch nanoseconds
+     */
+    public long endNanos() {
+      return startNanos + durationNanos;
+    }
+
+    /**
+     * Gets the number of events per event type.
+     *
+     * @return the event counts keyed by event type name
+     */
+    public Map<String, Long> eventCounts() {
+      Map<String, Long> counts = new LinkedHashMap<>();
+      types.forEach((name, type) -> counts.put(name, type.count));
+      return counts;
+    }
+
+    /**
+     * Whether the chunk contains events of any of the given types.
+     *
+     * @param eventTypes the event type names
+     * @return {@literal true} if at least one event of the types is present
+     */
+    public boolean containsAny(Set<String> eventTypes) {
+      for (String type : eventTypes) {
+        if (types.containsKey(type)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    boolean matches(ChunkHeader header) {
+      return header.size == size && header.startNanos == startNanos;
+    }
+
+    /**
+     * Gets the byte ranges of the chunk holding all events of the given types.
+     *
+     * @param eventTypes the event type names
+     * @return sorted, non-overlapping {@code [start, end)} pairs relative to the chunk start, or
+     *     {@code null} if the whole event section must be scanned
+     */
+    long[] eventRanges(Set<String> eventTypes) {
+      List<int[]> selected = new ArrayList<>();
+      int total = 0;
+      for (String type : eventTypes) {
+        TypeEntry entry = types.get(type);
+        if (entry != null) {
+          if (entry.runs == null) {
+            return null;
+          }
+          selected.add(entry.runs);
+          total += entry.runs.length;
+        }
+      }
+      long[] ranges = new long[total];
+      int pos = 0;
+      for (int[] runs : selected) {
+        for (int run : runs) {
+          ranges[pos++] = run;
+        }
+      }
+      return mergeRanges(ranges);
+    }
+  }
+
+  /** Events of one type within a chunk. */
+  static final class TypeEntry {
+    final long count;
+
+    /** {@code [start, end)} pairs of consecutive events of the type, or {@code null}. */
+    final int[] runs;
+
+    TypeEntry(long count, int[] runs) {
+      this.count = count;
+      this.runs = runs;
+    }
+  }
+
+  /**
+   * Reads the event index of a recording.
+   *
+   * @param recording the recording
+   * @return the index, or {@code null} if there is no usable index for the current recording
+   */
+  public static EventIndex read(Path recording) {
+    try (DataInputStream in = SidecarFile.open(recording, SUFFIX, MAGIC, VERSION)) {
+      if (in == null) {
+        return null;
+      }
+      int chunkCount = in.readInt();
+      List<Chunk> chunks = new ArrayList<>(chunkCount);
+      for (int i = 0; i < chunkCount; i++) {
+        int index = in.readInt();
+        int size = in.readInt();
+        long startNanos = in.readLong();
+        long durationNanos = in.readLong();
+        int typeCount = in.readInt();
+        Map<String, TypeEntry> types = new HashMap<>(typeCount * 2);
+        for (int t = 0; t < typeCount; t++) {
+          String name = in.readUTF();
+          long count = in.readLong();
+          int runLength = in.readInt();
+          int[] runs = null;
+          if (runLength >= 0) {
+            runs = new int[runLength];
+            for (int r = 0; r < runLength; r++) {
+              runs[r] = in.readInt();
+            }
+          }
+          types.put(name, new TypeEntry(count, runs));
+        }
+        chunks.add(new Chunk(index, size, startNanos, durationNanos, types));
+      }
+      return new EventIndex(chunks);
+    } catch (IOException e) {
+      log.debug("Ignoring unreadable event index of {}", recording, e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes this index next to the recording, replacing any previous index.
+   *
+   * @param recording the recording
+   * @throws IOException if the sidecar cannot be written
+   */
+  void write(Path recording) throws IOException {
+    SidecarFile.write(
+        recording,
+        SUFFIX,
+        MAGIC,
+        VERSION,
+        out -> {
+          out.writeInt(chunks.size());
+          for (Chunk chunk : chunks) {
+            out.writeInt(chunk.index);
+            out.writeInt(chunk.size);
+            out.writeLong(chunk.startNanos);
+            out.writeLong(chunk.durationNanos);
+            out.writeInt(chunk.types.size());
+            for (Map.Entry<String, TypeEntry> e : chunk.types.entrySet()) {
+              out.writeUTF(e.getKey());
+              out.writeLong(e.getValue().count);
+              int[] runs = e.getValue().runs;
+              out.writeInt(runs != null ? runs.length : -1);
+              if (runs != null) {
+                for (int run : runs) {
+                  out.writeInt(run);
+                }
+              }
+            }
+          }
+        });
+  }
+
+  /**
+   * Gets the indexed chunks in recording order.
+   *
+   * @return the chunk entries
+   */
+  public List<Chunk> chunks() {
+    return chunks;
+  }
+
+  /**
+   * Gets the entry of a chunk.
+   *
+   * @param chunkIndex the 1-based chunk index
+   * @return the chunk entry, or {@code null} if the chunk is not indexed
+   */
+  public Chunk chunk(int chunkIndex) {
+    return chunkIndex >= 1 && chunkIndex <= chunks.size() ? chunks.get(chunkIndex - 1) : null;
+  }
+
+  /**
+   * Gets the number of events per event type in the whole recording.
+   *
+   * @return the event counts keyed by event type name
+   */
+  public Map<String, Long> eventCounts() {
+    Map<String, Long> counts = new TreeMap<>();
+    for (Chunk chunk : chunks) {
+      chunk.types.forEach((name, type) -> counts.merge(name, type.count, Long::sum));
+    }
+    return counts;
+  }
+
+  /**
+   * Sorts {@code [start, end)} pairs and merges adjacent ones.
+   *
+   * @param ranges the pairs, modified in place
+   * @return the merged pairs
+   */
+  private static long[] mergeRanges(long[] ranges) {
+    int pairs = ranges.length / 2;
+    long[][] sorted = new long[pairs][];
+    for (int i = 0; i < pairs; i++) {
+      sorted[i] = new long[] {ranges[2 * i], ranges[2 * i + 1]};
+    }
+    Arrays.sort(sorted, (a, b) -> Long.compare(a[0], b[0]));
+    int count = 0;
+    for (long[] range : sorted) {
+      if (count > 0 && ranges[2 * count - 1] == range[0]) {
+        ranges[2 * count - 1] = range[1];
+      } else {
+        ranges[2 * count] = range[0];
+        ranges[2 * count + 1] = range[1];
+        count++;
+      }
+    }
+    return Arrays.copyOf(ranges, 2 * count);
+  }
+
+  /**
+   * Indexes the events of a chunk, reading only the event size and type varints.
+   *
+   * @param stream the chunk stream, with the chunk metadata already registered
+   * @param header the chunk header
+   * @param headerSize the size of the chunk header
+   * @return the chunk entry
+   */
+  static Chunk scan(RecordingStream stream, ChunkHeader header, long headerSize) {
+    MetadataLookup metadata = stream.getContext().getMetadataLookup();
+    Map<Long, RunCollector> byId = new HashMap<>();
+    Map<String, RunCollector> byName = new HashMap<>();
+    long pos = headerSize;
+    stream.position(pos);
+    try {
+      while (pos < header.size) {
+        long eventSize = stream.readVarint();
+        if (eventSize <= 0) {
+          pos = stream.position();
+          continue;
+        }
+        if (pos + eventSize > header.size) {
+          break;
+        }
+        long typeId = stream.readVarint();
+        if (typeId > 1) { // metadata and checkpoint events are not indexed
+          RunCollector collector = byId.get(typeId);
+          if (collector == null) {
+            MetadataClass clz = metadata.getClass(typeId);
+            String name = clz != null ? clz.getName() : "#" + typeId;
+            collector = byName.computeIfAbsent(name, k -> new RunCollector());
+            byId.put(typeId, collector);
+          }
+          collector.add((int) pos, (int) (pos + eventSize));
+        }
+        pos += eventSize;
+        stream.position(pos);
+      }
+    } catch (BufferUnderflowException e) {
+      log.debug("Buffer underflow indexing chunk {} at position {}", header.order, pos);
+    }
+    Map<String, TypeEntry> types = new HashMap<>(byName.size() * 2);
+    byName.forEach((name, collector) -> types.put(name, collector.toEntry()));
+    return new Chunk(header.order, header.size, header.startNanos, header.duration, types);
+  }
+
+  /** Collects the runs of one event type while scanning a chunk. */
+  private static final class RunCollector {
+    private long count;
+    private int[] runs = new int[8];
+    private int length;
+
+    void add(int start, int end) {
+      count++;
+      if (runs == null) {
+        return;
+      }
+      if (length > 0 && runs[length - 1] == start) {
+        runs[length - 1] = end;
+        return;
+      }
+      if (length == 2 * MAX_RUNS_PER_TYPE) {
+        runs = null; // too scattered to be worth storing
+        return;
+      }
+      if (length == runs.length) {
+        runs = Arrays.copyOf(runs, length * 2);
+      }
+      runs[length++] = start;
+      runs[length++] = end;
+    }
+
+    TypeEntry toEntry() {
+      return new TypeEntry(count, runs != null ? Arrays.copyOf(runs, length) : null);
+    }
+  }
+
+  /** Collects the chunk entries during a full parse. */
+  static final class Builder {
+    private final Map<Integer, Chunk> chunks = new TreeMap<>();
+    private boolean complete = true;
+
+    /**
+     * Adds a chunk entry.
+     *
+     * @param chunk the chunk entry
+     */
+    synchronized void add(Chunk chunk) {
+      chunks.put(chunk.index, chunk);
+    }
+
+    /** Marks the index incomplete because a chunk was not indexed. */
+    synchronized void markIncomplete() {
+      complete = false;
+    }
+
+    /**
+     * Builds the index.
+     *
+     * @return the index, or {@code null} if not every chunk of the recording was indexed
+     */
+    synchronized EventIndex build() {
+      if (!complete) {
+        return null;
+      }
+      int expected = 1;
+      for (Integer index : chunks.keySet()) {
+        if (index != expected++) {
+          return null;
+        }
+      }
+      return new EventIndex(new ArrayList<>(chunks.values()));
+    }
+  }
+}
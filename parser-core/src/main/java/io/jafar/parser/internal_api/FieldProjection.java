@@ -0,0 +1,155 @@
+package io.jafar.parser.internal_api;
+
+import io.jafar.parser.api.Internal;
+import io.jafar.parser.api.UntypedProjection;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import io.jafar.parser.internal_api.metadata.MetadataField;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The decoding steps of a projected event type.
+ *
+ * <p>Each step either reads one projected field or skips a run of consecutive unprojected fields
+ * with a single {@link TypeSkipper}. The steps end with the last projected field; the remainder of
+ * the event is left unread.
+ *
+ * @see UntypedProjection
+ */
+@Internal
+public final class FieldProjection {
+  private final MetadataField[] fields;
+  private final TypeSkipper[] skippers;
+  private final int fieldCount;
+
+  private FieldProjection(MetadataField[] fields, TypeSkipper[] skippers, int fieldCount) {
+    this.fields = fields;
+    this.skippers = skippers;
+    this.fieldCount = fieldCount;
+  }
+
+  /**
+   * Creates the decoding steps of a type.
+   *
+   * @param type the event type
+   * @param projected the names of the top-level fields to read
+   * @return the steps
+   */
+  public static FieldProjection of(MetadataClass type, Set<String> projected) {
+    List<MetadataField> typeFields = type.getAllFields();
+    int last = -1;
+    for (int i = 0; i < typeFields.size(); i++) {
+      if (projected.contains(typeFields.get(i).getName())) {
+        last = i;
+      }
+    }
+    List<MetadataField> fields = new ArrayList<>();
+    List<TypeSkipper> skippers = new ArrayList<>();
+    List<MetadataField> run = new ArrayList<>();
+    int fieldCount = 0;
+    for (int i = 0; i <= last; i++) {
+      MetadataField field = typeFields.get(i);
+      if (projected.contains(field.getName())) {
+        if (!run.isEmpty()) {
+          fields.add(null);
+          skippers.add(TypeSkipper.createSkipper(run));
+          run = new ArrayList<>();
+        }
+        fields.add(field);
+        skippers.add(null);
+        fieldCount++;
+      } else {
+        run.add(field);
+      }
+    }
+    return new FieldProjection(
+        fields.toArray(new MetadataField[0]), skippers.toArray(new TypeSkipper[0]), fieldCount);
+  }
+
+  /**
+   * Gets the number of steps.
+   *
+   * @return the step count
+   */
+  public int size() {
+    return fields.length;
+  }
+
+  /**
+   * Gets the field read by a step.
+   *
+   * @param step the step index
+   * @return the field, or {@code null} if the step skips
+   */
+  public MetadataField field(int step) {
+    return fields[step];
+  }
+
+  /**
+   * Gets the skipper of a step.
+   *
+   * @param step the step index
+   * @return the skipper, or {@code null} if the step reads a field
+   */
+  public TypeSkipper skipper(int step) {
+    return skippers[step];
+  }
+
+  /**
+   * Gets the skippers of all steps.
+   *
+   * @return the skippers indexed by step, {@code null} for steps reading a field
+   */
+  public TypeSkipper[] skippers() {
+    return skippers.clone();
+  }
+
+  /**
+   * Gets the number of fields read.
+   *
+   * @return the number of projected fields present in the type
+   */
+  public int fieldCount() {
+    return fieldCount;
+  }
+
+  /**
+   * Per-context lookup of the decoding steps by event type.
+   *
+   * <p>Not thread-safe; each chunk or worker context holds its own instance.
+   */
+  public static final class Cache {
+    private static final FieldProjection UNRESTRICTED = new FieldProjection(null, null, -1);
+
+    private final UntypedProjection projection;
+    private final Map<MetadataClass, FieldProjection> steps = new IdentityHashMap<>();
+
+    /**
+     * Creates a lookup for a projection.
+     *
+     * @param projection the projection
+     */
+    public Cache(UntypedProjection projection) {
+      this.projection = projection;
+    }
+
+    /**
+     * Gets the decoding steps of a type.
+     *
+     * @param type the event type
+     * @return the steps, or {@code null} if all fields of the type are decoded
+     */
+    public FieldProjection get(MetadataClass type) {
+      FieldProjection result = steps.get(type);
+      if (result == null) {
+        Set<String> projected = projection.fields(type.getName());
+        result = projected != null ? of(type, projected) : UNRESTRICTED;
+        steps.put(type, result);
+      }
+      return result != UNRESTRICTED ? result : null;
+    }
+  }
+}
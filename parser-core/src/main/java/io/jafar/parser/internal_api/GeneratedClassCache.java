@@ -0,0 +1,167 @@
+package io.jafar.parser.internal_api;
+
+import io.jafar.parser.internal_api.metadata.MetadataFingerprint;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of generated deserializer classes.
+ *
+ * <p>Class bytes are stored per {@link MetadataFingerprint} under {@code
+ * <directory>/<fingerprint>/<key>.class}, where the key identifies the generated class (event type,
+ * handler interface and generator version) and is chosen by the deserializer factory. A new JVM
+ * parsing a recording with the same metadata defines the stored classes instead of generating them
+ * again.
+ *
+ * <p>The cache is best-effort: unreadable entries are ignored and failures to store an entry are
+ * only logged. It is safe to share a directory between concurrently running JVMs, entries are
+ * written atomically.
+ */
+public final class GeneratedClassCache {
+  private static final Logger log = LoggerFactory.getLogger(GeneratedClassCache.class);
+
+  private static final int MAGIC = 0x4A434C53; // "JCLS"
+  private static final int VERSION = 1;
+
+  private final Path directory;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates a cache stored in the given directory. The directory is created on the first store.
+   *
+   * @param directory the cache directory
+   */
+  public GeneratedClassCache(Path directory) {
+    if (directory == null) {
+      throw new IllegalArgumentException("directory must not be null");
+    }
+    this.directory = directory;
+  }
+
+  /**
+   * Gets the default cache directory, {@code ~/.jafar/classes}.
+   *
+   * @return the default directory
+   */
+  public static Path defaultDirectory() {
+    return Paths.get(System.getProperty("user.home"), ".jafar", "classes");
+  }
+
+  /**
+   * Gets the cache directory.
+   *
+   * @return the directory
+   */
+  public Path directory() {
+    return directory;
+  }
+
+  /**
+   * Loads stored class bytes.
+   *
+   * @param fingerprint the metadata fingerprint the class was generated for
+   * @param key the class key
+   * @return the class bytes, or {@code null} if there is no readable entry
+   */
+  public byte[] load(MetadataFingerprint fingerprint, String key) {
+    Path entry = entry(fingerprint, key);
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        log.debug("Ignoring {} with unknown format", entry);
+      } else {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        hits.incrementAndGet();
+        return bytes;
+      }
+    } catch (NoSuchFileException e) {
+      // not cached yet
+    } catch (IOException e) {
+      log.debug("Ignoring unreadable {}", entry, e);
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Stores class bytes, replacing any previous entry. Failures are logged and otherwise ignored.
+   *
+   * @param fingerprint the metadata fingerprint the class was generated for
+   * @param key the class key
+   * @param bytes the class bytes
+   */
+  public void store(MetadataFingerprint fingerprint, String key, byte[] bytes) {
+    Path entry = entry(fingerprint, key);
+    Path tmp = null;
+    try {
+      Files.createDirectories(entry.getParent());
+      tmp = Files.createTempFile(entry.getParent(), key, ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      try {
+        Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      log.debug("Failed to store generated class {}", entry, e);
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException ignored) {
+          // nothing to do
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the number of entries loaded from this cache.
+   *
+   * @return the hit count
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Gets the number of lookups which found no readable entry.
+   *
+   * @return the miss count
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  private Path entry(MetadataFingerprint fingerprint, String key) {
+    StringBuilder sb = new StringBuilder();
+    for (byte b : fingerprint.getHashBytes()) {
+      sb.append(String.format("%02x", b));
+    }
+    return directory.resolve(sb.toString()).resolve(key + ".class");
+  }
+
+  @Override
+  public String toString() {
+    return "GeneratedClassCache{" + directory + "}";
+  }
+}
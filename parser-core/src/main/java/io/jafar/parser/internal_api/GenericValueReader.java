@@ -14,13 +14,28 @@ public final class GenericValueReader {
   /** The value processor to delegate value handling to. */
   private final ValueProcessor processor;
 
+  /** Whether strings are passed as views to {@link ValueProcessor#onStringView}. */
+  private final boolean stringViews;
+
   /**
    * Constructs a new GenericValueReader with the specified processor.
    *
    * @param processor the value processor to use for handling values
    */
   public GenericValueReader(ValueProcessor processor) {
+    this(processor, false);
+  }
+
+  /**
+   * Constructs a new GenericValueReader with the specified processor and string representation.
+   *
+   * @param processor the value processor to use for handling values
+   * @param stringViews {@code true} to pass inline strings undecoded as {@link
+   *     io.jafar.utils.LazyString} views
+   */
+  public GenericValueReader(ValueProcessor processor, boolean stringViews) {
     this.processor = processor;
+    this.stringViews = stringViews;
   }
 
   @SuppressWarnings("unchecked")
@@ -39,20 +54,33 @@ public final class GenericValueReader {
     if (type.isPrimitive()) {
       readSingleValue(stream, null, type, "");
     }
-    for (MetadataField fld : type.getFields()) {
-      if (fld.getDimension() == 1) {
-        int len = (int) stream.readVarint();
-        try {
-          processor.onArrayStart(type, fld.getName(), fld.getType(), len);
-          for (int i = 0; i < len; i++) {
-            readSingleFieldValue(stream, type, fld);
-          }
-        } finally {
-          processor.onArrayEnd(type, fld.getName(), fld.getType());
+    for (MetadataField fld : type.getAllFields()) {
+      readField(stream, type, fld);
+    }
+  }
+
+  /**
+   * Reads the value of a single field of a complex value from the recording stream.
+   *
+   * @param stream the recording stream, positioned at the field value
+   * @param type the metadata class owning the field
+   * @param fld the field to read
+   * @throws IOException if an I/O error occurs during reading
+   */
+  public void readField(RecordingStream stream, MetadataClass type, MetadataField fld)
+      throws IOException {
+    if (fld.getDimension() == 1) {
+      int len = (int) stream.readVarint();
+      try {
+        processor.onArrayStart(type, fld.getName(), fld.getType(), len);
+        for (int i = 0; i < len; i++) {
+          readSingleFieldValue(stream, type, fld);
         }
-      } else {
-        readSingleFieldValue(stream, type, fld);
+      } finally {
+        processor.onArrayEnd(type, fld.getName(), fld.getType());
       }
+    } else {
+      readSingleFieldValue(stream, type, fld);
     }
   }
 
@@ -118,7 +146,11 @@ public final class GenericValueReader {
         processor.onFloatValue(owner, fldName, stream.readFloat());
         break;
       case "java.lang.String":
-        processor.onStringValue(owner, fldName, stream.readUTF8());
+        if (stringViews) {
+          processor.onStringView(owner, fldName, stream.readUTF8View());
+        } else {
+          processor.onStringValue(owner, fldName, stream.readUTF8());
+        }
         break;
       default:
         throw new IllegalStateException("Unknown primitive type: " + type);
@@ -1,43 +1,77 @@
 package io.jafar.parser.internal_api;
 
 import io.jafar.parser.internal_api.metadata.MetadataFingerprint;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * JVM-global singleton cache for sharing generated handler classes across parsing sessions.
  *
  * <p>This cache maps metadata fingerprints to deserializer caches, enabling safe reuse of handler
- * classes when metadata is compatible. Uses an LRU eviction policy with a configurable maximum size
- * to prevent unbounded memory growth.
+ * classes when metadata is compatible. Uses an approximate LRU eviction policy with a configurable
+ * maximum size to prevent unbounded memory growth.
  *
- * <p>Thread-safe for concurrent access from multiple parsing sessions.
+ * <p>Thread-safe for concurrent access from multiple parsing sessions. Lookups of cached
+ * fingerprints take no lock and, in the common case, write no shared state other than striped hit
+ * counters. Recency is tracked with a logical clock advanced on each miss, so entries used between
+ * the same two misses count as equally recent. When the cache grows over its maximum size, the
+ * least recently used entries are evicted in batches by a background thread, so the cache may
+ * briefly hold more entries than the maximum.
  */
 public final class GlobalHandlerCache {
-  private static final GlobalHandlerCache INSTANCE = new GlobalHandlerCache();
   private static final int MAX_CACHE_SIZE = 1000;
+  private static final GlobalHandlerCache INSTANCE =
+      new GlobalHandlerCache(MAX_CACHE_SIZE, newEvictionExecutor());
 
-  private final Map<MetadataFingerprint, CacheEntry> cache;
-  private final ReentrantLock lock = new ReentrantLock();
-  private final AtomicLong totalHits = new AtomicLong(0);
-  private final AtomicLong totalMisses = new AtomicLong(0);
-  private final AtomicLong totalEvictions = new AtomicLong(0);
-
-  private GlobalHandlerCache() {
-    // LinkedHashMap with access-order for LRU
-    this.cache =
-        new LinkedHashMap<MetadataFingerprint, CacheEntry>(16, 0.75f, true) {
-          @Override
-          protected boolean removeEldestEntry(Map.Entry<MetadataFingerprint, CacheEntry> eldest) {
-            if (size() > MAX_CACHE_SIZE) {
-              totalEvictions.incrementAndGet();
-              return true;
-            }
-            return false;
-          }
-        };
+  private final ConcurrentHashMap<MetadataFingerprint, CacheEntry> cache;
+
+  /** Statistics of evicted fingerprints, carried over when a fingerprint is cached again. */
+  private final ConcurrentHashMap<MetadataFingerprint, Stats> evicted;
+
+  private final int maxSize;
+
+  /** Number of entries evicted below the maximum size, so that eviction runs once per batch. */
+  private final int evictionBatch;
+
+  private final Executor evictor;
+  private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+
+  /** Logical clock of the entries' last access, advanced on each miss. */
+  private final AtomicLong accessClock = new AtomicLong();
+
+  private final LongAdder totalHits = new LongAdder();
+  private final LongAdder totalMisses = new LongAdder();
+  private final LongAdder totalEvictions = new LongAdder();
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxSize the maximum number of fingerprints kept after eviction
+   * @param evictor runs the eviction of excess entries
+   */
+  GlobalHandlerCache(int maxSize, Executor evictor) {
+    this.cache = new ConcurrentHashMap<>();
+    this.evicted = new ConcurrentHashMap<>();
+    this.maxSize = maxSize;
+    this.evictionBatch = Math.max(maxSize / 10, 1);
+    this.evictor = evictor;
+  }
+
+  /** Creates the executor evicting entries of the global cache; its thread starts on first use. */
+  private static Executor newEvictionExecutor() {
+    return Executors.newSingleThreadExecutor(
+        r -> {
+          Thread t = new Thread(r, "jafar-handler-cache-eviction");
+          t.setDaemon(true);
+          return t;
+        });
   }
 
   /**
@@ -53,32 +87,92 @@ public final class GlobalHandlerCache {
    * Gets or creates a deserializer cache for the given metadata fingerprint.
    *
    * <p>If a cache already exists for this fingerprint (cache hit), returns the existing cache and
-   * updates LRU ordering. Otherwise (cache miss), creates a new cache, stores it, and returns it.
+   * marks it as used since the last miss. Otherwise (cache miss), creates a new cache, stores it,
+   * and returns it.
    *
    * @param fingerprint the metadata fingerprint identifying the cache
    * @return the deserializer cache for this fingerprint
    */
   public DeserializerCache getOrCreateCache(MetadataFingerprint fingerprint) {
-    lock.lock();
-    try {
-      CacheEntry entry = cache.get(fingerprint);
-      if (entry != null) {
-        // Cache hit - update statistics and LRU
-        entry.hits.incrementAndGet();
-        entry.lastAccessTime.set(System.nanoTime());
-        totalHits.incrementAndGet();
-        return entry.deserializerCache;
+    CacheEntry entry = cache.get(fingerprint);
+    if (entry == null) {
+      Stats stats = evicted.get(fingerprint);
+      CacheEntry created =
+          new CacheEntry(
+              new DeserializerCache.Impl(),
+              stats != null ? stats : new Stats(),
+              accessClock.incrementAndGet());
+      entry = cache.putIfAbsent(fingerprint, created);
+      if (entry == null) {
+        // Cache miss - the new entry was stored
+        if (stats != null) {
+          evicted.remove(fingerprint, stats);
+        }
+        created.stats.misses.increment();
+        totalMisses.increment();
+        if (cache.size() > maxSize) {
+          scheduleEviction();
+        }
+        return created.deserializerCache;
+      }
+    }
+    // Cache hit - update statistics and recency; the access time is written once per clock tick
+    entry.stats.hits.increment();
+    long now = accessClock.get();
+    if (entry.lastAccessTime != now) {
+      entry.lastAccessTime = now;
+    }
+    totalHits.increment();
+    return entry.deserializerCache;
+  }
+
+  private void scheduleEviction() {
+    if (evictionScheduled.compareAndSet(false, true)) {
+      try {
+        evictor.execute(this::evict);
+      } catch (RejectedExecutionException e) {
+        evictionScheduled.set(false);
       }
+    }
+  }
 
-      // Cache miss - create new entry
-      totalMisses.incrementAndGet();
-      DeserializerCache newCache = new DeserializerCache.Impl();
-      entry = new CacheEntry(newCache);
-      cache.put(fingerprint, entry);
+  /** Evicts the least recently used entries exceeding the maximum size, plus one batch. */
+  void evict() {
+    try {
+      int excess = cache.size() - maxSize;
+      if (excess <= 0) {
+        return;
+      }
+      // Snapshot the access times; they keep changing while the entries are sorted
+      Object[] entries = cache.entrySet().toArray();
+      long[] order = new long[entries.length];
+      for (int i = 0; i < entries.length; i++) {
+        order[i] = ((CacheEntry) ((Map.Entry<?, ?>) entries[i]).getValue()).lastAccessTime;
+      }
+      Integer[] byAge = new Integer[entries.length];
+      for (int i = 0; i < byAge.length; i++) {
+        byAge[i] = i;
+      }
+      Arrays.sort(byAge, (a, b) -> Long.compare(order[a], order[b]));
 
-      return newCache;
+      if (evicted.size() > maxSize) {
+        evicted.clear();
+      }
+      int toEvict = Math.min(excess + evictionBatch, entries.length);
+      for (int i = 0; i < toEvict; i++) {
+        @SuppressWarnings("unchecked")
+        Map.Entry<MetadataFingerprint, CacheEntry> e =
+            (Map.Entry<MetadataFingerprint, CacheEntry>) entries[byAge[i]];
+        if (cache.remove(e.getKey(), e.getValue())) {
+          evicted.put(e.getKey(), e.getValue().stats);
+          totalEvictions.increment();
+        }
+      }
     } finally {
-      lock.unlock();
+      evictionScheduled.set(false);
+    }
+    if (cache.size() > maxSize) {
+      scheduleEviction();
     }
   }
 
@@ -88,12 +182,7 @@ public final class GlobalHandlerCache {
    * @return the cache size
    */
   public int size() {
-    lock.lock();
-    try {
-      return cache.size();
-    } finally {
-      lock.unlock();
-    }
+    return cache.size();
   }
 
   /**
@@ -102,7 +191,7 @@ public final class GlobalHandlerCache {
    * @return the total hit count
    */
   public long getTotalHits() {
-    return totalHits.get();
+    return totalHits.sum();
   }
 
   /**
@@ -111,7 +200,7 @@ public final class GlobalHandlerCache {
    * @return the total miss count
    */
   public long getTotalMisses() {
-    return totalMisses.get();
+    return totalMisses.sum();
   }
 
   /**
@@ -120,7 +209,7 @@ public final class GlobalHandlerCache {
    * @return the total eviction count
    */
   public long getTotalEvictions() {
-    return totalEvictions.get();
+    return totalEvictions.sum();
   }
 
   /**
@@ -129,8 +218,55 @@ public final class GlobalHandlerCache {
    * @return the hit rate percentage
    */
   public double getHitRate() {
-    long hits = totalHits.get();
-    long misses = totalMisses.get();
+    return hitRate(totalHits.sum(), totalMisses.sum());
+  }
+
+  /**
+   * Returns the number of hits for a fingerprint.
+   *
+   * <p>Per-fingerprint statistics are kept while the fingerprint is cached and carried over when an
+   * evicted fingerprint is cached again, so more than one miss indicates a cache too small for the
+   * variety of parsed recordings.
+   *
+   * @param fingerprint the metadata fingerprint
+   * @return the hit count, or 0 if the fingerprint is not known
+   */
+  public long getHits(MetadataFingerprint fingerprint) {
+    Stats stats = stats(fingerprint);
+    return stats != null ? stats.hits.sum() : 0;
+  }
+
+  /**
+   * Returns the number of misses for a fingerprint, i.e. how many times its deserializer cache was
+   * created.
+   *
+   * @param fingerprint the metadata fingerprint
+   * @return the miss count, or 0 if the fingerprint is not known
+   * @see #getHits(MetadataFingerprint)
+   */
+  public long getMisses(MetadataFingerprint fingerprint) {
+    Stats stats = stats(fingerprint);
+    return stats != null ? stats.misses.sum() : 0;
+  }
+
+  /**
+   * Returns the hit rate of a fingerprint as a percentage (0-100).
+   *
+   * @param fingerprint the metadata fingerprint
+   * @return the hit rate percentage, or 0 if the fingerprint is not known
+   * @see #getHits(MetadataFingerprint)
+   */
+  public double getHitRate(MetadataFingerprint fingerprint) {
+    Stats stats = stats(fingerprint);
+    return stats != null ? hitRate(stats.hits.sum(), stats.misses.sum()) : 0.0;
+  }
+
+  private Stats stats(MetadataFingerprint fingerprint) {
+    CacheEntry entry = cache.get(fingerprint);
+    return entry != null ? entry.stats : evicted.get(fingerprint);
+  }
+
+  private static double hitRate(long hits, long misses) {
     long total = hits + misses;
     if (total == 0) {
       return 0.0;
@@ -144,27 +280,31 @@ public final class GlobalHandlerCache {
    * <p>This method is primarily intended for testing purposes.
    */
   public void clear() {
-    lock.lock();
-    try {
-      cache.clear();
-      totalHits.set(0);
-      totalMisses.set(0);
-      totalEvictions.set(0);
-    } finally {
-      lock.unlock();
-    }
+    cache.clear();
+    evicted.clear();
+    totalHits.reset();
+    totalMisses.reset();
+    totalEvictions.reset();
   }
 
   /** Internal cache entry holding a deserializer cache and its statistics. */
   private static final class CacheEntry {
     final DeserializerCache deserializerCache;
-    final AtomicLong hits;
-    final AtomicLong lastAccessTime;
+    final Stats stats;
 
-    CacheEntry(DeserializerCache cache) {
+    /** Value of the access clock at the last use. */
+    volatile long lastAccessTime;
+
+    CacheEntry(DeserializerCache cache, Stats stats, long lastAccessTime) {
       this.deserializerCache = cache;
-      this.hits = new AtomicLong(0);
-      this.lastAccessTime = new AtomicLong(System.nanoTime());
+      this.stats = stats;
+      this.lastAccessTime = lastAccessTime;
     }
   }
+
+  /** Hit and miss counters of a fingerprint. */
+  private static final class Stats {
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+  }
 }
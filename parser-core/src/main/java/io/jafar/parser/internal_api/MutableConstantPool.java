@@ -1,12 +1,14 @@
 package io.jafar.parser.internal_api;
 
 import io.jafar.parser.api.ConstantPool;
+import io.jafar.parser.api.HandlerFactory;
 import io.jafar.parser.api.ParserContext;
 import io.jafar.parser.impl.MapValueBuilder;
 import io.jafar.parser.internal_api.collections.LongLongHashMap;
 import io.jafar.parser.internal_api.collections.LongObjectHashMap;
 import io.jafar.parser.internal_api.metadata.MetadataClass;
 import io.jafar.parser.internal_api.metadata.MetadataField;
+import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -53,6 +55,53 @@ public final class MutableConstantPool implements ConstantPool {
   /** The metadata class for the constant pool type. */
   private final MetadataClass clazz;
 
+  /**
+   * Whether the entry caches may be accessed by several threads at once.
+   *
+   * <p>Set before intra-chunk parallel decoding starts (the worker hand-off establishes the
+   * happens-before); once set, {@link #entries} and {@link #mapEntries} are only touched while
+   * holding their monitor. Deserialization itself runs outside the lock, so two threads may decode
+   * the same entry concurrently; the first published value wins.
+   */
+  private boolean concurrent = false;
+
+  /**
+   * Entries decoded in bulk by {@link #materialize}, looked up before {@link #entries}.
+   *
+   * <p>Published once all pools of the chunk are materialized, before any event is decoded.
+   */
+  private volatile Materialized materializedEntries;
+
+  /** Map representations decoded in bulk by {@link #materialize}, see {@link #mapEntries}. */
+  private volatile Materialized materializedMapEntries;
+
+  /**
+   * The recording-wide table sharing the entries of this pool with other chunks, or {@code null} if
+   * the pool is not interned.
+   */
+  private final ConstantPoolInternTable internTable;
+
+  /**
+   * Map of constant pool entry IDs to their {@linkplain ConstantPoolInternTable interned} entries.
+   *
+   * <p>Guarded like {@link #entries} once the pool is {@linkplain #setConcurrent() concurrent}.
+   */
+  private final LongObjectHashMap<ConstantPoolInternTable.Entry> interned;
+
+  /** Producer of the entries decoded by {@link #get(long)} without a typed deserializer. */
+  private static final Object GENERIC_VALUES = new Object();
+
+  /** Producer of the entries decoded by {@link #getAsMap(long)}. */
+  private static final Object MAP_VALUES = ConstantPoolInternTable.MAP_VALUES;
+
+  /** Representation in which the entries of a pool are decoded by {@link #materialize}. */
+  public enum Materialization {
+    /** Entries as returned by {@link #get(long)}. */
+    OBJECTS,
+    /** Entries as returned by {@link #getAsMap(long)}. */
+    MAPS
+  }
+
   /**
    * Constructs a new MutableConstantPool with the specified parameters.
    *
@@ -67,6 +116,10 @@ public final class MutableConstantPool implements ConstantPool {
     this.stream = chunkStream;
     ParserContext context = chunkStream.getContext();
     clazz = context.getMetadataLookup().getClass(typeId);
+    ConstantPoolInternTable table = context.get(ConstantPoolInternTable.class);
+    this.internTable =
+        table != null && table.interns(context.getMetadataLookup(), clazz) ? table : null;
+    this.interned = internTable != null ? new LongObjectHashMap<>(count) : null;
   }
 
   /**
@@ -76,14 +129,35 @@ public final class MutableConstantPool implements ConstantPool {
    * but with independent position tracking). Position save/restore handles re-entrancy when reading
    * a CP entry triggers resolution of another CP type (e.g., string pool lookup).
    *
+   * <p>Entries of an {@linkplain ConstantPoolInternTable interned} pool are looked up in the intern
+   * table first, which recognizes them without decoding. An entry decoded here is shared with the
+   * other chunks of the recording: maps once their references point to shared values, other values
+   * once the entries they reference are decoded into this chunk's pools and only if this chunk is
+   * one of the chunks the table may {@linkplain ConstantPoolInternTable#retains retain}.
+   *
    * @param id the ID of the constant pool entry
    * @return the deserialized object, or {@code null} if not found
    */
   public Object get(long id) {
+    Materialized materialized = materializedEntries;
+    if (materialized != null) {
+      Object o = materialized.get(id);
+      if (o != null) {
+        return o;
+      }
+    }
     long offset = offsets.get(id);
     if (offset > 0) {
-      Object o = entries.get(id);
+      Object o = cachedEntry(id);
       if (o == null) {
+        ConstantPoolInternTable.Entry shared = internedEntry(id, 0);
+        Object producer = shared != null ? producer() : null;
+        if (shared != null) {
+          o = shared.value(producer);
+          if (o != null) {
+            return cacheEntry(id, o);
+          }
+        }
         // Thread-local slice: one per thread, reused across calls (no per-call allocation).
         // Save/restore position for re-entrancy (e.g., reading a CP entry triggers string
         // pool lookup which re-enters get() on a different pool sharing the same slice).
@@ -118,8 +192,13 @@ public final class MutableConstantPool implements ConstantPool {
             }
           }
           if (o != null) {
-            entries.put(id, o);
+            if (shared != null) {
+              o = share(shared, producer, o, cpStream, offset);
+            }
+            o = cacheEntry(id, o);
           }
+        } catch (java.io.IOException ioe) {
+          throw new RuntimeException(ioe);
         } finally {
           cpStream.position(savedPos);
         }
@@ -141,13 +220,29 @@ public final class MutableConstantPool implements ConstantPool {
    * @param id the ID of the constant pool entry
    * @return the map representation, or {@code null} if not found
    */
+  @SuppressWarnings("unchecked")
   public Map<String, Object> getAsMap(long id) {
+    Materialized materialized = materializedMapEntries;
+    if (materialized != null) {
+      Object v = materialized.get(id);
+      if (v != null) {
+        return (Map<String, Object>) v;
+      }
+    }
     long offset = offsets.get(id);
     if (offset <= 0) return null;
 
-    Map<String, Object> v = mapEntries.get(id);
+    Map<String, Object> v = cachedMapEntry(id);
     if (v != null) return v;
 
+    ConstantPoolInternTable.Entry shared = internedEntry(id, 0);
+    if (shared != null) {
+      v = (Map<String, Object>) shared.value(MAP_VALUES);
+      if (v != null) {
+        return cacheMapEntry(id, v);
+      }
+    }
+
     RecordingStream cpStream = stream.threadLocalStreamSlice();
     long savedPos = cpStream.position();
     try {
@@ -188,12 +283,285 @@ public final class MutableConstantPool implements ConstantPool {
         v = builder.getRoot();
       }
       if (v != null) {
-        mapEntries.put(id, v);
+        if (shared != null) {
+          v = (Map<String, Object>) share(shared, MAP_VALUES, v, cpStream, offset);
+        }
+        v = cacheMapEntry(id, v);
       }
       return v;
+    } catch (java.io.IOException ioe) {
+      throw new RuntimeException(ioe);
+    } finally {
+      cpStream.position(savedPos);
+    }
+  }
+
+  /**
+   * Gets the recording-global id of a constant pool entry.
+   *
+   * <p>Identical entries of different chunks have the same global id.
+   *
+   * @param id the chunk-local ID of the constant pool entry
+   * @return the global id, or {@code 0} if the pool is not interned or has no such entry
+   */
+  public long getGlobalId(long id) {
+    ConstantPoolInternTable.Entry entry = internedEntry(id, 0);
+    return entry != null ? entry.id : 0;
+  }
+
+  /**
+   * Interns a constant pool entry without decoding it.
+   *
+   * @param id the chunk-local ID of the entry
+   * @param depth the number of entries being interned on the current thread
+   * @return the interned entry, or {@code null} if the pool is not interned or has no such entry
+   */
+  ConstantPoolInternTable.Entry internedEntry(long id, int depth) {
+    if (internTable == null) {
+      return null;
+    }
+    long offset = offsets.get(id);
+    if (offset <= 0) {
+      return null;
+    }
+    ConstantPoolInternTable.Entry entry;
+    if (concurrent) {
+      synchronized (interned) {
+        entry = interned.get(id);
+      }
+    } else {
+      entry = interned.get(id);
+    }
+    if (entry != null) {
+      return entry;
+    }
+    RecordingStream cpStream = stream.threadLocalStreamSlice();
+    long savedPos = cpStream.position();
+    try {
+      cpStream.position(offset);
+      entry = internTable.intern(this, cpStream, depth);
+    } catch (java.io.IOException ioe) {
+      throw new RuntimeException(ioe);
     } finally {
       cpStream.position(savedPos);
     }
+    if (concurrent) {
+      synchronized (interned) {
+        interned.put(id, entry);
+      }
+    } else {
+      interned.put(id, entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Shares a freshly decoded value of an interned entry, detaching it from this chunk if possible.
+   *
+   * @return the value to use, either the shared one or {@code value} if it is not shared
+   */
+  private Object share(
+      ConstantPoolInternTable.Entry shared,
+      Object producer,
+      Object value,
+      RecordingStream cpStream,
+      long offset)
+      throws java.io.IOException {
+    ParserContext context = stream.getContext();
+    if (!ConstantPoolInternTable.detach(value, context.getConstantPools())) {
+      if (!internTable.retains(context)) {
+        return value;
+      }
+      if (!(value instanceof Map)) {
+        // detaching a map already decoded the entries it references
+        cpStream.position(offset);
+        ConstantPoolInternTable.resolveReferences(this, cpStream);
+      }
+    }
+    return shared.share(producer, value);
+  }
+
+  /** Gets the producer of the values decoded by {@link #get(long)}, see {@link #internTable}. */
+  private Object producer() {
+    HandlerFactory<?> factory = clazz.getFactory();
+    if (factory != null) {
+      return factory;
+    }
+    Deserializer<?> deserializer = clazz.getDeserializer();
+    return deserializer != null ? deserializer : GENERIC_VALUES;
+  }
+
+  private Object cachedEntry(long id) {
+    if (concurrent) {
+      synchronized (entries) {
+        return entries.get(id);
+      }
+    }
+    return entries.get(id);
+  }
+
+  private Object cacheEntry(long id, Object o) {
+    if (concurrent) {
+      synchronized (entries) {
+        Object prev = entries.putIfAbsent(id, o);
+        return prev != null ? prev : o;
+      }
+    }
+    entries.put(id, o);
+    return o;
+  }
+
+  private Map<String, Object> cachedMapEntry(long id) {
+    if (concurrent) {
+      synchronized (mapEntries) {
+        return mapEntries.get(id);
+      }
+    }
+    return mapEntries.get(id);
+  }
+
+  private Map<String, Object> cacheMapEntry(long id, Map<String, Object> v) {
+    if (concurrent) {
+      synchronized (mapEntries) {
+        Map<String, Object> prev = mapEntries.putIfAbsent(id, v);
+        return prev != null ? prev : v;
+      }
+    }
+    mapEntries.put(id, v);
+    return v;
+  }
+
+  /**
+   * Switches the entry caches to synchronized access so that {@link #get(long)} and {@link
+   * #getAsMap(long)} may be called from several threads decoding the same chunk.
+   */
+  void setConcurrent() {
+    concurrent = true;
+  }
+
+  /**
+   * Prepares the bulk decoding of all entries of this pool.
+   *
+   * <p>The entries are decoded in the order of their offsets in the chunk by calling {@link
+   * #materialize(Materialized, int, int)} for consecutive ranges of {@code [0, }{@link
+   * Materialized#size()}{@code )}, possibly from several threads, and become visible to lookups
+   * with {@link #publish(Materialized)}.
+   *
+   * @param materialization the representation of the decoded entries
+   * @return the holder of the decoded entries
+   */
+  Materialized prepareMaterialization(Materialization materialization) {
+    return new Materialized(offsets, materialization);
+  }
+
+  /**
+   * Decodes a range of entries into the holder.
+   *
+   * @param materialized the holder created by {@link #prepareMaterialization(Materialization)}
+   * @param from the first entry, in offset order
+   * @param to the entry after the last one
+   */
+  void materialize(Materialized materialized, int from, int to) {
+    boolean maps = materialized.materialization == Materialization.MAPS;
+    for (int i = from; i < to; i++) {
+      long id = materialized.byOffset[i];
+      materialized.put(id, maps ? getAsMap(id) : get(id));
+    }
+  }
+
+  /**
+   * Makes the decoded entries visible to {@link #get(long)} or {@link #getAsMap(long)} and drops
+   * the hash-based cache of the same representation. Must not be called while other threads decode
+   * entries of the chunk.
+   *
+   * @param materialized the fully decoded holder
+   */
+  void publish(Materialized materialized) {
+    if (materialized.materialization == Materialization.MAPS) {
+      materializedMapEntries = materialized;
+      synchronized (mapEntries) {
+        mapEntries.clear();
+      }
+    } else {
+      materializedEntries = materialized;
+      synchronized (entries) {
+        entries.clear();
+      }
+    }
+  }
+
+  /**
+   * Entries of a pool stored in arrays indexed by entry id.
+   *
+   * <p>Ids of a pool are usually small consecutive numbers and index {@link #values} directly
+   * (relative to the lowest id). Pools with sparse ids keep the ids sorted and look them up by
+   * binary search.
+   */
+  static final class Materialized {
+    final Materialization materialization;
+
+    /** Entry ids in the order of their offsets. */
+    final long[] byOffset;
+
+    /** Lowest entry id. */
+    private final long base;
+
+    /** Sorted entry ids for sparse pools, {@code null} if {@link #values} is indexed directly. */
+    private final long[] ids;
+
+    private final Object[] values;
+
+    Materialized(LongLongHashMap offsets, Materialization materialization) {
+      this.materialization = materialization;
+      int count = offsets.size();
+      long[] sorted = new long[count];
+      LongLongHashMap.LongIterator it = offsets.keyIterator();
+      for (int i = 0; it.hasNext(); i++) {
+        sorted[i] = it.nextLong();
+      }
+      Arrays.sort(sorted);
+      // chunk offsets fit in 32 bits: sort (offset, index) pairs packed into longs
+      long[] packed = new long[count];
+      for (int i = 0; i < count; i++) {
+        packed[i] = (offsets.get(sorted[i]) << 32) | i;
+      }
+      Arrays.sort(packed);
+      byOffset = new long[count];
+      for (int i = 0; i < count; i++) {
+        byOffset[i] = sorted[(int) packed[i]];
+      }
+      base = count > 0 ? sorted[0] : 0;
+      long range = count > 0 ? sorted[count - 1] - base + 1 : 0;
+      if (range <= 2L * count + 64) {
+        ids = null;
+        values = new Object[(int) range];
+      } else {
+        ids = sorted;
+        values = new Object[count];
+      }
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the entry count
+     */
+    int size() {
+      return byOffset.length;
+    }
+
+    Object get(long id) {
+      if (ids == null) {
+        long i = id - base;
+        return i >= 0 && i < values.length ? values[(int) i] : null;
+      }
+      int i = Arrays.binarySearch(ids, id);
+      return i >= 0 ? values[i] : null;
+    }
+
+    void put(long id, Object value) {
+      values[ids == null ? (int) (id - base) : Arrays.binarySearch(ids, id)] = value;
+    }
   }
 
   @Override
@@ -265,13 +633,14 @@ public final class MutableConstantPool implements ConstantPool {
   /** {@inheritDoc} */
   @Override
   public int size() {
-    return entries.size();
+    Materialized materialized = materializedEntries;
+    return materialized != null ? materialized.size() : entries.size();
   }
 
   /** {@inheritDoc} */
   @Override
   public boolean isEmpty() {
-    return entries.isEmpty();
+    return size() == 0;
   }
 
   /** {@inheritDoc} */
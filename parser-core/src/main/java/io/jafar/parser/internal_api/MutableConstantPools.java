@@ -68,6 +68,16 @@ public final class MutableConstantPools implements ConstantPools {
     ready = true;
   }
 
+  /**
+   * Prepares all constant pools for concurrent lookups from intra-chunk decoding workers. Must be
+   * called after the constant pools have been read and before the workers are started.
+   */
+  public void setConcurrent() {
+    for (MutableConstantPool pool : poolMap.values()) {
+      pool.setConcurrent();
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public Stream<? extends ConstantPool> pools() {
@@ -4,6 +4,7 @@ import io.jafar.parser.api.MetadataLookup;
 import io.jafar.parser.internal_api.collections.LongObjectHashMap;
 import io.jafar.parser.internal_api.metadata.MetadataClass;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -54,6 +55,15 @@ public final class MutableMetadataLookup implements MetadataLookup {
     return classesByName.get(name);
   }
 
+  /**
+   * Gets all metadata classes of this lookup.
+   *
+   * @return the classes, backed by the lookup
+   */
+  Collection<MetadataClass> classes() {
+    return classes.values();
+  }
+
   /**
    * Adds a metadata class to the lookup, or returns an existing one if already present.
    *
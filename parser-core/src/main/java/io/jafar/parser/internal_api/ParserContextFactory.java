@@ -36,4 +36,33 @@ public interface ParserContextFactory {
    * @param header the chunk header
    */
   default void onChunkMetadata(ParserContext context, ChunkHeader header) {}
+
+  /**
+   * Creates a worker context used to decode a range of events of a chunk concurrently with other
+   * ranges of the same chunk.
+   *
+   * <p>The worker context must share the metadata and constant pools of the chunk context while
+   * owning any per-context mutable state (buffers, value readers, registered stream).
+   *
+   * @param chunkContext the fully initialized context of the chunk
+   * @return a new worker context, or {@code null} if this factory does not support intra-chunk
+   *     parallel decoding
+   */
+  default ParserContext newWorkerContext(ParserContext chunkContext) {
+    return null;
+  }
+
+  /**
+   * Selects how the entries of a constant pool are decoded when the constant pools of a chunk are
+   * {@linkplain ChunkParserOptions.Builder#eagerConstantPools(boolean) materialized eagerly}.
+   *
+   * @param chunkContext the context of the chunk, with its constant pools read
+   * @param pool the constant pool
+   * @return the representation in which the parsers of this factory resolve the entries, or {@code
+   *     null} to leave the pool to lazy resolution
+   */
+  default MutableConstantPool.Materialization constantPoolMaterialization(
+      ParserContext chunkContext, MutableConstantPool pool) {
+    return null;
+  }
 }
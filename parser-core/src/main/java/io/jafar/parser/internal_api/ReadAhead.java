@@ -0,0 +1,124 @@
+package io.jafar.parser.internal_api;
+
+import io.jafar.utils.CustomByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Brings regions of a memory-mapped recording into memory ahead of the chunk decoders.
+ *
+ * <p>A decoder reading a chunk from a cold page cache stalls on a page fault for every page it
+ * reaches: first the metadata and constant pools near the end of the chunk, then the events from
+ * the start. Java has no asynchronous {@code madvise(MADV_WILLNEED)}, so the regions are read ahead
+ * by a background thread instead, which loads segment mappings with {@code MemorySegment.load()}
+ * and touches one byte per page of other buffers. Regions are read in the order they are
+ * requested; a region read in time is served from memory when its decoder gets there.
+ */
+final class ReadAhead implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(ReadAhead.class);
+
+  /** Distance between touched bytes; not larger than the page size of common platforms. */
+  static final int PAGE_SIZE = 4096;
+
+  /** Largest range read at once, so that {@link #close()} does not wait for a whole chunk. */
+  private static final long STEP = 1024 * 1024;
+
+  /** Keeps the touched bytes alive, or the JIT could drop the reads. */
+  private static volatile int sink;
+
+  private final RecordingStream stream;
+  private final BlockingQueue<long[]> regions = new LinkedBlockingQueue<>();
+  private final Thread thread;
+  private volatile boolean closed;
+
+  /**
+   * Starts a read-ahead thread for the given stream.
+   *
+   * @param stream the stream of the whole recording; ranges are absolute positions in it
+   */
+  ReadAhead(RecordingStream stream) {
+    this.stream = stream;
+    this.thread = new Thread(this::run, "jafar-read-ahead");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Reads one byte per page of the given range, faulting the pages in.
+   *
+   * @param buffer the buffer
+   * @param offset the absolute offset of the range
+   * @param length the length of the range in bytes
+   */
+  static void touch(CustomByteBuffer buffer, long offset, long length) {
+    int acc = 0;
+    long end = offset + length;
+    for (long p = offset; p < end; p += PAGE_SIZE) {
+      acc += buffer.get(p);
+    }
+    if (length > 0) {
+      // the last page may start less than PAGE_SIZE before the end of the range
+      acc += buffer.get(end - 1);
+    }
+    sink = acc;
+  }
+
+  /**
+   * Requests the regions a decoder reads before the events of a chunk: its metadata and constant
+   * pools, which are written at the end of the chunk, and the header of the following chunk.
+   *
+   * @param header the chunk header
+   * @param events {@code true} to request the whole chunk afterwards, so that pages are read ahead
+   *     of the event decoding as well
+   */
+  void chunk(ChunkHeader header, boolean events) {
+    long tail = Math.min(header.cpOffset, header.metaOffset);
+    request(header.offset + tail, header.size - tail + PAGE_SIZE);
+    if (events) {
+      request(header.offset, tail);
+    }
+  }
+
+  private void request(long offset, long length) {
+    if (length > 0) {
+      regions.add(new long[] {offset, length});
+    }
+  }
+
+  private void run() {
+    try {
+      while (!closed) {
+        long[] region = regions.take();
+        long end = region[0] + region[1];
+        for (long p = region[0]; p < end && !closed; p += STEP) {
+          stream.prefetch(p, Math.min(STEP, end - p));
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed
+    } catch (RuntimeException e) {
+      // read-ahead is best effort, decoders report broken regions themselves
+      log.debug("Read-ahead stopped", e);
+    }
+  }
+
+  /** Stops the thread and waits until it no longer accesses the stream. */
+  @Override
+  public void close() {
+    closed = true;
+    thread.interrupt();
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -2,7 +2,9 @@ package io.jafar.parser.internal_api;
 
 import io.jafar.parser.ParsingUtils;
 import io.jafar.parser.api.ParserContext;
+import io.jafar.utils.LazyString;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 
 /**
@@ -40,10 +42,11 @@ public final class RecordingStream implements AutoCloseable {
    *
    * @param path the path to the JFR recording file
    * @param context the parser context to use
+   * @param unmapOnClose whether closing the stream unmaps the file
    * @throws IOException if an I/O error occurs during construction
    */
-  RecordingStream(Path path, ParserContext context) throws IOException {
-    this(RecordingStreamReader.mapped(path), context);
+  RecordingStream(Path path, ParserContext context, boolean unmapOnClose) throws IOException {
+    this(RecordingStreamReader.mapped(path, unmapOnClose), context);
   }
 
   /**
@@ -99,6 +102,37 @@ public final class RecordingStream implements AutoCloseable {
    * @return a reusable stream slice for the current thread
    */
   public RecordingStream threadLocalStreamSlice() {
+    ThreadLocal<RecordingStream> tl = threadLocalStreamCache();
+    RecordingStream s = tl.get();
+    if (s == null) {
+      s = new RecordingStream(reader.slice(0, reader.length()), context, false);
+      tl.set(s);
+    }
+    return s;
+  }
+
+  /**
+   * Binds the current thread's {@linkplain #threadLocalStreamSlice() slice} to the given context.
+   *
+   * <p>Used by intra-chunk decoding workers: constant pool entries resolved on the worker thread
+   * are then decoded with the worker context's buffers instead of the shared chunk context ones.
+   *
+   * @param context the worker context
+   */
+  void bindThreadLocalStreamSlice(ParserContext context) {
+    threadLocalStreamCache()
+        .set(new RecordingStream(reader.slice(0, reader.length()), context, false));
+  }
+
+  /** Drops the slice bound by {@link #bindThreadLocalStreamSlice(ParserContext)}. */
+  void unbindThreadLocalStreamSlice() {
+    ThreadLocal<RecordingStream> tl = threadLocalStreamCache;
+    if (tl != null) {
+      tl.remove();
+    }
+  }
+
+  private ThreadLocal<RecordingStream> threadLocalStreamCache() {
     ThreadLocal<RecordingStream> tl = threadLocalStreamCache;
     if (tl == null) {
       synchronized (this) {
@@ -109,12 +143,7 @@ public final class RecordingStream implements AutoCloseable {
         }
       }
     }
-    RecordingStream s = tl.get();
-    if (s == null) {
-      s = new RecordingStream(reader.slice(0, reader.length()), context, false);
-      tl.set(s);
-    }
-    return s;
+    return tl;
   }
 
   /**
@@ -234,6 +263,48 @@ public final class RecordingStream implements AutoCloseable {
     return ParsingUtils.readUTF8(this, context.getStringTypeId());
   }
 
+  /**
+   * Reads a string, leaving inline content undecoded in the recording buffer.
+   *
+   * @return a {@link LazyString} for inline UTF-8 and Latin-1 content, otherwise the same value as
+   *     {@link #readUTF8()}
+   * @throws IOException if the string encoding is invalid
+   */
+  public CharSequence readUTF8View() throws IOException {
+    return ParsingUtils.readUTF8View(this, context.getStringTypeId());
+  }
+
+  /**
+   * Reads string content as a view of the recording buffer.
+   *
+   * @param size the content size in bytes
+   * @param latin1 {@code true} for Latin-1, {@code false} for UTF-8 content
+   * @return the view, or the decoded string if the stream is not buffer-backed
+   */
+  public CharSequence readView(int size, boolean latin1) {
+    if (available() < size) {
+      throw new RuntimeException("unexpected EOF");
+    }
+    LazyString view = reader.readView(size, latin1);
+    if (view != null) {
+      return view;
+    }
+    byte[] content = new byte[size];
+    reader.read(content, 0, size);
+    return new String(content, latin1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Brings the given range of the recording into memory ahead of reading it. The position is not
+   * changed and the call may block until the pages are resident.
+   *
+   * @param pos the absolute position of the range
+   * @param len the length of the range in bytes
+   */
+  void prefetch(long pos, long len) {
+    reader.prefetch(pos, len);
+  }
+
   /**
    * Gets the number of bytes available for reading.
    *
@@ -1,6 +1,7 @@
 package io.jafar.parser.internal_api;
 
 import io.jafar.utils.CustomByteBuffer;
+import io.jafar.utils.LazyString;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -88,6 +89,22 @@ public abstract class RecordingStreamReader {
       return buffer.get() != 0;
     }
 
+    @Override
+    LazyString readView(int size, boolean latin1) {
+      long offset = buffer.position();
+      skip(size);
+      return latin1
+          ? LazyString.latin1(buffer, offset, size)
+          : LazyString.utf8(buffer, offset, size);
+    }
+
+    @Override
+    void prefetch(long position, long length) {
+      if (!buffer.load(position, length)) {
+        ReadAhead.touch(buffer, position, Math.min(length, this.length - position));
+      }
+    }
+
     @Override
     public short readShort() {
       remaining -= 2;
@@ -135,9 +152,48 @@ public abstract class RecordingStreamReader {
 
     @Override
     public long readVarint() {
+      if (remaining >= 8) {
+        long word = buffer.peekLong();
+        int len;
+        long value;
+        if ((word & 0x80L) == 0) {
+          // type ids, sizes and small values; a predictable branch beats computing the length
+          len = 1;
+          value = word & 0x7FL;
+        } else if ((word & 0x8000L) == 0) {
+          len = 2;
+          value = (word & 0x7FL) | ((word & 0x7F00L) >>> 1);
+        } else {
+          // SWAR: find the terminating byte of the first 8 bytes with one mask
+          long stops = ~word & 0x8080808080808080L;
+          if (stops == 0) {
+            // a 9 byte varint; rare, as only values of more than 56 bits need one
+            return readVarintSeq();
+          }
+          int bits = Long.numberOfTrailingZeros(stops) + 1;
+          len = bits >>> 3;
+          value = compactVarint(bits == 64 ? word : word & ((1L << bits) - 1));
+        }
+        remaining -= len;
+        buffer.position(buffer.position() + len);
+        return value;
+      }
       return readVarintSeq();
     }
 
+    /**
+     * Packs the 7 bit groups of a little-endian varint of at most 8 bytes into its value.
+     *
+     * @param word the varint bytes, with the bytes following the terminating byte cleared
+     * @return the decoded value
+     */
+    private static long compactVarint(long word) {
+      long x = word & 0x7F7F7F7F7F7F7F7FL;
+      x = (x & 0x007F007F007F007FL) | ((x & 0x7F007F007F007F00L) >>> 1);
+      x = (x & 0x00003FFF00003FFFL) | ((x & 0x3FFF00003FFF0000L) >>> 2);
+      return (x & 0x000000000FFFFFFFL) | ((x & 0x0FFFFFFF00000000L) >>> 4);
+    }
+
     private long readVarintSeq() {
       byte b0 = buffer.get();
       remaining--;
@@ -200,9 +256,13 @@ public abstract class RecordingStreamReader {
    * Implementation of {@link RecordingStreamReader} that uses memory-mapped files.
    *
    * <p>Construction maps the file at {@code path} via {@link CustomByteBuffer#map(Path, int)}; all
-   * read logic is inherited from {@link BufferBackedRecordingStreamReader}.
+   * read logic is inherited from {@link BufferBackedRecordingStreamReader}. The mapping is released
+   * by the garbage collector once the reader, its slices and the values decoded lazily from them
+   * are unreachable. A reader created with {@code unmapOnClose} releases it when closed instead,
+   * where the buffer supports it; closing a slice never does.
    */
   public static final class MappedRecordingStreamReader extends BufferBackedRecordingStreamReader {
+    private final boolean unmapOnClose;
 
     /**
      * Constructs a new MappedRecordingStreamReader for the specified file path.
@@ -211,11 +271,36 @@ public abstract class RecordingStreamReader {
      * @throws IOException if an I/O error occurs during file mapping
      */
     public MappedRecordingStreamReader(Path path) throws IOException {
-      this(CustomByteBuffer.map(path, Integer.MAX_VALUE), Files.size(path), 0);
+      this(path, false);
+    }
+
+    /**
+     * Constructs a new MappedRecordingStreamReader for the specified file path.
+     *
+     * @param path the path to the JFR recording file
+     * @param unmapOnClose whether {@link #close()} unmaps the file; reads from slices and lazily
+     *     decoded values fail afterwards
+     * @throws IOException if an I/O error occurs during file mapping
+     */
+    public MappedRecordingStreamReader(Path path, boolean unmapOnClose) throws IOException {
+      this(CustomByteBuffer.map(path, Integer.MAX_VALUE), Files.size(path), 0, unmapOnClose);
     }
 
     MappedRecordingStreamReader(CustomByteBuffer buffer, long length, int alignementOffset) {
+      this(buffer, length, alignementOffset, false);
+    }
+
+    private MappedRecordingStreamReader(
+        CustomByteBuffer buffer, long length, int alignementOffset, boolean unmapOnClose) {
       super(buffer, length, alignementOffset);
+      this.unmapOnClose = unmapOnClose;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (unmapOnClose) {
+        buffer.close();
+      }
     }
 
     @Override
@@ -232,6 +317,26 @@ public abstract class RecordingStreamReader {
     }
   }
 
+  /**
+   * Reads string content as a view of the underlying buffer, without copying it.
+   *
+   * @param size the content size in bytes
+   * @param latin1 {@code true} for Latin-1, {@code false} for UTF-8 content
+   * @return the view, or {@code null} if the reader cannot provide views; nothing is read then
+   */
+  LazyString readView(int size, boolean latin1) {
+    return null;
+  }
+
+  /**
+   * Brings the given range of the underlying buffer into memory, without changing the position.
+   * Does nothing for readers which are not buffer-backed.
+   *
+   * @param position the absolute position of the range
+   * @param length the length of the range in bytes
+   */
+  void prefetch(long position, long length) {}
+
   /**
    * Creates a slice of this reader starting from the current position.
    *
@@ -365,4 +470,17 @@ public abstract class RecordingStreamReader {
   public static RecordingStreamReader mapped(Path path) throws IOException {
     return new MappedRecordingStreamReader(path);
   }
+
+  /**
+   * Creates a new RecordingStreamReader for the specified file path.
+   *
+   * @param path the path to the JFR recording file
+   * @param unmapOnClose whether closing the reader unmaps the file instead of leaving it to the
+   *     garbage collector
+   * @return a new RecordingStreamReader instance
+   * @throws IOException if an I/O error occurs during file mapping
+   */
+  public static RecordingStreamReader mapped(Path path, boolean unmapOnClose) throws IOException {
+    return new MappedRecordingStreamReader(path, unmapOnClose);
+  }
 }
@@ -0,0 +1,115 @@
+package io.jafar.parser.internal_api;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Helper for index files stored next to a recording.
+ *
+ * <p>Each sidecar starts with a magic number, a format version and the size and modification time
+ * of the recording it was created for. A sidecar whose recording has changed since is ignored.
+ */
+final class SidecarFile {
+  private static final Logger log = LoggerFactory.getLogger(SidecarFile.class);
+
+  /** Writes the body of a sidecar. */
+  interface Body {
+    void writeTo(DataOutputStream out) throws IOException;
+  }
+
+  private SidecarFile() {}
+
+  /**
+   * Gets the sidecar location for a recording.
+   *
+   * @param recording the recording
+   * @param suffix the sidecar file name suffix
+   * @return the sidecar path
+   */
+  static Path of(Path recording, String suffix) {
+    return recording.resolveSibling(recording.getFileName() + suffix);
+  }
+
+  /**
+   * Opens a sidecar positioned at its body.
+   *
+   * @param recording the recording
+   * @param suffix the sidecar file name suffix
+   * @param magic the expected magic number
+   * @param version the expected format version
+   * @return the body stream, or {@code null} if there is no sidecar matching the recording
+   */
+  static DataInputStream open(Path recording, String suffix, int magic, int version) {
+    Path sidecar = of(recording, suffix);
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar)));
+      if (in.readInt() != magic || in.readInt() != version) {
+        log.debug("Ignoring {} with unknown format", sidecar);
+      } else if (in.readLong() != Files.size(recording)
+          || in.readLong() != Files.getLastModifiedTime(recording).toMillis()) {
+        log.debug("Ignoring stale {}", sidecar);
+      } else {
+        return in;
+      }
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      log.debug("Ignoring unreadable {}", sidecar, e);
+    }
+    closeQuietly(in);
+    return null;
+  }
+
+  /**
+   * Atomically writes a sidecar for the current state of the recording, replacing any previous one.
+   *
+   * @param recording the recording
+   * @param suffix the sidecar file name suffix
+   * @param magic the magic number
+   * @param version the format version
+   * @param body writes the sidecar body
+   * @throws IOException if the sidecar cannot be written
+   */
+  static void write(Path recording, String suffix, int magic, int version, Body body)
+      throws IOException {
+    Path sidecar = of(recording, suffix);
+    Path tmp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+      out.writeInt(magic);
+      out.writeInt(version);
+      out.writeLong(Files.size(recording));
+      out.writeLong(Files.getLastModifiedTime(recording).toMillis());
+      body.writeTo(out);
+    } catch (IOException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    try {
+      Files.move(tmp, sidecar, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static void closeQuietly(DataInputStream in) {
+    if (in != null) {
+      try {
+        in.close();
+      } catch (IOException ignored) {
+        // nothing to do
+      }
+    }
+  }
+}
@@ -1,18 +1,30 @@
 package io.jafar.parser.internal_api;
 
+import io.jafar.parser.api.ConstantPools;
 import io.jafar.parser.api.ParserContext;
 import io.jafar.parser.internal_api.metadata.MetadataEvent;
 import io.jafar.utils.CustomByteBuffer;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,21 +34,64 @@ import org.slf4j.LoggerFactory;
  * notifies its listeners as the data becomes available. Because of this it is possible for the
  * metadata events to come 'out-of-band' (although not very probable) and it is up to the caller to
  * deal with that eventuality. <br>
+ * Large chunks can optionally be decoded by several threads at once, see {@link
+ * ChunkParserOptions.Builder#intraChunkParallelism(int)}. <br>
+ * Chunks are decoded by a parser-owned thread pool unless a shared executor or virtual threads are
+ * configured in the {@link ChunkParserOptions}; intra-chunk workers then run there as well.
  */
 public final class StreamingChunkParser implements AutoCloseable {
   private static final Logger log = LoggerFactory.getLogger(StreamingChunkParser.class);
 
-  private final ExecutorService executor =
-      Executors.newFixedThreadPool(
-          Math.max(Runtime.getRuntime().availableProcessors() - 2, 1),
-          r -> {
-            Thread t = new Thread(r);
-            t.setDaemon(true);
-            return t;
-          });
+  /** Executor running one task per chunk; shut down on close only if {@link #ownsExecutor}. */
+  private final ExecutorService executor;
+
+  /** Whether {@link #executor} was created by this parser (and not supplied by the caller). */
+  private final boolean ownsExecutor;
+
+  /**
+   * Each intra-chunk worker claims several ranges so that ranges with expensive events do not leave
+   * the other workers idle.
+   */
+  private static final int RANGES_PER_WORKER = 4;
+
+  /** Number of constant pool entries decoded per task when materializing constant pools. */
+  private static final int CONSTANT_POOL_SEGMENT = 4096;
+
+  /** Size of the fixed chunk header, from the magic up to the 'compressed' flag. */
+  private static final int CHUNK_HEADER_SIZE = 68;
+
+  /** Chunks read ahead of decoding by {@link #parse(InputStream, ChunkParserListener)}. */
+  private static final int DEFAULT_STREAM_CHUNKS_IN_FLIGHT = 2;
+
+  /** Direct buffers holding the chunks read from an {@link InputStream}. */
+  private final ChunkBufferPool bufferPool;
+
+  /** Executor for intra-chunk decoding workers, {@code null} when the feature is disabled. */
+  private final ExecutorService workerExecutor;
+
+  /**
+   * Intra-chunk decoding workers shared by all parsers without a caller-supplied executor, so that
+   * concurrent parsers do not each create their own threads. The chunk thread takes part in
+   * decoding, so one thread less than the available processors is needed. Workers never block on
+   * other tasks, hence sharing them between chunks and parsers cannot deadlock.
+   */
+  private static final class SharedWorkers {
+    static final ExecutorService EXECUTOR =
+        Executors.newFixedThreadPool(
+            Math.max(Runtime.getRuntime().availableProcessors() - 1, 1),
+            r -> {
+              Thread t = new Thread(r, "jafar-chunk-worker");
+              t.setDaemon(true);
+              return t;
+            });
+  }
 
   private boolean closed = false;
   private final ParserContextFactory contextFactory;
+  private final ChunkParserOptions options;
+
+  /** Selects events by time window and sampling, {@code null} when all events are passed. */
+  private final EventFilter eventFilter;
 
   /**
    * Constructs a new StreamingChunkParser with the specified context factory.
@@ -44,7 +99,39 @@ public final class StreamingChunkParser implements AutoCloseable {
    * @param contextFactory the factory for creating parser contexts
    */
   public StreamingChunkParser(ParserContextFactory contextFactory) {
+    this(contextFactory, ChunkParserOptions.DEFAULT);
+  }
+
+  /**
+   * Constructs a new StreamingChunkParser with the specified context factory and options.
+   *
+   * @param contextFactory the factory for creating parser contexts
+   * @param options the parser tuning options
+   */
+  public StreamingChunkParser(ParserContextFactory contextFactory, ChunkParserOptions options) {
     this.contextFactory = contextFactory;
+    this.options = options != null ? options : ChunkParserOptions.DEFAULT;
+    this.eventFilter = EventFilter.of(this.options);
+    ExecutorService chunkExecutor = this.options.executor();
+    this.ownsExecutor = chunkExecutor == null;
+    if (chunkExecutor == null && this.options.virtualThreads()) {
+      chunkExecutor = newVirtualThreadPerTaskExecutor();
+    }
+    // range workers run on a shared or virtual thread executor as well, else on the shared pool
+    ExecutorService rangeExecutor = chunkExecutor != null ? chunkExecutor : SharedWorkers.EXECUTOR;
+    if (chunkExecutor == null) {
+      chunkExecutor =
+          Executors.newFixedThreadPool(
+              Math.max(Runtime.getRuntime().availableProcessors() - 2, 1),
+              r -> {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                return t;
+              });
+    }
+    this.executor = chunkExecutor;
+    this.bufferPool = new ChunkBufferPool(streamChunksInFlight(this.options) + 1);
+    this.workerExecutor = this.options.intraChunkParallelism() > 1 ? rangeExecutor : null;
   }
 
   /**
@@ -61,27 +148,105 @@ public final class StreamingChunkParser implements AutoCloseable {
    *   <li>listener.onRecordingEnd()
    * </ol>
    *
+   * <p>gzip, zstd and LZ4 compressed recordings are decompressed on the fly and parsed like {@link
+   * #parse(InputStream, ChunkParserListener) a stream}. zstd and LZ4 require zstd-jni and lz4-java
+   * on the class path.
+   *
    * @param path the JFR recording path
    * @param listener the parser listener
    * @throws IOException if an I/O error occurs during parsing
    */
   public void parse(Path path, ChunkParserListener listener) throws IOException {
+    parse(path, 1, listener);
+  }
+
+  /**
+   * Parse the given JFR recording based on a file path, starting at the given chunk.<br>
+   * Chunks before {@code firstChunk} are neither decoded nor reported to the listener. For a
+   * compressed recording with a chunk offset sidecar (see {@link
+   * ChunkParserOptions.Builder#compressedChunkIndex(boolean)}) decompression starts at the closest
+   * seekable chunk instead of at the beginning of the file.
+   *
+   * @param path the JFR recording path
+   * @param firstChunk the 1-based index of the first chunk to parse
+   * @param listener the parser listener
+   * @throws IOException if an I/O error occurs during parsing
+   * @throws IllegalArgumentException if {@code firstChunk} is less than {@code 1}
+   */
+  public void parse(Path path, int firstChunk, ChunkParserListener listener) throws IOException {
     if (closed) {
       throw new IOException("Parser is closed");
     }
+    if (firstChunk < 1) {
+      throw new IllegalArgumentException("firstChunk must be >= 1: " + firstChunk);
+    }
+    ChunkSelector selector = newChunkSelector(path, firstChunk, listener);
     CompressionDetector.Format fmt = CompressionDetector.detect(path);
     if (fmt != CompressionDetector.Format.NONE) {
-      throw new IOException(
-          "JFR file is "
-              + fmt.label
-              + "-compressed and cannot be parsed directly. "
-              + fmt.hint
-              + " (file: "
-              + path
-              + ")");
+      parseCompressed(path, fmt, selector, listener);
+    } else {
+      try (RecordingStream stream =
+          new RecordingStream(path, contextFactory.newContext(), options.unmapOnClose())) {
+        parse(stream, selector, listener);
+      }
     }
-    try (RecordingStream stream = new RecordingStream(path, contextFactory.newContext())) {
-      parse(stream, listener);
+    writeEventIndex(path, selector);
+  }
+
+  /**
+   * Creates the chunk selector for a parse of a recording file, reading its event index if enabled.
+   * A new index is collected only when the parse covers the whole recording.
+   */
+  private ChunkSelector newChunkSelector(Path path, int firstChunk, ChunkParserListener listener) {
+    if (!options.eventIndex()) {
+      return ChunkSelector.from(firstChunk, eventFilter);
+    }
+    EventIndex index = EventIndex.read(path);
+    EventIndex.Builder indexBuilder =
+        index == null && firstChunk == 1 ? new EventIndex.Builder() : null;
+    return new ChunkSelector(
+        firstChunk, index, indexBuilder, listener.acceptedEventTypes(), eventFilter);
+  }
+
+  private static void writeEventIndex(Path path, ChunkSelector selector) {
+    EventIndex.Builder indexBuilder = selector.indexBuilder();
+    EventIndex index = indexBuilder != null ? indexBuilder.build() : null;
+    if (index != null) {
+      try {
+        index.write(path);
+      } catch (IOException e) {
+        log.warn("Cannot write event index for {}", path, e);
+      }
+    }
+  }
+
+  private void parseCompressed(
+      Path path,
+      CompressionDetector.Format fmt,
+      ChunkSelector selector,
+      ChunkParserListener listener)
+      throws IOException {
+    int firstChunk = selector.firstChunk();
+    ChunkOffsetIndex index =
+        firstChunk > 1 || options.compressedChunkIndex() ? ChunkOffsetIndex.read(path) : null;
+    ChunkOffsetIndex.Entry start = index != null ? index.seekTarget(firstChunk) : null;
+    try (DecompressingInputStream in =
+        start != null
+            ? DecompressingInputStream.open(
+                path, fmt, start.compressedOffset, start.uncompressedOffset)
+            : DecompressingInputStream.open(path, fmt)) {
+      ChunkOffsetIndex.Builder offsets =
+          start == null && index == null && options.compressedChunkIndex()
+              ? new ChunkOffsetIndex.Builder(in)
+              : null;
+      parse(in, start != null ? start.chunkIndex : 1, selector, listener, offsets);
+      if (offsets != null) {
+        try {
+          offsets.build().write(path);
+        } catch (IOException e) {
+          log.warn("Cannot write chunk offset index for {}", path, e);
+        }
+      }
     }
   }
 
@@ -99,100 +264,186 @@ public final class StreamingChunkParser implements AutoCloseable {
    *   <li>listener.onRecordingEnd()
    * </ol>
    *
-   * <p>Note: Unlike {@link #parse(Path, ChunkParserListener)}, this method processes chunks
-   * sequentially as it reads from the stream.
+   * <p>Chunks are read one after another into pooled direct buffers; each chunk is handed to the
+   * executor as soon as it has been read, so chunk N is decoded while chunk N+1 is still being
+   * read. The number of chunks read ahead is bounded by {@link
+   * ChunkParserOptions#maxChunksInFlight()} (two if unbounded). A chunk buffer is recycled once
+   * {@code onChunkEnd} returns, so values lazily backed by the chunk data must not be retained
+   * beyond the chunk.
    *
    * @param inputStream the InputStream containing the JFR recording
    * @param listener the parser listener
    * @throws IOException if an I/O error occurs during parsing
    */
   public void parse(InputStream inputStream, ChunkParserListener listener) throws IOException {
+    parse(inputStream, 1, ChunkSelector.from(1, eventFilter), listener, null);
+  }
+
+  /**
+   * Reads and decodes the chunks of a recording stream.
+   *
+   * @param inputStream the recording data
+   * @param chunkCounter the index of the first chunk in the stream
+   * @param selector selects the chunks to decode
+   * @param listener the parser listener
+   * @param offsets collects the chunk offsets, or {@code null}
+   */
+  private void parse(
+      InputStream inputStream,
+      int chunkCounter,
+      ChunkSelector selector,
+      ChunkParserListener listener,
+      ChunkOffsetIndex.Builder offsets)
+      throws IOException {
     if (closed) {
       throw new IOException("Parser is closed");
     }
+    ReadableByteChannel channel = Channels.newChannel(inputStream);
+    ParserContext rootContext = contextFactory.newContext();
+    ConstantPoolInternTable internTable = newInternTable();
+    Semaphore inFlight = new Semaphore(streamChunksInFlight(options));
+    List<Future<Boolean>> results = new ArrayList<>();
+    ByteBuffer headerBuffer = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
     try {
-      listener.onRecordingStart(null);
+      listener.onRecordingStart(rootContext);
+      long chunkOffset = 0;
+      while (readFully(channel, headerBuffer, "chunk header")) {
+        // Parse the header; use wrap() so nativeOrder=false matches the file-mapped path
+        RecordingStream headerStream =
+            new RecordingStream(
+                new BufferedRecordingStreamReader(CustomByteBuffer.wrap(headerBuffer.array())),
+                rootContext,
+                false);
+        ChunkHeader header = new ChunkHeader(headerStream, chunkCounter);
+        int headerSize = (int) headerStream.position();
+        if (header.size < headerSize) {
+          throw new IOException(
+              "Chunk size " + header.size + " is smaller than header " + headerSize);
+        }
+        if (offsets != null) {
+          offsets.add(chunkCounter, chunkOffset, header.size);
+        }
+        chunkOffset += header.size;
+        if (selector.skip(header)) {
+          skipFully(channel, header.size - CHUNK_HEADER_SIZE);
+          headerBuffer.clear();
+          chunkCounter++;
+          continue;
+        }
 
-      // Check if stream has any data
-      if (inputStream.available() == 0) {
-        return;
+        inFlight.acquire();
+        collectCompleted(results);
+        ByteBuffer chunkBuffer = bufferPool.acquire(header.size);
+        Runnable release =
+            () -> {
+              bufferPool.release(chunkBuffer);
+              inFlight.release();
+            };
+        try {
+          headerBuffer.flip();
+          chunkBuffer.put(headerBuffer);
+          if (chunkBuffer.hasRemaining() && !readFully(channel, chunkBuffer, "chunk")) {
+            throw new IOException("Unexpected end of stream while reading chunk");
+          }
+          chunkBuffer.flip();
+          RecordingStream chunkStream =
+              new RecordingStream(
+                  new BufferedRecordingStreamReader(
+                      new CustomByteBuffer.ByteBufferWrapper(chunkBuffer.slice())),
+                  newChunkContext(rootContext, chunkCounter, internTable));
+          results.add(
+              submitParsingTask(header, chunkStream, listener, headerSize, selector, release));
+        } catch (Throwable t) {
+          release.run();
+          throw t;
+        }
+        headerBuffer.clear();
+        chunkCounter++;
       }
-
-      // Read the first 4 bytes and validate the JFR magic (FLR\0, LE-assembled = 0x00524C46)
-      byte[] magicBytes = new byte[4];
-      for (int i = 0; i < 4; i++) {
-        int b = inputStream.read();
-        if (b == -1) throw new IOException("Unexpected EOF while reading JFR magic");
-        magicBytes[i] = (byte) b;
-      }
-      int magic =
-          (magicBytes[0] & 0xFF)
-              | ((magicBytes[1] & 0xFF) << 8)
-              | ((magicBytes[2] & 0xFF) << 16)
-              | ((magicBytes[3] & 0xFF) << 24);
-      if (magic != 0x00524C46) {
-        throw new IOException("Invalid JFR Magic Number: 0x" + Integer.toHexString(magic));
-      }
-
-      // Read 64 more bytes to reach ChunkHeader's full 68-byte extent
-      byte[] restHeader = new byte[64];
-      int read = 0;
-      while (read < 64) {
-        int b = inputStream.read();
-        if (b == -1) throw new IOException("Unexpected EOF while reading chunk header");
-        restHeader[read++] = (byte) b;
-      }
-      byte[] headerBytes = new byte[68];
-      System.arraycopy(magicBytes, 0, headerBytes, 0, 4);
-      System.arraycopy(restHeader, 0, headerBytes, 4, 64);
-
-      // Parse the header; use wrap() so nativeOrder=false matches the file-mapped path
-      RecordingStream headerStream =
-          new RecordingStream(
-              new BufferedRecordingStreamReader(CustomByteBuffer.wrap(headerBytes)),
-              contextFactory.newContext());
-      ChunkHeader parsedHeader = new ChunkHeader(headerStream, 1);
-      int headerSize = (int) headerStream.position();
-
-      // Build chunkData = header bytes + payload, then hand it to processChunk
-      int totalSize = parsedHeader.size;
-      int payloadSize = totalSize - headerSize;
-      if (payloadSize < 0) {
-        throw new IOException("Chunk size " + totalSize + " is smaller than header " + headerSize);
-      }
-      byte[] chunkData = new byte[totalSize];
-      System.arraycopy(headerBytes, 0, chunkData, 0, headerSize);
-      read = 0;
-      while (read < payloadSize) {
-        int got = inputStream.read(chunkData, headerSize + read, payloadSize - read);
-        if (got == -1) break;
-        read += got;
-      }
-      if (read < payloadSize) {
-        throw new IOException("Unexpected end of stream while reading chunk");
-      }
-
-      RecordingStream chunkStream =
-          new RecordingStream(
-              new BufferedRecordingStreamReader(CustomByteBuffer.wrap(chunkData)),
-              contextFactory.newContext());
-      processChunk(chunkStream, parsedHeader, listener, headerSize);
+      results.forEach(StreamingChunkParser::awaitChunk);
+    } catch (Throwable t) {
+      // Cancel any pending tasks before propagating exception
+      results.forEach(f -> f.cancel(true));
+      if (t instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      if (t instanceof IOException) {
+        throw (IOException) t;
+      }
+      throw new IOException("Error occurred while parsing JFR recording", t);
     } finally {
-      listener.onRecordingEnd(null);
+      listener.onRecordingEnd(rootContext);
+    }
+  }
+
+  /**
+   * Fills {@code buffer} from the channel.
+   *
+   * @return {@literal false} if the channel was at its end before any byte was read
+   * @throws IOException if the channel ends after a part of the buffer was filled
+   */
+  private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer, String what)
+      throws IOException {
+    int start = buffer.position();
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        if (buffer.position() == start) {
+          return false;
+        }
+        throw new IOException("Unexpected EOF while reading " + what);
+      }
+    }
+    return true;
+  }
+
+  private static void skipFully(ReadableByteChannel channel, long bytes) throws IOException {
+    ByteBuffer scratch = ByteBuffer.allocate((int) Math.min(bytes, 64 * 1024));
+    while (bytes > 0) {
+      scratch.clear();
+      scratch.limit((int) Math.min(bytes, scratch.capacity()));
+      if (!readFully(channel, scratch, "chunk")) {
+        throw new IOException("Unexpected end of stream while skipping chunk");
+      }
+      bytes -= scratch.limit();
     }
   }
 
+  /** Creates the intern table shared by the chunks of one recording, if enabled. */
+  private ConstantPoolInternTable newInternTable() {
+    return options.internConstantPools() ? new ConstantPoolInternTable() : null;
+  }
+
+  private ParserContext newChunkContext(
+      ParserContext parent, int chunkIndex, ConstantPoolInternTable internTable) {
+    ParserContext context = contextFactory.newContext(parent, chunkIndex);
+    if (internTable != null) {
+      context.put(ConstantPoolInternTable.class, internTable);
+    }
+    return context;
+  }
+
+  private static int streamChunksInFlight(ChunkParserOptions options) {
+    return options.maxChunksInFlight() > 0
+        ? options.maxChunksInFlight()
+        : DEFAULT_STREAM_CHUNKS_IN_FLIGHT;
+  }
+
   private void processChunk(
       RecordingStream chunkStream,
       ChunkHeader chunkHeader,
       ChunkParserListener listener,
-      long headerSize)
+      long headerSize,
+      ChunkSelector selector)
       throws IOException {
     int chunkCounter = chunkHeader.order;
     ParserContext chunkContext = chunkStream.getContext();
+    EventIndex.Builder indexBuilder = selector.indexBuilder();
     try {
       // Skip empty chunks with no payload beyond the header
       if (chunkHeader.size <= headerSize) {
+        if (indexBuilder != null) {
+          indexBuilder.add(EventIndex.scan(chunkStream, chunkHeader, headerSize));
+        }
         listener.onChunkStart(chunkContext, chunkCounter, chunkHeader);
         listener.onChunkEnd(chunkContext, chunkCounter, true);
         return;
@@ -201,83 +452,480 @@ public final class StreamingChunkParser implements AutoCloseable {
         log.debug(
             "'onChunkStart' returned false. Skipping metadata and events for chunk {}",
             chunkCounter);
+        if (indexBuilder != null) {
+          indexBuilder.markIncomplete();
+        }
         listener.onChunkEnd(chunkContext, chunkCounter, true);
         return;
       }
       // read metadata
       if (!readMetadata(chunkStream, chunkHeader, listener, false)) {
         log.debug("'onMetadata' returned false. Skipping events for chunk {}", chunkCounter);
+        if (indexBuilder != null) {
+          indexBuilder.markIncomplete();
+        }
         listener.onChunkEnd(chunkContext, chunkCounter, true);
         return;
       }
+      if (indexBuilder != null) {
+        indexBuilder.add(EventIndex.scan(chunkStream, chunkHeader, headerSize));
+      }
       if (!readConstantPool(chunkStream, chunkHeader, listener)) {
         log.debug("'onCheckpoint' returned false. Skipping the rest of the chunk {}", chunkCounter);
         listener.onChunkEnd(chunkContext, chunkCounter, true);
         return;
       }
-      chunkStream.position(headerSize);
-      while (chunkStream.position() < chunkHeader.size) {
-        long eventStartPos = chunkStream.position();
-        chunkStream.mark(); // max 2 varints ahead
-        int eventSize;
+      if (options.eagerConstantPools()) {
+        materializeConstantPools(chunkStream, chunkHeader);
+      }
+      long[] ranges = selector.eventRanges(chunkHeader);
+      EventFilter.Chunk filter =
+          selector.eventFilter(chunkHeader, chunkContext.getMetadataLookup());
+      boolean completed;
+      if (workerExecutor != null
+          && chunkHeader.size - headerSize >= options.intraChunkMinSize()
+          && listener.supportsIntraChunkParallelism()) {
+        completed =
+            dispatchEventsParallel(
+                chunkStream, chunkHeader, listener, headerSize, ranges, filter);
+      } else if (ranges != null) {
+        completed =
+            dispatchRanges(
+                chunkStream, ranges, new AtomicInteger(), chunkHeader, listener, filter, null);
+      } else {
+        completed =
+            dispatchEvents(
+                chunkStream, headerSize, chunkHeader.size, chunkHeader, listener, filter, null);
+      }
+      listener.onChunkEnd(chunkContext, chunkCounter, !completed);
+    } catch (IOException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new RuntimeException(t);
+    }
+  }
+
+  /**
+   * Dispatches the events in the range {@code [from, to)} of the chunk to the listener.
+   *
+   * @param stream the chunk stream to read the events from
+   * @param from the position of the first event
+   * @param to the position after the last event
+   * @param chunkHeader the chunk header
+   * @param listener the parser listener
+   * @param filter selects the events passed to the listener, or {@code null} for all
+   * @param stop shared flag of concurrently decoded ranges of the chunk, or {@code null}
+   * @return {@literal false} if the listener requested to skip the rest of the chunk
+   */
+  private static boolean dispatchEvents(
+      RecordingStream stream,
+      long from,
+      long to,
+      ChunkHeader chunkHeader,
+      ChunkParserListener listener,
+      EventFilter.Chunk filter,
+      AtomicBoolean stop) {
+    ParserContext context = stream.getContext();
+    stream.position(from);
+    while (stream.position() < to) {
+      if (stop != null && stop.get()) {
+        return false;
+      }
+      long eventStartPos = stream.position();
+      stream.mark(); // max 2 varints ahead
+      int eventSize;
+      try {
+        eventSize = (int) stream.readVarint();
+      } catch (BufferUnderflowException e) {
+        log.warn(
+            "Buffer underflow reading event size at position {}, stopping chunk", eventStartPos);
+        break;
+      }
+      if (eventSize > 0) {
+        if (eventStartPos + eventSize > chunkHeader.size) {
+          log.warn(
+              "Event size {} at position {} exceeds chunk boundary, stopping",
+              eventSize,
+              eventStartPos);
+          break;
+        }
+        long eventType;
         try {
-          eventSize = (int) chunkStream.readVarint();
+          eventType = stream.readVarint();
         } catch (BufferUnderflowException e) {
           log.warn(
-              "Buffer underflow reading event size at position {}, stopping chunk", eventStartPos);
+              "Buffer underflow reading event type at position {}, stopping chunk",
+              stream.position());
           break;
         }
-        if (eventSize > 0) {
-          if (eventStartPos + eventSize > chunkHeader.size) {
-            log.warn(
-                "Event size {} at position {} exceeds chunk boundary, stopping",
-                eventSize,
-                eventStartPos);
-            break;
-          }
-          long eventType;
-          try {
-            eventType = chunkStream.readVarint();
-          } catch (BufferUnderflowException e) {
-            log.warn(
-                "Buffer underflow reading event type at position {}, stopping chunk",
-                chunkStream.position());
-            break;
-          }
-          if (eventType > 1) { // skip metadata and checkpoint events
-            long currentPos = chunkStream.position();
-            if (!listener.onEvent(
-                chunkContext,
+        // skip metadata and checkpoint events, and events not selected by the filter
+        if (eventType > 1 && (filter == null || filter.accept(stream, eventType, eventStartPos))) {
+          long currentPos = stream.position();
+          if (!listener.onEvent(
+              context,
+              eventType,
+              eventStartPos,
+              eventSize,
+              eventSize - (currentPos - eventStartPos))) {
+            log.debug(
+                "'onEvent({}, stream, {})' returned false. Skipping the rest of the chunk {}",
                 eventType,
-                eventStartPos,
-                eventSize,
-                eventSize - (currentPos - eventStartPos))) {
-              log.debug(
-                  "'onEvent({}, stream, {})' returned false. Skipping the rest of the chunk {}",
-                  eventType,
-                  eventSize - (currentPos - eventStartPos),
-                  chunkCounter);
-              listener.onChunkEnd(chunkContext, chunkCounter, true);
-              return;
+                eventSize - (currentPos - eventStartPos),
+                chunkHeader.order);
+            if (stop != null) {
+              stop.set(true);
             }
+            return false;
           }
-          // always skip any unconsumed event data to get the stream into consistent state
-          chunkStream.position(eventStartPos + eventSize);
         }
+        // always skip any unconsumed event data to get the stream into consistent state
+        stream.position(eventStartPos + eventSize);
       }
-      listener.onChunkEnd(chunkContext, chunkCounter, false);
-    } catch (IOException e) {
-      throw e;
+    }
+    return true;
+  }
+
+  /**
+   * Decodes the events of a chunk using several threads.
+   *
+   * <p>A quick sequential pass over the event size varints finds the event boundaries and splits
+   * the event section into ranges. The ranges are then claimed and decoded by the chunk thread and
+   * up to {@code intraChunkParallelism - 1} workers, each with its own worker context sharing the
+   * chunk metadata and constant pools.
+   *
+   * <p>When the event index provides the event runs to decode, the runs are distributed among the
+   * threads instead.
+   */
+  private boolean dispatchEventsParallel(
+      RecordingStream chunkStream,
+      ChunkHeader chunkHeader,
+      ChunkParserListener listener,
+      long headerSize,
+      long[] eventRanges,
+      EventFilter.Chunk filter)
+      throws IOException {
+    ParserContext chunkContext = chunkStream.getContext();
+    int parallelism = options.intraChunkParallelism();
+    long[] ranges =
+        eventRanges != null
+            ? eventRanges
+            : splitEvents(
+                chunkStream, headerSize, chunkHeader.size, parallelism * RANGES_PER_WORKER);
+    int workers = Math.min(parallelism, ranges.length / 2) - 1;
+    List<RecordingStream> workerStreams = new ArrayList<>(workers);
+    for (int i = 0; i < workers; i++) {
+      ParserContext workerContext = contextFactory.newWorkerContext(chunkContext);
+      if (workerContext == null) {
+        break;
+      }
+      workerStreams.add(chunkStream.slice(0, chunkHeader.size, workerContext));
+    }
+    if (workerStreams.isEmpty()) {
+      return dispatchRanges(
+          chunkStream, ranges, new AtomicInteger(), chunkHeader, listener, filter, null);
+    }
+    ConstantPools constantPools = chunkContext.getConstantPools();
+    if (constantPools instanceof MutableConstantPools) {
+      ((MutableConstantPools) constantPools).setConcurrent();
+    }
+
+    AtomicInteger nextRange = new AtomicInteger();
+    AtomicBoolean stop = new AtomicBoolean();
+    List<WorkerTask> results = new ArrayList<>(workerStreams.size());
+    for (RecordingStream workerStream : workerStreams) {
+      results.add(
+          submitWorker(
+              () -> {
+                ParserContext workerContext = workerStream.getContext();
+                chunkStream.bindThreadLocalStreamSlice(workerContext);
+                listener.onWorkerStart(chunkContext, workerContext);
+                try {
+                  return dispatchRanges(
+                      workerStream, ranges, nextRange, chunkHeader, listener, filter, stop);
+                } catch (Throwable t) {
+                  stop.set(true);
+                  throw t;
+                } finally {
+                  listener.onWorkerEnd(workerContext);
+                  chunkStream.unbindThreadLocalStreamSlice();
+                }
+              }));
+    }
+    boolean completed;
+    try {
+      completed =
+          dispatchRanges(chunkStream, ranges, nextRange, chunkHeader, listener, filter, stop);
     } catch (Throwable t) {
-      throw new RuntimeException(t);
+      stop.set(true);
+      awaitWorkers(results, chunkHeader, t);
+      throw t;
+    }
+    return awaitWorkers(results, chunkHeader, null) && completed;
+  }
+
+  /**
+   * Submits an intra-chunk worker to the {@link #workerExecutor}.
+   *
+   * @param body decodes the claimed parts of the chunk
+   * @return the worker task
+   */
+  private WorkerTask submitWorker(Callable<Boolean> body) {
+    WorkerTask task = new WorkerTask(body);
+    workerExecutor.execute(task);
+    return task;
+  }
+
+  /**
+   * An intra-chunk worker which does nothing if the chunk thread is done before the worker starts.
+   * When the workers share a bounded executor with the chunk tasks, a worker may be queued behind
+   * the very chunk task waiting for it; revoking the worker instead of waiting avoids the deadlock.
+   */
+  private static final class WorkerTask extends FutureTask<Boolean> {
+    private final AtomicBoolean claimed;
+
+    WorkerTask(Callable<Boolean> body) {
+      this(body, new AtomicBoolean());
+    }
+
+    private WorkerTask(Callable<Boolean> body, AtomicBoolean claimed) {
+      super(() -> !claimed.compareAndSet(false, true) || body.call());
+      this.claimed = claimed;
+    }
+
+    /**
+     * Prevents the worker from starting.
+     *
+     * @return {@code true} if the worker had not started and never will
+     */
+    boolean revoke() {
+      if (claimed.compareAndSet(false, true)) {
+        cancel(false);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Waits for all the workers decoding a chunk. Workers which have not started yet are revoked as
+   * the chunk thread has already decoded their share.
+   *
+   * @param primary the failure of the chunk thread, or {@code null}; worker failures are added to
+   *     it as suppressed exceptions instead of being thrown
+   * @return {@code true} if all workers completed their ranges
+   * @throws IOException if a worker failed reading the chunk or the thread was interrupted
+   */
+  private static boolean awaitWorkers(
+      List<WorkerTask> results, ChunkHeader chunkHeader, Throwable primary)
+      throws IOException {
+    boolean completed = true;
+    Throwable failure = primary;
+    for (int i = 0; i < results.size(); i++) {
+      if (results.get(i).revoke()) {
+        continue;
+      }
+      Throwable workerFailure;
+      try {
+        completed &= results.get(i).get();
+        continue;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        workerFailure = new IOException("Interrupted while decoding chunk " + chunkHeader.order, e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        workerFailure = cause instanceof IOException ? cause : new RuntimeException(cause);
+      }
+      if (failure == null) {
+        failure = workerFailure;
+      } else {
+        failure.addSuppressed(workerFailure);
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        results.subList(i + 1, results.size()).forEach(f -> f.cancel(true));
+        break;
+      }
+    }
+    if (failure != null && failure != primary) {
+      if (failure instanceof IOException) {
+        throw (IOException) failure;
+      }
+      throw (RuntimeException) failure;
+    }
+    return completed;
+  }
+
+  /**
+   * Decodes the constant pool entries of a chunk in bulk before its events.
+   *
+   * <p>The entries of each pool selected by the {@linkplain
+   * ParserContextFactory#constantPoolMaterialization context factory} are decoded in the order of
+   * their offsets into arrays indexed by entry id. Pools are split into segments which are decoded
+   * by the chunk thread together with the intra-chunk decoding workers, if any. The decoded entries
+   * are published only once all segments are done.
+   */
+  private void materializeConstantPools(RecordingStream chunkStream, ChunkHeader chunkHeader)
+      throws IOException {
+    ParserContext chunkContext = chunkStream.getContext();
+    ConstantPools constantPools = chunkContext.getConstantPools();
+    if (!(constantPools instanceof MutableConstantPools)) {
+      return;
+    }
+    List<MutableConstantPool> pools = new ArrayList<>();
+    List<MutableConstantPool.Materialized> materialized = new ArrayList<>();
+    // segments as (pool index, first entry) pairs
+    List<int[]> segments = new ArrayList<>();
+    constantPools
+        .pools()
+        .forEach(
+            p -> {
+              MutableConstantPool pool = (MutableConstantPool) p;
+              MutableConstantPool.Materialization form =
+                  contextFactory.constantPoolMaterialization(chunkContext, pool);
+              if (form == null) {
+                return;
+              }
+              MutableConstantPool.Materialized m = pool.prepareMaterialization(form);
+              for (int from = 0; from < m.size(); from += CONSTANT_POOL_SEGMENT) {
+                segments.add(new int[] {pools.size(), from});
+              }
+              pools.add(pool);
+              materialized.add(m);
+            });
+    if (segments.isEmpty()) {
+      return;
+    }
+
+    AtomicInteger nextSegment = new AtomicInteger();
+    Runnable decode =
+        () -> {
+          int i;
+          while ((i = nextSegment.getAndIncrement()) < segments.size()) {
+            int[] segment = segments.get(i);
+            MutableConstantPool.Materialized m = materialized.get(segment[0]);
+            pools
+                .get(segment[0])
+                .materialize(m, segment[1], Math.min(segment[1] + CONSTANT_POOL_SEGMENT, m.size()));
+          }
+        };
+    int workers =
+        workerExecutor != null ? Math.min(options.intraChunkParallelism(), segments.size()) - 1 : 0;
+    List<WorkerTask> results = new ArrayList<>(Math.max(workers, 0));
+    for (int w = 0; w < workers; w++) {
+      ParserContext workerContext = contextFactory.newWorkerContext(chunkContext);
+      if (workerContext == null) {
+        break;
+      }
+      if (results.isEmpty()) {
+        ((MutableConstantPools) constantPools).setConcurrent();
+      }
+      results.add(
+          submitWorker(
+              () -> {
+                chunkStream.bindThreadLocalStreamSlice(workerContext);
+                try {
+                  decode.run();
+                  return true;
+                } finally {
+                  chunkStream.unbindThreadLocalStreamSlice();
+                }
+              }));
+    }
+    try {
+      decode.run();
+    } catch (Throwable t) {
+      // leave no segments to the workers
+      nextSegment.set(segments.size());
+      awaitWorkers(results, chunkHeader, t);
+      throw t;
+    }
+    awaitWorkers(results, chunkHeader, null);
+    for (int i = 0; i < pools.size(); i++) {
+      pools.get(i).publish(materialized.get(i));
+    }
+  }
+
+  /**
+   * Claims and dispatches event ranges until none is left.
+   *
+   * @param ranges {@code [start, end)} pairs of the ranges
+   * @param nextRange index of the next unclaimed range, shared by the threads decoding the chunk
+   */
+  private static boolean dispatchRanges(
+      RecordingStream stream,
+      long[] ranges,
+      AtomicInteger nextRange,
+      ChunkHeader chunkHeader,
+      ChunkParserListener listener,
+      EventFilter.Chunk filter,
+      AtomicBoolean stop) {
+    int range;
+    while ((range = nextRange.getAndIncrement()) < ranges.length / 2) {
+      if (!dispatchEvents(
+          stream,
+          ranges[2 * range],
+          ranges[2 * range + 1],
+          chunkHeader,
+          listener,
+          filter,
+          stop)) {
+        return false;
+      }
     }
+    return true;
+  }
+
+  /**
+   * Splits the event section {@code [from, to)} into at most {@code maxRanges} ranges of roughly
+   * equal byte size, reading only the event size varints.
+   *
+   * @return {@code [start, end)} pairs of consecutive ranges; the last range always ends at {@code
+   *     to} so that a malformed tail is reported by the decoding pass exactly as in sequential mode
+   */
+  private static long[] splitEvents(RecordingStream stream, long from, long to, int maxRanges) {
+    long target = Math.max((to - from) / maxRanges, 1);
+    long[] bounds = new long[maxRanges + 1];
+    int count = 0;
+    bounds[count++] = from;
+    long rangeStart = from;
+    long pos = from;
+    stream.position(from);
+    while (pos < to && count < maxRanges) {
+      long eventSize;
+      try {
+        eventSize = stream.readVarint();
+      } catch (BufferUnderflowException e) {
+        break;
+      }
+      if (eventSize > 0) {
+        if (pos + eventSize > to) {
+          break;
+        }
+        pos += eventSize;
+        stream.position(pos);
+      } else {
+        pos = stream.position();
+      }
+      if (pos - rangeStart >= target && pos < to) {
+        bounds[count++] = pos;
+        rangeStart = pos;
+      }
+    }
+    bounds[count++] = to;
+    long[] ranges = new long[2 * (count - 1)];
+    for (int i = 0; i < count - 1; i++) {
+      ranges[2 * i] = bounds[i];
+      ranges[2 * i + 1] = bounds[i + 1];
+    }
+    return ranges;
   }
 
   @Override
   public void close() throws Exception {
     if (!closed) {
       closed = true;
-      executor.shutdown();
+      if (ownsExecutor) {
+        executor.shutdown();
+      }
     }
   }
 
@@ -285,44 +933,159 @@ public final class StreamingChunkParser implements AutoCloseable {
       ChunkHeader chunkHeader,
       RecordingStream chunkStream,
       ChunkParserListener listener,
-      long headerSize) {
-    return executor.submit(
+      long headerSize,
+      ChunkSelector selector,
+      Runnable onDone) {
+    Callable<Boolean> body =
         () -> {
-          processChunk(chunkStream, chunkHeader, listener, headerSize);
+          processChunk(chunkStream, chunkHeader, listener, headerSize, selector);
           return true;
-        });
+        };
+    if (onDone == null) {
+      return executor.submit(body);
+    }
+    // if the executor rejects the task, onDone is left to the caller
+    ChunkTask task = new ChunkTask(body, onDone);
+    executor.execute(task);
+    return task;
   }
 
-  private void parse(RecordingStream stream, ChunkParserListener listener) throws IOException {
+  /**
+   * A chunk task running {@code onDone} exactly once: when the task finishes, or when it is
+   * cancelled before it starts and thus never runs.
+   */
+  private static final class ChunkTask extends FutureTask<Boolean> {
+    private final AtomicBoolean claimed;
+    private final Runnable onDone;
+
+    ChunkTask(Callable<Boolean> body, Runnable onDone) {
+      this(body, onDone, new AtomicBoolean());
+    }
+
+    private ChunkTask(Callable<Boolean> body, Runnable onDone, AtomicBoolean claimed) {
+      super(
+          () -> {
+            if (!claimed.compareAndSet(false, true)) {
+              return false;
+            }
+            try {
+              return body.call();
+            } finally {
+              onDone.run();
+            }
+          });
+      this.claimed = claimed;
+      this.onDone = onDone;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      if (claimed.compareAndSet(false, true)) {
+        super.cancel(false);
+        onDone.run();
+        return true;
+      }
+      return super.cancel(mayInterruptIfRunning);
+    }
+  }
+
+  /**
+   * Removes the already finished tasks from {@code results}, surfacing their failures early.
+   *
+   * @param results the pending chunk tasks
+   */
+  private static void collectCompleted(List<Future<Boolean>> results) {
+    Iterator<Future<Boolean>> it = results.iterator();
+    while (it.hasNext()) {
+      Future<Boolean> f = it.next();
+      if (f.isDone()) {
+        awaitChunk(f);
+        it.remove();
+      }
+    }
+  }
+
+  private static void awaitChunk(Future<Boolean> f) {
+    try {
+      f.get();
+    } catch (Throwable t) {
+      throw new RuntimeException("Failed to process chunk", t);
+    }
+  }
+
+  /**
+   * Creates a virtual-thread-per-task executor when running on a JVM supporting virtual threads.
+   *
+   * @return the executor, or {@code null} if virtual threads are not available
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      // Looked up reflectively as this class is compiled for Java 8
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      log.warn("Virtual threads are not available on this JVM, using a platform thread pool");
+      return null;
+    }
+  }
+
+  private void parse(RecordingStream stream, ChunkSelector selector, ChunkParserListener listener)
+      throws IOException {
     if (stream.available() == 0) {
       return;
     }
     List<Future<Boolean>> results = new ArrayList<>();
+    int maxChunksInFlight = options.maxChunksInFlight();
+    Semaphore inFlight = maxChunksInFlight > 0 ? new Semaphore(maxChunksInFlight) : null;
+    ConstantPoolInternTable internTable = newInternTable();
+    ReadAhead readAhead =
+        options.readAhead() || options.prefetchEvents() ? new ReadAhead(stream) : null;
     try {
       listener.onRecordingStart(stream.getContext());
       int chunkCounter = 1;
       while (stream.available() > 0) {
         ChunkHeader header = new ChunkHeader(stream, chunkCounter);
         long headerSize = (stream.position() - header.offset);
+        if (selector.skip(header)) {
+          stream.position(header.offset + header.size);
+          chunkCounter++;
+          continue;
+        }
+        if (readAhead != null) {
+          // faulted in while the chunks already submitted are decoded
+          readAhead.chunk(header, options.prefetchEvents());
+        }
+        if (inFlight != null) {
+          // Bound the number of chunk slices and contexts alive at the same time
+          inFlight.acquire();
+          collectCompleted(results);
+        }
 
         RecordingStream chunkStream =
             stream.slice(
                 header.offset,
                 header.size,
-                contextFactory.newContext(stream.getContext(), chunkCounter));
+                newChunkContext(stream.getContext(), chunkCounter, internTable));
         stream.position(header.offset + header.size);
 
-        results.add(submitParsingTask(header, chunkStream, listener, headerSize));
+        try {
+          results.add(
+              submitParsingTask(
+                  header,
+                  chunkStream,
+                  listener,
+                  headerSize,
+                  selector,
+                  inFlight != null ? inFlight::release : null));
+        } catch (Throwable t) {
+          if (inFlight != null) {
+            inFlight.release();
+          }
+          throw t;
+        }
         chunkCounter++;
       }
-      results.forEach(
-          f -> {
-            try {
-              f.get();
-            } catch (Throwable t) {
-              throw new RuntimeException("Failed to process chunk", t);
-            }
-          });
+      results.forEach(StreamingChunkParser::awaitChunk);
     } catch (EOFException e) {
       // Cancel any pending tasks before propagating exception
       results.forEach(f -> f.cancel(true));
@@ -330,8 +1093,14 @@ public final class StreamingChunkParser implements AutoCloseable {
     } catch (Throwable t) {
       // Cancel any pending tasks before propagating exception
       results.forEach(f -> f.cancel(true));
+      if (t instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
       throw new IOException("Error occurred while parsing JFR recording", t);
     } finally {
+      if (readAhead != null) {
+        readAhead.close();
+      }
       listener.onRecordingEnd(stream.getContext());
     }
   }
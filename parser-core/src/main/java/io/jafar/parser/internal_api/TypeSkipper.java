@@ -55,6 +55,26 @@ public final class TypeSkipper {
       return new TypeSkipper(instructions.toIntArray());
     }
 
+    // Primitive types have no fields; their value is the whole data
+    if (clz.isPrimitive()) {
+      switch (clz.getName()) {
+        case "byte":
+        case "boolean":
+          instructions.add(Instructions.BYTE);
+          break;
+        case "float":
+          instructions.add(Instructions.FLOAT);
+          break;
+        case "double":
+          instructions.add(Instructions.DOUBLE);
+          break;
+        default:
+          instructions.add(Instructions.VARINT);
+          break;
+      }
+      return new TypeSkipper(instructions.toIntArray());
+    }
+
     // Special case: simple types in constant pools store unwrapped field values
     // The CP entries contain the raw unwrapped type data, not the simple type structure
     if (clz.isSimpleType() && clz.getFields().size() == 1) {
@@ -99,7 +119,21 @@ public final class TypeSkipper {
       return new TypeSkipper(instructions.toIntArray());
     }
 
-    for (MetadataField fld : clz.getFields()) {
+    for (MetadataField fld : clz.getAllFields()) {
+      fillSkipper(fld, instructions);
+    }
+    return new TypeSkipper(instructions.toIntArray());
+  }
+
+  /**
+   * Creates a TypeSkipper for a run of consecutive fields.
+   *
+   * @param fields the fields, in stream order
+   * @return a new TypeSkipper instance skipping all the fields in one pass
+   */
+  public static TypeSkipper createSkipper(List<MetadataField> fields) {
+    IntGrowableArray instructions = new IntGrowableArray(20);
+    for (MetadataField fld : fields) {
       fillSkipper(fld, instructions);
     }
     return new TypeSkipper(instructions.toIntArray());
@@ -154,7 +188,7 @@ public final class TypeSkipper {
         if (withCp) {
           instructions.add(Instructions.CP_ENTRY);
         } else {
-          for (MetadataField subField : fldClz.getFields()) {
+          for (MetadataField subField : fldClz.getAllFields()) {
             fillSkipper(subField, instructions);
           }
         }
@@ -91,6 +91,20 @@ public interface ValueProcessor {
    */
   default void onStringValue(MetadataClass owner, String fld, String value) {}
 
+  /**
+   * Called when a string value is read as a view of the recording buffer.
+   *
+   * <p>The default implementation decodes the view and passes it to {@link
+   * #onStringValue(MetadataClass, String, String)}.
+   *
+   * @param owner the owner metadata class
+   * @param fld the field name
+   * @param value the string value, a {@link io.jafar.utils.LazyString} for inline content
+   */
+  default void onStringView(MetadataClass owner, String fld, CharSequence value) {
+    onStringValue(owner, fld, value != null ? value.toString() : null);
+  }
+
   /**
    * Called when a constant pool index is encountered.
    *
@@ -9,9 +9,11 @@ import io.jafar.parser.internal_api.DeserializerFactory;
 import io.jafar.parser.internal_api.RecordingStream;
 import io.jafar.parser.internal_api.TypeSkipper;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -57,6 +59,9 @@ public final class MetadataClass extends AbstractMetadataElement {
   /** The super type of this class. */
   private String superType;
 
+  /** Inherited and own fields, computed by {@link #getAllFields()}. */
+  private volatile List<MetadataField> allFields;
+
   /** Cached primitive type flag. */
   private Boolean isPrimitive;
 
@@ -274,6 +279,65 @@ public final class MetadataClass extends AbstractMetadataElement {
     return Collections.unmodifiableList(fields == null ? Collections.emptyList() : fields);
   }
 
+  /**
+   * Gets the fields of this class including the fields inherited from its super types.
+   *
+   * <p>The fields of the super types which are not redeclared by this class come first, outermost
+   * super type first, followed by the fields of this class. This is the order in which the values
+   * are written. Super types missing from the metadata, like {@code jdk.jfr.Event}, contribute no
+   * fields; for recordings written by the JDK, which lists inherited fields on every subtype, the
+   * result is the same as {@link #getFields()}.
+   *
+   * <p>Must only be called once the metadata of the chunk is fully read; the result is cached.
+   *
+   * @return an unmodifiable list of metadata fields
+   */
+  public List<MetadataField> getAllFields() {
+    List<MetadataField> all = allFields;
+    if (all == null) {
+      all = collectAllFields();
+      allFields = all;
+    }
+    return all;
+  }
+
+  private List<MetadataField> collectAllFields() {
+    List<MetadataField> own = getFields();
+    // outermost super type on top
+    ArrayDeque<MetadataClass> supers = new ArrayDeque<>();
+    Set<String> visited = new HashSet<>();
+    visited.add(getName());
+    String name = superType;
+    while (name != null && visited.add(name)) {
+      MetadataClass superClass = metadataLookup.getClass(name);
+      if (superClass == null) {
+        break;
+      }
+      supers.push(superClass);
+      name = superClass.superType;
+    }
+    if (supers.isEmpty()) {
+      return own;
+    }
+    Set<String> names = new HashSet<>();
+    for (MetadataField field : own) {
+      names.add(field.getName());
+    }
+    List<MetadataField> all = new ArrayList<>();
+    for (MetadataClass superClass : supers) {
+      for (MetadataField field : superClass.getFields()) {
+        if (names.add(field.getName())) {
+          all.add(field);
+        }
+      }
+    }
+    if (all.isEmpty()) {
+      return own;
+    }
+    all.addAll(own);
+    return Collections.unmodifiableList(all);
+  }
+
   /**
    * Returns class-level JFR metadata annotations declared on this metadata class.
    *
@@ -90,7 +90,7 @@ public final class MetadataFingerprint {
    *
    * @param metadata the metadata lookup containing all class definitions
    * @param eventTypeNames the set of event type names to start reachability analysis from
-   * @return the set of class IDs that are transitively reachable through field types
+   * @return the set of class IDs that are transitively reachable through field and super types
    */
   public static Set<Long> computeReachableTypes(
       MutableMetadataLookup metadata, Set<String> eventTypeNames) {
@@ -114,6 +114,12 @@ public final class MetadataFingerprint {
         continue;
       }
 
+      // super types contribute inherited fields, see MetadataClass#getAllFields()
+      MetadataClass superClass =
+          clz.getSuperType() != null ? metadata.getClass(clz.getSuperType()) : null;
+      if (superClass != null && reachable.add(superClass.getId())) {
+        queue.add(superClass.getId());
+      }
       for (MetadataField field : clz.getFields()) {
         MetadataClass fieldType = field.getType();
         if (fieldType == null) {
@@ -222,6 +222,21 @@ public final class ByteArrayByteBuffer implements CustomByteBuffer {
     return value;
   }
 
+  @Override
+  public long peekLong() {
+    if (pos + 8 > limit) {
+      throw new IllegalArgumentException("Read operation exceeds buffer limits");
+    }
+    return (long) arr[pos + 7] << 56
+        | ((long) arr[pos + 6] & 0xFF) << 48
+        | ((long) arr[pos + 5] & 0xFF) << 40
+        | ((long) arr[pos + 4] & 0xFF) << 32
+        | ((long) arr[pos + 3] & 0xFF) << 24
+        | ((long) arr[pos + 2] & 0xFF) << 16
+        | ((long) arr[pos + 1] & 0xFF) << 8
+        | ((long) arr[pos] & 0xFF);
+  }
+
   @Override
   public int getInt(long offset) {
     if (pos + offset + 4 > limit) {
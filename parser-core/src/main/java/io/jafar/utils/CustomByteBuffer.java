@@ -183,7 +183,8 @@ public interface CustomByteBuffer {
   long limit();
 
   /**
-   * Reads a single byte at the given absolute offset without changing the position.
+   * Reads a single byte at the given absolute offset without changing the position. Absolute reads
+   * do not touch any buffer state and may be issued concurrently from several threads.
    *
    * @param offset the absolute byte offset
    * @return the byte value
@@ -206,6 +207,31 @@ public interface CustomByteBuffer {
    */
   long getLong(long offset);
 
+  /**
+   * Reads the 8 bytes at the current position as a little-endian long, without changing the
+   * position, so that the byte at the current position ends up in the lowest 8 bits. The caller
+   * must make sure that at least 8 bytes remain.
+   *
+   * @return the little-endian long value
+   */
+  default long peekLong() {
+    long l = getLong(position());
+    return order() == ByteOrder.LITTLE_ENDIAN ? l : Long.reverseBytes(l);
+  }
+
+  /**
+   * Loads the pages of the given range into physical memory, if this buffer can do so natively.
+   * The call may block until the pages are resident.
+   *
+   * @param offset the absolute byte offset of the range
+   * @param length the length of the range in bytes
+   * @return {@code true} if the range was loaded, {@code false} if this buffer has no native
+   *     support and the caller should touch the pages itself
+   */
+  default boolean load(long offset, long length) {
+    return false;
+  }
+
   /**
    * Releases any resources held by this buffer.
    *
@@ -367,6 +393,12 @@ public interface CustomByteBuffer {
       return delegate.getLong((int) offset);
     }
 
+    @Override
+    public long peekLong() {
+      long l = delegate.getLong(delegate.position());
+      return delegate.order() == ByteOrder.LITTLE_ENDIAN ? l : Long.reverseBytes(l);
+    }
+
     @Override
     public void close() throws IOException {
       // MappedByteBuffers are unmapped by GC
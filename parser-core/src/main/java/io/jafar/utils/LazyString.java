@@ -0,0 +1,174 @@
+package io.jafar.utils;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A string read from a recording, left undecoded in the recording buffer until it is needed.
+ *
+ * <p>Creating a view copies nothing. Single-byte content (Latin-1, or UTF-8 that turns out to be
+ * ASCII) is compared, hashed and indexed directly on the buffer; {@link #toString()} decodes the
+ * content once and caches the result.
+ *
+ * <p>A view reads from the chunk buffer it was created from and is therefore only valid while the
+ * chunk is parsed. Call {@link #toString()} to keep the value beyond that.
+ *
+ * <p>Views are equal to other views with the same content, with {@link #hashCode()} consistent with
+ * {@link String#hashCode()}. Use {@link #contentEquals(CharSequence)} to compare with a {@link
+ * String}.
+ */
+public final class LazyString implements CharSequence {
+  private static final byte UNKNOWN = 0;
+  private static final byte SINGLE_BYTE = 1;
+  private static final byte MULTI_BYTE = 2;
+
+  private final CustomByteBuffer buffer;
+  private final long offset;
+  private final int size;
+  private final boolean latin1;
+  private byte encoding;
+  private String value;
+  private int hash;
+
+  private LazyString(CustomByteBuffer buffer, long offset, int size, boolean latin1) {
+    this.buffer = buffer;
+    this.offset = offset;
+    this.size = size;
+    this.latin1 = latin1;
+    this.encoding = latin1 ? SINGLE_BYTE : UNKNOWN;
+  }
+
+  /**
+   * Creates a view of UTF-8 encoded content.
+   *
+   * @param buffer the buffer holding the content
+   * @param offset the absolute offset of the content in the buffer
+   * @param size the content size in bytes
+   * @return the view
+   */
+  public static LazyString utf8(CustomByteBuffer buffer, long offset, int size) {
+    return new LazyString(buffer, offset, size, false);
+  }
+
+  /**
+   * Creates a view of Latin-1 encoded content.
+   *
+   * @param buffer the buffer holding the content
+   * @param offset the absolute offset of the content in the buffer
+   * @param size the content size in bytes
+   * @return the view
+   */
+  public static LazyString latin1(CustomByteBuffer buffer, long offset, int size) {
+    return new LazyString(buffer, offset, size, true);
+  }
+
+  /**
+   * Checks whether each byte of the content is one character, allowing access without decoding.
+   *
+   * @return {@code true} for Latin-1 and for ASCII-only UTF-8 content
+   */
+  private boolean isSingleByte() {
+    if (encoding == UNKNOWN) {
+      byte result = SINGLE_BYTE;
+      for (int i = 0; i < size; i++) {
+        if (buffer.get(offset + i) < 0) {
+          result = MULTI_BYTE;
+          break;
+        }
+      }
+      encoding = result;
+    }
+    return encoding == SINGLE_BYTE;
+  }
+
+  @Override
+  public int length() {
+    return isSingleByte() ? size : toString().length();
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (!isSingleByte()) {
+      return toString().charAt(index);
+    }
+    if (index < 0 || index >= size) {
+      throw new StringIndexOutOfBoundsException(index);
+    }
+    return (char) (buffer.get(offset + index) & 0xff);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return toString().subSequence(start, end);
+  }
+
+  /**
+   * Compares the content with a character sequence without decoding single-byte content.
+   *
+   * @param cs the sequence to compare with
+   * @return {@code true} if both have the same characters
+   */
+  public boolean contentEquals(CharSequence cs) {
+    if (cs == null) {
+      return false;
+    }
+    if (value != null || !isSingleByte()) {
+      return toString().contentEquals(cs);
+    }
+    if (cs.length() != size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if ((buffer.get(offset + i) & 0xff) != cs.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof LazyString)) {
+      return false;
+    }
+    LazyString other = (LazyString) o;
+    if (buffer == other.buffer && offset == other.offset && size == other.size) {
+      return latin1 == other.latin1 || isSingleByte();
+    }
+    return hashCode() == other.hashCode() && contentEquals(other);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = hash;
+    if (h == 0 && size > 0) {
+      if (value == null && isSingleByte()) {
+        for (int i = 0; i < size; i++) {
+          h = 31 * h + (buffer.get(offset + i) & 0xff);
+        }
+      } else {
+        h = toString().hashCode();
+      }
+      hash = h;
+    }
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    String s = value;
+    if (s == null) {
+      byte[] content = new byte[size];
+      for (int i = 0; i < size; i++) {
+        content[i] = buffer.get(offset + i);
+      }
+      Charset charset = latin1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+      s = new String(content, charset);
+      value = s;
+    }
+    return s;
+  }
+}
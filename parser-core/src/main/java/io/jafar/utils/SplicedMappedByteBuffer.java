@@ -336,11 +336,13 @@ public final class SplicedMappedByteBuffer implements CustomByteBuffer {
     if (spliceSize - off >= 4) {
       return splices[idx].getInt(off);
     }
-    numArray[0] = get(offset);
-    numArray[1] = get(offset + 1);
-    numArray[2] = get(offset + 2);
-    numArray[3] = get(offset + 3);
-    return ByteBuffer.wrap(numArray).order(splices[0].order()).getInt();
+    // The value spans a splice boundary; assemble it without shared scratch state so that
+    // absolute reads stay safe for concurrent readers
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      value = (value << 8) | (get(offset + i) & 0xFF);
+    }
+    return splices[0].order() == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
   }
 
   /** {@inheritDoc} */
@@ -352,10 +354,27 @@ public final class SplicedMappedByteBuffer implements CustomByteBuffer {
     if (spliceSize - off >= 8) {
       return splices[idx].getLong(off);
     }
+    // The value spans a splice boundary; see getInt(long)
+    long value = 0;
     for (int i = 0; i < 8; i++) {
-      numArray[i] = get(offset + i);
+      value = (value << 8) | (get(offset + i) & 0xFF);
+    }
+    return splices[0].order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public long peekLong() {
+    MappedByteBuffer splice = splices[index];
+    long l;
+    if (spliceSize - offset >= 8) {
+      l = splice.getLong(offset);
+    } else {
+      // the value spans a splice boundary
+      l = getLong(position);
+      splice = splices[0];
     }
-    return ByteBuffer.wrap(numArray).order(splices[0].order()).getLong();
+    return splice.order() == ByteOrder.LITTLE_ENDIAN ? l : Long.reverseBytes(l);
   }
 
   /** {@inheritDoc} */
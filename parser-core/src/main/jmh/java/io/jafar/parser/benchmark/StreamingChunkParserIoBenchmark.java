@@ -2,21 +2,44 @@ package io.jafar.parser.benchmark;
 
 import io.jafar.parser.impl.UntypedParserContextFactory;
 import io.jafar.parser.internal_api.ChunkParserListener;
+import io.jafar.parser.internal_api.ChunkParserOptions;
 import io.jafar.parser.internal_api.StreamingChunkParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 
+/**
+ * Compares parsing a recording from a file (memory-mapped) and from an input stream.
+ *
+ * <p>{@code readAhead} selects the read-ahead of the mapped path: {@code off}, {@code metadata} for
+ * {@link ChunkParserOptions.Builder#readAhead(boolean)} or {@code events} for {@link
+ * ChunkParserOptions.Builder#prefetchEvents(boolean)}. Read-ahead only pays off when the recording
+ * is not in the page cache; with {@code -p coldCache=true} the page cache is dropped before every
+ * invocation by writing to {@code /proc/sys/vm/drop_caches}, which requires Linux and root. Use a
+ * recording of several hundred megabytes, e.g. {@code -p filePath=/path/to/large.jfr}, and {@code
+ * -bm ss} so that every measured parse starts cold. Chunks are self-contained, so concatenating
+ * copies of a recording makes a large one.
+ *
+ * <p>Read-ahead can only hide reads that are slower than parsing, on network or spinning storage
+ * and with a core to spare for the reads. Where the storage streams the file faster than it
+ * parses, the three settings are expected to measure the same.
+ */
 @State(Scope.Benchmark)
 @BenchmarkMode(Mode.Throughput)
 @OutputTimeUnit(java.util.concurrent.TimeUnit.SECONDS)
@@ -28,16 +51,42 @@ public class StreamingChunkParserIoBenchmark {
   @Param({"parser-core/src/test/resources/test-jfr.jfr"})
   private String filePath;
 
+  @Param({"off", "metadata", "events"})
+  private String readAhead;
+
+  @Param({"false"})
+  private boolean coldCache;
+
   private Path path;
+  private ChunkParserOptions options;
   private byte[] fileData;
   private final AtomicInteger pathCount = new AtomicInteger();
   private final AtomicInteger streamCount = new AtomicInteger();
 
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    path = Paths.get(filePath);
+    fileData = Files.readAllBytes(path);
+    options =
+        ChunkParserOptions.builder()
+            .readAhead("metadata".equals(readAhead))
+            .prefetchEvents("events".equals(readAhead))
+            .build();
+  }
+
+  @Setup(Level.Invocation)
+  public void dropPageCache() throws IOException {
+    if (coldCache) {
+      // the recording is only read, so there are no dirty pages to sync first
+      Files.write(Paths.get("/proc/sys/vm/drop_caches"), "1".getBytes(StandardCharsets.US_ASCII));
+    }
+  }
+
   @Benchmark
   public void parseViaPath(Blackhole bh) throws Exception {
     pathCount.set(0);
     try (StreamingChunkParser parser =
-        new StreamingChunkParser(new UntypedParserContextFactory())) {
+        new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
       parser.parse(
           path,
           new ChunkParserListener() {
@@ -0,0 +1,111 @@
+package io.jafar.parser.benchmark;
+
+import io.jafar.parser.internal_api.BufferedRecordingStreamReader;
+import io.jafar.parser.internal_api.RecordingStreamReader;
+import io.jafar.utils.CustomByteBuffer;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link RecordingStreamReader#readVarint()} with byte-at-a-time LEB128 decoding through
+ * the same reader.
+ *
+ * <p>The {@code shape} parameter picks the encoded lengths: {@code small} for type ids and sizes,
+ * {@code pool} for constant pool references, {@code ticks} for timestamps and {@code mixed} for a
+ * blend resembling event payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = java.util.concurrent.TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = java.util.concurrent.TimeUnit.SECONDS)
+@Fork(1)
+public class VarintDecodingBenchmark {
+  private static final int COUNT = 16 * 1024;
+
+  @Param({"small", "pool", "ticks", "mixed"})
+  private String shape;
+
+  private RecordingStreamReader reader;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random rnd = new Random(42);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < COUNT; i++) {
+      long v = value(rnd);
+      while ((v & ~0x7FL) != 0) {
+        out.write((int) ((v & 0x7F) | 0x80));
+        v >>>= 7;
+      }
+      out.write((int) v);
+    }
+    byte[] data = out.toByteArray();
+    reader = new BufferedRecordingStreamReader(CustomByteBuffer.wrap(data));
+  }
+
+  private long value(Random rnd) {
+    switch (shape) {
+      case "small":
+        return rnd.nextInt(1 << 14);
+      case "pool":
+        return rnd.nextInt(1 << 24);
+      case "ticks":
+        return 1_000_000_000_000L + (rnd.nextLong() & 0xFFFFFFFFFFL);
+      default:
+        int pick = rnd.nextInt(4);
+        return pick == 0
+            ? rnd.nextInt(1 << 7)
+            : pick == 1 ? rnd.nextInt(1 << 21) : (rnd.nextLong() & 0xFFFFFFFFFFFFL);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public long readVarint() {
+    RecordingStreamReader r = reader;
+    r.position(0);
+    long sum = 0;
+    for (int i = 0; i < COUNT; i++) {
+      sum += r.readVarint();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public long readVarintBytewise() {
+    RecordingStreamReader r = reader;
+    r.position(0);
+    long sum = 0;
+    for (int i = 0; i < COUNT; i++) {
+      long ret = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte v = r.read();
+        if (shift == 56) {
+          ret |= (v & 0xFFL) << 56;
+          break;
+        }
+        ret |= (v & 0x7FL) << shift;
+        if (v >= 0) {
+          break;
+        }
+      }
+      sum += ret;
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,117 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+
+public class IntraChunkParallelParsingTest {
+
+  @Test
+  void parallelDecodingSeesSameEventsAsSequential() throws Exception {
+    Path path = recording();
+    Map<String, Long> sequential = eventSummary(ParsingContext.create(), path);
+    Map<String, Long> parallel =
+        eventSummary(
+            ParsingContext.builder().intraChunkParallelism(4).intraChunkMinSize(0).build(), path);
+
+    assertFalse(sequential.isEmpty());
+    assertEquals(sequential, parallel);
+  }
+
+  @Test
+  void workersShareSingleThreadExecutorWithChunks() throws Exception {
+    Path path = recording();
+    ExecutorService shared = Executors.newSingleThreadExecutor();
+    try {
+      // the chunk task occupies the only thread, so its queued workers must be revoked
+      Map<String, Long> parallel =
+          eventSummary(
+              ParsingContext.builder()
+                  .executor(shared)
+                  .intraChunkParallelism(4)
+                  .intraChunkMinSize(0)
+                  .build(),
+              path);
+
+      assertEquals(eventSummary(ParsingContext.create(), path), parallel);
+    } finally {
+      shared.shutdown();
+    }
+  }
+
+  @Test
+  void abortStopsAllWorkers() throws Exception {
+    ParsingContext ctx =
+        ParsingContext.builder().intraChunkParallelism(4).intraChunkMinSize(0).build();
+    AtomicInteger total = new AtomicInteger();
+    try (UntypedJafarParser p = ctx.newUntypedParser(recording())) {
+      p.handle((t, v, ctl) -> total.incrementAndGet());
+      p.run();
+    }
+
+    AtomicInteger seen = new AtomicInteger();
+    try (UntypedJafarParser p = ctx.newUntypedParser(recording())) {
+      p.handle(
+          (t, v, ctl) -> {
+            if (seen.incrementAndGet() >= 5) {
+              ctl.abort();
+            }
+          });
+      p.run();
+    }
+    // Each worker may deliver at most one more event before observing the abort
+    assertTrue(seen.get() >= 5);
+    assertTrue(seen.get() < total.get(), seen.get() + " >= " + total.get());
+  }
+
+  @Test
+  void rejectsInvalidParallelism() {
+    assertThrows(
+        IllegalArgumentException.class, () -> ParsingContext.builder().intraChunkParallelism(0));
+    assertThrows(
+        IllegalArgumentException.class, () -> ParsingContext.builder().intraChunkMinSize(-1));
+  }
+
+  private static Map<String, Long> eventSummary(ParsingContext ctx, Path path) throws Exception {
+    Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    Map<String, LongAdder> startTimes = new ConcurrentHashMap<>();
+    try (UntypedJafarParser p = ctx.newUntypedParser(path)) {
+      p.handle(
+          (t, v, ctl) -> {
+            counts.computeIfAbsent(t.getName(), k -> new LongAdder()).increment();
+            Object startTime = v.get("startTime");
+            if (startTime instanceof Number) {
+              startTimes
+                  .computeIfAbsent(t.getName(), k -> new LongAdder())
+                  .add(((Number) startTime).longValue());
+            }
+          });
+      p.run();
+    }
+    Map<String, Long> summary = new ConcurrentHashMap<>();
+    counts.forEach((k, v) -> summary.put(k + "#count", v.sum()));
+    startTimes.forEach((k, v) -> summary.put(k + "#startTime", v.sum()));
+    return summary;
+  }
+
+  private static Path recording() throws Exception {
+    URI uri =
+        IntraChunkParallelParsingTest.class.getClassLoader().getResource("test-ap.jfr").toURI();
+    return Paths.get(new File(uri).getAbsolutePath());
+  }
+}
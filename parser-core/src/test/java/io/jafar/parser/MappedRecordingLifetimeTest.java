@@ -0,0 +1,56 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Resolves values decoded lazily from a mapped recording after its parse has completed. */
+public class MappedRecordingLifetimeTest {
+
+  @Test
+  void constantPoolValuesResolveAfterParse() throws Exception {
+    List<ComplexType> stackTraces = stackTraces(ParsingContext.create());
+    assertFalse(stackTraces.isEmpty(), "expected execution samples with stack traces");
+    for (ComplexType stackTrace : stackTraces) {
+      Map<String, Object> value = stackTrace.getValue();
+      assertNotNull(value);
+      assertNotNull(value.get("frames"));
+    }
+  }
+
+  /** Parses the recording and returns the unresolved stack traces of its execution samples. */
+  protected static List<ComplexType> stackTraces(ParsingContext context) throws Exception {
+    List<ComplexType> stackTraces = Collections.synchronizedList(new ArrayList<>());
+    try (UntypedJafarParser p = context.newUntypedParser(recording())) {
+      p.handle(
+          Collections.singleton("jdk.ExecutionSample"),
+          (t, v, ctl) -> {
+            Object stackTrace = v.get("stackTrace");
+            if (stackTrace instanceof ComplexType) {
+              stackTraces.add((ComplexType) stackTrace);
+            }
+          });
+      p.run();
+    }
+    return new ArrayList<>(stackTraces);
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            MappedRecordingLifetimeTest.class
+                .getClassLoader()
+                .getResource("test-jfr.jfr")
+                .toURI())
+        .toPath();
+  }
+}
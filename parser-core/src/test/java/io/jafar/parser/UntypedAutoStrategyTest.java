@@ -0,0 +1,168 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import io.jafar.parser.api.UntypedStrategy;
+import io.jafar.parser.api.UntypedTypeStats;
+import io.jafar.parser.impl.AdaptiveStrategy;
+import io.jafar.parser.impl.LazyEventMap;
+import io.jafar.parser.impl.LazyMapValueBuilder;
+import io.jafar.parser.impl.UntypedJafarParserImpl;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+
+public class UntypedAutoStrategyTest {
+  private static final String SPARSE_TYPE = "jdk.BooleanFlag";
+
+  /** Small enough for the types of the test recording to be decided. */
+  private static final int WARMUP_EVENTS = 16;
+
+  @Test
+  void sparseAccessKeepsLazyDecoding() {
+    AdaptiveStrategy strategy = new AdaptiveStrategy(4);
+    AdaptiveStrategy.Profile profile = strategy.profile("test.Event");
+    for (int i = 0; i < 4; i++) {
+      assertEquals(UntypedStrategy.AUTO, profile.decision());
+      Map<String, Object> event = event(10);
+      profile.track(event);
+      event.get("f3");
+      event.get("f3");
+      event.get("missing");
+      profile.record(event);
+    }
+    assertEquals(UntypedStrategy.SPARSE_ACCESS, profile.decision());
+
+    UntypedTypeStats stats = strategy.stats().get("test.Event");
+    assertEquals(4, stats.events());
+    assertEquals(4, stats.sampledEvents());
+    assertEquals(10.0, stats.averageFields());
+    assertEquals(1.0, stats.averageAccessedFields());
+    assertEquals(0.0, stats.iteratedFraction());
+  }
+
+  @Test
+  void iterationSwitchesToEagerDecoding() {
+    AdaptiveStrategy strategy = new AdaptiveStrategy(4);
+    AdaptiveStrategy.Profile profile = strategy.profile("test.Event");
+    for (int i = 0; i < 4; i++) {
+      Map<String, Object> event = event(10);
+      profile.track(event);
+      event.entrySet().forEach(Map.Entry::getValue);
+      profile.record(event);
+    }
+    assertEquals(UntypedStrategy.FULL_ITERATION, profile.decision());
+    assertEquals(1.0, strategy.stats().get("test.Event").iteratedFraction());
+    assertEquals(10.0, strategy.stats().get("test.Event").averageAccessedFields());
+  }
+
+  @Test
+  void recordedMapsSurviveThePoolReuse() {
+    AdaptiveStrategy.Profile profile = new AdaptiveStrategy(4).profile("test.Event");
+    Map<String, Object> first = event(3);
+    profile.track(first);
+    profile.record(first);
+    LazyMapValueBuilder.ARRAY_POOL.get().reset();
+    assertEquals(1, first.get("f1"));
+  }
+
+  @Test
+  void recordingAfterTheDecisionLeavesMapsAttached() {
+    AdaptiveStrategy.Profile profile = new AdaptiveStrategy(1).profile("test.Event");
+    Map<String, Object> sampled = event(3);
+    profile.track(sampled);
+    profile.record(sampled);
+    assertEquals(UntypedStrategy.SPARSE_ACCESS, profile.decision());
+
+    Map<String, Object> decided = event(3);
+    profile.track(decided);
+    profile.record(decided);
+    // not copied out of the pool, so it sees the next event decoded into it
+    LazyMapValueBuilder.ArrayPool pool = LazyMapValueBuilder.ARRAY_POOL.get();
+    pool.reset();
+    for (int i = 0; i < 3; i++) {
+      pool.add("f" + i, 100 + i);
+    }
+    assertEquals(101, decided.get("f1"));
+    assertEquals(1, sampled.get("f1"));
+  }
+
+  @Test
+  void autoStrategyDecodesLikeSparseAccess() throws Exception {
+    Counts sparse = parse(UntypedStrategy.SPARSE_ACCESS);
+    Counts auto = parse(UntypedStrategy.AUTO);
+
+    assertFalse(sparse.flags.isEmpty());
+    assertEquals(sparse.flags, auto.flags);
+    assertEquals(sparse.iteratedFields, auto.iteratedFields);
+    assertTrue(sparse.stats.isEmpty());
+
+    UntypedTypeStats flagStats = auto.stats.get(SPARSE_TYPE);
+    assertEquals(
+        sparse.flags.values().stream().mapToLong(Long::longValue).sum(), flagStats.events());
+    assertTrue(flagStats.events() >= WARMUP_EVENTS, "too few events to decide: " + flagStats);
+    assertEquals(UntypedStrategy.SPARSE_ACCESS, flagStats.decision());
+
+    int iteratedTypes = 0;
+    for (UntypedTypeStats stats : auto.stats.values()) {
+      if (!SPARSE_TYPE.equals(stats.eventType()) && stats.events() >= WARMUP_EVENTS) {
+        assertEquals(UntypedStrategy.FULL_ITERATION, stats.decision(), stats.eventType());
+        assertEquals(1.0, stats.iteratedFraction(), stats.eventType());
+        iteratedTypes++;
+      }
+    }
+    assertTrue(iteratedTypes > 0, "no iterated type was decided");
+  }
+
+  private static Map<String, Object> event(int fields) {
+    LazyMapValueBuilder.ArrayPool pool = LazyMapValueBuilder.ARRAY_POOL.get();
+    pool.reset();
+    for (int i = 0; i < fields; i++) {
+      pool.add("f" + i, i);
+    }
+    return new LazyEventMap(pool, pool.size);
+  }
+
+  private static Counts parse(UntypedStrategy strategy) throws Exception {
+    Counts counts = new Counts();
+    try (UntypedJafarParser p =
+        new UntypedJafarParserImpl(
+            recording(),
+            ParsingContext.create(),
+            strategy,
+            null,
+            new AdaptiveStrategy(WARMUP_EVENTS))) {
+      p.handle(
+          (t, v, ctl) -> {
+            if (SPARSE_TYPE.equals(t.getName())) {
+              counts.flags.merge(String.valueOf(v.get("name")), 1L, Long::sum);
+            } else {
+              for (Map.Entry<String, Object> e : v.entrySet()) {
+                counts.iteratedFields.merge(t.getName() + "." + e.getKey(), 1L, Long::sum);
+              }
+            }
+          });
+      p.run();
+      counts.stats = p.strategyStats();
+    }
+    return counts;
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            UntypedAutoStrategyTest.class.getClassLoader().getResource("test-jfr.jfr").toURI())
+        .toPath();
+  }
+
+  private static final class Counts {
+    final Map<String, Long> flags = new ConcurrentHashMap<>();
+    final Map<String, Long> iteratedFields = new ConcurrentHashMap<>();
+    Map<String, UntypedTypeStats> stats;
+  }
+}
@@ -0,0 +1,146 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.EventBatch;
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import io.jafar.parser.api.UntypedProjection;
+import io.jafar.parser.api.UntypedStrategy;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class UntypedEventBatchTest {
+  private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+  private static final String BOOLEAN_FLAG = "jdk.BooleanFlag";
+
+  @Test
+  void batchesHoldTheSameValuesAsEventMaps() throws Exception {
+    Values maps = new Values();
+    Values batches = new Values();
+    AtomicInteger largest = new AtomicInteger();
+    try (UntypedJafarParser p = ParsingContext.create().newUntypedParser(recording())) {
+      p.handle(
+          new HashSet<>(Arrays.asList(EXECUTION_SAMPLE, BOOLEAN_FLAG)),
+          (t, v, ctl) -> {
+            if (EXECUTION_SAMPLE.equals(t.getName())) {
+              maps.startTimes.add((Long) v.get("startTime"));
+              maps.states.merge(name(v.get("state")), 1L, Long::sum);
+            } else {
+              maps.flags.merge(v.get("name") + "=" + v.get("value"), 1L, Long::sum);
+            }
+          });
+      p.handleBatches(
+          new HashSet<>(Arrays.asList(EXECUTION_SAMPLE, BOOLEAN_FLAG)),
+          100,
+          (batch, ctl) -> {
+            largest.accumulateAndGet(batch.size(), Math::max);
+            if (EXECUTION_SAMPLE.equals(batch.type().getName())) {
+              assertEquals(EventBatch.ColumnKind.LONG, batch.kind("stackTrace"));
+              long[] startTime = batch.longColumn("startTime");
+              for (int i = 0; i < batch.size(); i++) {
+                batches.startTimes.add(startTime[i]);
+                batches.states.merge(name(batch.reference("state", i)), 1L, Long::sum);
+              }
+            } else {
+              Object[] name = batch.objectColumn("name");
+              long[] value = batch.longColumn("value");
+              for (int i = 0; i < batch.size(); i++) {
+                batches.flags.merge(name[i] + "=" + (value[i] != 0), 1L, Long::sum);
+              }
+            }
+          });
+      p.run();
+    }
+
+    assertFalse(maps.startTimes.isEmpty());
+    assertEquals(maps.sortedStartTimes(), batches.sortedStartTimes());
+    assertEquals(maps.states, batches.states);
+    assertEquals(maps.flags, batches.flags);
+    assertTrue(largest.get() <= 100);
+  }
+
+  @Test
+  void batchHandlersAloneDoNotBuildMaps() throws Exception {
+    AtomicInteger events = new AtomicInteger();
+    AtomicInteger maps = new AtomicInteger();
+    try (UntypedJafarParser p = ParsingContext.create().newUntypedParser(recording())) {
+      p.handle(Collections.singleton("jdk.ThreadPark"), (t, v, ctl) -> maps.incrementAndGet());
+      p.handleBatches(
+          Collections.singleton(EXECUTION_SAMPLE),
+          (batch, ctl) -> events.addAndGet(batch.size()));
+      p.run();
+    }
+    assertTrue(events.get() > 0);
+    assertEquals(0, maps.get());
+  }
+
+  @Test
+  void projectedBatchesHaveOnlyProjectedColumns() throws Exception {
+    UntypedProjection projection =
+        UntypedProjection.builder().include(EXECUTION_SAMPLE, "state", "startTime").build();
+    List<List<String>> columns = Collections.synchronizedList(new ArrayList<>());
+    try (UntypedJafarParser p =
+        ParsingContext.create()
+            .newUntypedParser(recording(), UntypedStrategy.SPARSE_ACCESS, projection)) {
+      p.handleBatches(
+          Collections.singleton(EXECUTION_SAMPLE),
+          (batch, ctl) -> {
+            columns.add(batch.columns());
+            assertNull(batch.longColumn("stackTrace"));
+            assertNull(batch.reference("startTime", 0));
+          });
+      p.run();
+    }
+    assertFalse(columns.isEmpty());
+    assertEquals(Arrays.asList("startTime", "state"), columns.get(0));
+  }
+
+  @Test
+  void batchSizeMustBePositive() throws Exception {
+    try (UntypedJafarParser p = ParsingContext.create().newUntypedParser(recording())) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> p.handleBatches(Collections.singleton(EXECUTION_SAMPLE), 0, (batch, ctl) -> {}));
+    }
+  }
+
+  private static String name(Object value) {
+    // constant pool values only resolve while their chunk is parsed
+    return value instanceof ComplexType
+        ? String.valueOf(((ComplexType) value).getValue().get("name"))
+        : null;
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            UntypedEventBatchTest.class.getClassLoader().getResource("test-jfr.jfr").toURI())
+        .toPath();
+  }
+
+  private static final class Values {
+    final List<Long> startTimes = Collections.synchronizedList(new ArrayList<>());
+    final Map<String, Long> states = new ConcurrentHashMap<>();
+    final Map<String, Long> flags = new ConcurrentHashMap<>();
+
+    List<Long> sortedStartTimes() {
+      List<Long> sorted = new ArrayList<>(startTimes);
+      Collections.sort(sorted);
+      return sorted;
+    }
+  }
+}
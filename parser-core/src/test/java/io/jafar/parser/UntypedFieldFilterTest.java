@@ -0,0 +1,149 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.FieldFilter;
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+public class UntypedFieldFilterTest {
+  private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+
+  @Test
+  void primitiveFieldFilter() throws Exception {
+    List<Map<String, Object>> all = collect(Collections.emptyList());
+    assertTrue(all.size() > 1, "expected execution samples");
+    List<Long> times = new ArrayList<>();
+    for (Map<String, Object> event : all) {
+      times.add((Long) event.get("startTime"));
+    }
+    Collections.sort(times);
+    long median = times.get(times.size() / 2);
+
+    Predicate<Object> late = v -> v instanceof Long && (Long) v >= median;
+    List<Map<String, Object>> filtered =
+        collect(Collections.singletonList(FieldFilter.of("startTime", late)));
+    assertEquals(count(all, "startTime", late), filtered.size());
+    assertTrue(filtered.size() < all.size());
+  }
+
+  @Test
+  void longFieldFilterMatchesBoxedFilter() throws Exception {
+    List<Map<String, Object>> all = collect(Collections.emptyList());
+    long first = (Long) all.get(0).get("startTime");
+    for (Map<String, Object> event : all) {
+      first = Math.min(first, (Long) event.get("startTime"));
+    }
+    long from = first;
+
+    List<Map<String, Object>> unboxed =
+        collect(Collections.singletonList(FieldFilter.ofLong("startTime", t -> t > from)));
+    assertEquals(count(all, "startTime", v -> (Long) v > from), unboxed.size());
+    assertEquals(
+        0, collect(Collections.singletonList(FieldFilter.ofLong("noSuchField", t -> true))).size());
+  }
+
+  @Test
+  void constantPoolFieldFilter() throws Exception {
+    // constant pool values only resolve while their chunk is parsed
+    Map<Object, Long> states = new ConcurrentHashMap<>();
+    try (UntypedJafarParser p = ParsingContext.create().newUntypedParser(recording())) {
+      p.handle(
+          Collections.singleton(EXECUTION_SAMPLE),
+          (t, v, ctl) -> states.merge(String.valueOf(stateName(v.get("state"))), 1L, Long::sum));
+      p.run();
+    }
+    Map.Entry<Object, Long> common =
+        states.entrySet().stream().max(Map.Entry.comparingByValue()).get();
+    Predicate<Object> sameState = v -> common.getKey().equals(String.valueOf(stateName(v)));
+
+    AtomicLong matched = new AtomicLong();
+    AtomicLong rechecked = new AtomicLong();
+    try (UntypedJafarParser p = ParsingContext.create().newUntypedParser(recording())) {
+      p.handle(
+          Collections.singleton(EXECUTION_SAMPLE),
+          Collections.singletonList(FieldFilter.of("state", sameState)),
+          (t, v, ctl) -> {
+            matched.incrementAndGet();
+            if (sameState.test(v.get("state"))) {
+              rechecked.incrementAndGet();
+            }
+          });
+      p.run();
+    }
+    assertEquals(common.getValue().longValue(), matched.get());
+    assertEquals(matched.get(), rechecked.get());
+  }
+
+  @Test
+  void missingFieldIsNull() throws Exception {
+    List<Map<String, Object>> all = collect(Collections.emptyList());
+    assertEquals(
+        all.size(),
+        collect(Collections.singletonList(FieldFilter.of("noSuchField", v -> v == null))).size());
+    assertEquals(
+        0,
+        collect(Collections.singletonList(FieldFilter.of("noSuchField", v -> v != null))).size());
+  }
+
+  @Test
+  void handlersKeepTheirOwnFilters() throws Exception {
+    List<Map<String, Object>> unfiltered = Collections.synchronizedList(new ArrayList<>());
+    List<Map<String, Object>> none = Collections.synchronizedList(new ArrayList<>());
+    Set<String> types = Collections.singleton(EXECUTION_SAMPLE);
+    try (UntypedJafarParser p = ParsingContext.create().newUntypedParser(recording())) {
+      p.handle(types, (t, v, ctl) -> unfiltered.add(v));
+      p.handle(
+          types,
+          Collections.singletonList(FieldFilter.of("startTime", v -> false)),
+          (t, v, ctl) -> none.add(v));
+      p.run();
+    }
+    assertEquals(collect(Collections.emptyList()).size(), unfiltered.size());
+    assertEquals(0, none.size());
+  }
+
+  private static Object stateName(Object state) {
+    Map<String, Object> value =
+        state instanceof ComplexType ? ((ComplexType) state).getValue() : null;
+    return value != null ? value.get("name") : null;
+  }
+
+  private static long count(List<Map<String, Object>> events, String field, Predicate<Object> p) {
+    return events.stream().filter(e -> p.test(e.get(field))).count();
+  }
+
+  private static List<Map<String, Object>> collect(List<FieldFilter> filters) throws Exception {
+    List<Map<String, Object>> events = Collections.synchronizedList(new ArrayList<>());
+    try (UntypedJafarParser p = ParsingContext.create().newUntypedParser(recording())) {
+      p.handle(
+          Collections.singleton(EXECUTION_SAMPLE),
+          filters,
+          (t, v, ctl) -> {
+            assertEquals(EXECUTION_SAMPLE, t.getName());
+            events.add(v);
+          });
+      p.run();
+    }
+    return events;
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            UntypedFieldFilterTest.class.getClassLoader().getResource("test-jfr.jfr").toURI())
+        .toPath();
+  }
+}
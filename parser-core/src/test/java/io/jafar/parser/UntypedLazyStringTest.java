@@ -0,0 +1,62 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import io.jafar.parser.api.UntypedStrategy;
+import io.jafar.utils.LazyString;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class UntypedLazyStringTest {
+
+  @Test
+  void lazyStringsDecodeToTheSameValues() throws Exception {
+    for (UntypedStrategy strategy : UntypedStrategy.values()) {
+      AtomicLong views = new AtomicLong();
+      Map<String, Long> strings = parse(ParsingContext.create(), strategy, null);
+      Map<String, Long> lazy =
+          parse(ParsingContext.builder().lazyStrings(true).build(), strategy, views);
+
+      assertFalse(strings.isEmpty());
+      assertEquals(strings, lazy, strategy.name());
+      assertTrue(views.get() > 0, strategy.name());
+    }
+  }
+
+  private static Map<String, Long> parse(
+      ParsingContext context, UntypedStrategy strategy, AtomicLong views) throws Exception {
+    Map<String, Long> strings = new ConcurrentHashMap<>();
+    try (UntypedJafarParser p = context.newUntypedParser(recording(), strategy)) {
+      p.handle(
+          (t, v, ctl) -> {
+            for (Map.Entry<String, Object> e : v.entrySet()) {
+              Object value = e.getValue();
+              if (value instanceof CharSequence) {
+                if (value instanceof LazyString) {
+                  views.incrementAndGet();
+                }
+                // views are only valid while their chunk is parsed
+                String key = t.getName() + "." + e.getKey() + "=" + value;
+                strings.merge(key, 1L, Long::sum);
+              }
+            }
+          });
+      p.run();
+    }
+    return strings;
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            UntypedLazyStringTest.class.getClassLoader().getResource("test-jfr.jfr").toURI())
+        .toPath();
+  }
+}
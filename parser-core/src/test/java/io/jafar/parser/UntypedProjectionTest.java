@@ -0,0 +1,121 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.FieldFilter;
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import io.jafar.parser.api.UntypedProjection;
+import io.jafar.parser.api.UntypedStrategy;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+
+public class UntypedProjectionTest {
+  private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+
+  @Test
+  void projectedTypeHasOnlyProjectedFields() throws Exception {
+    UntypedProjection projection =
+        UntypedProjection.builder().include(EXECUTION_SAMPLE, "startTime").build();
+    Result full = parse(null, null);
+    Result projected = parse(projection, null);
+
+    assertEquals(Collections.singleton(Collections.singleton("startTime")), projected.keySets);
+    assertTrue(full.keySets.iterator().next().size() > 1);
+    assertEquals(full.startTimes(), projected.startTimes());
+    assertTrue(projected.otherTypeFields.size() > 1, "other event types are decoded in full");
+  }
+
+  @Test
+  void fieldsAfterSkippedFieldsAreDecoded() throws Exception {
+    // 'state' follows the 'sampledThread' and 'stackTrace' references which are skipped
+    UntypedProjection projection =
+        UntypedProjection.builder().include(EXECUTION_SAMPLE, "state.name", "startTime").build();
+    Result full = parse(null, null);
+    Result projected = parse(projection, null);
+
+    Set<String> expected = new HashSet<>();
+    expected.add("startTime");
+    expected.add("state");
+    assertEquals(Collections.singleton(expected), projected.keySets);
+    assertEquals(full.startTimes(), projected.startTimes());
+    assertEquals(full.states, projected.states);
+  }
+
+  @Test
+  void filtersSeeUnprojectedFieldsAsNull() throws Exception {
+    UntypedProjection projection =
+        UntypedProjection.builder().include(EXECUTION_SAMPLE, "startTime").build();
+    Result full = parse(null, null);
+    Result projected =
+        parse(projection, Collections.singletonList(FieldFilter.of("state", v -> v == null)));
+    assertEquals(full.startTimes(), projected.startTimes());
+  }
+
+  @Test
+  void emptyPathIsRejected() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> UntypedProjection.builder().include(EXECUTION_SAMPLE, ".name"));
+  }
+
+  private static Result parse(UntypedProjection projection, List<FieldFilter> filters)
+      throws Exception {
+    Result result = new Result();
+    try (UntypedJafarParser p =
+        ParsingContext.create()
+            .newUntypedParser(recording(), UntypedStrategy.SPARSE_ACCESS, projection)) {
+      p.handle(
+          (t, v, ctl) -> {
+            if (!EXECUTION_SAMPLE.equals(t.getName())) {
+              result.otherTypeFields.addAll(v.keySet());
+            }
+          });
+      p.handle(
+          Collections.singleton(EXECUTION_SAMPLE),
+          filters,
+          (t, v, ctl) -> {
+            result.keySets.add(new HashSet<>(v.keySet()));
+            result.startTimes.add((Long) v.get("startTime"));
+            // constant pool values only resolve while their chunk is parsed
+            Object state = v.get("state");
+            if (state instanceof ComplexType) {
+              Map<String, Object> value = ((ComplexType) state).getValue();
+              result.states.merge(String.valueOf(value.get("name")), 1L, Long::sum);
+            }
+          });
+      p.run();
+    }
+    return result;
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            UntypedProjectionTest.class.getClassLoader().getResource("test-jfr.jfr").toURI())
+        .toPath();
+  }
+
+  private static final class Result {
+    final Set<Set<String>> keySets = ConcurrentHashMap.newKeySet();
+    final List<Long> startTimes = Collections.synchronizedList(new ArrayList<>());
+    final Map<String, Long> states = new ConcurrentHashMap<>();
+    final Set<String> otherTypeFields = ConcurrentHashMap.newKeySet();
+
+    List<Long> startTimes() {
+      List<Long> sorted = new ArrayList<>(startTimes);
+      Collections.sort(sorted);
+      return sorted;
+    }
+  }
+}
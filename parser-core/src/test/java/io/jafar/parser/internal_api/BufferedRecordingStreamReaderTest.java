@@ -4,7 +4,11 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import io.jafar.utils.ByteArrayByteBuffer;
 import io.jafar.utils.CustomByteBuffer;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class BufferedRecordingStreamReaderTest {
 
@@ -57,4 +61,50 @@ class BufferedRecordingStreamReaderTest {
     reader.position(5);
     assertEquals(2, slice.position()); // Slice should be independent
   }
+
+  private static final long[] VARINTS = {
+    0, 1, 0x7F, 0x80, 0x3FFF, 0x4000, 0x1FFFFF, 0x200000, 0xFFFFFFFL, 0x10000000L, 0x7FFFFFFFFL,
+    0x800000000L, 0x3FFFFFFFFFFL, 0x40000000000L, 0x1FFFFFFFFFFFFL, 0x2000000000000L,
+    0xFFFFFFFFFFFFFFL, 0x100000000000000L, Long.MAX_VALUE, -1L, Long.MIN_VALUE, 1_000_000_007L
+  };
+
+  @Test
+  void testReadVarint() {
+    byte[] data = encodeVarints(VARINTS);
+    assertVarints(new BufferedRecordingStreamReader(CustomByteBuffer.wrap(data)));
+    assertVarints(new BufferedRecordingStreamReader(new ByteArrayByteBuffer(data)));
+  }
+
+  @Test
+  void testReadVarintAcrossSplices(@TempDir Path dir) throws Exception {
+    byte[] data = encodeVarints(VARINTS);
+    Path file = dir.resolve("varints.bin");
+    Files.write(file, data);
+    // small splices, so that many varints span a splice boundary
+    for (int spliceSize = 3; spliceSize <= 17; spliceSize++) {
+      assertVarints(
+          new RecordingStreamReader.MappedRecordingStreamReader(
+              CustomByteBuffer.map(file, spliceSize), data.length, 0));
+    }
+  }
+
+  private static void assertVarints(RecordingStreamReader reader) {
+    for (long expected : VARINTS) {
+      assertEquals(expected, reader.readVarint());
+    }
+    assertEquals(0, reader.remaining());
+    assertEquals(reader.length(), reader.position());
+  }
+
+  private static byte[] encodeVarints(long... values) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (long v : values) {
+      for (int i = 0; i < 8 && (v & ~0x7FL) != 0; i++) {
+        out.write((int) ((v & 0x7F) | 0x80));
+        v >>>= 7;
+      }
+      out.write((int) v);
+    }
+    return out.toByteArray();
+  }
 }
@@ -0,0 +1,216 @@
+package io.jafar.parser.internal_api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.impl.UntypedParserContextFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.GZIPOutputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CompressedRecordingTest {
+  @TempDir Path tempDir;
+
+  @Test
+  void parsesGzipRecording() throws Exception {
+    byte[] raw = Files.readAllBytes(recording());
+    Path gz = tempDir.resolve("recording.jfr.gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+      out.write(raw);
+    }
+
+    Map<Integer, Long> expected = eventsPerChunk(recording(), 1, ChunkParserOptions.DEFAULT);
+    assertTrue(expected.size() > 1, "expected a multi-chunk recording");
+    assertEquals(expected, eventsPerChunk(gz, 1, ChunkParserOptions.DEFAULT));
+  }
+
+  @Test
+  void chunkOffsetIndexSeeksToGzipMember() throws Exception {
+    Path gz = gzipPerChunk(Files.readAllBytes(recording()));
+    ChunkParserOptions options = ChunkParserOptions.builder().compressedChunkIndex(true).build();
+
+    NavigableMap<Integer, Long> all = eventsPerChunk(gz, 1, options);
+    assertEquals(eventsPerChunk(recording(), 1, ChunkParserOptions.DEFAULT), all);
+
+    ChunkOffsetIndex index = ChunkOffsetIndex.read(gz);
+    assertNotNull(index, "sidecar should have been written");
+    assertEquals(all.size(), index.entries().size());
+    for (ChunkOffsetIndex.Entry e : index.entries()) {
+      assertTrue(e.isSeekable(), "chunk " + e.chunkIndex + " starts a gzip member");
+    }
+
+    int firstChunk = all.size();
+    ChunkOffsetIndex.Entry target = index.seekTarget(firstChunk);
+    assertNotNull(target);
+    assertEquals(firstChunk, target.chunkIndex);
+    Map<Integer, Long> tail = eventsPerChunk(gz, firstChunk, options);
+    assertEquals(all.tailMap(firstChunk), tail);
+  }
+
+  @Test
+  void skipsLeadingChunksOfRawRecording() throws Exception {
+    NavigableMap<Integer, Long> all = eventsPerChunk(recording(), 1, ChunkParserOptions.DEFAULT);
+    assertEquals(all.tailMap(2), eventsPerChunk(recording(), 2, ChunkParserOptions.DEFAULT));
+  }
+
+  @Test
+  void staleIndexIsIgnored() throws Exception {
+    Path gz = gzipPerChunk(Files.readAllBytes(recording()));
+    eventsPerChunk(gz, 1, ChunkParserOptions.builder().compressedChunkIndex(true).build());
+    assertNotNull(ChunkOffsetIndex.read(gz));
+
+    Files.write(gz, new byte[] {0}, StandardOpenOption.APPEND);
+    assertNull(ChunkOffsetIndex.read(gz));
+  }
+
+  @Test
+  void gzipMemberStartsAreRecordedOnlyOnRequest() throws Exception {
+    Path gz = gzipPerChunk(Files.readAllBytes(recording()));
+
+    try (DecompressingInputStream in =
+        DecompressingInputStream.open(gz, CompressionDetector.Format.GZIP)) {
+      in.transferTo(OutputStream.nullOutputStream());
+      assertEquals(-1, in.compressedOffsetOf(0), "member starts should not be kept");
+    }
+
+    try (DecompressingInputStream in =
+        DecompressingInputStream.open(gz, CompressionDetector.Format.GZIP)) {
+      in.recordFrameStarts();
+      in.transferTo(OutputStream.nullOutputStream());
+      assertEquals(0, in.compressedOffsetOf(0));
+    }
+  }
+
+  @Test
+  void parsesZstdRecording() throws Exception {
+    byte[] raw = Files.readAllBytes(recording());
+    Path zst = tempDir.resolve("recording.jfr.zst");
+    try (OutputStream out = new ZstdOutputStream(Files.newOutputStream(zst))) {
+      out.write(raw);
+    }
+
+    assertEquals(CompressionDetector.Format.ZSTD, CompressionDetector.detect(zst));
+    assertEquals(
+        eventsPerChunk(recording(), 1, ChunkParserOptions.DEFAULT),
+        eventsPerChunk(zst, 1, ChunkParserOptions.DEFAULT));
+  }
+
+  @Test
+  void parsesLz4Recording() throws Exception {
+    byte[] raw = Files.readAllBytes(recording());
+    Path lz4 = tempDir.resolve("recording.jfr.lz4");
+    try (OutputStream out = new LZ4FrameOutputStream(Files.newOutputStream(lz4))) {
+      out.write(raw);
+    }
+
+    assertEquals(CompressionDetector.Format.LZ4, CompressionDetector.detect(lz4));
+    assertEquals(
+        eventsPerChunk(recording(), 1, ChunkParserOptions.DEFAULT),
+        eventsPerChunk(lz4, 1, ChunkParserOptions.DEFAULT));
+  }
+
+  @Test
+  void reportsMissingZstdLibrary() throws Exception {
+    Path zst = tempDir.resolve("recording.jfr.zst");
+    Files.write(zst, new byte[] {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD, 0, 0, 0, 0});
+    // zstd-jni is on the test class path, so look up a class it does not have
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () ->
+                DecompressingInputStream.Wrapped.open(
+                    zst,
+                    CompressionDetector.Format.ZSTD,
+                    "com.github.luben.zstd.MissingInputStream",
+                    "com.github.luben:zstd-jni"));
+    assertTrue(e.getMessage().contains("zstd-compressed"), e.getMessage());
+    assertTrue(e.getMessage().contains("com.github.luben:zstd-jni"), e.getMessage());
+    assertTrue(e.getMessage().contains("zstd -d"), e.getMessage());
+  }
+
+  @Test
+  void reportsMissingLz4Library() throws Exception {
+    Path lz4 = tempDir.resolve("recording.jfr.lz4");
+    Files.write(lz4, new byte[] {0x04, 0x22, 0x4D, 0x18, 0, 0, 0, 0});
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () ->
+                DecompressingInputStream.Wrapped.open(
+                    lz4,
+                    CompressionDetector.Format.LZ4,
+                    "net.jpountz.lz4.MissingInputStream",
+                    "org.lz4:lz4-java"));
+    assertTrue(e.getMessage().contains("LZ4-compressed"), e.getMessage());
+    assertTrue(e.getMessage().contains("org.lz4:lz4-java"), e.getMessage());
+  }
+
+  /** Compresses each chunk as its own gzip member, like a chunk-wise archiver would. */
+  private Path gzipPerChunk(byte[] raw) throws IOException {
+    Path gz = tempDir.resolve("chunked.jfr.gz");
+    try (OutputStream out = Files.newOutputStream(gz)) {
+      int offset = 0;
+      while (offset < raw.length) {
+        // chunk size is the big-endian long following the magic and version
+        int size = (int) ByteBuffer.wrap(raw, offset + 8, 8).getLong();
+        ByteArrayOutputStream member = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+          gzip.write(raw, offset, size);
+        }
+        member.writeTo(out);
+        offset += size;
+      }
+    }
+    return gz;
+  }
+
+  private static NavigableMap<Integer, Long> eventsPerChunk(
+      Path path, int firstChunk, ChunkParserOptions options) throws Exception {
+    NavigableMap<Integer, Long> counts = new ConcurrentSkipListMap<>();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+      parser.parse(path, firstChunk, new EventCounter(counts));
+    }
+    return counts;
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            CompressedRecordingTest.class.getClassLoader().getResource("test-jfr.jfr").toURI())
+        .toPath();
+  }
+
+  private static final class EventCounter implements ChunkParserListener {
+    private final Map<Integer, Long> counts;
+
+    EventCounter(Map<Integer, Long> counts) {
+      this.counts = counts;
+    }
+
+    @Override
+    public boolean onChunkStart(ParserContext context, int chunkIndex, ChunkHeader header) {
+      counts.put(chunkIndex, 0L);
+      return true;
+    }
+
+    @Override
+    public boolean onEvent(
+        ParserContext context, long eventType, long position, long size, long payloadSize) {
+      counts.merge(context.getChunkIndex(), 1L, Long::sum);
+      return true;
+    }
+  }
+}
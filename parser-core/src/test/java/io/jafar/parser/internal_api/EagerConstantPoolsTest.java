@@ -0,0 +1,138 @@
+package io.jafar.parser.internal_api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.jafar.parser.api.ArrayType;
+import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import io.jafar.parser.impl.UntypedParserContextFactory;
+import io.jafar.parser.internal_api.collections.LongLongHashMap;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class EagerConstantPoolsTest {
+
+  @Test
+  void eagerPoolsResolveSameValuesAsLazyPools() throws Exception {
+    Map<String, Long> lazy = topFrames(ParsingContext.create());
+    Map<String, Long> eager = topFrames(ParsingContext.builder().eagerConstantPools(true).build());
+    Map<String, Long> parallel =
+        topFrames(
+            ParsingContext.builder()
+                .eagerConstantPools(true)
+                .intraChunkParallelism(4)
+                .intraChunkMinSize(0)
+                .build());
+
+    assertFalse(lazy.isEmpty());
+    assertNotEquals(Collections.singleton("<none>"), lazy.keySet());
+    assertEquals(lazy, eager);
+    assertEquals(lazy, parallel);
+  }
+
+  @Test
+  void poolsAreDecodedBeforeTheFirstEvent() throws Exception {
+    for (boolean eager : new boolean[] {false, true}) {
+      ChunkParserOptions options = ChunkParserOptions.builder().eagerConstantPools(eager).build();
+      AtomicInteger materialized = new AtomicInteger();
+      AtomicInteger chunks = new AtomicInteger();
+      try (StreamingChunkParser parser =
+          new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+        parser.parse(
+            recording(),
+            new ChunkParserListener() {
+              @Override
+              public boolean onEvent(
+                  ParserContext context, long eventType, long position, long size, long payload) {
+                chunks.incrementAndGet();
+                MutableConstantPool strings =
+                    (MutableConstantPool)
+                        context.getConstantPools().getConstantPool(context.getStringTypeId());
+                if (strings != null
+                    && strings.entryCount() > 0
+                    && strings.size() == strings.entryCount()) {
+                  materialized.incrementAndGet();
+                }
+                return false;
+              }
+            });
+      }
+      assertTrue(chunks.get() > 0);
+      assertEquals(eager ? chunks.get() : 0, materialized.get(), "eager=" + eager);
+    }
+  }
+
+  @Test
+  void denseAndSparseIdsAreLookedUp() {
+    LongLongHashMap dense = new LongLongHashMap(16);
+    for (long id = 10; id < 20; id++) {
+      dense.put(id, 1000 - id);
+    }
+    assertLookups(dense);
+
+    LongLongHashMap sparse = new LongLongHashMap(16);
+    sparse.put(3, 300);
+    sparse.put(1L << 40, 100);
+    sparse.put(7_000_000, 200);
+    assertLookups(sparse);
+  }
+
+  private static void assertLookups(LongLongHashMap offsets) {
+    MutableConstantPool.Materialized m =
+        new MutableConstantPool.Materialized(offsets, MutableConstantPool.Materialization.OBJECTS);
+    assertEquals(offsets.size(), m.size());
+    for (int i = 1; i < m.size(); i++) {
+      assertTrue(offsets.get(m.byOffset[i - 1]) < offsets.get(m.byOffset[i]), "offset order");
+    }
+    for (int i = 0; i < m.size(); i++) {
+      m.put(m.byOffset[i], "v" + m.byOffset[i]);
+    }
+    LongLongHashMap.LongIterator it = offsets.keyIterator();
+    while (it.hasNext()) {
+      long id = it.nextLong();
+      assertEquals("v" + id, m.get(id));
+    }
+    assertNull(m.get(4));
+    assertNull(m.get(-1));
+  }
+
+  private static Map<String, Long> topFrames(ParsingContext context) throws Exception {
+    Map<String, Long> tops = new ConcurrentHashMap<>();
+    try (UntypedJafarParser p = context.newUntypedParser(recording())) {
+      p.handle(
+          Collections.singleton("jdk.ExecutionSample"),
+          (t, v, ctl) -> {
+            // constant pool values only resolve while their chunk is parsed
+            Object frames = map(v.get("stackTrace")).get("frames");
+            Object[] stack =
+                frames instanceof ArrayType ? (Object[]) ((ArrayType) frames).getArray() : null;
+            Map<String, Object> top = stack != null && stack.length > 0 ? map(stack[0]) : null;
+            String name =
+                top != null ? map(top.get("method")).get("name") + ":" + top.get("type") : "<none>";
+            tops.merge(name, 1L, Long::sum);
+          });
+      p.run();
+    }
+    return tops;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> map(Object o) {
+    return o instanceof ComplexType
+        ? ((ComplexType) o).getValue()
+        : o instanceof Map ? (Map<String, Object>) o : Collections.emptyMap();
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            EagerConstantPoolsTest.class.getClassLoader().getResource("test-ap.jfr").toURI())
+        .toPath();
+  }
+}
@@ -0,0 +1,138 @@
+package io.jafar.parser.internal_api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.impl.UntypedParserContextFactory;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class EventFilterTest {
+
+  @Test
+  void testTimeWindowSelectsEventsByStartTime() throws Exception {
+    List<Event> all = parse(ChunkParserOptions.DEFAULT);
+    long min = all.stream().mapToLong(e -> e.startNanos).min().getAsLong();
+    long max = all.stream().mapToLong(e -> e.startNanos).max().getAsLong();
+    long from = min + (max - min) / 3;
+    long to = min + 2 * (max - min) / 3;
+
+    List<Event> selected = parse(ChunkParserOptions.builder().timeWindow(from, to).build());
+
+    // tick to nanosecond conversions may differ by rounding at the window bounds
+    long expected = all.stream().filter(e -> e.startNanos >= from && e.startNanos < to).count();
+    assertEquals(expected, selected.size(), 2);
+    assertTrue(selected.stream().allMatch(e -> e.startNanos >= from - 1 && e.startNanos <= to));
+  }
+
+  @Test
+  void testSampleIsDeterministic() throws Exception {
+    int all = parse(ChunkParserOptions.DEFAULT).size();
+    List<Event> sample = parse(ChunkParserOptions.builder().sampleRate(0.1).build());
+    List<Event> parallel =
+        parse(
+            ChunkParserOptions.builder()
+                .sampleRate(0.1)
+                .intraChunkParallelism(4)
+                .intraChunkMinSize(0)
+                .build());
+
+    assertTrue(sample.size() > all * 0.05 && sample.size() < all * 0.15, sample.size() + "");
+    assertEquals(positions(sample), positions(parallel));
+    assertTrue(parse(ChunkParserOptions.builder().sampleRate(0).build()).isEmpty());
+  }
+
+  @Test
+  void testSampleRateByEventType() throws Exception {
+    List<Event> all = parse(ChunkParserOptions.DEFAULT);
+    Map<String, Long> counts =
+        all.stream().collect(Collectors.groupingBy(e -> e.type, Collectors.counting()));
+    String dropped = Collections.max(counts.entrySet(), Map.Entry.comparingByValue()).getKey();
+
+    List<Event> selected =
+        parse(ChunkParserOptions.builder().sampleRate(dropped, 0).build());
+
+    assertEquals(all.size() - counts.get(dropped), selected.size());
+    assertTrue(selected.stream().noneMatch(e -> e.type.equals(dropped)));
+  }
+
+  @Test
+  void testInvalidOptions() {
+    assertThrows(
+        IllegalArgumentException.class, () -> ChunkParserOptions.builder().sampleRate(1.5));
+    assertThrows(
+        IllegalArgumentException.class, () -> ChunkParserOptions.builder().sampleRate("x", -1));
+    assertThrows(
+        IllegalArgumentException.class, () -> ChunkParserOptions.builder().timeWindow(2, 1));
+  }
+
+  private static Set<String> positions(List<Event> events) {
+    Set<String> positions = new HashSet<>();
+    for (Event e : events) {
+      positions.add(e.chunk + ":" + e.position);
+    }
+    return positions;
+  }
+
+  private static List<Event> parse(ChunkParserOptions options) throws Exception {
+    List<Event> events = Collections.synchronizedList(new ArrayList<>());
+    Map<Integer, ChunkHeader> headers = new ConcurrentHashMap<>();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+      parser.parse(
+          recording(),
+          new ChunkParserListener() {
+            @Override
+            public boolean onChunkStart(ParserContext context, int chunkIndex, ChunkHeader header) {
+              headers.put(chunkIndex, header);
+              return true;
+            }
+
+            @Override
+            public boolean onEvent(
+                ParserContext context, long eventType, long position, long size, long payload) {
+              ChunkHeader header = headers.get(context.getChunkIndex());
+              long ticks = context.get(RecordingStream.class).readVarint();
+              events.add(
+                  new Event(
+                      context.getChunkIndex(),
+                      position,
+                      context.getMetadataLookup().getClass(eventType).getName(),
+                      header.startNanos
+                          + (long)
+                              ((ticks - header.startTicks) * 1_000_000_000d / header.frequency)));
+              return true;
+            }
+          });
+    }
+    return events;
+  }
+
+  private static Path recording() throws Exception {
+    return new File(EventFilterTest.class.getClassLoader().getResource("test-jfr.jfr").toURI())
+        .toPath();
+  }
+
+  private static final class Event {
+    final int chunk;
+    final long position;
+    final String type;
+    final long startNanos;
+
+    Event(int chunk, long position, String type, long startNanos) {
+      this.chunk = chunk;
+      this.position = position;
+      this.type = type;
+      this.startNanos = startNanos;
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package io.jafar.parser.internal_api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import io.jafar.parser.impl.UntypedParserContextFactory;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EventIndexTest {
+  private static final ChunkParserOptions INDEXED =
+      ChunkParserOptions.builder().eventIndex(true).build();
+
+  @TempDir Path tempDir;
+
+  @Test
+  void writesIndexOnFullParse() throws Exception {
+    Path jfr = copyRecording();
+    assertNull(EventIndex.read(jfr));
+
+    TypeCounter all = parse(jfr, INDEXED, null);
+
+    EventIndex index = EventIndex.read(jfr);
+    assertNotNull(index, "index should have been written");
+    assertEquals(all.chunks.get(), index.chunks().size());
+    assertEquals(all.counts, index.eventCounts());
+  }
+
+  @Test
+  void noIndexForPartialParse() throws Exception {
+    Path jfr = copyRecording();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory(), INDEXED)) {
+      parser.parse(jfr, 2, new TypeCounter(null));
+    }
+    assertNull(EventIndex.read(jfr));
+  }
+
+  @Test
+  void filteredParseSkipsChunksAndEvents() throws Exception {
+    Path jfr = copyRecording();
+    TypeCounter all = parse(jfr, INDEXED, null);
+    EventIndex index = EventIndex.read(jfr);
+    assertNotNull(index);
+
+    String type = rarestType(index);
+    long chunksWithType =
+        index.chunks().stream().filter(c -> c.containsAny(Collections.singleton(type))).count();
+
+    TypeCounter filtered = parse(jfr, INDEXED, Collections.singleton(type));
+    assertEquals(all.counts.get(type), filtered.counts.get(type));
+    assertEquals(chunksWithType, filtered.chunks.get());
+    long delivered = filtered.counts.values().stream().mapToLong(Long::longValue).sum();
+    assertTrue(
+        delivered < all.counts.values().stream().mapToLong(Long::longValue).sum(),
+        "events outside the runs of " + type + " should be skipped");
+  }
+
+  @Test
+  void filteredParseWithoutIndexDeliversAllEvents() throws Exception {
+    Path jfr = copyRecording();
+    TypeCounter all = parse(jfr, ChunkParserOptions.DEFAULT, null);
+    TypeCounter filtered =
+        parse(jfr, ChunkParserOptions.DEFAULT, Collections.singleton("jdk.ExecutionSample"));
+    assertEquals(all.counts, filtered.counts);
+    assertNull(EventIndex.read(jfr));
+  }
+
+  @Test
+  void staleIndexIsIgnored() throws Exception {
+    Path jfr = copyRecording();
+    parse(jfr, INDEXED, null);
+    assertNotNull(EventIndex.read(jfr));
+
+    Files.setLastModifiedTime(
+        jfr, FileTime.fromMillis(Files.getLastModifiedTime(jfr).toMillis() + 10_000));
+    assertNull(EventIndex.read(jfr));
+  }
+
+  @Test
+  void untypedHandlerForEventTypes() throws Exception {
+    Path jfr = copyRecording();
+    TypeCounter all = parse(jfr, INDEXED, null);
+    String type = rarestType(EventIndex.read(jfr));
+
+    AtomicLong count = new AtomicLong();
+    AtomicInteger otherTypes = new AtomicInteger();
+    ParsingContext context = ParsingContext.builder().eventIndex(true).build();
+    try (UntypedJafarParser parser = context.newUntypedParser(jfr)) {
+      parser.handle(
+          Collections.singleton(type),
+          (t, value, ctl) -> {
+            if (type.equals(t.getName())) {
+              count.incrementAndGet();
+            } else {
+              otherTypes.incrementAndGet();
+            }
+          });
+      parser.run();
+    }
+    assertEquals(all.counts.get(type).longValue(), count.get());
+    assertEquals(0, otherTypes.get());
+  }
+
+  private static String rarestType(EventIndex index) {
+    return index.eventCounts().entrySet().stream()
+        .min(Map.Entry.comparingByValue())
+        .map(Map.Entry::getKey)
+        .orElseThrow(AssertionError::new);
+  }
+
+  private static TypeCounter parse(Path jfr, ChunkParserOptions options, Set<String> types)
+      throws Exception {
+    TypeCounter counter = new TypeCounter(types);
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+      parser.parse(jfr, counter);
+    }
+    return counter;
+  }
+
+  private Path copyRecording() throws Exception {
+    Path source =
+        new File(EventIndexTest.class.getClassLoader().getResource("test-jfr.jfr").toURI())
+            .toPath();
+    return Files.copy(source, tempDir.resolve("recording.jfr"));
+  }
+
+  private static final class TypeCounter implements ChunkParserListener {
+    private final Set<String> types;
+    final Map<String, Long> counts = new ConcurrentHashMap<>();
+    final AtomicInteger chunks = new AtomicInteger();
+
+    TypeCounter(Set<String> types) {
+      this.types = types;
+    }
+
+    @Override
+    public Set<String> acceptedEventTypes() {
+      return types;
+    }
+
+    @Override
+    public boolean onChunkStart(ParserContext context, int chunkIndex, ChunkHeader header) {
+      chunks.incrementAndGet();
+      return true;
+    }
+
+    @Override
+    public boolean onEvent(
+        ParserContext context, long eventType, long position, long size, long payloadSize) {
+      String name = context.getMetadataLookup().getClass(eventType).getName();
+      counts.merge(name, 1L, Long::sum);
+      return true;
+    }
+  }
+}
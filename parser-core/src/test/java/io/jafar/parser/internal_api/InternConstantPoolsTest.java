@@ -0,0 +1,177 @@
+package io.jafar.parser.internal_api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.jafar.parser.api.ArrayType;
+import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.api.ParsingContext;
+import io.jafar.parser.api.UntypedJafarParser;
+import io.jafar.parser.impl.ConstantPoolAccessor;
+import io.jafar.parser.impl.UntypedParserContextFactory;
+import io.jafar.parser.internal_api.metadata.MetadataClass;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class InternConstantPoolsTest {
+
+  @Test
+  void internedPoolsResolveSameValuesAsChunkLocalPools() throws Exception {
+    Map<String, Long> local = topFrames(ParsingContext.create());
+    Map<String, Long> interned =
+        topFrames(ParsingContext.builder().internConstantPools(true).build());
+    Map<String, Long> eager =
+        topFrames(
+            ParsingContext.builder()
+                .internConstantPools(true)
+                .eagerConstantPools(true)
+                .intraChunkParallelism(4)
+                .intraChunkMinSize(0)
+                .build());
+
+    assertFalse(local.isEmpty());
+    assertEquals(local, interned);
+    assertEquals(local, eager);
+  }
+
+  @Test
+  void identicalEntriesShareGlobalIdsAndValues() throws Exception {
+    ChunkParserOptions options = ChunkParserOptions.builder().internConstantPools(true).build();
+    Map<Long, Map<String, Object>> byGlobalId = new ConcurrentHashMap<>();
+    AtomicInteger entries = new AtomicInteger();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+      parser.parse(
+          recording(),
+          new ChunkParserListener() {
+            @Override
+            public boolean onEvent(
+                ParserContext context, long eventType, long position, long size, long payload) {
+              MutableConstantPool methods = methodPool(context);
+              Iterator<Long> ids = methods != null ? methods.ids() : Collections.emptyIterator();
+              while (ids.hasNext()) {
+                long id = ids.next();
+                long globalId = methods.getGlobalId(id);
+                assertTrue(globalId > 0);
+                assertEquals(globalId, methods.getGlobalId(id));
+                Map<String, Object> value = methods.getAsMap(id);
+                Map<String, Object> shared = byGlobalId.putIfAbsent(globalId, value);
+                if (shared != null) {
+                  assertSame(shared, value);
+                }
+                entries.incrementAndGet();
+              }
+              return false;
+            }
+          });
+    }
+    assertFalse(byGlobalId.isEmpty());
+    assertTrue(byGlobalId.size() <= entries.get());
+  }
+
+  @Test
+  void sharedMapValuesAreDetachedFromTheirChunk() throws Exception {
+    ChunkParserOptions options = ChunkParserOptions.builder().internConstantPools(true).build();
+    Map<Long, Map<String, Object>> byGlobalId = new ConcurrentHashMap<>();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+      parser.parse(
+          recording(),
+          new ChunkParserListener() {
+            @Override
+            public boolean onEvent(
+                ParserContext context, long eventType, long position, long size, long payload) {
+              MutableConstantPool methods = methodPool(context);
+              Iterator<Long> ids = methods != null ? methods.ids() : Collections.emptyIterator();
+              while (ids.hasNext()) {
+                long id = ids.next();
+                byGlobalId.putIfAbsent(methods.getGlobalId(id), methods.getAsMap(id));
+              }
+              return false;
+            }
+          });
+    }
+    assertFalse(byGlobalId.isEmpty());
+    // the chunks are closed: references must resolve without their pools
+    for (Map<String, Object> method : byGlobalId.values()) {
+      assertFalse(method.get("type") instanceof ConstantPoolAccessor);
+      assertFalse(method.get("name") instanceof ConstantPoolAccessor);
+      assertNotNull(map(map(method.get("type")).get("name")).get("string"));
+    }
+  }
+
+  @Test
+  void poolsAreChunkLocalByDefault() throws Exception {
+    AtomicInteger chunks = new AtomicInteger();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory())) {
+      parser.parse(
+          recording(),
+          new ChunkParserListener() {
+            @Override
+            public boolean onEvent(
+                ParserContext context, long eventType, long position, long size, long payload) {
+              MutableConstantPool methods = methodPool(context);
+              Iterator<Long> ids = methods != null ? methods.ids() : Collections.emptyIterator();
+              if (ids.hasNext()) {
+                assertEquals(0, methods.getGlobalId(ids.next()));
+                chunks.incrementAndGet();
+              }
+              return false;
+            }
+          });
+    }
+    assertTrue(chunks.get() > 0);
+  }
+
+  private static MutableConstantPool methodPool(ParserContext context) {
+    MetadataClass method = context.getMetadataLookup().getClass("jdk.types.Method");
+    return method != null
+        ? (MutableConstantPool) context.getConstantPools().getConstantPool(method.getId())
+        : null;
+  }
+
+  private static Map<String, Long> topFrames(ParsingContext context) throws Exception {
+    Map<String, Long> tops = new ConcurrentHashMap<>();
+    try (UntypedJafarParser p = context.newUntypedParser(recording())) {
+      p.handle(
+          Collections.singleton("jdk.ExecutionSample"),
+          (t, v, ctl) -> {
+            Object frames = map(v.get("stackTrace")).get("frames");
+            Object[] stack =
+                frames instanceof ArrayType ? (Object[]) ((ArrayType) frames).getArray() : null;
+            Map<String, Object> top = stack != null && stack.length > 0 ? map(stack[0]) : null;
+            String name =
+                top != null
+                    ? map(map(top.get("method")).get("type")).get("name")
+                        + "."
+                        + map(top.get("method")).get("name")
+                        + ":"
+                        + top.get("lineNumber")
+                    : "<none>";
+            tops.merge(name, 1L, Long::sum);
+          });
+      p.run();
+    }
+    return tops;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> map(Object o) {
+    return o instanceof ComplexType
+        ? ((ComplexType) o).getValue()
+        : o instanceof Map ? (Map<String, Object>) o : Collections.emptyMap();
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            InternConstantPoolsTest.class.getClassLoader().getResource("test-ap.jfr").toURI())
+        .toPath();
+  }
+}
@@ -6,9 +6,18 @@ import io.jafar.parser.api.ParserContext;
 import io.jafar.parser.impl.UntypedParserContextFactory;
 import io.jafar.parser.internal_api.metadata.MetadataEvent;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import org.junit.jupiter.api.Test;
 
 class StreamingChunkParserIoTest {
@@ -76,6 +85,123 @@ class StreamingChunkParserIoTest {
     assertEquals(0, listener.onChunkStartCount);
   }
 
+  @Test
+  void testStreamMatchesFile() throws Exception {
+    Path path = recording();
+    Map<Integer, Long> fromFile = new ConcurrentSkipListMap<>();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory())) {
+      parser.parse(path, new EventCountingListener(fromFile));
+    }
+    Map<Integer, Long> fromStream = new ConcurrentSkipListMap<>();
+    try (StreamingChunkParser parser = new StreamingChunkParser(new UntypedParserContextFactory());
+        InputStream is = Files.newInputStream(path)) {
+      parser.parse(is, new EventCountingListener(fromStream));
+    }
+
+    assertTrue(fromFile.size() > 1, "expected a multi-chunk recording");
+    assertEquals(fromFile, fromStream);
+  }
+
+  @Test
+  void testParseTricklingStream() throws Exception {
+    Path path = recording();
+    Map<Integer, Long> expected = new ConcurrentSkipListMap<>();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory())) {
+      parser.parse(path, new EventCountingListener(expected));
+    }
+    Map<Integer, Long> actual = new ConcurrentSkipListMap<>();
+    ChunkParserOptions options = ChunkParserOptions.builder().maxChunksInFlight(1).build();
+    try (StreamingChunkParser parser =
+            new StreamingChunkParser(new UntypedParserContextFactory(), options);
+        InputStream is = new TricklingInputStream(Files.newInputStream(path))) {
+      parser.parse(is, new EventCountingListener(actual));
+    }
+
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void testReadAheadMatchesDefault() throws Exception {
+    Path path = recording();
+    Map<Integer, Long> expected = new ConcurrentSkipListMap<>();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory())) {
+      parser.parse(path, new EventCountingListener(expected));
+    }
+    ChunkParserOptions[] variants = {
+      ChunkParserOptions.builder().readAhead(true).build(),
+      ChunkParserOptions.builder().prefetchEvents(true).maxChunksInFlight(1).build()
+    };
+    for (ChunkParserOptions options : variants) {
+      Map<Integer, Long> actual = new ConcurrentSkipListMap<>();
+      try (StreamingChunkParser parser =
+          new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+        parser.parse(path, new EventCountingListener(actual));
+      }
+      assertEquals(expected, actual);
+      assertFalse(
+          Thread.getAllStackTraces().keySet().stream()
+              .anyMatch(t -> "jafar-read-ahead".equals(t.getName())),
+          "read-ahead thread must be stopped once the parse returns");
+    }
+  }
+
+  @Test
+  void testParseTruncatedStream() throws Exception {
+    byte[] data = Files.readAllBytes(recording());
+    byte[] truncated = Arrays.copyOf(data, data.length - 1);
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory())) {
+      assertThrows(
+          IOException.class,
+          () ->
+              parser.parse(
+                  new ByteArrayInputStream(truncated),
+                  new EventCountingListener(new ConcurrentHashMap<>())));
+    }
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            StreamingChunkParserIoTest.class.getClassLoader().getResource("test-jfr.jfr").toURI())
+        .toPath();
+  }
+
+  /** Returns at most a few bytes per read, like a slow network stream. */
+  private static final class TricklingInputStream extends FilterInputStream {
+    TricklingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return super.read(b, off, Math.min(len, 7));
+    }
+  }
+
+  private static final class EventCountingListener implements ChunkParserListener {
+    private final Map<Integer, Long> eventsPerChunk;
+
+    EventCountingListener(Map<Integer, Long> eventsPerChunk) {
+      this.eventsPerChunk = eventsPerChunk;
+    }
+
+    @Override
+    public boolean onChunkStart(ParserContext context, int chunkIndex, ChunkHeader header) {
+      eventsPerChunk.put(chunkIndex, 0L);
+      return true;
+    }
+
+    @Override
+    public boolean onEvent(
+        ParserContext context, long eventType, long position, long size, long payloadSize) {
+      eventsPerChunk.merge(context.getChunkIndex(), 1L, Long::sum);
+      return true;
+    }
+  }
+
   private static class TestListener implements ChunkParserListener {
     int onRecordingStartCount = 0;
     int onChunkStartCount = 0;
@@ -0,0 +1,115 @@
+package io.jafar.parser.internal_api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.jafar.parser.api.ParserContext;
+import io.jafar.parser.impl.UntypedParserContextFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class StreamingChunkParserSchedulingTest {
+
+  @Test
+  void sharedExecutorWithBoundedInFlightChunks() throws Exception {
+    ExecutorService shared = Executors.newFixedThreadPool(4);
+    try {
+      ChunkParserOptions options =
+          ChunkParserOptions.builder().executor(shared).maxChunksInFlight(1).build();
+      CountingListener listener = new CountingListener();
+      try (StreamingChunkParser parser =
+          new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+        parser.parse(recording(), listener);
+      }
+
+      assertTrue(listener.chunks.get() > 0);
+      assertEquals(1, listener.maxConcurrentChunks.get());
+      assertEquals(countChunks(ChunkParserOptions.DEFAULT), listener.chunks.get());
+      assertFalse(shared.isShutdown(), "caller-owned executor must not be shut down");
+    } finally {
+      shared.shutdown();
+    }
+  }
+
+  @Test
+  void shutDownExecutorFailsParseAndReleasesChunksOnce() throws Exception {
+    ExecutorService shared = Executors.newFixedThreadPool(1);
+    shared.shutdown();
+    ChunkParserOptions options =
+        ChunkParserOptions.builder().executor(shared).maxChunksInFlight(1).build();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+      for (int i = 0; i < 2; i++) {
+        // a second release of the rejected chunk's buffer would replace the rejection
+        IOException fromStream;
+        try (InputStream in = Files.newInputStream(recording())) {
+          fromStream =
+              assertThrows(IOException.class, () -> parser.parse(in, new CountingListener()));
+        }
+        assertInstanceOf(RejectedExecutionException.class, fromStream.getCause());
+
+        Path path = recording();
+        IOException fromFile =
+            assertThrows(IOException.class, () -> parser.parse(path, new CountingListener()));
+        assertInstanceOf(RejectedExecutionException.class, fromFile.getCause());
+      }
+    }
+  }
+
+  @Test
+  void virtualThreadsProcessAllChunks() throws Exception {
+    ChunkParserOptions options = ChunkParserOptions.builder().virtualThreads(true).build();
+    assertEquals(countChunks(ChunkParserOptions.DEFAULT), countChunks(options));
+  }
+
+  @Test
+  void rejectsNegativeInFlightLimit() {
+    assertThrows(
+        IllegalArgumentException.class, () -> ChunkParserOptions.builder().maxChunksInFlight(-1));
+  }
+
+  private static long countChunks(ChunkParserOptions options) throws Exception {
+    CountingListener listener = new CountingListener();
+    try (StreamingChunkParser parser =
+        new StreamingChunkParser(new UntypedParserContextFactory(), options)) {
+      parser.parse(recording(), listener);
+    }
+    return listener.chunks.get();
+  }
+
+  private static Path recording() throws Exception {
+    return new File(
+            StreamingChunkParserSchedulingTest.class
+                .getClassLoader()
+                .getResource("test-jfr.jfr")
+                .toURI())
+        .toPath();
+  }
+
+  private static final class CountingListener implements ChunkParserListener {
+    final AtomicLong chunks = new AtomicLong();
+    final AtomicInteger concurrentChunks = new AtomicInteger();
+    final AtomicInteger maxConcurrentChunks = new AtomicInteger();
+
+    @Override
+    public boolean onChunkStart(ParserContext context, int chunkIndex, ChunkHeader header) {
+      chunks.incrementAndGet();
+      maxConcurrentChunks.accumulateAndGet(concurrentChunks.incrementAndGet(), Math::max);
+      return true;
+    }
+
+    @Override
+    public boolean onChunkEnd(ParserContext context, int chunkIndex, boolean skipped) {
+      concurrentChunks.decrementAndGet();
+      return true;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package io.jafar.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class LazyStringTest {
+
+  @Test
+  void asciiContentIsReadWithoutDecoding() {
+    LazyString s = view("xxjava.lang.Stringxx", 2, 16, false);
+    assertEquals(16, s.length());
+    assertEquals('j', s.charAt(0));
+    assertEquals("java.lang.String".hashCode(), s.hashCode());
+    assertTrue(s.contentEquals("java.lang.String"));
+    assertFalse(s.contentEquals("java.lang.Strinh"));
+    assertEquals("java.lang.String", s.toString());
+    assertSame(s.toString(), s.toString());
+  }
+
+  @Test
+  void multiByteContentIsDecoded() {
+    String text = "žluťoučký kůň";
+    LazyString s = view(text, 0, text.getBytes(StandardCharsets.UTF_8).length, false);
+    assertEquals(text.length(), s.length());
+    assertEquals('ů', s.charAt(11));
+    assertEquals(text.hashCode(), s.hashCode());
+    assertTrue(s.contentEquals(text));
+    assertEquals(text, s.toString());
+  }
+
+  @Test
+  void latin1BytesAreCharacters() {
+    byte[] bytes = "café".getBytes(StandardCharsets.ISO_8859_1);
+    LazyString s = LazyString.latin1(CustomByteBuffer.wrap(bytes), 0, bytes.length);
+    assertEquals(4, s.length());
+    assertEquals('é', s.charAt(3));
+    assertEquals("café".hashCode(), s.hashCode());
+    assertEquals("café", s.toString());
+  }
+
+  @Test
+  void viewsWithEqualContentAreEqual() {
+    LazyString a = view("abcabc", 0, 3, false);
+    LazyString b = view("abcabc", 3, 3, false);
+    LazyString c = view("abd", 0, 3, false);
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertNotEquals(a, c);
+    assertNotEquals(a, "abc");
+    assertThrows(IndexOutOfBoundsException.class, () -> a.charAt(3));
+  }
+
+  private static LazyString view(String text, int offset, int size, boolean latin1) {
+    CustomByteBuffer buffer = CustomByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    return latin1 ? LazyString.latin1(buffer, offset, size) : LazyString.utf8(buffer, offset, size);
+  }
+}
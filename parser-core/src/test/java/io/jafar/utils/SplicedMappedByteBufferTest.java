@@ -12,6 +12,7 @@ import java.nio.MappedByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -164,4 +165,34 @@ public class SplicedMappedByteBufferTest {
     instance.get(data, 0, data.length);
     assertArrayEquals(expected, data);
   }
+
+  @Test
+  void absoluteGetAcrossSplices() {
+    assertEquals(2, instance.getInt(SLICE_SIZE * 2 - 2));
+    assertEquals(5, instance.getLong(SLICE_SIZE * 5 - 1));
+  }
+
+  @Test
+  void concurrentAbsoluteGetAcrossSplices() throws InterruptedException {
+    // Absolute reads share no state, so threads never see each other's partial values
+    AtomicInteger mismatches = new AtomicInteger();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 100_000; i++) {
+                  if (instance.getInt(SLICE_SIZE * 2 - 2) != 2
+                      || instance.getLong(SLICE_SIZE * 5 - 1) != 5) {
+                    mismatches.incrementAndGet();
+                  }
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, mismatches.get());
+  }
 }
@@ -0,0 +1,24 @@
+package io.jafar.parser;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.ParsingContext;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs {@link MappedRecordingLifetimeTest} with recordings mapped to a single memory segment, and
+ * checks that {@code unmapOnClose} releases the segment when the parse completes.
+ */
+public class MappedRecordingLifetime21Test extends MappedRecordingLifetimeTest {
+
+  @Test
+  void unmapOnCloseReleasesRecordingAfterParse() throws Exception {
+    List<ComplexType> stackTraces =
+        stackTraces(ParsingContext.builder().unmapOnClose(true).build());
+    assertFalse(stackTraces.isEmpty(), "expected execution samples with stack traces");
+    assertThrows(IllegalStateException.class, () -> stackTraces.get(0).getValue());
+  }
+}
@@ -0,0 +1,209 @@
+package io.jafar.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Compares the reads of {@link SegmentMappedByteBuffer} with those of a heap {@link ByteBuffer}. */
+public class SegmentMappedByteBufferTest {
+  private static final int FILE_SIZE = 4096;
+
+  private static Path mapFile;
+  private static byte[] data;
+
+  private SegmentMappedByteBuffer instance;
+
+  @BeforeAll
+  static void setupAll() throws IOException {
+    mapFile = Files.createTempFile("jafar-", ".tmp");
+    mapFile.toFile().deleteOnExit();
+    data = new byte[FILE_SIZE];
+    new Random(42).nextBytes(data);
+    Files.write(mapFile, data);
+  }
+
+  @BeforeEach
+  void setup() throws IOException {
+    instance = SegmentMappedByteBuffer.map(mapFile);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    instance.close();
+  }
+
+  @Test
+  void mapsFilesToSegments() throws IOException {
+    assertTrue(SegmentMappedByteBuffer.isSupported(), "the Foreign Memory API should be bound");
+    CustomByteBuffer buffer = CustomByteBuffer.map(mapFile, 64);
+    try {
+      assertTrue(buffer instanceof SegmentMappedByteBuffer);
+    } finally {
+      buffer.close();
+    }
+  }
+
+  @Test
+  void absoluteReads() {
+    ByteBuffer expected = expected(ByteOrder.nativeOrder());
+    assertEquals(FILE_SIZE, instance.limit());
+    for (int offset = 0; offset <= FILE_SIZE - 8; offset++) {
+      assertEquals(expected.get(offset), instance.get(offset), "byte at " + offset);
+      assertEquals(expected.getInt(offset), instance.getInt(offset), "int at " + offset);
+      assertEquals(expected.getLong(offset), instance.getLong(offset), "long at " + offset);
+    }
+    assertEquals(0, instance.position());
+    assertThrows(IndexOutOfBoundsException.class, () -> instance.getLong(FILE_SIZE - 4));
+  }
+
+  @Test
+  void relativeReads() {
+    ByteBuffer expected = expected(ByteOrder.nativeOrder());
+    assertEquals(expected.get(), instance.get());
+    assertEquals(expected.getShort(), instance.getShort());
+    assertEquals(expected.getInt(), instance.getInt());
+    assertEquals(expected.getFloat(), instance.getFloat());
+    assertEquals(expected.getDouble(), instance.getDouble());
+    assertEquals(expected.getLong(), instance.getLong());
+    assertEquals(27, instance.position());
+    assertEquals(FILE_SIZE - 27, instance.remaining());
+
+    byte[] bytes = new byte[100];
+    instance.get(bytes, 10, 90);
+    byte[] expectedBytes = new byte[100];
+    expected.get(expectedBytes, 10, 90);
+    assertArrayEquals(expectedBytes, bytes);
+
+    instance.mark();
+    long value = instance.getLong();
+    instance.reset();
+    assertEquals(value, instance.getLong());
+
+    instance.position(FILE_SIZE - 2);
+    assertThrows(BufferUnderflowException.class, () -> instance.getInt());
+    assertEquals(FILE_SIZE - 2, instance.position(), "a failed read should not move");
+    assertThrows(BufferOverflowException.class, () -> instance.position(FILE_SIZE + 1));
+  }
+
+  @Test
+  void byteOrder() {
+    assertEquals(ByteOrder.nativeOrder(), instance.order());
+    // like a freshly mapped MappedByteBuffer, which is big-endian
+    assertEquals(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN, instance.isNativeOrder());
+
+    for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+      ByteBuffer expected = expected(order);
+      instance.order(order);
+      instance.position(0);
+      assertEquals(order, instance.order());
+      assertEquals(expected.getShort(), instance.getShort(), order.toString());
+      assertEquals(expected.getInt(), instance.getInt(), order.toString());
+      assertEquals(expected.getFloat(), instance.getFloat(), order.toString());
+      assertEquals(expected.getDouble(), instance.getDouble(), order.toString());
+      assertEquals(expected.getLong(), instance.getLong(), order.toString());
+      assertEquals(expected.getInt(101), instance.getInt(101), order.toString());
+      assertEquals(expected.getLong(203), instance.getLong(203), order.toString());
+    }
+  }
+
+  @Test
+  void slices() {
+    ByteBuffer expected = expected(ByteOrder.nativeOrder());
+    CustomByteBuffer slice = instance.slice(1000, 500);
+    assertEquals(500, slice.limit());
+    assertEquals(0, slice.position());
+    assertEquals(expected.getLong(1000), slice.getLong());
+    assertEquals(expected.getInt(1496), slice.getInt(496));
+    assertThrows(IndexOutOfBoundsException.class, () -> slice.get(500));
+
+    instance.position(3000);
+    CustomByteBuffer rest = instance.slice();
+    assertEquals(FILE_SIZE - 3000, rest.limit());
+    assertEquals(expected.get(3000), rest.get());
+
+    CustomByteBuffer nested = slice.slice(100, 8);
+    assertEquals(expected.getLong(1100), nested.getLong());
+    assertThrows(BufferOverflowException.class, () -> instance.slice(FILE_SIZE - 10, 11));
+    assertThrows(BufferOverflowException.class, () -> slice.slice(-1, 4));
+  }
+
+  @Test
+  void peekLongReadsLittleEndianWithoutMoving() {
+    ByteBuffer expected = expected(ByteOrder.LITTLE_ENDIAN);
+    for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+      instance.order(order);
+      instance.position(77);
+      assertEquals(expected.getLong(77), instance.peekLong(), order.toString());
+      assertEquals(77, instance.position());
+    }
+  }
+
+  @Test
+  void load() {
+    assertTrue(instance.load(0, FILE_SIZE));
+    assertTrue(instance.load(1024, 10 * FILE_SIZE), "ranges past the end should be truncated");
+    assertTrue(instance.load(FILE_SIZE, 1));
+    assertTrue(instance.slice(512, 512).load(0, 512));
+    assertEquals(data[2048], instance.get(2048));
+  }
+
+  @Test
+  void readsFailAfterClose() throws IOException {
+    CustomByteBuffer slice = instance.slice(100, 100);
+    slice.close();
+    assertEquals(data[150], slice.get(50), "closing a slice should keep the mapping");
+
+    instance.close();
+    assertThrows(IllegalStateException.class, () -> instance.get(0));
+    assertThrows(IllegalStateException.class, () -> instance.getLong());
+    assertThrows(IllegalStateException.class, () -> instance.peekLong());
+    assertThrows(IllegalStateException.class, () -> instance.load(0, FILE_SIZE));
+    assertThrows(IllegalStateException.class, () -> slice.getInt(0));
+    // closing again does nothing
+    instance.close();
+  }
+
+  @Test
+  void readsBeyondTwoGigabytes(@TempDir Path tempDir) throws IOException {
+    Path sparse = tempDir.resolve("large.bin");
+    long offset = (1L << 31) + 5;
+    try (RandomAccessFile file = new RandomAccessFile(sparse.toFile(), "rw")) {
+      file.setLength(offset + 16);
+      file.seek(offset);
+      file.writeLong(0x0102030405060708L);
+    }
+
+    SegmentMappedByteBuffer large = SegmentMappedByteBuffer.map(sparse);
+    try {
+      assertEquals(offset + 16, large.limit());
+      large.order(ByteOrder.BIG_ENDIAN);
+      assertEquals(0x0102030405060708L, large.getLong(offset));
+      large.position(offset + 4);
+      assertEquals(0x05060708, large.getInt());
+      assertEquals(
+          0x0102030405060708L, large.slice(offset, 8).order(ByteOrder.BIG_ENDIAN).getLong());
+    } finally {
+      large.close();
+    }
+  }
+
+  private static ByteBuffer expected(ByteOrder order) {
+    return ByteBuffer.wrap(data).order(order);
+  }
+}
@@ -0,0 +1,7 @@
+package io.jafar.utils;
+
+/**
+ * Runs {@link SplicedMappedByteBufferTest} against the Java 21 copy of {@link
+ * SplicedMappedByteBuffer}, which maps files when memory segments are unavailable.
+ */
+public class SplicedMappedByteBuffer21Test extends SplicedMappedByteBufferTest {}
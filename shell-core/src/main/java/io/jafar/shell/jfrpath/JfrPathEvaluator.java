@@ -4,6 +4,7 @@ import static io.jafar.shell.jfrpath.JfrPath.*;
 
 import io.jafar.parser.api.ArrayType;
 import io.jafar.parser.api.ComplexType;
+import io.jafar.parser.api.FieldFilter;
 import io.jafar.parser.api.UntypedJafarParser;
 import io.jafar.parser.api.Values;
 import io.jafar.shell.JFRSession;
@@ -46,6 +47,32 @@ import java.util.function.Consumer;
 public final class JfrPathEvaluator {
   public interface EventSource {
     void streamEvents(Path recording, Consumer<Event> consumer) throws Exception;
+
+    /**
+     * Streams only events of the given types. Sources able to skip other event types without
+     * decoding them should override this; the default filters the full event stream.
+     */
+    default void streamEvents(Path recording, Set<String> eventTypes, Consumer<Event> consumer)
+        throws Exception {
+      streamEvents(
+          recording,
+          ev -> {
+            if (eventTypes.contains(ev.typeName())) {
+              consumer.accept(ev);
+            }
+          });
+    }
+
+    /**
+     * Streams events of the given types, letting the source skip events rejected by the field
+     * filters before decoding them. The filters are a hint only: callers must still check the
+     * events they receive. The default ignores the filters.
+     */
+    default void streamEvents(
+        Path recording, Set<String> eventTypes, List<FieldFilter> filters, Consumer<Event> consumer)
+        throws Exception {
+      streamEvents(recording, eventTypes, consumer);
+    }
   }
 
   @FunctionalInterface
@@ -134,10 +161,13 @@ public final class JfrPathEvaluator {
 
   private void streamMatching(
       JFRSession session, Query query, Consumer<Map<String, Object>> consumer) throws Exception {
+    List<FieldFilter> pushdown = pushdownFilters(query.predicates);
     if (query.isMultiType) {
       Set<String> typeSet = new HashSet<>(query.eventTypes);
       source.streamEvents(
           session.getRecordingPath(),
+          typeSet,
+          pushdown,
           ev -> {
             if (!typeSet.contains(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -149,6 +179,8 @@ public final class JfrPathEvaluator {
       String eventType = query.eventTypes.get(0);
       source.streamEvents(
           session.getRecordingPath(),
+          Set.of(eventType),
+          pushdown,
           ev -> {
             if (!eventType.equals(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -159,6 +191,26 @@ public final class JfrPathEvaluator {
     }
   }
 
+  /**
+   * Translates the field predicates on plain top-level fields into parser field filters, so that
+   * events are checked before their maps are built. Each filter evaluates the rest of the path
+   * exactly like {@link #matchesAll}; predicates it cannot express are left to {@code matchesAll}.
+   */
+  private List<FieldFilter> pushdownFilters(List<Predicate> predicates) {
+    List<FieldFilter> filters = new ArrayList<>();
+    for (Predicate p : predicates) {
+      if (p instanceof FieldPredicate fp
+          && !fp.fieldPath.isEmpty()
+          && fp.fieldPath.get(0).indexOf('[') < 0) {
+        JfrPath.MatchMode mode = fp.matchMode != null ? fp.matchMode : defaultListMatchMode;
+        filters.add(
+            FieldFilter.of(
+                fp.fieldPath.get(0), v -> deepMatch(v, fp.fieldPath, 1, fp.op, fp.literal, mode)));
+      }
+    }
+    return filters;
+  }
+
   public List<Map<String, Object>> evaluate(JFRSession session, Query query) throws Exception {
     return evaluate(session, query, null);
   }
@@ -323,6 +375,7 @@ public final class JfrPathEvaluator {
       List<Object> out = new ArrayList<>();
       source.streamEvents(
           session.getRecordingPath(),
+          Set.of(eventType),
           ev -> {
             if (!eventType.equals(ev.typeName)) return; // filter type
             Map<String, Object> map = ev.value;
@@ -910,6 +963,7 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -935,6 +989,7 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1040,6 +1095,7 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1050,6 +1106,7 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1351,6 +1408,8 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
+            pushdownFilters(query.predicates),
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               if (matchesAll(ev.value(), query.predicates)) c[0]++;
@@ -1360,6 +1419,8 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
+            pushdownFilters(query.predicates),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               if (matchesAll(ev.value(), query.predicates)) c[0]++;
@@ -1410,6 +1471,7 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1422,6 +1484,7 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1466,6 +1529,7 @@ public final class JfrPathEvaluator {
       List<String> path = vpath;
       source.streamEvents(
           session.getRecordingPath(),
+          Set.of(eventType),
           ev -> {
             if (!eventType.equals(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -1531,6 +1595,7 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1546,6 +1611,7 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1605,6 +1671,7 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1640,6 +1707,7 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1848,6 +1916,7 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1860,6 +1929,7 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1932,6 +2002,7 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -1944,6 +2015,7 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -2017,6 +2089,7 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -2029,6 +2102,7 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -2069,6 +2143,7 @@ public final class JfrPathEvaluator {
         Set<String> typeSet = new HashSet<>(query.eventTypes);
         source.streamEvents(
             session.getRecordingPath(),
+            typeSet,
             ev -> {
               if (!typeSet.contains(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -2079,6 +2154,7 @@ public final class JfrPathEvaluator {
         String eventType = query.eventTypes.get(0);
         source.streamEvents(
             session.getRecordingPath(),
+            Set.of(eventType),
             ev -> {
               if (!eventType.equals(ev.typeName())) return;
               Map<String, Object> map = ev.value();
@@ -2147,6 +2223,7 @@ public final class JfrPathEvaluator {
       String eventType = query.segments.get(0);
       source.streamEvents(
           session.getRecordingPath(),
+          Set.of(eventType),
           ev -> {
             if (!eventType.equals(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -2191,6 +2268,7 @@ public final class JfrPathEvaluator {
       String eventType = query.segments.get(0);
       source.streamEvents(
           session.getRecordingPath(),
+          Set.of(eventType),
           ev -> {
             if (!eventType.equals(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -2702,6 +2780,7 @@ public final class JfrPathEvaluator {
     List<Map<String, Object>> result = new ArrayList<>();
     source.streamEvents(
         session.getRecordingPath(),
+        Set.of(primaryType),
         ev -> {
           if (!primaryType.equals(ev.typeName())) return;
           if (!matchesAll(ev.value(), query.predicates)) return;
@@ -2726,6 +2805,7 @@ public final class JfrPathEvaluator {
 
     source.streamEvents(
         recording,
+        Set.of(op.decoratorEventType),
         ev -> {
           if (!op.decoratorEventType.equals(ev.typeName())) return;
 
@@ -2807,6 +2887,7 @@ public final class JfrPathEvaluator {
     List<Map<String, Object>> result = new ArrayList<>();
     source.streamEvents(
         session.getRecordingPath(),
+        Set.of(primaryType),
         ev -> {
           if (!primaryType.equals(ev.typeName())) return;
           if (!matchesAll(ev.value(), query.predicates)) return;
@@ -2832,6 +2913,7 @@ public final class JfrPathEvaluator {
 
     source.streamEvents(
         recording,
+        Set.of(op.decoratorEventType),
         ev -> {
           if (!op.decoratorEventType.equals(ev.typeName())) return;
 
@@ -3034,14 +3116,50 @@ public final class JfrPathEvaluator {
 
   /** Default EventSource that streams all events untyped from a recording. */
   static final class DefaultEventSource implements EventSource {
+    /**
+     * Set {@code -Djfr.shell.eventIndex=true} to use and write .jfridx sidecars next to the
+     * recordings. Off by default as the recording directory may be read-only or shared.
+     */
+    private static final boolean EVENT_INDEX =
+        Boolean.parseBoolean(System.getProperty("jfr.shell.eventIndex", "false"));
+
     @Override
     public void streamEvents(Path recording, Consumer<Event> consumer) throws Exception {
-      try (UntypedJafarParser p =
-          io.jafar.parser.api.ParsingContext.create().newUntypedParser(recording)) {
+      try (UntypedJafarParser p = newParser(recording)) {
         p.handle((type, value, ctl) -> consumer.accept(new Event(type.getName(), value)));
         p.run();
       }
     }
+
+    @Override
+    public void streamEvents(Path recording, Set<String> eventTypes, Consumer<Event> consumer)
+        throws Exception {
+      try (UntypedJafarParser p = newParser(recording)) {
+        p.handle(
+            eventTypes, (type, value, ctl) -> consumer.accept(new Event(type.getName(), value)));
+        p.run();
+      }
+    }
+
+    @Override
+    public void streamEvents(
+        Path recording, Set<String> eventTypes, List<FieldFilter> filters, Consumer<Event> consumer)
+        throws Exception {
+      try (UntypedJafarParser p = newParser(recording)) {
+        p.handle(
+            eventTypes,
+            filters,
+            (type, value, ctl) -> consumer.accept(new Event(type.getName(), value)));
+        p.run();
+      }
+    }
+
+    private static UntypedJafarParser newParser(Path recording) {
+      return io.jafar.parser.api.ParsingContext.builder()
+          .eventIndex(EVENT_INDEX)
+          .build()
+          .newUntypedParser(recording);
+    }
   }
 
   // Metadata is provided by MetadataProvider; keep a public wrapper for compatibility
@@ -3611,6 +3729,7 @@ public final class JfrPathEvaluator {
       Set<String> typeSet = new HashSet<>(query.eventTypes);
       source.streamEvents(
           session.getRecordingPath(),
+          typeSet,
           ev -> {
             if (!typeSet.contains(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -3625,6 +3744,7 @@ public final class JfrPathEvaluator {
       String eventType = query.eventTypes.get(0);
       source.streamEvents(
           session.getRecordingPath(),
+          Set.of(eventType),
           ev -> {
             if (!eventType.equals(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -3835,6 +3955,7 @@ public final class JfrPathEvaluator {
       Set<String> typeSet = new HashSet<>(query.eventTypes);
       source.streamEvents(
           session.getRecordingPath(),
+          typeSet,
           ev -> {
             if (!typeSet.contains(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -3850,6 +3971,7 @@ public final class JfrPathEvaluator {
       String eventType = query.eventTypes.get(0);
       source.streamEvents(
           session.getRecordingPath(),
+          Set.of(eventType),
           ev -> {
             if (!eventType.equals(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -3904,6 +4026,7 @@ public final class JfrPathEvaluator {
       Set<String> typeSet = new HashSet<>(query.eventTypes);
       source.streamEvents(
           session.getRecordingPath(),
+          typeSet,
           ev -> {
             if (!typeSet.contains(ev.typeName())) return;
             Map<String, Object> map = ev.value();
@@ -3942,6 +4065,7 @@ public final class JfrPathEvaluator {
       String eventType = query.eventTypes.get(0);
       source.streamEvents(
           session.getRecordingPath(),
+          Set.of(eventType),
           ev -> {
             if (!eventType.equals(ev.typeName())) return;
             Map<String, Object> map = ev.value();